@@ -0,0 +1,75 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.context;
+
+import java.util.concurrent.CancellationException;
+
+/**
+ * Cancellation state of a call, the client can cancel a call it does not wait anymore.<br>
+ * Long running services can query it from OcelotContext and stop early.<br>
+ * If the call is executed by an ocelot worker, the worker is interrupted too
+ *
+ * @author hhfrancois
+ */
+public class CancellationToken {
+
+	private volatile boolean cancelled = false;
+
+	private boolean interrupted = false;
+
+	private Thread thread = null;
+
+	public boolean isCancelled() {
+		return cancelled;
+	}
+
+	/**
+	 * Throw CancellationException if call is cancelled
+	 */
+	public void throwIfCancelled() {
+		if (cancelled) {
+			throw new CancellationException("Call cancelled by client");
+		}
+	}
+
+	/**
+	 * Cancel call, interrupt the thread executing it if any
+	 */
+	public synchronized void cancel() {
+		cancelled = true;
+		if (thread != null) {
+			thread.interrupt();
+		}
+	}
+
+	/**
+	 * Interrupt the thread executing the call without cancel it, the call is timed out
+	 */
+	public synchronized void interrupt() {
+		if (thread != null) {
+			interrupted = true;
+			thread.interrupt();
+		}
+	}
+
+	/**
+	 * Thread executing the call can be interrupted on cancel
+	 *
+	 * @param thread
+	 */
+	public synchronized void attach(Thread thread) {
+		this.thread = thread;
+	}
+
+	/**
+	 * Call is not executed by the attached thread anymore, clear interrupt status set by cancel or interrupt
+	 */
+	public synchronized void detach() {
+		if (thread != null && (cancelled || interrupted) && thread == Thread.currentThread()) {
+			Thread.interrupted();
+		}
+		this.thread = null;
+		this.interrupted = false;
+	}
+}
@@ -75,7 +75,30 @@ public class OcelotContext {
 		return false;
 	}
 
+	/**
+	 * Principal of current call, set in thread context when the call is received, so it is right on workers too.<br>
+	 * Else the principal of container
+	 *
+	 * @return
+	 */
 	public Principal getPrincipal() {
+		Principal current = (Principal) ThreadLocalContextHolder.get(Constants.PRINCIPAL);
+		if (current != null) {
+			return current;
+		}
 		return principal;
 	}
+
+	/**
+	 * Cancellation state of current call
+	 *
+	 * @return token of current call, never cancelled if current call cannot be cancelled
+	 */
+	public CancellationToken getCancellationToken() {
+		CancellationToken token = (CancellationToken) ThreadLocalContextHolder.get(Constants.CANCELLATIONTOKEN);
+		if (token == null) {
+			return new CancellationToken();
+		}
+		return token;
+	}
 }
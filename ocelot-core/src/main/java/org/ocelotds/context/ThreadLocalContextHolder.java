@@ -40,6 +40,32 @@ public class ThreadLocalContextHolder {
 		return map.get(key);
 	}
 
+	/**
+	 * Copy of the context of current thread, for propagate it to another thread
+	 *
+	 * @return copy of context, null if there is no context
+	 */
+	public static Map<String, Object> getContext() {
+		Map<String, Object> map = THREAD_WITH_CONTEXT.get();
+		if (map == null) {
+			return null;
+		}
+		return new HashMap<>(map);
+	}
+
+	/**
+	 * Set the context of current thread, typically a context got from another thread
+	 *
+	 * @param context
+	 */
+	public static void setContext(Map<String, Object> context) {
+		if (context == null) {
+			THREAD_WITH_CONTEXT.remove();
+		} else {
+			THREAD_WITH_CONTEXT.set(context);
+		}
+	}
+
 	public static void cleanupThread() {
 		THREAD_WITH_CONTEXT.remove();
 	}
@@ -0,0 +1,36 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.marshalling;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+
+/**
+ * The ObjectMapper of ocelot, created once.<br>
+ * ObjectMapper is expensive to create but thread safe once configured, it is produced as OcelotObject and used to write responses
+ *
+ * @author hhfrancois
+ */
+public final class SharedObjectMapper {
+
+	private static final ObjectMapper OBJECT_MAPPER = new ObjectMapper();
+
+	private static final ObjectWriter OBJECT_WRITER = OBJECT_MAPPER.writer();
+
+	private SharedObjectMapper() {
+	}
+
+	public static ObjectMapper getObjectMapper() {
+		return OBJECT_MAPPER;
+	}
+
+	/**
+	 * Writer preconfigured from the shared ObjectMapper
+	 *
+	 * @return
+	 */
+	public static ObjectWriter getObjectWriter() {
+		return OBJECT_WRITER;
+	}
+}
@@ -0,0 +1,97 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.messaging;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import java.beans.IntrospectionException;
+import java.beans.Introspector;
+import java.beans.PropertyDescriptor;
+import java.io.IOException;
+import java.lang.reflect.InvocationTargetException;
+import java.util.Map;
+import org.ocelotds.annotations.JsTopicConflate;
+import org.ocelotds.marshalling.SharedObjectMapper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * Compute key of latest-value conflation of a topic message : the topic, completed by the value of a property of payload.<br>
+ * The value is separated by a character that topics don't use, so the key of prices and EUR doesn't collide with the topic prices:EUR
+ *
+ * @author hhfrancois
+ */
+public class ConflationKeyMaker {
+
+	private static final Logger logger = LoggerFactory.getLogger(ConflationKeyMaker.class);
+
+	static final String SEPARATOR = "\u0000";
+
+	/**
+	 * Get conflation key of message to topic
+	 *
+	 * @param jsTopicConflate
+	 * @param topic
+	 * @param payload : object, or json
+	 * @return topic if property is not specified or cannot be read
+	 */
+	public String getConflationKey(JsTopicConflate jsTopicConflate, String topic, Object payload) {
+		String property = jsTopicConflate.key();
+		if (property.isEmpty() || payload == null) {
+			return topic;
+		}
+		String value = getPropertyValue(property, payload);
+		if (value == null) {
+			return topic;
+		}
+		return topic + SEPARATOR + value;
+	}
+
+	/**
+	 * Get value of property of payload, payload can be json, a map or a bean
+	 *
+	 * @param property
+	 * @param payload
+	 * @return null if property cannot be read
+	 */
+	String getPropertyValue(String property, Object payload) {
+		Object value = null;
+		try {
+			if (String.class.isInstance(payload)) {
+				JsonNode node = SharedObjectMapper.getObjectMapper().readTree((String) payload).get(property);
+				if (node != null && !node.isNull()) {
+					return node.isValueNode() ? node.asText() : node.toString();
+				}
+			} else if (Map.class.isInstance(payload)) {
+				value = ((Map) payload).get(property);
+			} else {
+				value = getBeanPropertyValue(property, payload);
+			}
+		} catch (IOException | IntrospectionException | IllegalAccessException | InvocationTargetException | RuntimeException ex) {
+			logger.debug("Fail to read property '{}' of {}, message is conflated by topic : {}", property, payload.getClass().getName(), ex.getMessage());
+		}
+		if (value != null) {
+			return value.toString();
+		}
+		return null;
+	}
+
+	/**
+	 * Get value of property of bean by its getter
+	 *
+	 * @param property
+	 * @param bean
+	 * @return
+	 * @throws IntrospectionException
+	 * @throws IllegalAccessException
+	 * @throws InvocationTargetException
+	 */
+	Object getBeanPropertyValue(String property, Object bean) throws IntrospectionException, IllegalAccessException, InvocationTargetException {
+		for (PropertyDescriptor descriptor : Introspector.getBeanInfo(bean.getClass()).getPropertyDescriptors()) {
+			if (descriptor.getName().equals(property) && descriptor.getReadMethod() != null) {
+				return descriptor.getReadMethod().invoke(bean);
+			}
+		}
+		return null;
+	}
+}
@@ -4,6 +4,7 @@
 package org.ocelotds.messaging;
 
 import org.ocelotds.annotations.JsTopic;
+import org.ocelotds.annotations.JsTopicConflate;
 import org.ocelotds.annotations.JsTopicName;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
@@ -106,6 +107,19 @@ public class JsTopicInterceptor implements Serializable {
 		return jsTopic.jsonPayload();
 	}
 
+	/**
+	 * Get JsTopicConflate annotation on method
+	 *
+	 * @param method
+	 * @return null if topic is not conflated
+	 */
+	JsTopicConflate getJsTopicConflate(Method method) {
+		if(null == method) {
+			return null;
+		}
+		return method.getAnnotation(JsTopicConflate.class);
+	}
+
 	/**
 	 * Get JsTopicName annotation
 	 *
@@ -159,6 +173,10 @@ public class JsTopicInterceptor implements Serializable {
 		} else {
 			messageToClient.setResponse(result);
 		}
+		JsTopicConflate jsTopicConflate = getJsTopicConflate(ctx.getMethod());
+		if(null != jsTopicConflate) {
+			messageToClient.setConflationKey(new ConflationKeyMaker().getConflationKey(jsTopicConflate, topic, result));
+		}
 		wsEvent.fire(messageToClient);
 		return result;
 	}
@@ -0,0 +1,78 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.messaging;
+
+import java.io.Writer;
+
+/**
+ * Writer in a StringBuilder reused by the thread, json of messages is written without intermediate strings.<br>
+ * Buffer grown by a large message is not kept
+ *
+ * @author hhfrancois
+ */
+class JsonBuffer extends Writer {
+
+	static final int INITIAL_CAPACITY = 1024;
+
+	static final int MAX_KEPT_CAPACITY = 64 * 1024;
+
+	private static final ThreadLocal<JsonBuffer> BUFFERS = new ThreadLocal<JsonBuffer>() {
+		@Override
+		protected JsonBuffer initialValue() {
+			return new JsonBuffer();
+		}
+	};
+
+	private StringBuilder sb = new StringBuilder(INITIAL_CAPACITY);
+
+	/**
+	 * Get empty buffer of current thread
+	 *
+	 * @return
+	 */
+	static JsonBuffer get() {
+		return BUFFERS.get().reset();
+	}
+
+	JsonBuffer reset() {
+		if (sb.capacity() > MAX_KEPT_CAPACITY) {
+			sb = new StringBuilder(INITIAL_CAPACITY);
+		} else {
+			sb.setLength(0);
+		}
+		return this;
+	}
+
+	int capacity() {
+		return sb.capacity();
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) {
+		sb.append(cbuf, off, len);
+	}
+
+	@Override
+	public void write(int c) {
+		sb.append((char) c);
+	}
+
+	@Override
+	public void write(String str, int off, int len) {
+		sb.append(str, off, off + len);
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	@Override
+	public void close() {
+	}
+
+	@Override
+	public String toString() {
+		return sb.toString();
+	}
+}
@@ -5,16 +5,13 @@
 package org.ocelotds.messaging;
 
 import org.ocelotds.Constants;
-import java.io.StringReader;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.IOException;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
-import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonObject;
-import javax.json.JsonReader;
-import javax.json.JsonString;
-import javax.json.JsonValue;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,13 +23,28 @@ import org.slf4j.LoggerFactory;
 public class MessageFromClient {
 
 	private static final Logger logger = LoggerFactory.getLogger(MessageFromClient.class);
+	private static final JsonFactory JSONFACTORY = new JsonFactory();
+	private static final String CANCEL_PREFIX = "{" + Constants.QUOTE + Constants.Message.CANCEL + Constants.QUOTE;
 	protected String id;
 	protected String dataService;
 	protected String operation;
+	/**
+	 * signature of method, md5 of parameter types, optional
+	 */
+	protected String signature;
 	/**
 	 * parameters json format
 	 */
 	protected List<String> parameters = new ArrayList<>();
+	/**
+	 * time in ms since epoch, on server clock, after which client doesn't wait the response anymore.<br>
+	 * Client sends the time it still waits (budget), the deadline is computed from reception, so it doesn't depend of client clock
+	 */
+	protected long deadline = 0;
+	/**
+	 * time of reception
+	 */
+	protected final long received = System.currentTimeMillis();
 
 	public String getId() {
 		return id;
@@ -58,6 +70,14 @@ public class MessageFromClient {
 		this.operation = operation;
 	}
 
+	public String getSignature() {
+		return signature;
+	}
+
+	public void setSignature(String signature) {
+		this.signature = signature;
+	}
+
 	public List<String> getParameters() {
 		return parameters;
 	}
@@ -66,6 +86,23 @@ public class MessageFromClient {
 		this.parameters = parameters;
 	}
 
+	/**
+	 * Deadline of client on server clock, 0 if none
+	 *
+	 * @return
+	 */
+	public long getDeadline() {
+		return deadline;
+	}
+
+	public void setDeadline(long deadline) {
+		this.deadline = deadline;
+	}
+
+	public long getReceived() {
+		return received;
+	}
+
 	@Override
 	public int hashCode() {
 		int hash = 5;
@@ -85,26 +122,163 @@ public class MessageFromClient {
 		return Objects.equals(this.id, other.id);
 	}
 
+	/**
+	 * Decode message in one pass.<br>
+	 * Arguments are not parsed, each argument is kept as raw json slice of the frame, and will be bound to the parameter type when the method is known.
+	 *
+	 * @param json
+	 * @return
+	 */
 	public static MessageFromClient createFromJson(String json) {
+		try (JsonParser parser = JSONFACTORY.createParser(json)) {
+			if (parser.nextToken() != JsonToken.START_OBJECT) {
+				throw new IllegalArgumentException("Message from client is not a json object : " + json);
+			}
+			return readMessage(parser, json);
+		} catch (IOException ex) {
+			throw new IllegalArgumentException("Fail to decode message from client : " + json, ex);
+		}
+	}
+
+	/**
+	 * Decode a batch of messages in one pass, json is an array of messages
+	 *
+	 * @param json
+	 * @return
+	 */
+	public static List<MessageFromClient> createListFromJson(String json) {
+		List<MessageFromClient> messages = new ArrayList<>();
+		try (JsonParser parser = JSONFACTORY.createParser(json)) {
+			if (parser.nextToken() != JsonToken.START_ARRAY) {
+				throw new IllegalArgumentException("Batch of messages from client is not a json array : " + json);
+			}
+			while (parser.nextToken() == JsonToken.START_OBJECT) {
+				messages.add(readMessage(parser, json));
+			}
+		} catch (IOException ex) {
+			throw new IllegalArgumentException("Fail to decode batch of messages from client : " + json, ex);
+		}
+		return messages;
+	}
+
+	/**
+	 * json is a batch of messages
+	 *
+	 * @param json
+	 * @return
+	 */
+	public static boolean isBatch(String json) {
+		if (json != null) {
+			for (int idx = 0; idx < json.length(); idx++) {
+				char c = json.charAt(idx);
+				if (!Character.isWhitespace(c)) {
+					return c == '[';
+				}
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Get id of the call to cancel, if json is a cancel command : {"cancel":"id"}
+	 *
+	 * @param json
+	 * @return id of call, null if json is not a cancel command
+	 */
+	public static String getCancelledId(String json) {
+		if (json == null || !json.startsWith(CANCEL_PREFIX)) {
+			return null;
+		}
+		try (JsonParser parser = JSONFACTORY.createParser(json)) {
+			parser.nextToken();
+			parser.nextToken();
+			parser.nextToken();
+			return parser.getValueAsString();
+		} catch (IOException ex) {
+			throw new IllegalArgumentException("Fail to decode cancel command from client : " + json, ex);
+		}
+	}
+
+	/**
+	 * Read fields of message, parser is positioned on START_OBJECT
+	 *
+	 * @param parser
+	 * @param json
+	 * @return
+	 * @throws IOException
+	 */
+	static MessageFromClient readMessage(JsonParser parser, String json) throws IOException {
 		MessageFromClient message = new MessageFromClient();
-		try (JsonReader reader = Json.createReader(new StringReader(json))) {
-			JsonObject root = reader.readObject();
-			message.setId(root.getString(Constants.Message.ID));
-			message.setDataService(root.getString(Constants.Message.DATASERVICE));
-			message.setOperation(root.getString(Constants.Message.OPERATION));
-			logger.debug("Get arguments from message '{}'", json);
-			message.setParameters(getArgumentsFromMessage(root.getJsonArray(Constants.Message.ARGUMENTS)));
+		while (parser.nextToken() == JsonToken.FIELD_NAME) {
+			String field = parser.getCurrentName();
+			parser.nextToken();
+			readField(parser, field, json, message);
 		}
 		return message;
 	}
 
-	static List<String> getArgumentsFromMessage(JsonArray argArray) {
+	/**
+	 * Read value of field, parser is positioned on the first token of value
+	 *
+	 * @param parser
+	 * @param field
+	 * @param json
+	 * @param message
+	 * @throws IOException
+	 */
+	static void readField(JsonParser parser, String field, String json, MessageFromClient message) throws IOException {
+		switch (field) {
+			case Constants.Message.ID:
+				message.setId(parser.getValueAsString());
+				break;
+			case Constants.Message.DATASERVICE:
+				message.setDataService(parser.getValueAsString());
+				break;
+			case Constants.Message.OPERATION:
+				message.setOperation(parser.getValueAsString());
+				break;
+			case Constants.Message.SIGNATURE:
+				message.setSignature(parser.getValueAsString());
+				break;
+			case Constants.Message.BUDGET:
+				message.setDeadline(message.getReceived() + Math.max(parser.getValueAsLong(), 0L));
+				break;
+			case Constants.Message.ARGUMENTS:
+				logger.debug("Get arguments from message '{}'", json);
+				message.setParameters(getArgumentsFromMessage(parser, json));
+				break;
+			default:
+				parser.skipChildren();
+		}
+	}
+
+	/**
+	 * Get raw json of each argument, parser is positioned on START_ARRAY
+	 *
+	 * @param parser
+	 * @param json
+	 * @return
+	 * @throws IOException
+	 */
+	static List<String> getArgumentsFromMessage(JsonParser parser, String json) throws IOException {
 		List<String> params = new ArrayList<>();
-		for (JsonValue arg : argArray) {
-			if (logger.isDebugEnabled()) {
-				logger.debug("Get argument Type : '{}'. Value : '{}'", arg.getValueType().name(), arg);
+		if (parser.getCurrentToken() != JsonToken.START_ARRAY) {
+			parser.skipChildren();
+			return params;
+		}
+		while (parser.nextToken() != JsonToken.END_ARRAY) {
+			int start = (int) parser.getTokenLocation().getCharOffset();
+			if (parser.getCurrentToken() == JsonToken.VALUE_STRING) {
+				parser.getTextLength(); // string content is read lazily, finish it before take the location
+			}
+			parser.skipChildren();
+			int end = (int) parser.getCurrentLocation().getCharOffset();
+			while (start < end && (json.charAt(start) == ',' || Character.isWhitespace(json.charAt(start)))) { // token location can include separator
+				start++;
 			}
-			params.add(arg.toString());
+			String arg = json.substring(start, end);
+			logger.debug("Get argument Type : '{}'. Value : '{}'", parser.getCurrentToken(), arg);
+			params.add(arg);
 		}
 		return params;
 	}
@@ -4,10 +4,15 @@
  */
 package org.ocelotds.messaging;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
-import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import org.ocelotds.Constants;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.List;
 import java.util.Objects;
+import org.ocelotds.marshalling.SharedObjectMapper;
 
 /**
  * Message to Client, for response after message from client. Server send this response asynchronous
@@ -46,6 +51,11 @@ public class MessageToClient {
 	 */
 	protected long deadline = 0L;
 
+	/**
+	 * Key of latest-value conflation, not sent to client
+	 */
+	protected String conflationKey = null;
+
 	public String getJson() {
 		return json;
 	}
@@ -111,6 +121,19 @@ public class MessageToClient {
 		this.time = time;
 	}
 
+	/**
+	 * Message waiting to be sent to a session is replaced by a newer message with the same key
+	 *
+	 * @return null if message is not conflated
+	 */
+	public String getConflationKey() {
+		return conflationKey;
+	}
+
+	public void setConflationKey(String conflationKey) {
+		this.conflationKey = conflationKey;
+	}
+
 	@Override
 	public int hashCode() {
 		int hash = 7;
@@ -130,27 +153,199 @@ public class MessageToClient {
 		return Objects.equals(this.id, other.id);
 	}
 
-	public String toJson() {
-		ObjectMapper mapper = getObjectMapper();
+	/**
+	 * Response in json format : json if set, else serialized response
+	 *
+	 * @return 
+	 */
+	public String getJsonResponse() {
 		String jsonResponse = this.json;
 		try {
 			if (null == jsonResponse) {
 				if(MessageType.FAULT.equals(this.getType())) {
 					jsonResponse = ((Fault) this.getResponse()).toJson();
 				} else {
-					jsonResponse = mapper.writeValueAsString(this.getResponse());
+					jsonResponse = getObjectWriter().writeValueAsString(this.getResponse());
 				}
 			}
 		} catch (JsonProcessingException ex) {
 			jsonResponse = new Fault(ex, 0).toJson();
 		}
-		return String.format("{\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":%s,\"%s\":%s,\"%s\":%s}",
-				  Constants.Message.TYPE, this.getType(), Constants.Message.ID, this.getId(), Constants.Message.TIME, this.getTime(),
-				  Constants.Message.DEADLINE, this.getDeadline(), Constants.Message.RESPONSE, jsonResponse);
+		return jsonResponse;
+	}
+
+	/**
+	 * Message in json format.<br>
+	 * Envelope and response are written by a generator in the buffer of thread, response is serialized by the shared writer
+	 *
+	 * @return 
+	 */
+	public String toJson() {
+		try {
+			return write(null);
+		} catch (JsonProcessingException ex) {
+			try {
+				return write(new Fault(ex, 0).toJson());
+			} catch (IOException e) {
+				throw new IllegalStateException(e);
+			}
+		} catch (IOException ex) {
+			throw new IllegalStateException(ex);
+		}
+	}
+
+	/**
+	 * Write message in buffer of thread
+	 *
+	 * @param jsonResponse : response already in json, null for serialize response
+	 * @return
+	 * @throws IOException
+	 */
+	String write(String jsonResponse) throws IOException {
+		JsonBuffer buffer = JsonBuffer.get();
+		try (JsonGenerator generator = createGenerator(buffer)) {
+			writeJson(generator, jsonResponse);
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Write message in json format to writer, writer is not closed.<br>
+	 * Unlike toJson, a response failing to serialize is not replaced by a fault, part of message can be already written
+	 *
+	 * @param writer
+	 * @throws IOException
+	 */
+	public void writeTo(Writer writer) throws IOException {
+		try (JsonGenerator generator = createGenerator(writer)) {
+			writeJson(generator, null);
+		}
+	}
+
+	/**
+	 * Write json array of messages to writer, writer is not closed
+	 *
+	 * @param messages
+	 * @param writer
+	 * @throws IOException
+	 */
+	public static void writeTo(List<MessageToClient> messages, Writer writer) throws IOException {
+		try (JsonGenerator generator = createGenerator(writer)) {
+			writeJson(messages, generator);
+		}
+	}
+
+	/**
+	 * Write message with a generator of any format, like CBOR.<br>
+	 * A response failing to serialize is not replaced by a fault
+	 *
+	 * @param generator
+	 * @throws IOException
+	 */
+	public void writeTo(JsonGenerator generator) throws IOException {
+		writeJson(generator, null);
+	}
+
+	/**
+	 * Write array of messages with a generator of any format
+	 *
+	 * @param messages
+	 * @param generator
+	 * @throws IOException
+	 */
+	public static void writeTo(List<MessageToClient> messages, JsonGenerator generator) throws IOException {
+		writeJson(messages, generator);
+	}
+
+	/**
+	 * Create generator on writer, closing generator does not close writer
+	 *
+	 * @param writer
+	 * @return
+	 * @throws IOException
+	 */
+	static JsonGenerator createGenerator(Writer writer) throws IOException {
+		return SharedObjectMapper.getObjectMapper().getFactory().createGenerator(writer).disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+	}
+
+	/**
+	 * Write message with generator
+	 *
+	 * @param generator
+	 * @param jsonResponse : response already in json, null for serialize response
+	 * @throws IOException
+	 */
+	void writeJson(JsonGenerator generator, String jsonResponse) throws IOException {
+		generator.writeStartObject();
+		generator.writeStringField(Constants.Message.TYPE, String.valueOf(this.getType()));
+		generator.writeStringField(Constants.Message.ID, String.valueOf(this.getId()));
+		generator.writeNumberField(Constants.Message.TIME, this.getTime());
+		generator.writeNumberField(Constants.Message.DEADLINE, this.getDeadline());
+		generator.writeFieldName(Constants.Message.RESPONSE);
+		if (null != jsonResponse) {
+			generator.writeRawValue(jsonResponse);
+		} else if (null != this.json) {
+			generator.writeRawValue(this.json);
+		} else if (MessageType.FAULT.equals(this.getType())) {
+			generator.writeRawValue(((Fault) this.getResponse()).toJson());
+		} else {
+			getObjectWriter().writeValue(generator, this.getResponse());
+		}
+		generator.writeEndObject();
+	}
+
+	/**
+	 * Json array of messages, response of a batch
+	 *
+	 * @param messages
+	 * @return
+	 */
+	public static String toJson(List<MessageToClient> messages) {
+		JsonBuffer buffer = JsonBuffer.get();
+		try (JsonGenerator generator = createGenerator(buffer)) {
+			writeJson(messages, generator);
+		} catch (IOException ex) {
+			return toJsonOneByOne(messages);
+		}
+		return buffer.toString();
+	}
+
+	/**
+	 * Write json array of messages with generator
+	 *
+	 * @param messages
+	 * @param generator
+	 * @throws IOException
+	 */
+	static void writeJson(List<MessageToClient> messages, JsonGenerator generator) throws IOException {
+		generator.writeStartArray();
+		for (MessageToClient message : messages) {
+			message.writeJson(generator, null);
+		}
+		generator.writeEndArray();
+	}
+
+	/**
+	 * Json array of messages, each message is written apart, so a response failing to serialize is replaced by a fault
+	 *
+	 * @param messages
+	 * @return
+	 */
+	static String toJsonOneByOne(List<MessageToClient> messages) {
+		StringBuilder sb = new StringBuilder("[");
+		boolean first = true;
+		for (MessageToClient message : messages) {
+			if (!first) {
+				sb.append(",");
+			}
+			sb.append(message.toJson());
+			first = false;
+		}
+		return sb.append("]").toString();
 	}
 
-	ObjectMapper getObjectMapper() {
-		return new ObjectMapper();
+	ObjectWriter getObjectWriter() {
+		return SharedObjectMapper.getObjectWriter();
 	}
 
 	@Override
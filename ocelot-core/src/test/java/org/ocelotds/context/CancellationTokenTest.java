@@ -0,0 +1,74 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.context;
+
+import java.util.concurrent.CancellationException;
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+public class CancellationTokenTest {
+
+	/**
+	 * Test of cancel method, of class CancellationToken.
+	 */
+	@Test
+	public void testCancel() {
+		System.out.println("cancel");
+		CancellationToken instance = new CancellationToken();
+		assertThat(instance.isCancelled()).isFalse();
+		instance.throwIfCancelled();
+		instance.cancel();
+		assertThat(instance.isCancelled()).isTrue();
+		assertThat(Thread.currentThread().isInterrupted()).isFalse();
+	}
+
+	/**
+	 * Test of throwIfCancelled method, of class CancellationToken.
+	 */
+	@Test(expected = CancellationException.class)
+	public void testThrowIfCancelled() {
+		System.out.println("throwIfCancelled");
+		CancellationToken instance = new CancellationToken();
+		instance.cancel();
+		instance.throwIfCancelled();
+	}
+
+	/**
+	 * Test of attach and detach methods, of class CancellationToken, attached thread is interrupted, interrupt status is cleared on detach.
+	 */
+	@Test
+	public void testAttachDetach() {
+		System.out.println("attachDetach");
+		CancellationToken instance = new CancellationToken();
+		instance.attach(Thread.currentThread());
+		instance.cancel();
+		assertThat(Thread.currentThread().isInterrupted()).isTrue();
+		instance.detach();
+		assertThat(Thread.currentThread().isInterrupted()).isFalse();
+		instance.cancel();
+		assertThat(Thread.currentThread().isInterrupted()).isFalse();
+	}
+
+
+	/**
+	 * Test of interrupt method, of class CancellationToken, call is not cancelled.
+	 */
+	@Test
+	public void testInterrupt() {
+		System.out.println("interrupt");
+		CancellationToken instance = new CancellationToken();
+		instance.interrupt();
+		assertThat(Thread.currentThread().isInterrupted()).isFalse();
+		instance.attach(Thread.currentThread());
+		instance.interrupt();
+		assertThat(Thread.currentThread().isInterrupted()).isTrue();
+		assertThat(instance.isCancelled()).isFalse();
+		instance.detach();
+		assertThat(Thread.currentThread().isInterrupted()).isFalse();
+	}
+}
@@ -146,8 +146,15 @@ public class OcelotContextTest {
 	@Test
 	public void testGetPrincipal() {
 		System.out.println("getPrincipal");
+		ThreadLocalContextHolder.cleanupThread();
 		Principal result = instance.getPrincipal();
 		assertThat(result).isEqualTo(principal);
+
+		Principal current = mock(Principal.class);
+		ThreadLocalContextHolder.put(Constants.PRINCIPAL, current);
+		result = instance.getPrincipal();
+		assertThat(result).isEqualTo(current);
+		ThreadLocalContextHolder.cleanupThread();
 	}
 
 	@Test
@@ -162,4 +169,23 @@ public class OcelotContextTest {
 		result = instance.isUserInRole("NOK");
 		assertThat(result).isEqualTo(Boolean.FALSE);
 	}
-}
\ No newline at end of file
+
+
+	/**
+	 * Test of getCancellationToken method, of class OcelotContext.
+	 */
+	@Test
+	public void testGetCancellationToken() {
+		System.out.println("getCancellationToken");
+		CancellationToken result = instance.getCancellationToken();
+		assertThat(result).isNotNull();
+		assertThat(result.isCancelled()).isFalse();
+		CancellationToken token = new CancellationToken();
+		ThreadLocalContextHolder.put(Constants.CANCELLATIONTOKEN, token);
+		try {
+			assertThat(instance.getCancellationToken()).isSameAs(token);
+		} finally {
+			ThreadLocalContextHolder.put(Constants.CANCELLATIONTOKEN, null);
+		}
+	}
+}
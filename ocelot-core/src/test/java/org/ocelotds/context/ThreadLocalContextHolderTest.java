@@ -4,6 +4,7 @@
 package org.ocelotds.context;
 
 import java.lang.reflect.Constructor;
+import java.util.Map;
 import org.junit.Test;
 import static org.assertj.core.api.Assertions.*;
 import org.ocelotds.Constants;
@@ -81,4 +82,23 @@ public class ThreadLocalContextHolderTest {
 		assertThat(result).isNull();
 	}
 	
+
+	/**
+	 * Test of getContext and setContext methods, of class ThreadLocalContextHolder.
+	 */
+	@Test
+	public void testGetSetContext() {
+		System.out.println("getContext");
+		ThreadLocalContextHolder.cleanupThread();
+		assertThat(ThreadLocalContextHolder.getContext()).isNull();
+		ThreadLocalContextHolder.put(KEY, VALUE);
+		Map<String, Object> context = ThreadLocalContextHolder.getContext();
+		assertThat(context).containsEntry(KEY, VALUE);
+		ThreadLocalContextHolder.cleanupThread();
+		assertThat(ThreadLocalContextHolder.get(KEY)).isNull();
+		ThreadLocalContextHolder.setContext(context);
+		assertThat(ThreadLocalContextHolder.get(KEY)).isEqualTo(VALUE);
+		ThreadLocalContextHolder.setContext(null);
+		assertThat(ThreadLocalContextHolder.get(KEY)).isNull();
+	}
 }
@@ -0,0 +1,78 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.messaging;
+
+import java.util.HashMap;
+import java.util.Map;
+import javax.enterprise.util.AnnotationLiteral;
+import org.junit.Test;
+import org.ocelotds.annotations.JsTopicConflate;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+public class ConflationKeyMakerTest {
+
+	private final ConflationKeyMaker instance = new ConflationKeyMaker();
+
+	/**
+	 * Test of getConflationKey method, of class ConflationKeyMaker.
+	 */
+	@Test
+	public void testGetConflationKey() {
+		System.out.println("getConflationKey");
+		Map<String, Object> map = new HashMap<>();
+		map.put("symbol", "EUR");
+		assertThat(instance.getConflationKey(new JsTopicConflateImpl(""), "TOPIC", map)).isEqualTo("TOPIC");
+		assertThat(instance.getConflationKey(new JsTopicConflateImpl("symbol"), "TOPIC", null)).isEqualTo("TOPIC");
+		assertThat(instance.getConflationKey(new JsTopicConflateImpl("symbol"), "TOPIC", map)).isEqualTo("TOPIC\u0000EUR");
+		assertThat(instance.getConflationKey(new JsTopicConflateImpl("unknown"), "TOPIC", map)).isEqualTo("TOPIC");
+		// doesn't collide with the topic TOPIC:EUR
+		assertThat(instance.getConflationKey(new JsTopicConflateImpl("symbol"), "TOPIC", map)).isNotEqualTo("TOPIC:EUR");
+	}
+
+	/**
+	 * Test of getPropertyValue method, of class ConflationKeyMaker.
+	 */
+	@Test
+	public void testGetPropertyValue() {
+		System.out.println("getPropertyValue");
+		assertThat(instance.getPropertyValue("symbol", "{\"symbol\":\"EUR\",\"price\":1.1}")).isEqualTo("EUR");
+		assertThat(instance.getPropertyValue("price", "{\"symbol\":\"EUR\",\"price\":1.1}")).isEqualTo("1.1");
+		assertThat(instance.getPropertyValue("symbol", "{\"symbol\":null}")).isNull();
+		assertThat(instance.getPropertyValue("symbol", "not json")).isNull();
+		assertThat(instance.getPropertyValue("symbol", new Quote("USD"))).isEqualTo("USD");
+		assertThat(instance.getPropertyValue("unknown", new Quote("USD"))).isNull();
+		assertThat(instance.getPropertyValue("symbol", 5)).isNull();
+	}
+
+	public static class Quote {
+
+		private final String symbol;
+
+		public Quote(String symbol) {
+			this.symbol = symbol;
+		}
+
+		public String getSymbol() {
+			return symbol;
+		}
+	}
+
+	class JsTopicConflateImpl extends AnnotationLiteral<JsTopicConflate> implements JsTopicConflate {
+
+		final String key;
+
+		public JsTopicConflateImpl(String key) {
+			this.key = key;
+		}
+
+		@Override
+		public String key() {
+			return key;
+		}
+	}
+}
@@ -21,6 +21,7 @@ import org.mockito.Mock;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ocelotds.annotations.JsTopic;
+import org.ocelotds.annotations.JsTopicConflate;
 import org.ocelotds.annotations.JsTopicName;
 import org.slf4j.Logger;
 
@@ -247,10 +248,43 @@ public class JsTopicInterceptorTest {
 		Object result = instance.proceedAndSendMessage(ctx, "TOPIC", true);
 	}
 
+	/**
+	 * Test of proceedAndSendMessage method, of class JsTopicInterceptor, topic is conflated.
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testProceedAndSendMessageConflated() throws Exception {
+		System.out.println("proceedAndSendMessageConflated");
+		InvocationContext ctx = mock(InvocationContext.class);
+		when(ctx.getMethod()).thenReturn(this.getClass().getMethod("methodWithJsTopicConflate"));
+		when(ctx.proceed()).thenReturn("{\"symbol\":\"EUR\",\"price\":1.1}");
+		instance.proceedAndSendMessage(ctx, "TOPIC", true);
+		ArgumentCaptor<MessageToClient> argument = ArgumentCaptor.forClass(MessageToClient.class);
+		verify(wsEvent).fire(argument.capture());
+		assertThat(argument.getValue().getConflationKey()).isEqualTo("TOPIC\u0000EUR");
+	}
+
+	/**
+	 * Test of getJsTopicConflate method, of class JsTopicInterceptor.
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testGetJsTopicConflate() throws Exception {
+		System.out.println("getJsTopicConflate");
+		assertThat(instance.getJsTopicConflate(null)).isNull();
+		assertThat(instance.getJsTopicConflate(this.getClass().getMethod("methodWithoutJsTopic"))).isNull();
+		assertThat(instance.getJsTopicConflate(this.getClass().getMethod("methodWithJsTopicConflate")).key()).isEqualTo("symbol");
+	}
+
 	@JsTopic("TOPICNAME")
 	public void methodWithJsTopicAndWithTopicName() {
 	}
 
+	@JsTopic(value = "TOPICNAME", jsonPayload = true)
+	@JsTopicConflate(key = "symbol")
+	public void methodWithJsTopicConflate() {
+	}
+
 	@JsTopic(value = "TOPICNAME", jsonPayload = true)
 	public void methodWithJsTopicAndWithTopicNameAndJsonPayload() {
 	}
@@ -3,16 +3,10 @@
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
 package org.ocelotds.messaging;
 
-import java.io.StringReader;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.UUID;
-import javax.json.Json;
-import javax.json.JsonArray;
-import javax.json.JsonReader;
-import javax.json.JsonString;
-import javax.json.JsonValue;
 import org.junit.Test;
 import static org.assertj.core.api.Assertions.*;
 import org.junit.BeforeClass;
@@ -130,57 +124,81 @@ public class MessageFromClientTest {
 		System.out.println("createFromJson");
 		String json = mfcToJson(msgWithArg);
 		MessageFromClient mfc = MessageFromClient.createFromJson(json);
-		assertThat(mfc).isEqualToComparingFieldByField(msgWithArg);
+		assertThat(mfc).isEqualToIgnoringGivenFields(msgWithArg, "received");
 	}
 	
 	/**
-	 * Test of getArgumentsFromMessage method, of class.
+	 * Test of createFromJson method, of class MessageFromClient.
 	 */
 	@Test
-	public void getArgumentsFromMessageTest() {
-		System.out.println("getArgumentsFromMessage");
-		try (JsonReader reader = Json.createReader(new StringReader("[]"))) {
-			JsonArray array = reader.readArray();
-			List<String> result = MessageFromClient.getArgumentsFromMessage(array);
-			assertThat(result).isEmpty();
-		}
-		try (JsonReader reader = Json.createReader(new StringReader("[\"foo\"]"))) {
-			JsonArray array = reader.readArray();
-			List<String> result = MessageFromClient.getArgumentsFromMessage(array);
-			assertThat(result).hasSize(1);
-		}
-		try (JsonReader reader = Json.createReader(new StringReader("[\"foo\", 5]"))) {
-			JsonArray array = reader.readArray();
-			List<String> result = MessageFromClient.getArgumentsFromMessage(array);
-			assertThat(result).hasSize(2);
-			assertThat(result.get(0)).isEqualTo("\"foo\"");
-			assertThat(result.get(1)).isEqualTo("5");
-		}
+	public void createFromJsonWithComplexArgumentsTest() {
+		System.out.println("createFromJsonWithComplexArguments");
+		String json = "{\"args\":[\"a,]\\\"\", 5, {\"a\":[1,2],\"b\":{\"c\":\"]\"}}, [1, [2]], null, true, 1.5e3],"
+				  + "\"unknown\":{\"x\":[1]},\"id\":\"ID\",\"ds\":\"DS\",\"op\":\"OP\"}";
+		MessageFromClient mfc = MessageFromClient.createFromJson(json);
+		assertThat(mfc.getId()).isEqualTo("ID");
+		assertThat(mfc.getDataService()).isEqualTo("DS");
+		assertThat(mfc.getOperation()).isEqualTo("OP");
+		assertThat(mfc.getParameters()).containsExactly("\"a,]\\\"\"", "5", "{\"a\":[1,2],\"b\":{\"c\":\"]\"}}", "[1, [2]]", "null", "true", "1.5e3");
 	}
-	
+
+	/**
+	 * Test of createFromJson method, of class MessageFromClient.
+	 */
+	@Test
+	public void createFromJsonWithSignatureTest() {
+		System.out.println("createFromJsonWithSignature");
+		MessageFromClient mfc = MessageFromClient.createFromJson("{\"id\":\"ID\",\"ds\":\"DS\",\"op\":\"OP\",\"args\":[5],\"sig\":\"SIG\"}");
+		assertThat(mfc.getSignature()).isEqualTo("SIG");
+		assertThat(mfc.getParameters()).containsExactly("5");
+		mfc = MessageFromClient.createFromJson("{\"id\":\"ID\",\"ds\":\"DS\",\"op\":\"OP\",\"args\":[5]}");
+		assertThat(mfc.getSignature()).isNull();
+	}
+
+	/**
+	 * Test of createFromJson method, of class MessageFromClient.
+	 */
+	@Test
+	public void createFromJsonWithDeadlineTest() {
+		System.out.println("createFromJsonWithDeadline");
+		MessageFromClient mfc = MessageFromClient.createFromJson("{\"id\":\"ID\",\"ds\":\"DS\",\"op\":\"OP\",\"args\":[5],\"budget\":1500}");
+		assertThat(mfc.getDeadline()).isEqualTo(mfc.getReceived() + 1500L);
+		assertThat(mfc.getReceived()).isLessThanOrEqualTo(System.currentTimeMillis());
+		// client doesn't wait anymore
+		mfc = MessageFromClient.createFromJson("{\"id\":\"ID\",\"ds\":\"DS\",\"op\":\"OP\",\"args\":[5],\"budget\":-10}");
+		assertThat(mfc.getDeadline()).isEqualTo(mfc.getReceived());
+		mfc = MessageFromClient.createFromJson("{\"id\":\"ID\",\"ds\":\"DS\",\"op\":\"OP\",\"args\":[5]}");
+		assertThat(mfc.getDeadline()).isEqualTo(0L);
+	}
+
 	/**
-	 * Test of getArgumentNamesFromMessage method, of class.
+	 * Test of createFromJson method, of class MessageFromClient.
 	 */
 	@Test
-	public void getArgumentNamesFromMessageTest() {
-		System.out.println("getArgumentNamesFromMessage");
-		try (JsonReader reader = Json.createReader(new StringReader("[]"))) {
-			JsonArray array = reader.readArray();
-			List<String> result = MessageFromClientTest.getArgumentNamesFromMessage(array);
-			assertThat(result).isEmpty();
-		}
-		try (JsonReader reader = Json.createReader(new StringReader("[\"arg1\"]"))) {
-			JsonArray array = reader.readArray();
-			List<String> result = MessageFromClient.getArgumentsFromMessage(array);
-			assertThat(result).hasSize(1);
-		}
-		try (JsonReader reader = Json.createReader(new StringReader("[\"arg1\", \"arg2\"]"))) {
-			JsonArray array = reader.readArray();
-			List<String> result = MessageFromClient.getArgumentsFromMessage(array);
-			assertThat(result).hasSize(2);
-			assertThat(result.get(0)).isEqualTo("\"arg1\"");
-			assertThat(result.get(1)).isEqualTo("\"arg2\"");
-		}
+	public void createFromJsonWithoutArgumentsTest() {
+		System.out.println("createFromJsonWithoutArguments");
+		MessageFromClient mfc = MessageFromClient.createFromJson("{\"id\":\"ID\",\"ds\":\"DS\",\"op\":\"OP\",\"args\":[]}");
+		assertThat(mfc.getParameters()).isEmpty();
+		mfc = MessageFromClient.createFromJson("{\"id\":\"ID\",\"ds\":\"DS\",\"op\":\"OP\"}");
+		assertThat(mfc.getParameters()).isEmpty();
+	}
+
+	/**
+	 * Test of createFromJson method, of class MessageFromClient.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void createFromJsonFailTest() {
+		System.out.println("createFromJsonFail");
+		MessageFromClient.createFromJson("[\"id\"]");
+	}
+
+	/**
+	 * Test of createFromJson method, of class MessageFromClient.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void createFromJsonMalformedTest() {
+		System.out.println("createFromJsonMalformed");
+		MessageFromClient.createFromJson("{\"id\":\"ID\",\"args\":[5,");
 	}
 
 	private String mfcToJson(MessageFromClient mfc) {
@@ -201,11 +219,52 @@ public class MessageFromClientTest {
 		return result;
 	}
 
-	static List<String> getArgumentNamesFromMessage(JsonArray argArray) {
-		List<String> params = new ArrayList<>();
-		for (JsonValue arg : argArray) {
-			params.add(((JsonString) arg).getString());
-		}
-		return params;
+	/**
+	 * Test of createListFromJson method, of class MessageFromClient.
+	 */
+	@Test
+	public void createListFromJsonTest() {
+		System.out.println("createListFromJson");
+		String json = "[" + mfcToJson(msgWithArg) + " , " + mfcToJson(msgWithArg) + "]";
+		List<MessageFromClient> result = MessageFromClient.createListFromJson(json);
+		assertThat(result).hasSize(2);
+		assertThat(result.get(0)).isEqualToIgnoringGivenFields(msgWithArg, "received");
+		assertThat(result.get(1)).isEqualToIgnoringGivenFields(msgWithArg, "received");
+		assertThat(MessageFromClient.createListFromJson("[]")).isEmpty();
+	}
+
+	/**
+	 * Test of createListFromJson method, of class MessageFromClient, json is not an array.
+	 */
+	@Test(expected = IllegalArgumentException.class)
+	public void createListFromJsonFailTest() {
+		System.out.println("createListFromJsonFail");
+		MessageFromClient.createListFromJson(mfcToJson(msgWithArg));
+	}
+
+	/**
+	 * Test of isBatch method, of class MessageFromClient.
+	 */
+	@Test
+	public void isBatchTest() {
+		System.out.println("isBatch");
+		assertThat(MessageFromClient.isBatch(null)).isFalse();
+		assertThat(MessageFromClient.isBatch("  ")).isFalse();
+		assertThat(MessageFromClient.isBatch("{\"id\":\"1\"}")).isFalse();
+		assertThat(MessageFromClient.isBatch("[{\"id\":\"1\"}]")).isTrue();
+		assertThat(MessageFromClient.isBatch(" \n[]")).isTrue();
+	}
+
+
+	/**
+	 * Test of getCancelledId method, of class MessageFromClient.
+	 */
+	@Test
+	public void getCancelledIdTest() {
+		System.out.println("getCancelledId");
+		assertThat(MessageFromClient.getCancelledId("{\"cancel\":\"ID\"}")).isEqualTo("ID");
+		assertThat(MessageFromClient.getCancelledId("{\"id\":\"ID\",\"ds\":\"ClassName\"}")).isNull();
+		assertThat(MessageFromClient.getCancelledId("[]")).isNull();
+		assertThat(MessageFromClient.getCancelledId(null)).isNull();
 	}
 }
@@ -3,9 +3,15 @@
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
 package org.ocelotds.messaging;
 
+import com.fasterxml.jackson.core.JsonGenerator;
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Random;
 import java.util.UUID;
 import org.junit.Test;
@@ -141,7 +147,7 @@ public class MessageToClientTest {
 	 * @throws com.fasterxml.jackson.core.JsonProcessingException
 	 */
 	@Test
-	public void testJsonAndToString() throws JsonProcessingException {
+	public void testJsonAndToString() throws IOException {
 		System.out.println("testJsonAndToString");
 		MessageToClient msg = spy(MessageToClient.class);
 		long deadline = new Random().nextInt(200);
@@ -174,9 +180,9 @@ public class MessageToClientTest {
 		assertThat(msg.toJson()).isEqualTo(json);
 		assertThat(msg.toString()).isEqualTo(json);
 
-		ObjectMapper mapperThrowException = mock(ObjectMapper.class);
-		when(mapperThrowException.writeValueAsString(anyString())).thenThrow(JsonProcessingException.class);
-		when(msg.getObjectMapper()).thenReturn(mapperThrowException);
+		ObjectWriter writerThrowException = mock(ObjectWriter.class);
+		doThrow(JsonProcessingException.class).when(writerThrowException).writeValue(any(JsonGenerator.class), anyObject());
+		when(msg.getObjectWriter()).thenReturn(writerThrowException);
 		json = String.format("{\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":%s,\"%s\":%s,\"%s\":",
 				  Constants.Message.TYPE, msg.getType(), Constants.Message.ID, msg.getId(), 
 				  Constants.Message.TIME, 5, Constants.Message.DEADLINE, msg.getDeadline(), Constants.Message.RESPONSE);
@@ -219,5 +225,140 @@ public class MessageToClientTest {
 		return result;
 	}
 
+	/**
+	 * Test of toJson method, of class MessageToClient, for batch.
+	 */
+	@Test
+	public void testToJsonList() {
+		System.out.println("toJsonList");
+		MessageToClient mtc1 = new MessageToClient();
+		mtc1.setId("1");
+		mtc1.setResult(5);
+		MessageToClient mtc2 = new MessageToClient();
+		mtc2.setId("2");
+		mtc2.setResult("r");
+		assertThat(MessageToClient.toJson(Arrays.asList(mtc1, mtc2))).isEqualTo("[" + mtc1.toJson() + "," + mtc2.toJson() + "]");
+		assertThat(MessageToClient.toJson(new ArrayList<MessageToClient>())).isEqualTo("[]");
+	}
+
+
+	/**
+	 * Test of getJsonResponse method, of class MessageToClient.
+	 */
+	@Test
+	public void testGetJsonResponse() {
+		System.out.println("getJsonResponse");
+		MessageToClient mtc = new MessageToClient();
+		mtc.setResult("r");
+		assertThat(mtc.getJsonResponse()).isEqualTo("\"r\"");
+		mtc.setJson("{\"a\":1}");
+		assertThat(mtc.getJsonResponse()).isEqualTo("{\"a\":1}");
+	}
+
+
+	/**
+	 * Test of toJson method, of class MessageToClient, json is escaped, json already computed is written raw.
+	 */
+	@Test
+	public void testToJsonEscapedAndRaw() {
+		System.out.println("toJsonEscapedAndRaw");
+		MessageToClient mtc = new MessageToClient();
+		mtc.setId("i\"d");
+		mtc.setResult("a\"b");
+		assertThat(mtc.toJson()).isEqualTo("{\"type\":\"RESULT\",\"id\":\"i\\\"d\",\"t\":0,\"deadline\":0,\"response\":\"a\\\"b\"}");
+		mtc.setJson("{\"a\":1}");
+		assertThat(mtc.toJson()).isEqualTo("{\"type\":\"RESULT\",\"id\":\"i\\\"d\",\"t\":0,\"deadline\":0,\"response\":{\"a\":1}}");
+	}
+
+	/**
+	 * Test of toJson method, of class MessageToClient, for batch, a response failing to serialize is replaced by a fault.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testToJsonListWithFailure() throws IOException {
+		System.out.println("toJsonListWithFailure");
+		MessageToClient mtc1 = new MessageToClient();
+		mtc1.setId("1");
+		mtc1.setResult(5);
+		MessageToClient mtc2 = spy(MessageToClient.class);
+		mtc2.setId("2");
+		mtc2.setResult("r");
+		ObjectWriter writerThrowException = mock(ObjectWriter.class);
+		doThrow(JsonProcessingException.class).when(writerThrowException).writeValue(any(JsonGenerator.class), anyObject());
+		when(mtc2.getObjectWriter()).thenReturn(writerThrowException);
+
+		String result = MessageToClient.toJson(Arrays.asList(mtc1, mtc2));
 
+		assertThat(result).startsWith("[" + mtc1.toJson() + ",{\"type\":\"RESULT\",\"id\":\"2\",\"t\":0,\"deadline\":0,\"response\":{\"classname\":");
+		assertThat(result).endsWith("}]");
+	}
+
+	/**
+	 * Test of JsonBuffer, buffer of thread is reused, except if it grew too much.
+	 */
+	@Test
+	public void testJsonBuffer() {
+		System.out.println("jsonBuffer");
+		JsonBuffer buffer = JsonBuffer.get();
+		buffer.write("abc", 1, 2);
+		buffer.write('d');
+		assertThat(buffer.toString()).isEqualTo("bcd");
+		assertThat(JsonBuffer.get()).isSameAs(buffer);
+		assertThat(buffer.toString()).isEmpty();
+		char[] large = new char[JsonBuffer.MAX_KEPT_CAPACITY + 1];
+		buffer.write(large, 0, large.length);
+		assertThat(JsonBuffer.get().capacity()).isEqualTo(JsonBuffer.INITIAL_CAPACITY);
+	}
+
+
+	/**
+	 * Test of writeTo method, of class MessageToClient, writer is not closed.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testWriteTo() throws IOException {
+		System.out.println("writeTo");
+		MessageToClient mtc1 = new MessageToClient();
+		mtc1.setId("1");
+		mtc1.setResult(5);
+		MessageToClient mtc2 = new MessageToClient();
+		mtc2.setId("2");
+		mtc2.setJson("{\"a\":1}");
+		Writer writer = spy(new StringWriter());
+		mtc1.writeTo(writer);
+		assertThat(writer.toString()).isEqualTo(mtc1.toJson());
+		writer = spy(new StringWriter());
+		MessageToClient.writeTo(Arrays.asList(mtc1, mtc2), writer);
+		assertThat(writer.toString()).isEqualTo(MessageToClient.toJson(Arrays.asList(mtc1, mtc2)));
+		verify(writer, never()).close();
+	}
+
+
+	/**
+	 * Test of writeTo method, of class MessageToClient, with a generator.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testWriteToGenerator() throws IOException {
+		System.out.println("writeToGenerator");
+		MessageToClient mtc1 = new MessageToClient();
+		mtc1.setId("1");
+		mtc1.setResult(5);
+		MessageToClient mtc2 = new MessageToClient();
+		mtc2.setId("2");
+		mtc2.setJson("{\"a\":1}");
+		StringWriter writer = new StringWriter();
+		try (JsonGenerator generator = new ObjectMapper().getFactory().createGenerator(writer)) {
+			mtc1.writeTo(generator);
+		}
+		assertThat(writer.toString()).isEqualTo(mtc1.toJson());
+		writer = new StringWriter();
+		try (JsonGenerator generator = new ObjectMapper().getFactory().createGenerator(writer)) {
+			MessageToClient.writeTo(Arrays.asList(mtc1, mtc2), generator);
+		}
+		assertThat(writer.toString()).isEqualTo(MessageToClient.toJson(Arrays.asList(mtc1, mtc2)));
+	}
 }
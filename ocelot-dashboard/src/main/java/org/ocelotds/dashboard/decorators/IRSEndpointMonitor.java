@@ -10,6 +10,7 @@ import javax.enterprise.event.Event;
 import javax.enterprise.inject.Any;
 import javax.inject.Inject;
 import javax.servlet.http.HttpSession;
+import javax.ws.rs.container.AsyncResponse;
 import org.ocelotds.annotations.OcelotLogger;
 import org.ocelotds.dashboard.services.MonitorSessionManager;
 import org.ocelotds.messaging.MessageEvent;
@@ -42,26 +43,21 @@ public abstract class IRSEndpointMonitor implements IRSEndpoint {
 	Event<MessageToClient> wsEvent;
 
 	/**
-	 * Decorate method
+	 * Decorate method, the response is published when asyncResponse is resumed
 	 *
 	 * @param mfc
-	 * @return
+	 * @param asyncResponse
 	 */
 	@Override
-	public String getMessageToClient(String mfc) {
+	public void getMessageToClient(String mfc, AsyncResponse asyncResponse) {
 		HttpSession httpSession = iRSEndpoint.getHttpSession();
 		String httpid = httpSession.getId();
 		boolean monitored = monitorSessionManager.isMonitored(httpid);
-		long t0 = 0;
 		if(monitored) {
-			t0 = System.currentTimeMillis();
+			iRSEndpoint.getMessageToClient(mfc, new MonitoredAsyncResponse(asyncResponse, this, "request-event-"+httpid, mfc));
+		} else {
+			iRSEndpoint.getMessageToClient(mfc, asyncResponse);
 		}
-		String mtc = iRSEndpoint.getMessageToClient(mfc);
-		if(monitored) {
-			long t1 = System.currentTimeMillis();
-			publish("request-event-"+httpid, mfc, mtc, t1 - t0);
-		}
-		return mtc;
 	}
 
 	public void publish(String topic, String mfc, String mtc, long delay) {
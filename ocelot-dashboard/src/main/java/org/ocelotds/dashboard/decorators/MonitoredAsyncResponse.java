@@ -0,0 +1,107 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.dashboard.decorators;
+
+import java.util.Collection;
+import java.util.Date;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+
+/**
+ * AsyncResponse publishing the response and the delay to monitor when it is resumed
+ *
+ * @author hhfrancois
+ */
+public class MonitoredAsyncResponse implements AsyncResponse {
+
+	private final AsyncResponse asyncResponse;
+	private final IRSEndpointMonitor monitor;
+	private final String topic;
+	private final String mfc;
+	private final long t0;
+
+	public MonitoredAsyncResponse(AsyncResponse asyncResponse, IRSEndpointMonitor monitor, String topic, String mfc) {
+		this.asyncResponse = asyncResponse;
+		this.monitor = monitor;
+		this.topic = topic;
+		this.mfc = mfc;
+		this.t0 = System.currentTimeMillis();
+	}
+
+	@Override
+	public boolean resume(Object response) {
+		if (String.class.isInstance(response)) {
+			long t1 = System.currentTimeMillis();
+			monitor.publish(topic, mfc, (String) response, t1 - t0);
+		}
+		return asyncResponse.resume(response);
+	}
+
+	@Override
+	public boolean resume(Throwable response) {
+		return asyncResponse.resume(response);
+	}
+
+	@Override
+	public boolean cancel() {
+		return asyncResponse.cancel();
+	}
+
+	@Override
+	public boolean cancel(int retryAfter) {
+		return asyncResponse.cancel(retryAfter);
+	}
+
+	@Override
+	public boolean cancel(Date retryAfter) {
+		return asyncResponse.cancel(retryAfter);
+	}
+
+	@Override
+	public boolean isSuspended() {
+		return asyncResponse.isSuspended();
+	}
+
+	@Override
+	public boolean isCancelled() {
+		return asyncResponse.isCancelled();
+	}
+
+	@Override
+	public boolean isDone() {
+		return asyncResponse.isDone();
+	}
+
+	@Override
+	public boolean setTimeout(long time, TimeUnit unit) {
+		return asyncResponse.setTimeout(time, unit);
+	}
+
+	@Override
+	public void setTimeoutHandler(TimeoutHandler handler) {
+		asyncResponse.setTimeoutHandler(handler);
+	}
+
+	@Override
+	public Collection<Class<?>> register(Class<?> callback) {
+		return asyncResponse.register(callback);
+	}
+
+	@Override
+	public Map<Class<?>, Collection<Class<?>>> register(Class<?> callback, Class<?>... callbacks) {
+		return asyncResponse.register(callback, callbacks);
+	}
+
+	@Override
+	public Collection<Class<?>> register(Object callback) {
+		return asyncResponse.register(callback);
+	}
+
+	@Override
+	public Map<Class<?>, Collection<Class<?>>> register(Object callback, Object... callbacks) {
+		return asyncResponse.register(callback, callbacks);
+	}
+}
@@ -14,6 +14,7 @@ import org.ocelotds.annotations.DashboardOnDebug;
 import org.ocelotds.annotations.DataService;
 import org.ocelotds.annotations.JsTopic;
 import org.ocelotds.annotations.JsTopicName;
+import org.ocelotds.core.ws.MessageSender;
 import org.ocelotds.dashboard.objects.SessionInfo;
 import org.ocelotds.dashboard.security.DashboardSecureProvider;
 import org.ocelotds.messaging.MessageToClient;
@@ -37,6 +38,9 @@ public class TopicServices {
 	@Inject
 	PrincipalTools principalTools;
 
+	@Inject
+	MessageSender messageSender;
+
 	public Map<String, Collection<SessionInfo>> getSessionIdsByTopic() {
 		Map<String, Collection<Session>> sessionsByTopic = topicManager.getSessionsByTopic();
 		Set<Map.Entry<String, Collection<Session>>> entrySet = sessionsByTopic.entrySet();
@@ -67,7 +71,7 @@ public class TopicServices {
 		Collection<Session> sessions = topicManager.getSessionsForTopic(topic);
 		for (Session session : sessions) {
 			if (session.getId().equals(sessionid) && session.isOpen()) {
-				session.getAsyncRemote().sendObject(mtc);
+				messageSender.send(mtc, session);
 				break;
 			}
 		}
@@ -0,0 +1,80 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.dashboard.decorators;
+
+import java.util.Date;
+import java.util.concurrent.TimeUnit;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.TimeoutHandler;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class MonitoredAsyncResponseTest {
+
+	@Mock
+	AsyncResponse asyncResponse;
+
+	@Mock
+	IRSEndpointMonitor monitor;
+
+	/**
+	 * Test of resume method, of class MonitoredAsyncResponse.
+	 */
+	@Test
+	public void testResume() {
+		System.out.println("resume");
+		MonitoredAsyncResponse instance = new MonitoredAsyncResponse(asyncResponse, monitor, "TOPIC", "MFC");
+		instance.resume("MTC");
+		verify(monitor).publish(eq("TOPIC"), eq("MFC"), eq("MTC"), anyLong());
+		verify(asyncResponse).resume(eq("MTC"));
+		Throwable t = new Exception();
+		instance.resume(t);
+		verify(asyncResponse).resume(eq(t));
+		verifyNoMoreInteractions(monitor);
+	}
+
+	/**
+	 * Test of other methods, of class MonitoredAsyncResponse, they are delegated.
+	 */
+	@Test
+	public void testDelegate() {
+		System.out.println("delegate");
+		MonitoredAsyncResponse instance = new MonitoredAsyncResponse(asyncResponse, monitor, "TOPIC", "MFC");
+		Date date = new Date();
+		TimeoutHandler handler = mock(TimeoutHandler.class);
+		Object callback = new Object();
+		instance.cancel();
+		instance.cancel(5);
+		instance.cancel(date);
+		instance.isSuspended();
+		instance.isCancelled();
+		instance.isDone();
+		instance.setTimeout(5, TimeUnit.SECONDS);
+		instance.setTimeoutHandler(handler);
+		instance.register(String.class);
+		instance.register(String.class, Integer.class);
+		instance.register(callback);
+		instance.register(callback, callback);
+		verify(asyncResponse).cancel();
+		verify(asyncResponse).cancel(eq(5));
+		verify(asyncResponse).cancel(eq(date));
+		verify(asyncResponse).isSuspended();
+		verify(asyncResponse).isCancelled();
+		verify(asyncResponse).isDone();
+		verify(asyncResponse).setTimeout(eq(5L), eq(TimeUnit.SECONDS));
+		verify(asyncResponse).setTimeoutHandler(eq(handler));
+		verify(asyncResponse).register(eq(String.class));
+		verify(asyncResponse).register(eq(String.class), eq(Integer.class));
+		verify(asyncResponse).register(eq(callback));
+		verify(asyncResponse).register(eq(callback), eq(callback));
+	}
+}
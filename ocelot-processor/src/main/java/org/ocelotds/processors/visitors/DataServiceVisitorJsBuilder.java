@@ -7,13 +7,16 @@ package org.ocelotds.processors.visitors;
 import org.ocelotds.annotations.JsCacheResult;
 import java.io.IOException;
 import java.io.Writer;
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
 import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.Types;
 import org.ocelotds.KeyMaker;
 import org.ocelotds.annotations.WsDataService;
 import org.ocelotds.processors.stringDecorators.KeyForArgDecorator;
@@ -188,7 +191,24 @@ public class DataServiceVisitorJsBuilder extends AbstractDataServiceVisitor {
 		boolean ws = isWebsocketDataService(methodElement);
 		String args = stringJoinAndDecorate(arguments, COMMA, new NothingDecorator());
 		String keys = computeKeys(methodElement, arguments);
-		createReturnOcelotPromiseFactory(classname, methodName, ws, args, keys, writer);
+		String signature = computeSignature(methodElement);
+		createReturnOcelotPromiseFactory(classname, methodName, ws, args, keys, signature, writer);
+	}
+
+	/**
+	 * Generate signature of method : md5 of erased parameter types.<br>
+	 * Allow server to find the method without try each overload
+	 *
+	 * @param methodElement
+	 * @return
+	 */
+	String computeSignature(ExecutableElement methodElement) {
+		Types typeUtils = environment.getTypeUtils();
+		List<String> types = new ArrayList<>();
+		for (VariableElement variableElement : methodElement.getParameters()) {
+			types.add(typeUtils.erasure(variableElement.asType()).toString());
+		}
+		return keyMaker.getMd5(stringJoinAndDecorate(types, COMMA, new NothingDecorator()));
 	}
 	
 	/**
@@ -233,16 +253,18 @@ public class DataServiceVisitorJsBuilder extends AbstractDataServiceVisitor {
 	 * @param methodName
 	 * @param args
 	 * @param keys
+	 * @param signature
 	 * @param writer
 	 * @throws IOException 
 	 */
-	void createReturnOcelotPromiseFactory(String classname, String methodName, boolean ws, String args, String keys, Writer writer) throws IOException {
+	void createReturnOcelotPromiseFactory(String classname, String methodName, boolean ws, String args, String keys, String signature, Writer writer) throws IOException {
 		String md5 = keyMaker.getMd5(classname + DOT + methodName);
 		writer.append(TAB3).append("return promiseFactory.create").append(OPENPARENTHESIS).append("_ds").append(COMMA).append(SPACEOPTIONAL)
 				  .append(QUOTE).append(md5).append(UNDERSCORE).append(QUOTE)
 				  .append(" + JSON.stringify([").append(keys).append("]).md5()").append(COMMA).append(SPACEOPTIONAL)
 				  .append(QUOTE).append(methodName).append(QUOTE).append(COMMA).append(SPACEOPTIONAL).append(""+ws).append(COMMA)
-				  .append(SPACEOPTIONAL).append(OPENBRACKET).append(args).append(CLOSEBRACKET).append(CLOSEPARENTHESIS)
+				  .append(SPACEOPTIONAL).append(OPENBRACKET).append(args).append(CLOSEBRACKET).append(COMMA)
+				  .append(SPACEOPTIONAL).append(QUOTE).append(signature).append(QUOTE).append(CLOSEPARENTHESIS)
 				  .append(SEMICOLON).append(CR);
 	}
 
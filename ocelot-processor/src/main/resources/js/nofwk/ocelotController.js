@@ -3,7 +3,7 @@
 	var opts = {"monitor": false, "debug": false}, MSG = "MESSAGE", CONSTRAINT = "CONSTRAINT", RES = "RESULT";
 	var FAULT = "FAULT", ALL = "ALL", EVT = "Event", ADD = "add", RM = "remove", CLEANCACHE = "ocelot-cleancache", ALERT = "ocelot-alert";
 	var STATUS = "ocelot-status", OSRV = "org.ocelotds.OcelotServices", SUB = "subscribe", UNSUB = "unsubscribe", initialized = false;
-	var uid = 0, stateLabels = ['CONNECTING', 'OPEN', 'CLOSING', 'CLOSED'], closetimer, promises = {}, path, ws = null, pendingMfc = [];
+	var uid = 0, stateLabels = ['CONNECTING', 'OPEN', 'CLOSING', 'CLOSED'], closetimer, promises = {}, timers = {}, path, ws = null, pendingMfc = [];
 	var _cacheManager = (function () {
 		var LU = "ocelot-lastupdate", addHandlers = [], removeHandlers = [];
 		var lastUpdateManager = (function () {
@@ -262,12 +262,68 @@
 			});
 		}
 	}
+	function clearTimerForId(id) {
+		if (timers[id]) {
+			clearTimeout(timers[id]);
+			delete timers[id];
+		}
+	}
+	function sendCancel(id) { // server skips or interrupts the call, and doesn't send its result
+		clearTimerForId(id);
+		if (ws && ws.readyState === window.WebSocket.OPEN) {
+			ws.send(JSON.stringify({"cancel": id}));
+		}
+	}
+	function _cancelPromise(promise) { // nobody waits the result anymore
+		var aPromises = promises[promise.id], idx;
+		if (aPromises) {
+			idx = aPromises.indexOf(promise);
+			if (idx !== -1) {
+				aPromises.splice(idx, 1);
+			}
+			if (!aPromises.length) {
+				clearPromisesForId(promise.id);
+				if (promise.ws) {
+					sendCancel(promise.id);
+				}
+			}
+		}
+	}
 	function clearPromisesForId(id) {
 		delete promises[id];
 	}
 	function getPromises(id) {
 		return promises[id] || [];
 	}
+	function getPromisesForMessage(id) { // topic message is for subscriptions to the topic and to patterns matching it
+		var result = getPromises(id);
+		if (isPattern(id)) {
+			return result;
+		}
+		Object.keys(promises).forEach(function (key) {
+			if (isPattern(key) && matchTopic(key, id)) {
+				result = result.concat(promises[key]);
+			}
+		});
+		return result;
+	}
+	function isPattern(topic) { // * matches one level, > matches one or more levels at the end
+		return topic.split(":").some(function (level) {
+			return level === "*" || level === ">";
+		});
+	}
+	function matchTopic(pattern, topic) {
+		var levels = topic.split(":"), patternLevels = pattern.split(":"), i;
+		for (i = 0; i < patternLevels.length; i++) {
+			if (patternLevels[i] === ">" && i === patternLevels.length - 1) {
+				return levels.length > i;
+			}
+			if (i >= levels.length || (patternLevels[i] !== "*" && patternLevels[i] !== levels[i])) {
+				return false;
+			}
+		}
+		return levels.length === patternLevels.length;
+	}
 	function isOcelotControllerServices(promise) {
 		return promise && (promise.dataservice === "ocelotController");
 	}
@@ -308,6 +364,12 @@
 					if (opts.debug)
 						console.debug("warning : Websocket is not ready, defer " + promise.dataservice + "." + promise.operation + "(" + promise.args + ");");
 				}
+				if (promise.timed) {
+					timers[promise.id] = setTimeout(function () {
+						sendCancel(promise.id);
+						receiveMtc({"id": promise.id, "type": FAULT, "response": {"classname": "TimeoutException", "message": "No response after " + promise.maxtime + "ms, call cancelled", "stacktrace": []}, "t": 0});
+					}, promise.maxtime);
+				}
 			} else {
 				xhttp = new XMLHttpRequest();
 				xhttp.timeout = promise.maxtime;
@@ -338,9 +400,10 @@
 			// if msgToClient has dead line so we stock in cache
 			_cacheManager.putResultInCache(msgToClient);
 		}
-		var promises = getPromises(msgToClient.id);
+		var promises = (msgToClient.type === MSG) ? getPromisesForMessage(msgToClient.id) : getPromises(msgToClient.id);
 		if (msgToClient.type !== MSG) {
 			clearPromisesForId(msgToClient.id);
+			clearTimerForId(msgToClient.id);
 		}
 		promises.forEach(function(promise) {
 			processPromise(promise, msgToClient);
@@ -526,7 +589,8 @@
 		},
 		close: _close,
 		cacheManager: _cacheManager,
-		addPromise: _addPromise
+		addPromise: _addPromise,
+		cancelPromise: _cancelPromise
 	};
 	init();
 })();
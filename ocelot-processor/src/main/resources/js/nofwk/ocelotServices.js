@@ -10,7 +10,7 @@
 			 * @return {java.util.Locale}
 			 */
 			getLocale : function () {
-				return promiseFactory.create(_ds, "781c53ed36c8e09e518531b803fba95f_" + JSON.stringify([]).md5(), "getLocale", false, []);
+				return promiseFactory.create(_ds, "781c53ed36c8e09e518531b803fba95f_" + JSON.stringify([]).md5(), "getLocale", false, [], "d41d8cd98f00b204e9800998ecf8427e");
 			},
 			/**
 			 * Get number of subscriber
@@ -19,7 +19,7 @@
 			 * @return {java.lang.Integer}
 			 */
 			getNumberSubscribers : function (topic) {
-				return promiseFactory.create(_ds, "cfa53ab38ca43a942121b4f570dfe95e_" + JSON.stringify([topic]).md5(), "getNumberSubscribers", false, [topic]);
+				return promiseFactory.create(_ds, "cfa53ab38ca43a942121b4f570dfe95e_" + JSON.stringify([topic]).md5(), "getNumberSubscribers", false, [topic], "42c25be3a5db3f1f8377f4c2db62bfe9");
 			},
 			/**
 			 * GEt outdated cache among list
@@ -27,7 +27,7 @@
 			 * @return {java.util.Collection<java.lang.String>}
 			 */
 			getOutDatedCache : function (states) {
-				return promiseFactory.create(_ds, "5404853cfea31cbe84ca88246988a1fa_" + JSON.stringify([states]).md5(), "getOutDatedCache", false, [states]);
+				return promiseFactory.create(_ds, "5404853cfea31cbe84ca88246988a1fa_" + JSON.stringify([states]).md5(), "getOutDatedCache", false, [states], "03ec136776d19432e0a31b46ebe07d1a");
 			},
 			/**
 			 * return current username from session
@@ -35,13 +35,13 @@
 			 * @return {java.lang.String}
 			 */
 			getUsername : function () {
-				return promiseFactory.create(_ds, "f84864d6fe75d993429e068b3ff5ae15_" + JSON.stringify([]).md5(), "getUsername", false, []);
+				return promiseFactory.create(_ds, "f84864d6fe75d993429e068b3ff5ae15_" + JSON.stringify([]).md5(), "getUsername", false, [], "d41d8cd98f00b204e9800998ecf8427e");
 			},
 			/**
 			 * @return {java.lang.String}
 			 */
 			getVersion : function () {
-				return promiseFactory.create(_ds, "ff1161ede2db4eac97fd8dd4a57bf0f3_" + JSON.stringify([]).md5(), "getVersion", false, []);
+				return promiseFactory.create(_ds, "ff1161ede2db4eac97fd8dd4a57bf0f3_" + JSON.stringify([]).md5(), "getVersion", false, [], "d41d8cd98f00b204e9800998ecf8427e");
 			},
 			/**
 			 * Init core
@@ -49,7 +49,7 @@
 			 * @param {javax.servlet.http.HttpSession} httpSession
 			 */
 			initCore : function (options, httpSession) {
-				return promiseFactory.create(_ds, "f99f49fe74bbf490d0f0b2480b150ffc_" + JSON.stringify([options,httpSession]).md5(), "initCore", false, [options,httpSession]);
+				return promiseFactory.create(_ds, "f99f49fe74bbf490d0f0b2480b150ffc_" + JSON.stringify([options,httpSession]).md5(), "initCore", false, [options,httpSession], "3dc8ed4768bc98b255da5f96b85c0b7e");
 			},
 			/**
 			 * define locale for current user
@@ -57,7 +57,7 @@
 			 * @param {java.util.Locale} locale
 			 */
 			setLocale : function (locale) {
-				return promiseFactory.create(_ds, "f266133b09e8b50cce062c3e2a9771c3_" + JSON.stringify([locale]).md5(), "setLocale", false, [locale]);
+				return promiseFactory.create(_ds, "f266133b09e8b50cce062c3e2a9771c3_" + JSON.stringify([locale]).md5(), "setLocale", false, [locale], "b9a6190ae9127ff7dbfd4f91a4257429");
 			},
 			/**
 			 * Subscribe to topic
@@ -67,7 +67,7 @@
 			 * @return {java.lang.Integer}
 			 */
 			subscribe : function (topic, session) {
-				return promiseFactory.create(_ds, "01427e6f30f92a84bec0882479ed265d_" + JSON.stringify([topic,session]).md5(), "subscribe", true, [topic,session]);
+				return promiseFactory.create(_ds, "01427e6f30f92a84bec0882479ed265d_" + JSON.stringify([topic,session]).md5(), "subscribe", true, [topic,session], "537d4e9b591fc3fae6232e3a6bfa352a");
 			},
 			/**
 			 * Unsubscribe to topic
@@ -76,7 +76,7 @@
 			 * @return {java.lang.Integer}
 			 */
 			unsubscribe : function (topic, session) {
-				return promiseFactory.create(_ds, "1b8a918a6d81be3aa8c9bb87cec3d361_" + JSON.stringify([topic,session]).md5(), "unsubscribe", true, [topic,session]);
+				return promiseFactory.create(_ds, "1b8a918a6d81be3aa8c9bb87cec3d361_" + JSON.stringify([topic,session]).md5(), "unsubscribe", true, [topic,session], "537d4e9b591fc3fae6232e3a6bfa352a");
 			}
 		};
 	})();
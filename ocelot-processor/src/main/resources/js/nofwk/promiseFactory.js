@@ -2,9 +2,9 @@
 	window.promiseFactory = (function () {
 		'use strict';
 		return {
-			create: function (ds, id, op, ws, args) {
-				return (function (ds, id, op, ws, args) {
-					var fault, evt = null, _cacheIgnored = false, start = new Date().getTime(), _timeout = 10000, key = id;
+			create: function (ds, id, op, ws, args, sig) {
+				return (function (ds, id, op, ws, args, sig) {
+					var fault, evt = null, _cacheIgnored = false, _timed = false, start = new Date().getTime(), _timeout = 10000, key = id;
 					var thenHandlers = [], catchHandlers = [], constraintHandlers = [], eventHandlers = [], messageHandlers = [];
 					function process() {
 						if (!evt) {
@@ -65,11 +65,19 @@
 						get maxtime() {
 							return _timeout;
 						},
+						get timed() {
+							return _timed;
+						},
 						get cacheIgnored() {
 							return _cacheIgnored;
 						},
 						timeout: function (timeout) {
 							_timeout = timeout;
+							_timed = true;
+							return this;
+						},
+						cancel: function () {
+							ocelotController.cancelPromise(this);
 							return this;
 						},
 						ignoreCache: function (ignore) {
@@ -115,12 +123,12 @@
 							return this;
 						},
 						get json() {
-							return {"id": key, "ds": ds, "op": op, "args": args};
+							return {"id": key, "ds": ds, "op": op, "args": args, "sig": sig};
 						}
 					};
 					setTimeout(ocelotController.addPromise, 0, promise);
 					return promise;
-				})(ds, id, op, ws, args);
+				})(ds, id, op, ws, args, sig);
 			}
 		};
 	})();
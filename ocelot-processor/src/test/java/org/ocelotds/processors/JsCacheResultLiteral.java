@@ -57,5 +57,15 @@ public class JsCacheResultLiteral extends AnnotationLiteral<JsCacheResult> imple
 	public String[] keys() {
 		return this.keys;
 	}
+
+	@Override
+	public boolean userScope() {
+		return false;
+	}
+
+	@Override
+	public boolean shared() {
+		return false;
+	}
 	
 }
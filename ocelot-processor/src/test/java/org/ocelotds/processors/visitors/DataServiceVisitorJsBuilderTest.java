@@ -17,6 +17,7 @@ import javax.annotation.processing.ProcessingEnvironment;
 import javax.lang.model.element.ExecutableElement;
 import javax.lang.model.element.Name;
 import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
 import javax.lang.model.type.TypeMirror;
 import javax.lang.model.util.Elements;
 import javax.lang.model.util.Types;
@@ -270,10 +271,11 @@ public class DataServiceVisitorJsBuilderTest implements ProcessorConstants{
 		doReturn("ARGS").when(instance).stringJoinAndDecorate(eq(arguments), eq(","), any(NothingDecorator.class));
 		doReturn("PARAMNAMES").when(instance).stringJoinAndDecorate(eq(arguments), eq(","), any(QuoteDecorator.class));
 		doReturn("KEYS").when(instance).computeKeys(eq(executableElement), eq(arguments));
-		doNothing().when(instance).createReturnOcelotPromiseFactory(any(String.class), any(String.class), any(Boolean.class), any(String.class), any(String.class), any(Writer.class));
+		doReturn("SIGNATURE").when(instance).computeSignature(eq(executableElement));
+		doNothing().when(instance).createReturnOcelotPromiseFactory(any(String.class), any(String.class), any(Boolean.class), any(String.class), any(String.class), any(String.class), any(Writer.class));
 		
 		instance.createMethodBody(classname, executableElement, arguments, writer);
-		verify(instance).createReturnOcelotPromiseFactory(any(String.class), any(String.class), any(Boolean.class), any(String.class), any(String.class), any(Writer.class));
+		verify(instance).createReturnOcelotPromiseFactory(any(String.class), any(String.class), any(Boolean.class), any(String.class), any(String.class), any(String.class), any(Writer.class));
 	}
 	
 	/**
@@ -362,6 +364,25 @@ public class DataServiceVisitorJsBuilderTest implements ProcessorConstants{
 		assertThat(result).isEqualTo("");
 	}
 
+	/**
+	 * Test of computeSignature method, of class DataServiceVisitorJsBuilder.
+	 */
+	@Test
+	public void testComputeSignature() {
+		System.out.println("computeSignature");
+		ExecutableElement executableElement = mock(ExecutableElement.class);
+		VariableElement arg0 = mock(VariableElement.class);
+		VariableElement arg1 = mock(VariableElement.class);
+		TypeMirror type0 = mock(TypeMirror.class);
+		TypeMirror type1 = mock(TypeMirror.class);
+		when(type0.toString()).thenReturn("java.lang.String");
+		when(type1.toString()).thenReturn("javax.websocket.Session");
+		when(typeUtils.erasure(any(TypeMirror.class))).thenReturn(type0).thenReturn(type1);
+		doReturn(Arrays.asList(arg0, arg1)).when(executableElement).getParameters();
+		String result = instance.computeSignature(executableElement);
+		assertThat(result).isEqualTo("537d4e9b591fc3fae6232e3a6bfa352a");
+	}
+
 	/**
 	 * Test of createReturnOcelotPromiseFactory method, of class DataServiceVisitorJsBuilder.
 	 * @throws IOException 
@@ -369,9 +390,9 @@ public class DataServiceVisitorJsBuilderTest implements ProcessorConstants{
 	@Test
 	public void testCreateReturnOcelotPromiseFactory() throws IOException {
 		System.out.println("createReturnOcelotPromiseFactory");
-		String expresult = ProcessorConstants.TAB3+"return promiseFactory.create(_ds,"+ProcessorConstants.SPACEOPTIONAL+"\"c4746bbdace1d5712da7b6fabe58fb9c_\" + JSON.stringify([KEYS]).md5(),"+ProcessorConstants.SPACEOPTIONAL+"\"METHODNAME\","+ProcessorConstants.SPACEOPTIONAL+"true,"+ProcessorConstants.SPACEOPTIONAL+"[ARGS]);"+ProcessorConstants.CR;
+		String expresult = ProcessorConstants.TAB3+"return promiseFactory.create(_ds,"+ProcessorConstants.SPACEOPTIONAL+"\"c4746bbdace1d5712da7b6fabe58fb9c_\" + JSON.stringify([KEYS]).md5(),"+ProcessorConstants.SPACEOPTIONAL+"\"METHODNAME\","+ProcessorConstants.SPACEOPTIONAL+"true,"+ProcessorConstants.SPACEOPTIONAL+"[ARGS],"+ProcessorConstants.SPACEOPTIONAL+"\"SIGNATURE\");"+ProcessorConstants.CR;
 		StringWriter writer = new StringWriter();
-		instance.createReturnOcelotPromiseFactory("CLSNAME", "METHODNAME", true, "ARGS", "KEYS", writer);
+		instance.createReturnOcelotPromiseFactory("CLSNAME", "METHODNAME", true, "ARGS", "KEYS", "SIGNATURE", writer);
 		String result = writer.toString();
 		System.out.println(result);
 		assertThat(result).isEqualTo(expresult);
@@ -21,8 +21,10 @@ public interface Constants {
 	String HTTPSESSION = "HTTPSESSION";
 	String HTTPREQUEST = "HTTPREQUEST";
 	String HANDSHAKEREQUEST = "HANDSHAKEREQUEST";
+	String SUBPROTOCOL_CBOR = "ocelot-cbor";
 	String SESSION_BEANS = "SESSIONBEANS";
 	String PRINCIPAL = "PRINCIPAL";
+	String CANCELLATIONTOKEN = "CANCELLATIONTOKEN";
 	String ANONYMOUS = "ANONYMOUS";
 
 	String OCELOT = "ocelot";
@@ -38,6 +40,29 @@ public interface Constants {
 	interface Options {
 		String STACKTRACE_LENGTH = "ocelot.stacktrace.length";
 		String DASHBOARD_ROLES = "ocelot.dashboard.roles";
+		String SESSIONBEANS_MAX = "ocelot.sessionbeans.max";
+		String SESSIONBEANS_IDLE = "ocelot.sessionbeans.idle";
+		String WORKERS_SIZE = "ocelot.workers.size";
+		String WORKERS_QUEUE = "ocelot.workers.queue";
+		String WORKERS_ORDERED = "ocelot.workers.ordered";
+		String WORKERS_REJECTION = "ocelot.workers.rejection";
+		String WORKERS_VIRTUAL = "ocelot.workers.virtual";
+		String BATCH_PARALLEL = "ocelot.batch.parallel";
+		String TIMEOUT_DEFAULT = "ocelot.timeout.default";
+		String RESULTCACHE_SIZE = "ocelot.resultcache.size";
+		String RESULTCACHE_POLICY = "ocelot.resultcache.policy";
+		String STREAMING_THRESHOLD = "ocelot.streaming.threshold";
+		String FANOUT_THRESHOLD = "ocelot.fanout.threshold";
+		String FANOUT_POOL = "ocelot.fanout.pool";
+		String OUTBOUND_QUEUE = "ocelot.outbound.queue";
+		String OUTBOUND_POLICY = "ocelot.outbound.policy";
+		String POLICY_LRU = "lru";
+		String POLICY_LFU = "lfu";
+		String POLICY_DROP_OLDEST = "drop-oldest";
+		String POLICY_CONFLATE = "conflate";
+		String POLICY_DISCONNECT = "disconnect";
+		String REJECTION_FAULT = "fault";
+		String REJECTION_BLOCK = "block";
 		String OPTIONS = "options";
 		String SEPARATOR = ",";
 	}
@@ -47,6 +72,14 @@ public interface Constants {
 		String SUBSCRIBERS = "subscribers";
 		String COLON = ":";
 		String ALL = "ALL";
+		/**
+		 * Matches one level of topic : orders:* matches orders:eu, not orders:eu:1
+		 */
+		String WILDCARD = "*";
+		/**
+		 * Matches one or more levels at the end of topic : market:eu:> matches market:eu:fr and market:eu:fr:cac40
+		 */
+		String WILDCARD_TAIL = ">";
 	}
 
 	interface Message {
@@ -57,11 +90,14 @@ public interface Constants {
 		String TIME = "t";
 		String OPERATION = "op";
 		String ARGUMENTS = "args";
+		String SIGNATURE = "sig";
 		String DEADLINE = "deadline";
+		String BUDGET = "budget";
 		String RESPONSE = "response";
 		String LANGUAGE = "language";
 		String COUNTRY = "country";
 		String MFC = "mfc";
+		String CANCEL = "cancel";
 
 		interface Fault {
 
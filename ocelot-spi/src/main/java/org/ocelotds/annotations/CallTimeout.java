@@ -0,0 +1,24 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.annotations;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Max duration of a call of dataservice method, on method or on class for all its methods<br>
+ * A call not answered in time receives a TimeoutException fault, instead of the global default timeout
+ * @author hhfrancois
+ */
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface CallTimeout {
+	/**
+	 * Timeout in milliseconds, 0 means no timeout
+	 * @return 
+	 */
+	long value();
+}
@@ -33,4 +33,16 @@ public @interface JsCacheResult {
 	 * @return set of used keys ordered
 	 */
 	String[] keys() default {"*"};
+	/**
+	 * Result depends of user, in server side cache each user has his own entry<br>
+	 * Use JsCacheRemove with userScope for remove it
+	 * @return 
+	 */
+	boolean userScope() default false;
+	/**
+	 * Result does not depend of user, identical calls of all users share invocation in flight and entry in server side cache<br>
+	 * Else only userScope results are shared, between calls of the same user
+	 * @return 
+	 */
+	boolean shared() default false;
 }
@@ -0,0 +1,27 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.annotations;
+
+import static java.lang.annotation.ElementType.FIELD;
+import static java.lang.annotation.ElementType.METHOD;
+import static java.lang.annotation.ElementType.PARAMETER;
+import static java.lang.annotation.RetentionPolicy.RUNTIME;
+import java.lang.annotation.Retention;
+import java.lang.annotation.Target;
+
+/**
+ * Annotation specifies that clients need only the latest value published to topic, next to JsTopic or JsTopicEvent
+ * a message waiting to be sent to a session is replaced by the newest one of the same topic
+ * key specify a property of payload, so messages are replaced only by messages with the same value
+ * @author hhfrancois
+ */
+@Retention(RUNTIME)
+@Target({METHOD, FIELD, PARAMETER})
+public @interface JsTopicConflate {
+	/**
+	 * Property of payload completing the topic in conflation key, empty for topic only
+	 * @return 
+	 */
+	String key() default "";
+}
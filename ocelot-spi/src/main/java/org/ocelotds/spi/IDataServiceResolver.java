@@ -24,4 +24,11 @@ public interface IDataServiceResolver {
 	 * @return 
 	 */
 	Scope getScope(Class clazz);
+
+	/**
+	 * Release an instance of session scope returned by resolveDataService, the session doesn't use it anymore
+	 * @param dataService 
+	 */
+	default void releaseDataService(Object dataService) {
+	}
 }
@@ -45,6 +45,24 @@ public class CacheArgumentServices {
 		}
 	}
 
+	/**
+	 * Compute the part of cache key that depends of arguments, keys are already split
+	 *
+	 * @param jcrd : JsCacheRemove annotation with keys split
+	 * @param jsonArgs : actual args
+	 * @param paramNames : parameter name of concern method
+	 * @return
+	 */
+	public String computeArgPart(JsCacheRemoveDescriptor jcrd, List<String> jsonArgs, List<String> paramNames) {
+		if (jcrd.getKeyParams().length == 0) {
+			return "";
+		} else if (jcrd.isAllArguments()) {
+			return Arrays.toString(jsonArgs.toArray(new String[jsonArgs.size()]));
+		} else {
+			return computeSpecifiedArgPart(jcrd.getKeyParams(), jcrd.getKeyFields(), jsonArgs, paramNames);
+		}
+	}
+
 	/**
 	 * Compute the part of cache key that depends of arguments
 	 *
@@ -54,21 +72,38 @@ public class CacheArgumentServices {
 	 * @return
 	 */
 	String computeSpecifiedArgPart(String[] keys, List<String> jsonArgs, List<String> paramNames) {
+		String[] keyParams = new String[keys.length];
+		String[][] keyFields = new String[keys.length][];
+		for (int idx = 0; idx < keys.length; idx++) {
+			String[] path = keys[idx].split("\\.");
+			logger.debug("Process '{}' : {} token(s)", keys[idx], path.length);
+			keyParams[idx] = path[0];
+			keyFields[idx] = Arrays.copyOfRange(path, 1, path.length);
+		}
+		return computeSpecifiedArgPart(keyParams, keyFields, jsonArgs, paramNames);
+	}
+
+	/**
+	 * Compute the part of cache key that depends of arguments
+	 *
+	 * @param keyParams : parameter name of each key
+	 * @param keyFields : fields path in parameter of each key
+	 * @param jsonArgs : actual args
+	 * @param paramNames : parameter name of concern method
+	 * @return
+	 */
+	String computeSpecifiedArgPart(String[] keyParams, String[][] keyFields, List<String> jsonArgs, List<String> paramNames) {
 		StringBuilder sb = new StringBuilder("[");
-		boolean first = true;
-		for (String key : keys) {
-			if (!first) {
+		for (int i = 0; i < keyParams.length; i++) {
+			if (i > 0) {
 				sb.append(",");
 			}
-			first = false;
-			String[] path = key.split("\\.");
-			logger.debug("Process '{}' : {} token(s)", key, path.length);
-			String paramName = path[0];
+			String paramName = keyParams[i];
 			int idx = paramNames.indexOf(paramName);
 			logger.debug("Index of param '{}' : '{}'", paramName, idx);
 			String jsonArg = jsonArgs.get(idx);
 			logger.debug("Param '{}' : '{}'", paramName, jsonArg);
-			sb.append(processArg(Arrays.copyOfRange(path, 1, path.length), jsonArg));
+			sb.append(processArg(keyFields[i], jsonArg));
 		}
 		sb.append("]");
 		return sb.toString();
@@ -3,11 +3,15 @@
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
 package org.ocelotds.cache;
 
-import org.ocelotds.annotations.JsCacheResult;
+import com.fasterxml.jackson.core.JsonProcessingException;
 import java.lang.reflect.Method;
 import java.util.List;
 import javax.inject.Inject;
 import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.core.services.MethodDescriptor;
+import org.ocelotds.marshalling.ArgumentServices;
+import org.ocelotds.marshalling.exceptions.JsonMarshallerException;
+import org.ocelotds.marshalling.exceptions.JsonMarshallingException;
 import org.slf4j.Logger;
 
 /**
@@ -23,29 +27,45 @@ public class CacheManager {
 
 	@Inject
 	private JsCacheAnnotationServices jsCacheAnnotationServices;
+
+	@Inject
+	private CacheArgumentServices cacheArgumentServices;
+
+	@Inject
+	private CacheParamNameServices cacheParamNameServices;
+
+	@Inject
+	private ArgumentServices argumentServices;
 	
 	/**
-	 * Process annotations JsCacheResult, JsCacheRemove and JsCacheRemoves
-	 * @param nonProxiedMethod
-	 * @param parameters
-	 * @return 
+	 * Compute deadline of result in front-end cache from precomputed time to live
+	 *
+	 * @param descriptor
+	 * @return deadline, 0 if result is not cached
 	 */
-	public long processCacheAnnotations(Method nonProxiedMethod, List<String> parameters) {
-		if (isJsCached(nonProxiedMethod)) {
-			return jsCacheAnnotationServices.getJsCacheResultDeadline(nonProxiedMethod.getAnnotation(JsCacheResult.class));
+	public long processCacheAnnotations(MethodDescriptor descriptor) {
+		if (descriptor.isJsCached()) {
+			return System.currentTimeMillis() + descriptor.getJsCacheTimeToLive();
 		}
 		return 0L;
 	}
 
 	/**
-	 * Check if result should be cached in front-end
+	 * Compute the cache key of result of call, the same way JsCacheRemove does : from classname, methodname and keys of JsCacheResult
 	 *
-	 * @param nonProxiedMethod : method non proxified
-	 * @return boolean
+	 * @param cls : dataservice class
+	 * @param descriptor
+	 * @param arguments : arguments of call
+	 * @return
+	 * @throws JsonMarshallingException
+	 * @throws JsonMarshallerException
+	 * @throws JsonProcessingException
 	 */
-	boolean isJsCached(Method nonProxiedMethod) {
-		boolean cached = nonProxiedMethod.isAnnotationPresent(JsCacheResult.class);
-		logger.debug("The result of the method {} should be cached on client side {}.", nonProxiedMethod.getName(), cached);
-		return cached;
+	public String computeCacheKey(Class cls, MethodDescriptor descriptor, Object[] arguments) throws JsonMarshallingException, JsonMarshallerException, JsonProcessingException {
+		Method method = descriptor.getMethod();
+		List<String> jsonArgs = argumentServices.getJsonParameters(arguments, descriptor.getParameterAnnotations());
+		List<String> paramNames = cacheParamNameServices.getMethodParamNames(method.getDeclaringClass(), method.getName());
+		String argpart = cacheArgumentServices.computeArgPart(descriptor.getJsCacheKeys(), jsonArgs, paramNames);
+		return jsCacheAnnotationServices.computeCacheKey(cls, method.getName(), argpart);
 	}
 }
\ No newline at end of file
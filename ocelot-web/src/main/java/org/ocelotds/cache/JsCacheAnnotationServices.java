@@ -4,14 +4,12 @@
 package org.ocelotds.cache;
 
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.List;
 import javax.enterprise.event.Event;
 import javax.inject.Inject;
 import org.ocelotds.Constants;
 import org.ocelotds.KeyMaker;
 import org.ocelotds.annotations.JsCacheRemove;
-import org.ocelotds.annotations.JsCacheResult;
 import org.ocelotds.annotations.OcelotLogger;
 import org.ocelotds.messaging.CacheEvent;
 import org.ocelotds.messaging.MessageEvent;
@@ -46,6 +44,9 @@ public class JsCacheAnnotationServices {
 	@Inject
 	CacheArgumentServices cacheArgumentServices;
 
+	@Inject
+	ResultCache resultCache;
+
 	/**
 	 * Process annotation JsCacheRemoveAll and send message for suppress all the cache
 	 *
@@ -56,51 +57,33 @@ public class JsCacheAnnotationServices {
 		messageToClient.setId(Constants.Cache.CLEANCACHE_TOPIC);
 		messageToClient.setResponse(Constants.Cache.ALL);
 		wsEvent.fire(messageToClient);
+		resultCache.clear();
 	}
 
 	/**
-	 * Get deadline for cache if 0 : is 1 year cache
-	 *
-	 * @param jcr : the annotation
-	 * @return long
-	 */
-	public long getJsCacheResultDeadline(JsCacheResult jcr) {
-		Calendar deadline = getNowCalendar();
-		if ((jcr.year() + jcr.month() + jcr.day() + jcr.hour() + jcr.minute() + jcr.second() + jcr.millisecond()) == 0) {
-			deadline.add(Calendar.YEAR, 1);
-		} else {
-			deadline.add(Calendar.YEAR, jcr.year());
-			deadline.add(Calendar.MONTH, jcr.month());
-			deadline.add(Calendar.DATE, jcr.day());
-			deadline.add(Calendar.HOUR, jcr.hour());
-			deadline.add(Calendar.MINUTE, jcr.minute());
-			deadline.add(Calendar.SECOND, jcr.second());
-			deadline.add(Calendar.MILLISECOND, jcr.millisecond());
-		}
-		return deadline.getTime().getTime();
-	}
-
-	/**
-	 * Return now
+	 * Process an annotation JsCacheRemove and send a removeCache message to all clients connected
 	 *
-	 * @return
+	 * @param jcr : l'annotation
+	 * @param paramNames : name of parameters
+	 * @param jsonArgs : method arguments json format
 	 */
-	Calendar getNowCalendar() {
-		return Calendar.getInstance();
+	public void processJsCacheRemove(JsCacheRemove jcr, List<String> paramNames, List<String> jsonArgs) {
+		processJsCacheRemove(new JsCacheRemoveDescriptor(jcr), paramNames, jsonArgs);
 	}
 
 	/**
 	 * Process an annotation JsCacheRemove and send a removeCache message to all clients connected
 	 *
-	 * @param jcr : l'annotation
+	 * @param jcrd : the annotation with keys split
 	 * @param paramNames : name of parameters
 	 * @param jsonArgs : method arguments json format
 	 */
-	public void processJsCacheRemove(JsCacheRemove jcr, List<String> paramNames, List<String> jsonArgs) {
+	public void processJsCacheRemove(JsCacheRemoveDescriptor jcrd, List<String> paramNames, List<String> jsonArgs) {
+		JsCacheRemove jcr = jcrd.getJsCacheRemove();
 		logger.debug("Process JsCacheRemove annotation : {}", jcr);
 		MessageToClient messageToClient = new MessageToClient();
 		messageToClient.setId(Constants.Cache.CLEANCACHE_TOPIC);
-		String argpart = cacheArgumentServices.computeArgPart(jcr.keys(), jsonArgs, paramNames);
+		String argpart = cacheArgumentServices.computeArgPart(jcrd, jsonArgs, paramNames);
 		String cachekey = computeCacheKey(jcr.cls(), jcr.methodName(), argpart);
 		if (logger.isDebugEnabled()) {
 			logger.debug("JsonArgs from Call : {}", Arrays.toString(jsonArgs.toArray(new String[jsonArgs.size()])));
@@ -110,6 +93,7 @@ public class JsCacheAnnotationServices {
 		messageToClient.setResponse(cachekey);
 		if (jcr.userScope()) {
 			wsUserEvent.fire(messageToClient);
+			resultCache.removeUserEntry(cachekey);
 		} else {
 			wsEvent.fire(messageToClient);
 			cacheEvent.fire(cachekey);
@@ -0,0 +1,66 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.cache;
+
+import java.util.Arrays;
+import org.ocelotds.Constants;
+import org.ocelotds.annotations.JsCacheRemove;
+
+/**
+ * JsCacheRemove annotation with keys already split.<br>
+ * Example : key "a.i" gives param "a" and fields ["i"]
+ *
+ * @author hhfrancois
+ */
+public class JsCacheRemoveDescriptor {
+
+	private final JsCacheRemove jsCacheRemove;
+	private final boolean allArguments;
+	private final String[] keyParams;
+	private final String[][] keyFields;
+
+	public JsCacheRemoveDescriptor(JsCacheRemove jsCacheRemove) {
+		this.jsCacheRemove = jsCacheRemove;
+		String[] keys = jsCacheRemove.keys();
+		this.allArguments = keys.length > 0 && Constants.Cache.USE_ALL_ARGUMENTS.equals(keys[0]);
+		this.keyParams = new String[keys.length];
+		this.keyFields = new String[keys.length][];
+		for (int idx = 0; idx < keys.length; idx++) {
+			String[] path = keys[idx].split("\\.");
+			keyParams[idx] = path[0];
+			keyFields[idx] = Arrays.copyOfRange(path, 1, path.length);
+		}
+	}
+
+	public JsCacheRemove getJsCacheRemove() {
+		return jsCacheRemove;
+	}
+
+	/**
+	 * Key is computed from all arguments
+	 *
+	 * @return
+	 */
+	public boolean isAllArguments() {
+		return allArguments;
+	}
+
+	/**
+	 * Name of parameter for each key
+	 *
+	 * @return
+	 */
+	public String[] getKeyParams() {
+		return keyParams;
+	}
+
+	/**
+	 * Path of fields in parameter for each key
+	 *
+	 * @return
+	 */
+	public String[][] getKeyFields() {
+		return keyFields;
+	}
+}
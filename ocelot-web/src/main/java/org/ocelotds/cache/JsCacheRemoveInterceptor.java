@@ -13,6 +13,8 @@ import javax.interceptor.Interceptor;
 import javax.interceptor.InvocationContext;
 import org.ocelotds.annotations.JsCacheRemove;
 import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.core.services.DataServiceRegistry;
+import org.ocelotds.core.services.MethodDescriptor;
 import org.ocelotds.marshalling.ArgumentServices;
 import org.slf4j.Logger;
 
@@ -39,8 +41,13 @@ public class JsCacheRemoveInterceptor  implements Serializable {
 	
 	@Inject
 	ArgumentServices argumentServices;
+
+	@Inject
+	DataServiceRegistry dataServiceRegistry;
 	
 	/**
+	 * Entries are removed before the method, so clients stop using them during the update,
+	 * and again after, even if it fails, so results read during the update are not kept
 	 *
 	 * @param ctx
 	 * @return
@@ -49,11 +56,15 @@ public class JsCacheRemoveInterceptor  implements Serializable {
 	@AroundInvoke
 	public Object processJsCacheRemove(InvocationContext ctx) throws Exception {
 		Method method = ctx.getMethod();
-		List<String> jsonArgs = argumentServices.getJsonParameters(ctx.getParameters(), method.getParameterAnnotations());
+		MethodDescriptor descriptor = dataServiceRegistry.getMethodDescriptor(method);
+		List<String> jsonArgs = argumentServices.getJsonParameters(ctx.getParameters(), descriptor.getParameterAnnotations());
 		List<String> paramNames = cacheParamNameServices.getMethodParamNames(method.getDeclaringClass(), method.getName());
-		JsCacheRemove jcr = method.getAnnotation(JsCacheRemove.class);
-		jsCacheAnnotationServices.processJsCacheRemove(jcr, paramNames, jsonArgs);
-		return ctx.proceed();
+		jsCacheAnnotationServices.processJsCacheRemove(descriptor.getJsCacheRemove(), paramNames, jsonArgs);
+		try {
+			return ctx.proceed();
+		} finally {
+			jsCacheAnnotationServices.processJsCacheRemove(descriptor.getJsCacheRemove(), paramNames, jsonArgs);
+		}
 	}
 	
 }
@@ -11,9 +11,10 @@ import javax.inject.Inject;
 import javax.interceptor.AroundInvoke;
 import javax.interceptor.Interceptor;
 import javax.interceptor.InvocationContext;
-import org.ocelotds.annotations.JsCacheRemove;
 import org.ocelotds.annotations.JsCacheRemoves;
 import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.core.services.DataServiceRegistry;
+import org.ocelotds.core.services.MethodDescriptor;
 import org.ocelotds.marshalling.ArgumentServices;
 import org.slf4j.Logger;
 
@@ -40,8 +41,13 @@ public class JsCacheRemovesInterceptor  implements Serializable {
 	
 	@Inject
 	ArgumentServices argumentServices;
+
+	@Inject
+	DataServiceRegistry dataServiceRegistry;
 	
 	/**
+	 * Entries are removed before the method, so clients stop using them during the update,
+	 * and again after, even if it fails, so results read during the update are not kept
 	 *
 	 * @param ctx
 	 * @return
@@ -50,13 +56,19 @@ public class JsCacheRemovesInterceptor  implements Serializable {
 	@AroundInvoke
 	public Object processJsCacheRemoves(InvocationContext ctx) throws Exception {
 		Method method = ctx.getMethod();
-		List<String> jsonArgs = argumentServices.getJsonParameters(ctx.getParameters(), method.getParameterAnnotations());
+		MethodDescriptor descriptor = dataServiceRegistry.getMethodDescriptor(method);
+		List<String> jsonArgs = argumentServices.getJsonParameters(ctx.getParameters(), descriptor.getParameterAnnotations());
 		List<String> paramNames = cacheParamNameServices.getMethodParamNames(method.getDeclaringClass(), method.getName());
-		JsCacheRemoves jcrs = method.getAnnotation(JsCacheRemoves.class);
-		for (JsCacheRemove jcr : jcrs.value()) {
-			jsCacheAnnotationServices.processJsCacheRemove(jcr, paramNames, jsonArgs);
+		for (JsCacheRemoveDescriptor jcrd : descriptor.getJsCacheRemoves()) {
+			jsCacheAnnotationServices.processJsCacheRemove(jcrd, paramNames, jsonArgs);
+		}
+		try {
+			return ctx.proceed();
+		} finally {
+			for (JsCacheRemoveDescriptor jcrd : descriptor.getJsCacheRemoves()) {
+				jsCacheAnnotationServices.processJsCacheRemove(jcrd, paramNames, jsonArgs);
+			}
 		}
-		return ctx.proceed();
 	}
 	
 }
@@ -0,0 +1,413 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.cache;
+
+import java.security.Principal;
+import java.util.Comparator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.BiFunction;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.event.Observes;
+import javax.inject.Inject;
+import org.ocelotds.Constants;
+import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.configuration.ResultCacheConfigurationManager;
+import org.ocelotds.context.OcelotContext;
+import org.ocelotds.messaging.CacheEvent;
+import org.ocelotds.messaging.MessageToClient;
+import org.ocelotds.messaging.MessageType;
+import org.slf4j.Logger;
+
+/**
+ * Server side cache of results of methods annotated JsCacheResult with userScope or shared.<br>
+ * Entries are keyed like the front-end cache and keep the response in json, so a hit skips invocation and serialization.<br>
+ * Size is bounded, entry evicted is the least recently or the least frequently used.<br>
+ * Hits read a concurrent map, eviction order is a skip list, a put racing with a remove is dropped thanks to generations
+ *
+ * @author hhfrancois
+ */
+@ApplicationScoped
+public class ResultCache {
+
+	/**
+	 * Separate cache key and user name in key of userScope entries
+	 */
+	static final String USER_SEPARATOR = "@";
+
+	/**
+	 * Number of generations, a cache key uses the generation of its stripe
+	 */
+	static final int STRIPES = 64;
+
+	@Inject
+	@OcelotLogger
+	private Logger logger;
+
+	@Inject
+	private ResultCacheConfigurationManager configuration;
+
+	@Inject
+	private OcelotContext ocelotContext;
+
+	private final ConcurrentMap<String, Entry> entries = new ConcurrentHashMap<>();
+
+	/**
+	 * Entries in eviction order, first is the least recently or the least frequently used
+	 */
+	private final ConcurrentSkipListSet<Entry> order = new ConcurrentSkipListSet<>(new Comparator<Entry>() {
+		@Override
+		public int compare(Entry e1, Entry e2) {
+			if (isLfu() && e1.hits != e2.hits) {
+				return Long.compare(e1.hits, e2.hits);
+			}
+			return Long.compare(e1.tick, e2.tick);
+		}
+	});
+
+	/**
+	 * Keys of entries by cache key, shared and userScope entries
+	 */
+	private final ConcurrentMap<String, Set<String>> keysByCacheKey = new ConcurrentHashMap<>();
+
+	/**
+	 * Generations of cache keys, incremented before remove, so a result computed before is not put
+	 */
+	private final AtomicLongArray generations = new AtomicLongArray(STRIPES);
+
+	private final AtomicLong clock = new AtomicLong();
+
+	private final AtomicLong hitCount = new AtomicLong();
+
+	private final AtomicLong missCount = new AtomicLong();
+
+	private final AtomicLong evictionCount = new AtomicLong();
+
+	public boolean isEnabled() {
+		return configuration.getSize() > 0;
+	}
+
+	boolean isLfu() {
+		return Constants.Options.POLICY_LFU.equals(configuration.getPolicy());
+	}
+
+	/**
+	 * Get key of entry from cache key, userScope entries are isolated per user
+	 *
+	 * @param cacheKey
+	 * @param userScope
+	 * @return
+	 */
+	public String getKey(String cacheKey, boolean userScope) {
+		if (userScope) {
+			return cacheKey + USER_SEPARATOR + getUsername();
+		}
+		return cacheKey;
+	}
+
+	/**
+	 * Get cache key from key of entry
+	 *
+	 * @param key
+	 * @return
+	 */
+	String getCacheKey(String key) {
+		int idx = key.indexOf(USER_SEPARATOR);
+		if (idx < 0) {
+			return key;
+		}
+		return key.substring(0, idx);
+	}
+
+	/**
+	 * Name of current user.<br>
+	 * OcelotContext gives the principal captured when the call was received, not the principal of the container, that is wrong on workers
+	 *
+	 * @return
+	 */
+	String getUsername() {
+		Principal principal = ocelotContext.getPrincipal();
+		if (principal != null) {
+			return principal.getName();
+		}
+		return Constants.ANONYMOUS;
+	}
+
+	/**
+	 * Get generation of entry, to read before computing the result to put
+	 *
+	 * @param key
+	 * @return
+	 */
+	public long getGeneration(String key) {
+		return generations.get(getStripe(getCacheKey(key)));
+	}
+
+	int getStripe(String cacheKey) {
+		return (cacheKey.hashCode() & Integer.MAX_VALUE) % STRIPES;
+	}
+
+	/**
+	 * Get response in cache
+	 *
+	 * @param key
+	 * @return messageToClient without id, null if cache is disabled, or entry is missing or expired
+	 */
+	public MessageToClient get(String key) {
+		if (!isEnabled()) {
+			return null;
+		}
+		Entry entry = entries.get(key);
+		if (entry != null && entry.deadline <= System.currentTimeMillis()) {
+			discard(entry);
+			entry = null;
+		}
+		if (entry == null) {
+			missCount.incrementAndGet();
+			return null;
+		}
+		touch(entry);
+		hitCount.incrementAndGet();
+		logger.debug("Result {} found in cache.", key);
+		MessageToClient messageToClient = new MessageToClient();
+		messageToClient.setResult(null);
+		messageToClient.setJson(entry.json);
+		messageToClient.setDeadline(entry.deadline);
+		return messageToClient;
+	}
+
+	/**
+	 * Put response in cache, if it is a result with a deadline, and no remove occurred since generation was read.<br>
+	 * Json of response is kept in messageToClient, so it is serialized once
+	 *
+	 * @param key
+	 * @param messageToClient
+	 * @param generation : generation of key, read before the result was computed
+	 */
+	public void put(String key, MessageToClient messageToClient, long generation) {
+		if (!isEnabled() || !MessageType.RESULT.equals(messageToClient.getType()) || messageToClient.getDeadline() <= System.currentTimeMillis()) {
+			return;
+		}
+		String json = messageToClient.getJsonResponse();
+		messageToClient.setJson(json);
+		Entry entry = new Entry(key, json, messageToClient.getDeadline());
+		entry.tick = clock.incrementAndGet();
+		Entry previous = entries.put(key, entry);
+		if (previous != null) {
+			forget(previous);
+		}
+		synchronized (entry) {
+			if (!entry.removed) {
+				order.add(entry);
+			}
+		}
+		index(key);
+		if (getGeneration(key) != generation) {
+			logger.debug("Result {} was removed during invocation, it is not cached.", key);
+			discard(entry);
+			return;
+		}
+		while (entries.size() > configuration.getSize() && evict(entry)) {
+		}
+	}
+
+	/**
+	 * Evict an entry according the policy
+	 *
+	 * @param added : entry just added, never evicted
+	 * @return false if there is no entry to evict
+	 */
+	boolean evict(Entry added) {
+		for (Entry entry : order) {
+			if (entry != added && discard(entry)) {
+				logger.debug("Evict {} from result cache.", entry.key);
+				evictionCount.incrementAndGet();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Remove entries of cache key, for all users
+	 *
+	 * @param cacheKey
+	 */
+	public void remove(String cacheKey) {
+		generations.incrementAndGet(getStripe(cacheKey));
+		Set<String> keys = keysByCacheKey.get(cacheKey);
+		if (keys != null) {
+			for (String key : keys) {
+				discard(key);
+			}
+		}
+	}
+
+	/**
+	 * Remove entry of cache key for current user, and the shared entry of cache key, its result could depend of the change
+	 *
+	 * @param cacheKey
+	 */
+	public void removeUserEntry(String cacheKey) {
+		generations.incrementAndGet(getStripe(cacheKey));
+		discard(getKey(cacheKey, true));
+		discard(cacheKey);
+	}
+
+	/**
+	 * Remove all entries
+	 */
+	public void clear() {
+		for (int stripe = 0; stripe < STRIPES; stripe++) {
+			generations.incrementAndGet(stripe);
+		}
+		for (Entry entry : entries.values()) {
+			discard(entry);
+		}
+	}
+
+	/**
+	 * Remove entry of key
+	 *
+	 * @param key
+	 */
+	void discard(String key) {
+		Entry entry = entries.get(key);
+		if (entry != null) {
+			discard(entry);
+		}
+	}
+
+	/**
+	 * Remove entry from cache, if it is still the entry of its key
+	 *
+	 * @param entry
+	 * @return false if entry was already removed
+	 */
+	boolean discard(Entry entry) {
+		if (!entries.remove(entry.key, entry)) {
+			return false;
+		}
+		forget(entry);
+		unindex(entry.key);
+		return true;
+	}
+
+	/**
+	 * Remove entry from eviction order
+	 *
+	 * @param entry
+	 */
+	void forget(Entry entry) {
+		synchronized (entry) {
+			entry.removed = true;
+			order.remove(entry);
+		}
+	}
+
+	/**
+	 * Move entry in eviction order, on hit
+	 *
+	 * @param entry
+	 */
+	void touch(Entry entry) {
+		synchronized (entry) {
+			if (entry.removed) {
+				return;
+			}
+			order.remove(entry);
+			entry.hits++;
+			entry.tick = clock.incrementAndGet();
+			order.add(entry);
+		}
+	}
+
+	/**
+	 * Index key of entry by its cache key
+	 *
+	 * @param key
+	 */
+	void index(final String key) {
+		keysByCacheKey.compute(getCacheKey(key), new BiFunction<String, Set<String>, Set<String>>() {
+			@Override
+			public Set<String> apply(String cacheKey, Set<String> keys) {
+				if (keys == null) {
+					keys = ConcurrentHashMap.newKeySet();
+				}
+				keys.add(key);
+				return keys;
+			}
+		});
+	}
+
+	/**
+	 * Remove index of key if there is no more entry, checked atomically with index of a new entry
+	 *
+	 * @param key
+	 */
+	void unindex(final String key) {
+		keysByCacheKey.computeIfPresent(getCacheKey(key), new BiFunction<String, Set<String>, Set<String>>() {
+			@Override
+			public Set<String> apply(String cacheKey, Set<String> keys) {
+				if (!entries.containsKey(key)) {
+					keys.remove(key);
+				}
+				if (keys.isEmpty()) {
+					return null;
+				}
+				return keys;
+			}
+		});
+	}
+
+	/**
+	 * JsCacheRemove fires cache event, with the key removed in all front-end caches
+	 *
+	 * @param cacheKey
+	 */
+	public void receiveCacheRemoveEvent(@Observes @CacheEvent String cacheKey) {
+		logger.debug("Remove {} from result cache.", cacheKey);
+		remove(cacheKey);
+	}
+
+	public int getSize() {
+		return entries.size();
+	}
+
+	public long getHitCount() {
+		return hitCount.get();
+	}
+
+	public long getMissCount() {
+		return missCount.get();
+	}
+
+	public long getEvictionCount() {
+		return evictionCount.get();
+	}
+
+	/**
+	 * Response in json and its deadline.<br>
+	 * Hits and tick give the place of entry in eviction order, they are changed only while entry is out of order, with entry lock
+	 */
+	static class Entry {
+
+		final String key;
+		final String json;
+		final long deadline;
+		long hits = 0;
+		long tick = 0;
+		boolean removed = false;
+
+		Entry(String key, String json, long deadline) {
+			this.key = key;
+			this.json = json;
+			this.deadline = deadline;
+		}
+	}
+}
@@ -0,0 +1,137 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.messaging.MessageToClient;
+import org.slf4j.Logger;
+
+/**
+ * Coalesce identical calls of methods annotated JsCacheResult.<br>
+ * While a call is in flight, calls with the same cache key wait the same invocation and receive its result.<br>
+ * Deadline of a flight is the latest deadline of the calls waiting it
+ *
+ * @author hhfrancois
+ */
+@ApplicationScoped
+public class SingleFlightManager {
+
+	@Inject
+	@OcelotLogger
+	private Logger logger;
+
+	private final ConcurrentMap<String, Flight> flights = new ConcurrentHashMap<>();
+
+	private final AtomicLong invocationCount = new AtomicLong();
+
+	private final AtomicLong coalescedCount = new AtomicLong();
+
+	/**
+	 * Execute invocation for key, unless an invocation for the same key is in flight
+	 *
+	 * @param key : cache key
+	 * @param deadline : deadline of call in ms since epoch, 0 if not bounded
+	 * @param invocation : receives the deadline of the flight
+	 * @return future of the invocation in flight
+	 */
+	public CompletableFuture<MessageToClient> execute(final String key, long deadline, Function<LongSupplier, CompletableFuture<MessageToClient>> invocation) {
+		final Flight flight = new Flight(deadline);
+		Flight current = flights.putIfAbsent(key, flight);
+		if (current != null) {
+			coalescedCount.incrementAndGet();
+			logger.debug("Call {} is in flight, wait its result.", key);
+			current.extend(deadline);
+			return current.future;
+		}
+		invocationCount.incrementAndGet();
+		try {
+			invocation.apply(flight).whenComplete(new BiConsumer<MessageToClient, Throwable>() {
+				@Override
+				public void accept(MessageToClient result, Throwable error) {
+					flights.remove(key, flight);
+					if (error != null) {
+						flight.future.completeExceptionally(error);
+					} else {
+						flight.future.complete(result);
+					}
+				}
+			});
+		} catch (RuntimeException ex) {
+			flights.remove(key, flight);
+			flight.future.completeExceptionally(ex);
+		}
+		return flight.future;
+	}
+
+	/**
+	 * Number of invocations really done
+	 *
+	 * @return
+	 */
+	public long getInvocationCount() {
+		return invocationCount.get();
+	}
+
+	/**
+	 * Number of calls that received the result of an invocation in flight
+	 *
+	 * @return
+	 */
+	public long getCoalescedCount() {
+		return coalescedCount.get();
+	}
+
+	/**
+	 * Number of invocations currently in flight
+	 *
+	 * @return
+	 */
+	public int getInFlightCount() {
+		return flights.size();
+	}
+
+	/**
+	 * Invocation in flight and the latest deadline of calls waiting it
+	 */
+	static class Flight implements LongSupplier {
+
+		final CompletableFuture<MessageToClient> future = new CompletableFuture<>();
+		private final AtomicLong deadline;
+
+		Flight(long deadline) {
+			this.deadline = new AtomicLong(Math.max(deadline, 0));
+		}
+
+		/**
+		 * A call waits the flight, keep the latest deadline, 0 (not bounded) wins
+		 *
+		 * @param other
+		 */
+		void extend(long other) {
+			long current = deadline.get();
+			while (current > 0 && (other <= 0 || other > current) && !deadline.compareAndSet(current, Math.max(other, 0))) {
+				current = deadline.get();
+			}
+		}
+
+		/**
+		 * Deadline of flight
+		 *
+		 * @return time in ms since epoch, 0 if not bounded
+		 */
+		@Override
+		public long getAsLong() {
+			return deadline.get();
+		}
+	}
+}
@@ -0,0 +1,43 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.configuration;
+
+import javax.enterprise.inject.Instance;
+import javax.servlet.ServletContext;
+import org.slf4j.Logger;
+
+/**
+ * Read options from OcelotConfiguration producer, else from web.xml init-param, else default
+ *
+ * @author hhfrancois
+ */
+public abstract class AbstractConfigurationManager {
+
+	abstract Logger getLogger();
+
+	/**
+	 * Read option from producer or from web.xml
+	 *
+	 * @param producer
+	 * @param sc
+	 * @param name
+	 * @param defaultValue
+	 * @return
+	 */
+	String readOption(Instance<String> producer, ServletContext sc, String name, String defaultValue) {
+		String value;
+		if (producer.isUnsatisfied()) {
+			value = sc.getInitParameter(name);
+			if (value == null) {
+				value = defaultValue;
+			} else {
+				getLogger().debug("Read '{}' option in web.xml : '{}'.", name, value);
+			}
+		} else {
+			value = producer.get();
+			getLogger().debug("Read '{}' option from producer : '{}'.", name, value);
+		}
+		return value;
+	}
+}
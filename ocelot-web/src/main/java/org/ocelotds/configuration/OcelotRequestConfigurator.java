@@ -3,6 +3,7 @@
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
 package org.ocelotds.configuration;
 
+import java.util.List;
 import javax.websocket.HandshakeResponse;
 import javax.websocket.server.HandshakeRequest;
 import javax.websocket.server.ServerEndpointConfig;
@@ -31,4 +32,23 @@ public class OcelotRequestConfigurator extends ServerEndpointConfig.Configurator
 		sec.getUserProperties().put(Constants.HANDSHAKEREQUEST, request);
 		super.modifyHandshake(sec, request, response);
 	}
+
+	/**
+	 * Choose the first subprotocol requested by client and supported by endpoint, ocelot-cbor selects the binary protocol.<br>
+	 * If none is accepted, client falls back to json
+	 *
+	 * @param supported
+	 * @param requested
+	 * @return empty string if no subprotocol is accepted
+	 */
+	@Override
+	public String getNegotiatedSubprotocol(List<String> supported, List<String> requested) {
+		for (String subprotocol : requested) {
+			if (supported.contains(subprotocol)) {
+				logger.debug("Subprotocol '{}' negotiated", subprotocol);
+				return subprotocol;
+			}
+		}
+		return "";
+	}
 }
@@ -0,0 +1,172 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.configuration;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import javax.servlet.ServletContext;
+import org.ocelotds.Constants;
+import org.ocelotds.annotations.OcelotConfiguration;
+import org.ocelotds.annotations.OcelotLogger;
+import org.slf4j.Logger;
+
+/**
+ * Configuration of messages sent to clients
+ *
+ * @author hhfrancois
+ */
+@ApplicationScoped
+public class OutboundConfigurationManager extends AbstractConfigurationManager {
+
+	@Inject
+	@OcelotLogger
+	private Logger logger;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.STREAMING_THRESHOLD)
+	private Instance<String> ocelotConfigurationsStreamingThreshold;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.FANOUT_THRESHOLD)
+	private Instance<String> ocelotConfigurationsFanoutThreshold;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.FANOUT_POOL)
+	private Instance<String> ocelotConfigurationsFanoutPool;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.OUTBOUND_QUEUE)
+	private Instance<String> ocelotConfigurationsOutboundQueue;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.OUTBOUND_POLICY)
+	private Instance<String> ocelotConfigurationsOutboundPolicy;
+
+	/**
+	 * Default threshold : 64K chars
+	 */
+	private static final String DEFAULTSTREAMINGTHRESHOLD = "65536";
+
+	private int streamingThreshold = 65536;
+
+	/**
+	 * Default fan-out threshold : 256 sessions
+	 */
+	private static final String DEFAULTFANOUTTHRESHOLD = "256";
+
+	private int fanoutThreshold = 256;
+
+	/**
+	 * Default fan-out pool : number of processors
+	 */
+	private static final String DEFAULTFANOUTPOOL = "0";
+
+	private int fanoutPool = 0;
+
+	/**
+	 * Default outbound queue : 1000 messages by session
+	 */
+	private static final String DEFAULTOUTBOUNDQUEUE = "1000";
+
+	private int outboundQueue = 1000;
+
+	private String outboundPolicy = Constants.Options.POLICY_DROP_OLDEST;
+
+	@Override
+	Logger getLogger() {
+		return logger;
+	}
+
+	/**
+	 * Read in web.xml or from producers the optional STREAMING_THRESHOLD, FANOUT_THRESHOLD, FANOUT_POOL, OUTBOUND_QUEUE and OUTBOUND_POLICY configs
+	 *
+	 * @param sc
+	 */
+	public void readOutboundConfig(@Observes @Initialized(ApplicationScoped.class) ServletContext sc) {
+		setStreamingThreshold(Integer.parseInt(readOption(ocelotConfigurationsStreamingThreshold, sc, Constants.Options.STREAMING_THRESHOLD, DEFAULTSTREAMINGTHRESHOLD)));
+		logger.debug("'{}' value : '{}'.", Constants.Options.STREAMING_THRESHOLD, streamingThreshold);
+		setFanoutThreshold(Integer.parseInt(readOption(ocelotConfigurationsFanoutThreshold, sc, Constants.Options.FANOUT_THRESHOLD, DEFAULTFANOUTTHRESHOLD)));
+		logger.debug("'{}' value : '{}'.", Constants.Options.FANOUT_THRESHOLD, fanoutThreshold);
+		setFanoutPool(Integer.parseInt(readOption(ocelotConfigurationsFanoutPool, sc, Constants.Options.FANOUT_POOL, DEFAULTFANOUTPOOL)));
+		logger.debug("'{}' value : '{}'.", Constants.Options.FANOUT_POOL, fanoutPool);
+		setOutboundQueue(Integer.parseInt(readOption(ocelotConfigurationsOutboundQueue, sc, Constants.Options.OUTBOUND_QUEUE, DEFAULTOUTBOUNDQUEUE)));
+		logger.debug("'{}' value : '{}'.", Constants.Options.OUTBOUND_QUEUE, outboundQueue);
+		setOutboundPolicy(readOption(ocelotConfigurationsOutboundPolicy, sc, Constants.Options.OUTBOUND_POLICY, Constants.Options.POLICY_DROP_OLDEST));
+		logger.debug("'{}' value : '{}'.", Constants.Options.OUTBOUND_POLICY, outboundPolicy);
+	}
+
+	/**
+	 * Size in chars from which a message is streamed to the client instead of being sent at once
+	 *
+	 * @return 0 if messages are never streamed
+	 */
+	public int getStreamingThreshold() {
+		return streamingThreshold;
+	}
+
+	public void setStreamingThreshold(int streamingThreshold) {
+		this.streamingThreshold = streamingThreshold;
+	}
+
+	/**
+	 * Number of subscribers from which a topic message is sent by the fan-out pool, in shards of at least this size
+	 *
+	 * @return 0 if messages are always sent by the publisher thread
+	 */
+	public int getFanoutThreshold() {
+		return fanoutThreshold;
+	}
+
+	public void setFanoutThreshold(int fanoutThreshold) {
+		this.fanoutThreshold = fanoutThreshold;
+	}
+
+	/**
+	 * Number of threads of the fan-out pool
+	 *
+	 * @return 0 for the number of processors
+	 */
+	public int getFanoutPool() {
+		return fanoutPool;
+	}
+
+	public void setFanoutPool(int fanoutPool) {
+		this.fanoutPool = fanoutPool;
+	}
+
+	/**
+	 * Max number of messages waiting to be sent to a session
+	 *
+	 * @return 0 if queues are unbounded
+	 */
+	public int getOutboundQueue() {
+		return outboundQueue;
+	}
+
+	public void setOutboundQueue(int outboundQueue) {
+		this.outboundQueue = outboundQueue;
+	}
+
+	/**
+	 * Policy applied when the queue of a session is full : drop-oldest, conflate or disconnect
+	 *
+	 * @return
+	 */
+	public String getOutboundPolicy() {
+		return outboundPolicy;
+	}
+
+	public void setOutboundPolicy(String outboundPolicy) {
+		this.outboundPolicy = outboundPolicy;
+	}
+}
@@ -0,0 +1,90 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.configuration;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import javax.servlet.ServletContext;
+import org.ocelotds.Constants;
+import org.ocelotds.annotations.OcelotConfiguration;
+import org.ocelotds.annotations.OcelotLogger;
+import org.slf4j.Logger;
+
+/**
+ * Configuration of the server side cache of JsCacheResult results
+ *
+ * @author hhfrancois
+ */
+@ApplicationScoped
+public class ResultCacheConfigurationManager extends AbstractConfigurationManager {
+
+	@Inject
+	@OcelotLogger
+	private Logger logger;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.RESULTCACHE_SIZE)
+	private Instance<String> ocelotConfigurationsSize;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.RESULTCACHE_POLICY)
+	private Instance<String> ocelotConfigurationsPolicy;
+
+	/**
+	 * Default max number of entries : 0, server side cache is disabled
+	 */
+	private static final String DEFAULTSIZE = "0";
+
+	private int size = 0;
+
+	private String policy = Constants.Options.POLICY_LRU;
+
+	@Override
+	Logger getLogger() {
+		return logger;
+	}
+
+	/**
+	 * Read in web.xml or from producers the optional RESULTCACHE_SIZE and RESULTCACHE_POLICY config
+	 *
+	 * @param sc
+	 */
+	public void readResultCacheConfig(@Observes @Initialized(ApplicationScoped.class) ServletContext sc) {
+		setSize(Integer.parseInt(readOption(ocelotConfigurationsSize, sc, Constants.Options.RESULTCACHE_SIZE, DEFAULTSIZE)));
+		setPolicy(readOption(ocelotConfigurationsPolicy, sc, Constants.Options.RESULTCACHE_POLICY, Constants.Options.POLICY_LRU));
+		logger.debug("'{}' value : '{}', '{}' value : '{}'.", new Object[]{Constants.Options.RESULTCACHE_SIZE, size, Constants.Options.RESULTCACHE_POLICY, policy});
+	}
+
+	/**
+	 * Max number of entries in cache, 0 if cache is disabled
+	 *
+	 * @return
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	public void setSize(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Entry evicted when cache is full : least recently used (lru) or least frequently used (lfu)
+	 *
+	 * @return
+	 */
+	public String getPolicy() {
+		return policy;
+	}
+
+	public void setPolicy(String policy) {
+		this.policy = policy;
+	}
+}
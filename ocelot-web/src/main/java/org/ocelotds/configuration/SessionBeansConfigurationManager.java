@@ -0,0 +1,95 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.configuration;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import javax.servlet.ServletContext;
+import org.ocelotds.Constants;
+import org.ocelotds.annotations.OcelotConfiguration;
+import org.ocelotds.annotations.OcelotLogger;
+import org.slf4j.Logger;
+
+/**
+ * Configuration of session scope dataservices store of websocket sessions
+ *
+ * @author hhfrancois
+ */
+@ApplicationScoped
+public class SessionBeansConfigurationManager extends AbstractConfigurationManager {
+
+	@Inject
+	@OcelotLogger
+	private Logger logger;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.SESSIONBEANS_MAX)
+	private Instance<String> ocelotConfigurationsMax;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.SESSIONBEANS_IDLE)
+	private Instance<String> ocelotConfigurationsIdle;
+
+	/**
+	 * Default max number of dataservices by session
+	 */
+	private static final String DEFAULTMAX = "100";
+
+	/**
+	 * Default idle time in ms before dataservice eviction : 30 min
+	 */
+	private static final String DEFAULTIDLE = "1800000";
+
+	private int max = 100;
+
+	private long idle = 1800000;
+
+	@Override
+	Logger getLogger() {
+		return logger;
+	}
+
+	/**
+	 * Read in web.xml or from producers the optional SESSIONBEANS_MAX and SESSIONBEANS_IDLE config
+	 *
+	 * @param sc
+	 */
+	public void readSessionBeansConfig(@Observes @Initialized(ApplicationScoped.class) ServletContext sc) {
+		setMax(Integer.parseInt(readOption(ocelotConfigurationsMax, sc, Constants.Options.SESSIONBEANS_MAX, DEFAULTMAX)));
+		setIdle(Long.parseLong(readOption(ocelotConfigurationsIdle, sc, Constants.Options.SESSIONBEANS_IDLE, DEFAULTIDLE)));
+		logger.debug("'{}' value : '{}', '{}' value : '{}'.", new Object[]{Constants.Options.SESSIONBEANS_MAX, max, Constants.Options.SESSIONBEANS_IDLE, idle});
+	}
+
+	/**
+	 * Max number of session scope dataservices by websocket session
+	 *
+	 * @return
+	 */
+	public int getMax() {
+		return max;
+	}
+
+	public void setMax(int max) {
+		this.max = max;
+	}
+
+	/**
+	 * Time in ms after an unused dataservice is evicted, 0 for never
+	 *
+	 * @return
+	 */
+	public long getIdle() {
+		return idle;
+	}
+
+	public void setIdle(long idle) {
+		this.idle = idle;
+	}
+}
@@ -20,7 +20,7 @@ import org.slf4j.Logger;
  * @author hhfrancois
  */
 @ApplicationScoped
-public class StacktraceConfigurationManager {
+public class StacktraceConfigurationManager extends AbstractConfigurationManager {
 
 	@Inject
 	@OcelotLogger
@@ -36,23 +36,17 @@ public class StacktraceConfigurationManager {
 	 */
 	private static final String DEFAULTSTACKTRACE = "20";
 
+	@Override
+	Logger getLogger() {
+		return logger;
+	}
+
 	/**
 	 * Read in web.xml the optional STACKTRACE_LENGTH config and set it in StacktraceConfigurationManager
 	 * @param sc 
 	 */
 	public void readStacktraceConfig(@Observes @Initialized(ApplicationScoped.class) ServletContext sc) {
-		String stacktrace;
-		if(ocelotConfigurationsStack.isUnsatisfied()) {
-			stacktrace = sc.getInitParameter(Constants.Options.STACKTRACE_LENGTH);
-			if(stacktrace==null) {
-				stacktrace = DEFAULTSTACKTRACE;
-			} else {
-				logger.debug("Read '{}' option in web.xml : '{}'.", Constants.Options.STACKTRACE_LENGTH, stacktrace);
-			}
-		} else {
-			stacktrace = ocelotConfigurationsStack.get();
-			logger.debug("Read '{}' option from producer : '{}'.", Constants.Options.STACKTRACE_LENGTH, stacktrace);
-		}
+		String stacktrace = readOption(ocelotConfigurationsStack, sc, Constants.Options.STACKTRACE_LENGTH, DEFAULTSTACKTRACE);
 		int stacktracelenght = Integer.parseInt(stacktrace);
 		logger.debug("'{}' value : '{}'.", Constants.Options.STACKTRACE_LENGTH, stacktracelenght);
 		setStacktracelength(stacktracelenght);
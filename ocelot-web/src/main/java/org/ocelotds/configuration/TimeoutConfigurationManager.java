@@ -0,0 +1,69 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.configuration;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import javax.servlet.ServletContext;
+import org.ocelotds.Constants;
+import org.ocelotds.annotations.OcelotConfiguration;
+import org.ocelotds.annotations.OcelotLogger;
+import org.slf4j.Logger;
+
+/**
+ * Configuration of the default timeout of calls, for methods without CallTimeout
+ *
+ * @author hhfrancois
+ */
+@ApplicationScoped
+public class TimeoutConfigurationManager extends AbstractConfigurationManager {
+
+	@Inject
+	@OcelotLogger
+	private Logger logger;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.TIMEOUT_DEFAULT)
+	private Instance<String> ocelotConfigurationsTimeout;
+
+	/**
+	 * Default timeout : 0, calls are not bounded
+	 */
+	private static final String DEFAULTTIMEOUT = "0";
+
+	private long defaultTimeout = 0;
+
+	@Override
+	Logger getLogger() {
+		return logger;
+	}
+
+	/**
+	 * Read in web.xml or from producers the optional TIMEOUT_DEFAULT config
+	 *
+	 * @param sc
+	 */
+	public void readTimeoutConfig(@Observes @Initialized(ApplicationScoped.class) ServletContext sc) {
+		setDefaultTimeout(Long.parseLong(readOption(ocelotConfigurationsTimeout, sc, Constants.Options.TIMEOUT_DEFAULT, DEFAULTTIMEOUT)));
+		logger.debug("'{}' value : '{}'.", Constants.Options.TIMEOUT_DEFAULT, defaultTimeout);
+	}
+
+	/**
+	 * Timeout in milliseconds of calls, 0 if calls are not bounded
+	 *
+	 * @return
+	 */
+	public long getDefaultTimeout() {
+		return defaultTimeout;
+	}
+
+	public void setDefaultTimeout(long defaultTimeout) {
+		this.defaultTimeout = defaultTimeout;
+	}
+}
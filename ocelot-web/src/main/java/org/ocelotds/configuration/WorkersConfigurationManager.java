@@ -0,0 +1,181 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.configuration;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.context.Initialized;
+import javax.enterprise.event.Observes;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import javax.servlet.ServletContext;
+import org.ocelotds.Constants;
+import org.ocelotds.annotations.OcelotConfiguration;
+import org.ocelotds.annotations.OcelotLogger;
+import org.slf4j.Logger;
+
+/**
+ * Configuration of the workers pool executing websocket commands
+ *
+ * @author hhfrancois
+ */
+@ApplicationScoped
+public class WorkersConfigurationManager extends AbstractConfigurationManager {
+
+	@Inject
+	@OcelotLogger
+	private Logger logger;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.WORKERS_SIZE)
+	private Instance<String> ocelotConfigurationsSize;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.WORKERS_QUEUE)
+	private Instance<String> ocelotConfigurationsQueue;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.WORKERS_ORDERED)
+	private Instance<String> ocelotConfigurationsOrdered;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.WORKERS_REJECTION)
+	private Instance<String> ocelotConfigurationsRejection;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.WORKERS_VIRTUAL)
+	private Instance<String> ocelotConfigurationsVirtual;
+
+	@Any
+	@Inject
+	@OcelotConfiguration(Constants.Options.BATCH_PARALLEL)
+	private Instance<String> ocelotConfigurationsBatchParallel;
+
+	/**
+	 * Default number of workers : 0, commands are executed by websocket thread
+	 */
+	private static final String DEFAULTSIZE = "0";
+
+	/**
+	 * Default max number of commands waiting a worker
+	 */
+	private static final String DEFAULTQUEUE = "1000";
+
+	private int size = 0;
+
+	private int queue = 1000;
+
+	private boolean ordered = true;
+
+	private String rejection = Constants.Options.REJECTION_FAULT;
+
+	private boolean virtual = false;
+
+	private boolean batchParallel = false;
+
+	@Override
+	Logger getLogger() {
+		return logger;
+	}
+
+	/**
+	 * Read in web.xml or from producers the optional WORKERS_SIZE, WORKERS_QUEUE, WORKERS_ORDERED, WORKERS_REJECTION, WORKERS_VIRTUAL and BATCH_PARALLEL config
+	 *
+	 * @param sc
+	 */
+	public void readWorkersConfig(@Observes @Initialized(ApplicationScoped.class) ServletContext sc) {
+		setSize(Integer.parseInt(readOption(ocelotConfigurationsSize, sc, Constants.Options.WORKERS_SIZE, DEFAULTSIZE)));
+		setQueue(Integer.parseInt(readOption(ocelotConfigurationsQueue, sc, Constants.Options.WORKERS_QUEUE, DEFAULTQUEUE)));
+		setOrdered(Boolean.parseBoolean(readOption(ocelotConfigurationsOrdered, sc, Constants.Options.WORKERS_ORDERED, Constants.TRUE)));
+		setRejection(readOption(ocelotConfigurationsRejection, sc, Constants.Options.WORKERS_REJECTION, Constants.Options.REJECTION_FAULT));
+		setVirtual(Boolean.parseBoolean(readOption(ocelotConfigurationsVirtual, sc, Constants.Options.WORKERS_VIRTUAL, Constants.FALSE)));
+		setBatchParallel(Boolean.parseBoolean(readOption(ocelotConfigurationsBatchParallel, sc, Constants.Options.BATCH_PARALLEL, Constants.FALSE)));
+		logger.debug("'{}' value : '{}', '{}' value : '{}', '{}' value : '{}', '{}' value : '{}', '{}' value : '{}', '{}' value : '{}'.", new Object[]{Constants.Options.WORKERS_SIZE, size, 
+			Constants.Options.WORKERS_QUEUE, queue, Constants.Options.WORKERS_ORDERED, ordered, Constants.Options.WORKERS_REJECTION, rejection, 
+			Constants.Options.WORKERS_VIRTUAL, virtual, Constants.Options.BATCH_PARALLEL, batchParallel});
+	}
+
+	/**
+	 * Number of workers, 0 if commands are executed by websocket thread
+	 *
+	 * @return
+	 */
+	public int getSize() {
+		return size;
+	}
+
+	public void setSize(int size) {
+		this.size = size;
+	}
+
+	/**
+	 * Max number of commands waiting a worker
+	 *
+	 * @return
+	 */
+	public int getQueue() {
+		return queue;
+	}
+
+	public void setQueue(int queue) {
+		this.queue = queue;
+	}
+
+	/**
+	 * Commands of a session are executed one by one, in order of reception
+	 *
+	 * @return
+	 */
+	public boolean isOrdered() {
+		return ordered;
+	}
+
+	public void setOrdered(boolean ordered) {
+		this.ordered = ordered;
+	}
+
+	/**
+	 * Policy when the queue is full : fault sent to client, or websocket thread waits a free place
+	 *
+	 * @return
+	 */
+	public String getRejection() {
+		return rejection;
+	}
+
+	public void setRejection(String rejection) {
+		this.rejection = rejection;
+	}
+
+	/**
+	 * Websocket and rest calls are executed by virtual threads, if jvm supports them
+	 *
+	 * @return
+	 */
+	public boolean isVirtual() {
+		return virtual;
+	}
+
+	public void setVirtual(boolean virtual) {
+		this.virtual = virtual;
+	}
+
+	/**
+	 * Calls of a batch are executed in parallel
+	 *
+	 * @return
+	 */
+	public boolean isBatchParallel() {
+		return batchParallel;
+	}
+
+	public void setBatchParallel(boolean batchParallel) {
+		this.batchParallel = batchParallel;
+	}
+}
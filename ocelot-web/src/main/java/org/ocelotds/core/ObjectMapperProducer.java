@@ -6,8 +6,10 @@ package org.ocelotds.core;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import javax.enterprise.inject.Produces;
 import org.ocelotds.annotations.OcelotObject;
+import org.ocelotds.marshalling.SharedObjectMapper;
 
 /**
+ * Produce the shared ObjectMapper, it is the mapper used to write responses
  *
  * @author hhfrancois
  */
@@ -16,6 +18,6 @@ public class ObjectMapperProducer {
 	@Produces
 	@OcelotObject
 	public ObjectMapper getObjectMapper() {
-		return new ObjectMapper();
+		return SharedObjectMapper.getObjectMapper();
 	}
 }
@@ -0,0 +1,129 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.mtc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.LongSupplier;
+
+/**
+ * Complete a CompletableFuture with the result of a Future that is not a CompletionStage.<br>
+ * The future is polled by a scheduler with a growing delay, so no thread is blocked whatever the number of calls waiting.<br>
+ * The result is completed by executor, dependent stages never run on the thread of the scheduler.<br>
+ * Polling stops when the result is done elsewhere (cancelled), or at deadline with a TimeoutException
+ *
+ * @author hhfrancois
+ */
+public class FuturePoller implements Runnable {
+
+	/**
+	 * First delay between two polls in ms
+	 */
+	static final long MIN_DELAY = 1;
+
+	/**
+	 * Max delay between two polls in ms
+	 */
+	static final long MAX_DELAY = 50;
+
+	private final Future<?> future;
+	private final CompletableFuture<Object> result;
+	private final ScheduledExecutorService scheduler;
+	private final Executor executor;
+	private final LongSupplier deadline;
+	private long delay = MIN_DELAY;
+
+	FuturePoller(Future<?> future, CompletableFuture<Object> result, ScheduledExecutorService scheduler, Executor executor, LongSupplier deadline) {
+		this.future = future;
+		this.result = result;
+		this.scheduler = scheduler;
+		this.executor = executor;
+		this.deadline = deadline;
+	}
+
+	/**
+	 * Get a CompletableFuture completed with the result of future.<br>
+	 * If future is already done, the result is completed by the calling thread
+	 *
+	 * @param future
+	 * @param scheduler : polls future
+	 * @param executor : completes result
+	 * @param deadline : time in ms since epoch, read at each poll, 0 if not bounded
+	 * @return
+	 */
+	public static CompletableFuture<Object> poll(Future<?> future, ScheduledExecutorService scheduler, Executor executor, LongSupplier deadline) {
+		CompletableFuture<Object> result = new CompletableFuture<>();
+		FuturePoller poller = new FuturePoller(future, result, scheduler, executor, deadline);
+		if (future.isDone()) {
+			poller.complete();
+		} else {
+			poller.schedule();
+		}
+		return result;
+	}
+
+	@Override
+	public void run() {
+		if (result.isDone()) {
+			return;
+		}
+		if (future.isDone()) {
+			completeAsync();
+			return;
+		}
+		long limit = deadline.getAsLong();
+		if (limit > 0 && limit <= System.currentTimeMillis()) {
+			result.completeExceptionally(new TimeoutException("Future is not done at deadline, polling stopped"));
+			return;
+		}
+		schedule();
+	}
+
+	/**
+	 * Complete result by executor, by scheduler thread only if executor rejects it
+	 */
+	void completeAsync() {
+		try {
+			executor.execute(new Runnable() {
+				@Override
+				public void run() {
+					complete();
+				}
+			});
+		} catch (RejectedExecutionException ex) {
+			complete();
+		}
+	}
+
+	/**
+	 * Complete result with the outcome of future, that is done
+	 */
+	void complete() {
+		try {
+			result.complete(future.get());
+		} catch (ExecutionException ex) {
+			result.completeExceptionally(ex.getCause());
+		} catch (InterruptedException | RuntimeException ex) {
+			result.completeExceptionally(ex);
+		}
+	}
+
+	/**
+	 * Poll again later
+	 */
+	void schedule() {
+		try {
+			scheduler.schedule(this, delay, TimeUnit.MILLISECONDS);
+			delay = Math.min(delay * 2, MAX_DELAY);
+		} catch (RejectedExecutionException ex) {
+			result.completeExceptionally(ex);
+		}
+	}
+}
@@ -4,27 +4,41 @@
 package org.ocelotds.core.mtc;
 
 import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
-import javax.enterprise.inject.Any;
-import javax.enterprise.inject.Instance;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledFuture;
+import java.util.function.BiConsumer;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
 import javax.inject.Inject;
 import javax.validation.ConstraintViolationException;
-import org.ocelotds.annotations.DataService;
+import org.ocelotds.Constants;
 import org.ocelotds.annotations.OcelotLogger;
 import org.ocelotds.cache.CacheManager;
+import org.ocelotds.cache.ResultCache;
+import org.ocelotds.cache.SingleFlightManager;
+import org.ocelotds.context.CancellationToken;
+import org.ocelotds.context.ThreadLocalContextHolder;
 import org.ocelotds.marshalling.ArgumentServices;
 import org.ocelotds.core.services.ConstraintServices;
+import org.ocelotds.core.services.DataServiceDescriptor;
+import org.ocelotds.core.services.DataServiceRegistry;
 import org.ocelotds.core.services.FaultServices;
+import org.ocelotds.core.services.MethodDescriptor;
 import org.ocelotds.core.services.MethodServices;
-import org.ocelotds.marshalling.annotations.JsonMarshaller;
+import org.ocelotds.marshalling.IJsonMarshaller;
+import org.ocelotds.marshalling.exceptions.JsonMarshallerException;
+import org.ocelotds.marshalling.exceptions.JsonMarshallingException;
 import org.ocelotds.messaging.MessageFromClient;
 import org.ocelotds.messaging.MessageToClient;
-import org.ocelotds.resolvers.DataServiceResolverIdLitteral;
 import org.ocelotds.spi.DataServiceException;
-import org.ocelotds.spi.IDataServiceResolver;
 import org.ocelotds.spi.Scope;
 import org.slf4j.Logger;
 
@@ -39,16 +53,15 @@ public abstract class MessageToClientManager<T> {
 	@OcelotLogger
 	private Logger logger;
 
-	@Inject
-	@Any
-	private Instance<IDataServiceResolver> resolvers;
-
 	@Inject
 	private CacheManager cacheManager;
 
 	@Inject
 	private MethodServices methodServices;
 
+	@Inject
+	private DataServiceRegistry dataServiceRegistry;
+
 	@Inject
 	private ArgumentServices argumentServices;
 
@@ -58,11 +71,16 @@ public abstract class MessageToClientManager<T> {
 	@Inject
 	private ConstraintServices constraintServices;
 
-	public abstract Map<String, Object> getSessionBeans(T session);
+	@Inject
+	private SingleFlightManager singleFlightManager;
 
-	IDataServiceResolver getResolver(String type) {
-		return resolvers.select(new DataServiceResolverIdLitteral(type)).get();
-	}
+	@Inject
+	private ResultCache resultCache;
+
+	@Inject
+	private TimeoutManager timeoutManager;
+
+	public abstract Map<String, Object> getSessionBeans(T session);
 
 	/**
 	 * Get Dataservice, store dataservice in session if session scope.<br>
@@ -73,47 +91,47 @@ public abstract class MessageToClientManager<T> {
 	 * @throws DataServiceException
 	 */
 	Object getDataService(T session, Class cls) throws DataServiceException {
-		String dataServiceClassName = cls.getName();
-		logger.debug("Looking for dataservice : {}", dataServiceClassName);
-		if (cls.isAnnotationPresent(DataService.class)) {
-			return _getDataService(session, cls);
-		} else {
-			throw new DataServiceException(dataServiceClassName + " is not annotated with @" + DataService.class.getSimpleName());
-		}
+		logger.debug("Looking for dataservice : {}", cls.getName());
+		return _getDataService(session, dataServiceRegistry.getDataServiceDescriptor(cls));
 	}
 
 	/**
 	 * Get Dataservice, store dataservice in session if session scope.<br>
+	 * Resolver and scope come from descriptor, application scoped dataservice is kept in descriptor.
 	 *
 	 * @param session
-	 * @param cls
+	 * @param descriptor
 	 * @return
 	 * @throws DataServiceException
 	 */
-	Object _getDataService(T session, Class cls) throws DataServiceException {
-		String dataServiceClassName = cls.getName();
-		DataService dataServiceAnno = (DataService) cls.getAnnotation(DataService.class);
-		IDataServiceResolver resolver = getResolver(dataServiceAnno.resolver());
-		Scope scope = resolver.getScope(cls);
-		Object dataService = null;
-		Map<String, Object> sessionBeans = getSessionBeans(session);
+	Object _getDataService(T session, DataServiceDescriptor descriptor) throws DataServiceException {
+		Object dataService = descriptor.getInstance();
+		if (dataService != null) {
+			return dataService;
+		}
+		String dataServiceClassName = descriptor.getDataServiceClass().getName();
+		Scope scope = descriptor.getScope();
 		logger.debug("{} : scope : {}", dataServiceClassName, scope);
+		Map<String, Object> sessionBeans = null;
 		if (scope.equals(Scope.SESSION)) {
+			sessionBeans = getSessionBeans(session);
 			dataService = sessionBeans.get(dataServiceClassName);
 			logger.debug("{} : scope : session is in session : {}", dataServiceClassName, (dataService != null));
 		}
 		if (dataService == null) {
-			dataService = resolver.resolveDataService(cls);
+			dataService = descriptor.getResolver().resolveDataService(descriptor.getDataServiceClass());
 			if (scope.equals(Scope.SESSION)) {
 				logger.debug("Store {} scope session in session", dataServiceClassName);
 				sessionBeans.put(dataServiceClassName, dataService);
 			}
+			descriptor.setInstance(dataService);
 		}
 		return dataService;
 	}
 
 	/**
-	 * Create a MessageToClient from MessageFromClient for session
+	 * Create a MessageToClient from MessageFromClient for session.<br>
+	 * If the method is asynchronous, wait the result
 	 *
 	 * @param message
 	 * @param session
@@ -131,37 +149,306 @@ public abstract class MessageToClientManager<T> {
 	 * @return
 	 */
 	MessageToClient _createMessageToClient(MessageFromClient message, T session) {
+		return createMessageToClientAsync(message, session).join();
+	}
+
+	/**
+	 * Create a MessageToClient from MessageFromClient for session.<br>
+	 * If the method returns CompletionStage or Future, the returned future is completed when the result is available, without block the calling thread.<br>
+	 * If the result is cached in front-end, identical calls in flight share the same invocation, and result can be taken from server side cache.<br>
+	 * A call expired before invocation is not invoked, a call not answered at its deadline receives a timeout fault.<br>
+	 * The future is never completed exceptionally, faults and constraints are set in MessageToClient
+	 *
+	 * @param message
+	 * @param session
+	 * @return
+	 */
+	public CompletableFuture<MessageToClient> createMessageToClientAsync(MessageFromClient message, T session) {
 		MessageToClient messageToClient = new MessageToClient();
 		messageToClient.setId(message.getId());
 		try {
-			Class cls = Class.forName(message.getDataService());
+			Class cls = dataServiceRegistry.getDataServiceClass(message.getDataService());
 			Object dataService = this.getDataService(session, cls);
 			logger.debug("Process message {}", message);
 			List<Object> arguments = getArrayList();
-			Method method = methodServices.getMethodFromDataService(cls, message, arguments);
-			injectSession(method.getParameterTypes(), arguments, session);
-			messageToClient.setResult(method.invoke(dataService, arguments.toArray()));
-			if (method.isAnnotationPresent(JsonMarshaller.class)) {
-				messageToClient.setJson(argumentServices.getJsonResultFromSpecificMarshaller(method.getAnnotation(JsonMarshaller.class), messageToClient.getResponse()));
+			MethodDescriptor descriptor = methodServices.getMethodDescriptorFromDataService(cls, message, arguments);
+			long deadline = timeoutManager.getDeadline(message, descriptor);
+			if (timeoutManager.isExpired(deadline)) {
+				logger.debug("Call {} expired before invocation.", message.getId());
+				return CompletableFuture.completedFuture(timeoutManager.createTimeoutResponse(message.getId(), deadline));
 			}
-			try {
-				Method nonProxiedMethod = methodServices.getNonProxiedMethod(cls, method.getName(), method.getParameterTypes());
-				messageToClient.setDeadline(cacheManager.processCacheAnnotations(nonProxiedMethod, message.getParameters()));
-			} catch (NoSuchMethodException ex) {
-				logger.error("Fail to process extra annotations (JsCacheResult, JsCacheRemove) for method : " + method.getName(), ex);
-			}
-			logger.debug("Method {} proceed messageToClient : {}.", method.getName(), messageToClient);
-		} catch (InvocationTargetException ex) {
-			Throwable cause = ex.getCause();
-			if (ConstraintViolationException.class.isInstance(cause)) {
-				messageToClient.setConstraints(constraintServices.extractViolations((ConstraintViolationException) cause));
+			String key = getFlightKey(cls, descriptor, arguments);
+			injectSession(descriptor.getParameterClasses(), arguments, session);
+			CompletableFuture<MessageToClient> future;
+			if (key != null) { // shared invocation is not interrupted at the deadline of one caller, within answers each caller at its own deadline
+				future = coalesce(key, messageToClient, descriptor, dataService, arguments.toArray(), deadline);
 			} else {
-				messageToClient.setFault(faultServices.buildFault(cause));
+				ScheduledFuture<?> interruption = timeoutManager.interruptAt(deadline);
+				try {
+					future = invoke(messageToClient, descriptor, dataService, arguments.toArray(), getDeadlineSupplier(deadline));
+				} finally {
+					if (interruption != null) {
+						interruption.cancel(false);
+					}
+				}
+			}
+			return timeoutManager.within(future, message.getId(), deadline);
+		} catch (Throwable ex) {
+			messageToClient.setFault(faultServices.buildFault(ex));
+		}
+		return CompletableFuture.completedFuture(messageToClient);
+	}
+
+	/**
+	 * Invoke method of dataservice and set result or fault in messageToClient
+	 *
+	 * @param messageToClient
+	 * @param descriptor
+	 * @param dataService
+	 * @param arguments
+	 * @param deadline : deadline of asynchronous result
+	 * @return
+	 */
+	CompletableFuture<MessageToClient> invoke(MessageToClient messageToClient, MethodDescriptor descriptor, Object dataService, Object[] arguments, LongSupplier deadline) {
+		try {
+			Object result = descriptor.invoke(dataService, arguments);
+			if (descriptor.isAsynchronous() && result != null) {
+				logger.debug("Method {} is asynchronous, messageToClient will be completed later.", descriptor.getName());
+				return completeMessageToClient(messageToClient, descriptor, toCompletionStage(result, deadline));
 			}
+			setResult(messageToClient, descriptor, result);
+			logger.debug("Method {} proceed messageToClient : {}.", descriptor.getName(), messageToClient);
+		} catch (InvocationTargetException ex) {
+			setFault(messageToClient, ex.getCause());
 		} catch (Throwable ex) {
 			messageToClient.setFault(faultServices.buildFault(ex));
 		}
-		return messageToClient;
+		return CompletableFuture.completedFuture(messageToClient);
+	}
+
+	/**
+	 * Get the key identifying identical calls.<br>
+	 * Only result cached in front-end with userScope or shared can be coalesced, except for session scoped dataservices.<br>
+	 * Key of userScope result includes user name, so calls of different users are never coalesced unless result is shared.<br>
+	 * Methods secured by OcelotSecured are never coalesced : a shared or cached result would skip the check of roles of the caller
+	 *
+	 * @param cls
+	 * @param descriptor
+	 * @param arguments : arguments before session injection
+	 * @return cache key, null if call should not be coalesced
+	 */
+	String getFlightKey(Class cls, MethodDescriptor descriptor, List<Object> arguments) {
+		if (!descriptor.isJsCacheUserScope() && !descriptor.isJsCacheShared()) {
+			return null;
+		}
+		if (descriptor.getOcelotSecured() != null) {
+			return null;
+		}
+		try {
+			if (Scope.SESSION.equals(dataServiceRegistry.getDataServiceDescriptor(cls).getScope())) {
+				return null;
+			}
+			return resultCache.getKey(cacheManager.computeCacheKey(cls, descriptor, arguments.toArray()), descriptor.isJsCacheUserScope());
+		} catch (Throwable ex) {
+			logger.warn("Fail to compute cache key of {}, call will not be coalesced.", descriptor.getName(), ex);
+		}
+		return null;
+	}
+
+	/**
+	 * Take response in server side cache, else invoke method, or wait the identical invocation in flight, and copy its response in messageToClient.<br>
+	 * The invocation is shared by all callers, so the cancel of one of them doesn't stop it
+	 *
+	 * @param key : cache key of call
+	 * @param messageToClient
+	 * @param descriptor
+	 * @param dataService
+	 * @param arguments
+	 * @param deadline : deadline of call
+	 * @return
+	 */
+	CompletableFuture<MessageToClient> coalesce(final String key, final MessageToClient messageToClient, final MethodDescriptor descriptor, final Object dataService, final Object[] arguments, long deadline) {
+		MessageToClient cached = resultCache.get(key);
+		if (cached != null) {
+			copyResponse(cached, messageToClient);
+			return CompletableFuture.completedFuture(messageToClient);
+		}
+		return singleFlightManager.execute(key, deadline, new Function<LongSupplier, CompletableFuture<MessageToClient>>() {
+			@Override
+			public CompletableFuture<MessageToClient> apply(LongSupplier flightDeadline) {
+				final long generation = resultCache.getGeneration(key);
+				CancellationToken token = suspendCancellationToken();
+				CompletableFuture<MessageToClient> future;
+				try {
+					future = invoke(messageToClient, descriptor, dataService, arguments, flightDeadline);
+				} finally {
+					ThreadLocalContextHolder.put(Constants.CANCELLATIONTOKEN, token);
+				}
+				return future.thenApply(new Function<MessageToClient, MessageToClient>() {
+					@Override
+					public MessageToClient apply(MessageToClient result) {
+						resultCache.put(key, result, generation);
+						return result;
+					}
+				});
+			}
+		}).thenApply(new Function<MessageToClient, MessageToClient>() {
+			@Override
+			public MessageToClient apply(MessageToClient result) {
+				if (result != messageToClient) {
+					copyResponse(result, messageToClient);
+				}
+				return messageToClient;
+			}
+		});
+	}
+
+	/**
+	 * Detach the cancellation token of the caller from the current thread, and remove it from context.<br>
+	 * The caller cancelled during a shared invocation just doesn't receive the response
+	 *
+	 * @return token of caller, to restore in context after invocation
+	 */
+	CancellationToken suspendCancellationToken() {
+		CancellationToken token = (CancellationToken) ThreadLocalContextHolder.get(Constants.CANCELLATIONTOKEN);
+		if (token != null) {
+			token.detach();
+			ThreadLocalContextHolder.put(Constants.CANCELLATIONTOKEN, null);
+		}
+		return token;
+	}
+
+	/**
+	 * Copy response of shared invocation, messageToClient keeps its id
+	 *
+	 * @param source
+	 * @param messageToClient
+	 */
+	void copyResponse(MessageToClient source, MessageToClient messageToClient) {
+		messageToClient.setType(source.getType());
+		messageToClient.setResponse(source.getResponse());
+		messageToClient.setJson(source.getJson());
+		messageToClient.setDeadline(source.getDeadline());
+	}
+
+	/**
+	 * Set result, json from specific marshaller and cache deadline
+	 *
+	 * @param messageToClient
+	 * @param descriptor
+	 * @param result
+	 * @throws JsonMarshallingException
+	 * @throws JsonMarshallerException
+	 */
+	void setResult(MessageToClient messageToClient, MethodDescriptor descriptor, Object result) throws JsonMarshallingException, JsonMarshallerException {
+		messageToClient.setResult(result);
+		if (descriptor.getJsonMarshaller() != null) {
+			messageToClient.setJson(argumentServices.getJsonResultFromSpecificMarshaller(descriptor.getJsonMarshaller(), getMarshaller(descriptor), messageToClient.getResponse()));
+		}
+		messageToClient.setDeadline(cacheManager.processCacheAnnotations(descriptor));
+	}
+
+	/**
+	 * Set constraints or fault from exception thrown by method
+	 *
+	 * @param messageToClient
+	 * @param cause
+	 */
+	void setFault(MessageToClient messageToClient, Throwable cause) {
+		if (ConstraintViolationException.class.isInstance(cause)) {
+			messageToClient.setConstraints(constraintServices.extractViolations((ConstraintViolationException) cause));
+		} else {
+			messageToClient.setFault(faultServices.buildFault(cause));
+		}
+	}
+
+	/**
+	 * Complete messageToClient when the stage returned by method is completed
+	 *
+	 * @param messageToClient
+	 * @param descriptor
+	 * @param stage
+	 * @return
+	 */
+	CompletableFuture<MessageToClient> completeMessageToClient(final MessageToClient messageToClient, final MethodDescriptor descriptor, CompletionStage<?> stage) {
+		final CompletableFuture<MessageToClient> future = new CompletableFuture<>();
+		stage.whenComplete(new BiConsumer<Object, Throwable>() {
+			@Override
+			public void accept(Object result, Throwable error) {
+				try {
+					if (error != null) {
+						setFault(messageToClient, unwrap(error));
+					} else {
+						setResult(messageToClient, descriptor, result);
+					}
+				} catch (Throwable ex) {
+					messageToClient.setFault(faultServices.buildFault(ex));
+				}
+				future.complete(messageToClient);
+			}
+		});
+		return future;
+	}
+
+	/**
+	 * Convert result of asynchronous method to CompletionStage.<br>
+	 * A Future that is not a CompletionStage is polled by the scheduler of timers until deadline, no thread waits for it.<br>
+	 * Its result is completed by the common pool, the timer thread doesn't marshall responses
+	 *
+	 * @param result
+	 * @param deadline
+	 * @return
+	 */
+	CompletionStage<?> toCompletionStage(Object result, LongSupplier deadline) {
+		if (CompletionStage.class.isInstance(result)) {
+			return (CompletionStage<?>) result;
+		}
+		return FuturePoller.poll((Future<?>) result, timeoutManager.getScheduler(), ForkJoinPool.commonPool(), deadline);
+	}
+
+	/**
+	 * Deadline of a call that is not shared
+	 *
+	 * @param deadline
+	 * @return
+	 */
+	LongSupplier getDeadlineSupplier(final long deadline) {
+		return new LongSupplier() {
+			@Override
+			public long getAsLong() {
+				return deadline;
+			}
+		};
+	}
+
+	/**
+	 * Get the original exception from CompletionException or ExecutionException
+	 *
+	 * @param error
+	 * @return
+	 */
+	Throwable unwrap(Throwable error) {
+		Throwable cause = error;
+		while ((CompletionException.class.isInstance(cause) || ExecutionException.class.isInstance(cause)) && cause.getCause() != null) {
+			cause = cause.getCause();
+		}
+		return cause;
+	}
+
+	/**
+	 * Get marshaller of result from descriptor, resolve it on first call
+	 *
+	 * @param descriptor
+	 * @return
+	 * @throws JsonMarshallerException
+	 */
+	IJsonMarshaller getMarshaller(MethodDescriptor descriptor) throws JsonMarshallerException {
+		IJsonMarshaller marshaller = descriptor.getMarshaller();
+		if (marshaller == null) {
+			marshaller = argumentServices.getIJsonMarshallerInstance(descriptor.getJsonMarshaller().value());
+			descriptor.setMarshaller(marshaller);
+		}
+		return marshaller;
 	}
 
 	/**
@@ -0,0 +1,191 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.mtc;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+
+/**
+ * Session scope dataservices of one websocket session.<br>
+ * Bounded to max entries (least recently used is removed), entries unused since idle ms are evicted on access.<br>
+ * Maps ordered by access are modified by get, so they are private and every access holds the lock, iteration works on a copy.<br>
+ * Evicted, replaced and cleared beans are given to releaser outside the lock, so their resolver can destroy them
+ *
+ * @author hhfrancois
+ */
+public class SessionBeans extends AbstractMap<String, Object> {
+
+	private final int max;
+	private final long idle;
+	private final Object lock = new Object();
+	private final Map<String, Object> beans = new LinkedHashMap<>(16, 0.75f, true);
+	private final Map<String, Long> lastAccesses = new LinkedHashMap<>(16, 0.75f, true);
+	private final BiConsumer<String, Object> releaser;
+
+	public SessionBeans(int max, long idle) {
+		this(max, idle, null);
+	}
+
+	/**
+	 *
+	 * @param max
+	 * @param idle
+	 * @param releaser : called with class name and bean removed from store, null for none
+	 */
+	public SessionBeans(int max, long idle, BiConsumer<String, Object> releaser) {
+		this.max = max;
+		this.idle = idle;
+		this.releaser = releaser;
+	}
+
+	@Override
+	public Object get(Object key) {
+		List<Map.Entry<String, Object>> evicted = new ArrayList<>();
+		Object result;
+		synchronized (lock) {
+			long now = now();
+			evictIdles(now, evicted);
+			result = beans.get(key);
+			if (result != null) {
+				lastAccesses.put((String) key, now);
+			}
+		}
+		release(evicted);
+		return result;
+	}
+
+	@Override
+	public Object put(String key, Object value) {
+		List<Map.Entry<String, Object>> evicted = new ArrayList<>();
+		Object previous;
+		synchronized (lock) {
+			long now = now();
+			evictIdles(now, evicted);
+			lastAccesses.put(key, now);
+			previous = beans.put(key, value);
+			if (previous != null && previous != value) {
+				evicted.add(new SimpleEntry<>(key, previous));
+			}
+			removeEldest(evicted);
+		}
+		release(evicted);
+		return previous;
+	}
+
+	@Override
+	public Object remove(Object key) {
+		synchronized (lock) {
+			lastAccesses.remove(key);
+			return beans.remove(key);
+		}
+	}
+
+	/**
+	 * Remove all beans, they are released
+	 */
+	@Override
+	public void clear() {
+		List<Map.Entry<String, Object>> evicted;
+		synchronized (lock) {
+			evicted = new ArrayList<>(beans.entrySet());
+			lastAccesses.clear();
+			beans.clear();
+		}
+		release(evicted);
+	}
+
+	@Override
+	public boolean containsKey(Object key) {
+		synchronized (lock) {
+			return beans.containsKey(key);
+		}
+	}
+
+	@Override
+	public int size() {
+		synchronized (lock) {
+			return beans.size();
+		}
+	}
+
+	/**
+	 * Copy of entries, iteration doesn't hold the lock
+	 *
+	 * @return
+	 */
+	@Override
+	public Set<Map.Entry<String, Object>> entrySet() {
+		synchronized (lock) {
+			return Collections.unmodifiableMap(new LinkedHashMap<>(beans)).entrySet();
+		}
+	}
+
+	/**
+	 * Remove least recently used entries over max, must be called with the lock
+	 *
+	 * @param evicted : entries removed
+	 */
+	void removeEldest(List<Map.Entry<String, Object>> evicted) {
+		if (max <= 0) {
+			return;
+		}
+		Iterator<Map.Entry<String, Object>> iterator = beans.entrySet().iterator();
+		while (beans.size() > max && iterator.hasNext()) {
+			Map.Entry<String, Object> entry = iterator.next();
+			evicted.add(new SimpleEntry<>(entry));
+			iterator.remove();
+			lastAccesses.remove(entry.getKey());
+		}
+	}
+
+	/**
+	 * Remove entries not used since idle ms. Entries are ordered by access, so stop at first used entry
+	 *
+	 * @param now
+	 * @param evicted : entries removed
+	 */
+	void evictIdles(long now, List<Map.Entry<String, Object>> evicted) {
+		if (idle <= 0) {
+			return;
+		}
+		synchronized (lock) {
+			Iterator<Map.Entry<String, Long>> iterator = lastAccesses.entrySet().iterator();
+			while (iterator.hasNext()) {
+				Map.Entry<String, Long> entry = iterator.next();
+				if (now - entry.getValue() < idle) {
+					break;
+				}
+				iterator.remove();
+				evicted.add(new SimpleEntry<>(entry.getKey(), beans.remove(entry.getKey())));
+			}
+		}
+	}
+
+	/**
+	 * Give removed entries to releaser, must be called without the lock
+	 *
+	 * @param evicted
+	 */
+	void release(List<Map.Entry<String, Object>> evicted) {
+		if (releaser == null) {
+			return;
+		}
+		for (Map.Entry<String, Object> entry : evicted) {
+			if (entry.getValue() != null) {
+				releaser.accept(entry.getKey(), entry.getValue());
+			}
+		}
+	}
+
+	long now() {
+		return System.currentTimeMillis();
+	}
+}
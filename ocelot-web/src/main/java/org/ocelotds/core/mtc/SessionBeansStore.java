@@ -0,0 +1,94 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.mtc;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiConsumer;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.configuration.SessionBeansConfigurationManager;
+import org.ocelotds.core.services.DataServiceRegistry;
+import org.ocelotds.spi.DataServiceException;
+import org.slf4j.Logger;
+
+/**
+ * Store session scope dataservices for each websocket session.<br>
+ * Entries are removed when websocket is closed.<br>
+ * Beans evicted or removed are released by the resolver that created them
+ *
+ * @author hhfrancois
+ */
+@ApplicationScoped
+public class SessionBeansStore {
+
+	@Inject
+	@OcelotLogger
+	private Logger logger;
+
+	@Inject
+	private SessionBeansConfigurationManager configuration;
+
+	@Inject
+	private DataServiceRegistry dataServiceRegistry;
+
+	private final ConcurrentMap<String, SessionBeans> stores = new ConcurrentHashMap<>();
+
+	/**
+	 * Get dataservices of websocket session, create store if necessary
+	 *
+	 * @param wsid
+	 * @return
+	 */
+	public Map<String, Object> getSessionBeans(String wsid) {
+		SessionBeans sessionBeans = stores.get(wsid);
+		if (sessionBeans == null) {
+			sessionBeans = new SessionBeans(configuration.getMax(), configuration.getIdle(), new BiConsumer<String, Object>() {
+				@Override
+				public void accept(String className, Object bean) {
+					releaseSessionBean(className, bean);
+				}
+			});
+			SessionBeans previous = stores.putIfAbsent(wsid, sessionBeans);
+			if (previous != null) {
+				sessionBeans = previous;
+			}
+		}
+		return sessionBeans;
+	}
+
+	/**
+	 * Remove dataservices of websocket session
+	 *
+	 * @param wsid
+	 */
+	public void removeSessionBeans(String wsid) {
+		SessionBeans sessionBeans = stores.remove(wsid);
+		if (sessionBeans != null) {
+			logger.debug("Remove {} session dataservices for session '{}'", sessionBeans.size(), wsid);
+			sessionBeans.clear();
+		}
+	}
+
+	/**
+	 * Release bean through the resolver of its dataservice
+	 *
+	 * @param className
+	 * @param bean
+	 */
+	void releaseSessionBean(String className, Object bean) {
+		try {
+			Class cls = dataServiceRegistry.getDataServiceClass(className);
+			dataServiceRegistry.getDataServiceDescriptor(cls).getResolver().releaseDataService(bean);
+		} catch (ClassNotFoundException | DataServiceException | RuntimeException ex) {
+			logger.warn("Fail to release session dataservice " + className, ex);
+		}
+	}
+
+	int size() {
+		return stores.size();
+	}
+}
@@ -0,0 +1,224 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.mtc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import org.ocelotds.Constants;
+import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.configuration.TimeoutConfigurationManager;
+import org.ocelotds.context.CancellationToken;
+import org.ocelotds.context.ThreadLocalContextHolder;
+import org.ocelotds.core.services.FaultServices;
+import org.ocelotds.core.services.MethodDescriptor;
+import org.ocelotds.messaging.MessageFromClient;
+import org.ocelotds.messaging.MessageToClient;
+import org.slf4j.Logger;
+
+/**
+ * Bound calls in time.<br>
+ * Deadline of a call is the earliest of the budget sent by client and the timeout of method, CallTimeout or default timeout, both from reception.<br>
+ * A call expired while it was queued is not invoked, a call not answered at deadline receives a TimeoutException fault
+ *
+ * @author hhfrancois
+ */
+@ApplicationScoped
+public class TimeoutManager {
+
+	@Inject
+	@OcelotLogger
+	private Logger logger;
+
+	@Inject
+	private TimeoutConfigurationManager configuration;
+
+	@Inject
+	private FaultServices faultServices;
+
+	private final AtomicLong expiredCount = new AtomicLong();
+
+	private final AtomicLong timeoutCount = new AtomicLong();
+
+	private ScheduledExecutorService scheduler;
+
+	/**
+	 * Get deadline of call
+	 *
+	 * @param message
+	 * @param descriptor
+	 * @return time in ms since epoch, 0 if call is not bounded
+	 */
+	public long getDeadline(MessageFromClient message, MethodDescriptor descriptor) {
+		long timeout = descriptor.getTimeout() > 0 ? descriptor.getTimeout() : configuration.getDefaultTimeout();
+		long deadline = message.getDeadline();
+		if (timeout > 0 && (deadline <= 0 || message.getReceived() + timeout < deadline)) {
+			deadline = message.getReceived() + timeout;
+		}
+		return deadline;
+	}
+
+	/**
+	 * Deadline is passed before invocation, the call is counted as expired
+	 *
+	 * @param deadline
+	 * @return
+	 */
+	public boolean isExpired(long deadline) {
+		if (deadline > 0 && deadline <= System.currentTimeMillis()) {
+			expiredCount.incrementAndGet();
+			return true;
+		}
+		return false;
+	}
+
+	/**
+	 * Create the response of a call that missed its deadline
+	 *
+	 * @param id : id of message
+	 * @param deadline
+	 * @return
+	 */
+	public MessageToClient createTimeoutResponse(String id, long deadline) {
+		MessageToClient messageToClient = new MessageToClient();
+		messageToClient.setId(id);
+		messageToClient.setFault(faultServices.buildFault(new TimeoutException("Call " + id + " missed its deadline by " + (System.currentTimeMillis() - deadline) + "ms")));
+		return messageToClient;
+	}
+
+	/**
+	 * If the call is executed by an ocelot worker, interrupt it at deadline.<br>
+	 * The returned timer should be cancelled when the invocation returns
+	 *
+	 * @param deadline
+	 * @return timer, null if there is nothing to interrupt
+	 */
+	public ScheduledFuture<?> interruptAt(long deadline) {
+		final CancellationToken token = (CancellationToken) ThreadLocalContextHolder.get(Constants.CANCELLATIONTOKEN);
+		if (deadline <= 0 || token == null) {
+			return null;
+		}
+		return getScheduler().schedule(new Runnable() {
+			@Override
+			public void run() {
+				token.interrupt();
+			}
+		}, deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+	}
+
+	/**
+	 * Get a future completed with the response, or with a timeout fault at deadline.<br>
+	 * A response available after deadline is replaced by a timeout fault too
+	 *
+	 * @param future
+	 * @param id : id of message
+	 * @param deadline
+	 * @return
+	 */
+	public CompletableFuture<MessageToClient> within(final CompletableFuture<MessageToClient> future, final String id, final long deadline) {
+		if (deadline <= 0) {
+			return future;
+		}
+		if (future.isDone()) {
+			if (deadline <= System.currentTimeMillis()) {
+				return CompletableFuture.completedFuture(timeout(id, deadline));
+			}
+			return future;
+		}
+		final CompletableFuture<MessageToClient> result = new CompletableFuture<>();
+		final ScheduledFuture<?> timer = getScheduler().schedule(new Runnable() {
+			@Override
+			public void run() {
+				if (!result.isDone()) {
+					result.complete(timeout(id, deadline));
+				}
+			}
+		}, deadline - System.currentTimeMillis(), TimeUnit.MILLISECONDS);
+		future.whenComplete(new BiConsumer<MessageToClient, Throwable>() {
+			@Override
+			public void accept(MessageToClient messageToClient, Throwable error) {
+				timer.cancel(false);
+				if (error != null) {
+					result.completeExceptionally(error);
+				} else {
+					result.complete(messageToClient);
+				}
+			}
+		});
+		return result;
+	}
+
+	/**
+	 * Create the timeout response, and count it
+	 *
+	 * @param id
+	 * @param deadline
+	 * @return
+	 */
+	MessageToClient timeout(String id, long deadline) {
+		timeoutCount.incrementAndGet();
+		logger.warn("Call {} missed its deadline.", id);
+		return createTimeoutResponse(id, deadline);
+	}
+
+	/**
+	 * Get the scheduler of timers, create it on first call
+	 *
+	 * @return
+	 */
+	synchronized ScheduledExecutorService getScheduler() {
+		if (scheduler == null) {
+			scheduler = Executors.newSingleThreadScheduledExecutor(new TimerThreadFactory());
+		}
+		return scheduler;
+	}
+
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	/**
+	 * Number of calls expired before invocation
+	 *
+	 * @return
+	 */
+	public long getExpiredCount() {
+		return expiredCount.get();
+	}
+
+	/**
+	 * Number of calls not answered at deadline
+	 *
+	 * @return
+	 */
+	public long getTimeoutCount() {
+		return timeoutCount.get();
+	}
+
+	/**
+	 * Timers are executed by a daemon thread
+	 */
+	static class TimerThreadFactory implements ThreadFactory {
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "ocelot-timeout");
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -5,6 +5,7 @@ package org.ocelotds.core.mtc;
 
 import java.util.HashMap;
 import java.util.Map;
+import javax.inject.Inject;
 import javax.websocket.Session;
 
 /**
@@ -13,8 +14,14 @@ import javax.websocket.Session;
  */
 public class WSMessageToClientManager extends MessageToClientManager<Session> {
 
+	@Inject
+	private SessionBeansStore sessionBeansStore;
+
 	@Override
 	public Map<String, Object> getSessionBeans(Session session) {
-		return new HashMap<>();
+		if (session == null) {
+			return new HashMap<>();
+		}
+		return sessionBeansStore.getSessionBeans(session.getId());
 	}
 }
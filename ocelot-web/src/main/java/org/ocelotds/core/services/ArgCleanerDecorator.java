@@ -11,6 +11,7 @@ import javax.decorator.Delegate;
 import javax.enterprise.inject.Any;
 import javax.inject.Inject;
 import org.ocelotds.core.Cleaner;
+import org.ocelotds.marshalling.annotations.JsonUnmarshaller;
 import org.ocelotds.marshalling.exceptions.JsonMarshallerException;
 import org.ocelotds.marshalling.exceptions.JsonUnmarshallingException;
 
@@ -34,5 +35,10 @@ public abstract class ArgCleanerDecorator implements IArgumentConvertor {
 	public Object convertJsonToJava(String jsonArg, Type paramType, Annotation[] parameterAnnotations) throws JsonUnmarshallingException, JsonMarshallerException {
 		return argumentConvertor.convertJsonToJava(cleaner.cleanArg(jsonArg), paramType, parameterAnnotations);
 	}
+
+	@Override
+	public Object convertJsonArgument(String jsonArg, Type paramType, JsonUnmarshaller juma) throws JsonUnmarshallingException, JsonMarshallerException {
+		return argumentConvertor.convertJsonArgument(cleaner.cleanArg(jsonArg), paramType, juma);
+	}
 	
 }
@@ -6,16 +6,14 @@ package org.ocelotds.core.services;
 import org.ocelotds.marshalling.ArgumentServices;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.type.ArrayType;
-import com.fasterxml.jackson.databind.type.CollectionType;
-import com.fasterxml.jackson.databind.type.MapType;
-import com.fasterxml.jackson.databind.type.SimpleType;
+import com.fasterxml.jackson.databind.ObjectReader;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
-import java.lang.reflect.ParameterizedType;
 import java.lang.reflect.Type;
-import java.util.Collection;
-import java.util.Map;
+import java.lang.reflect.WildcardType;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import org.ocelotds.Constants;
 import org.ocelotds.annotations.OcelotLogger;
@@ -28,9 +26,11 @@ import org.ocelotds.marshalling.exceptions.JsonUnmarshallingException;
 import org.slf4j.Logger;
 
 /**
+ * Convert json arguments to java, readers are cached by parameter type
  *
  * @author hhfrancois
  */
+@ApplicationScoped
 public class ArgumentConvertor implements IArgumentConvertor {
 
 	@Inject
@@ -44,6 +44,8 @@ public class ArgumentConvertor implements IArgumentConvertor {
 	@Inject
 	ArgumentServices argumentServices;
 
+	private final ConcurrentMap<Type, ObjectReader> readers = new ConcurrentHashMap<>();
+
 	/**
 	 * Convert json to Java
 	 *
@@ -59,7 +61,24 @@ public class ArgumentConvertor implements IArgumentConvertor {
 		if ("null".equals(jsonArg)) {
 			return null;
 		}
-		JsonUnmarshaller juma = getJsonUnmarshallerAnnotation(parameterAnnotations);
+		return convertJsonArgument(jsonArg, paramType, getJsonUnmarshallerAnnotation(parameterAnnotations));
+	}
+
+	/**
+	 * Convert json to Java, JsonUnmarshaller annotation is already resolved
+	 *
+	 * @param jsonArg
+	 * @param paramType
+	 * @param juma JsonUnmarshaller annotation or null
+	 * @return
+	 * @throws org.ocelotds.marshalling.exceptions.JsonUnmarshallingException
+	 * @throws org.ocelotds.marshalling.exceptions.JsonMarshallerException
+	 */
+	@Override
+	public Object convertJsonArgument(String jsonArg, Type paramType, JsonUnmarshaller juma) throws JsonUnmarshallingException, JsonMarshallerException {
+		if ("null".equals(jsonArg)) {
+			return null;
+		}
 		if (null != juma) {
 			Object result = getResult(jsonArg, argumentServices.getIJsonMarshallerInstance(juma.value()), juma.type());
 			argumentServices.checkType(result, paramType);
@@ -126,19 +145,15 @@ public class ArgumentConvertor implements IArgumentConvertor {
 		}
 		logger.debug("Try to convert {} : param = {} : {}", new Object[]{arg, paramType, paramType.getClass()});
 		try { // GenericArrayType, ParameterizedType, TypeVariable<D>, WildcardType, Class
-			if (ParameterizedType.class.isInstance(paramType)) {
-				JavaType javaType = getJavaType(paramType);
-				logger.debug("Try to convert '{}' to JavaType : '{}'", arg, paramType);
-				result = getObjectMapper().readValue(arg, javaType);
-				logger.debug("Conversion of '{}' to '{}' : OK", arg, paramType);
-			} else if (Class.class.isInstance(paramType)) {
-				Class cls = (Class) paramType;
-				logger.debug("Try to convert '{}' to Class '{}'", arg, paramType);
-				checkStringArgument(cls, arg);
-				result = getObjectMapper().readValue(arg, cls);
-				logger.debug("Conversion of '{}' to '{}' : OK", arg, paramType);
-			} else { // GenericArrayType, TypeVariable<D>, WildcardType
-				logger.warn("Conversion of '{}' to '{}' not yet supported", arg, paramType);
+			if (Class.class.isInstance(paramType)) {
+				checkStringArgument((Class) paramType, arg);
+			}
+			if (WildcardType.class.isInstance(paramType)) {
+				logger.warn("Conversion of '{}' to '{}' not yet supported", arg, paramType);
+			} else {
+				logger.debug("Try to convert '{}' to '{}'", arg, paramType);
+				result = getObjectReader(paramType).readValue(arg);
+				logger.debug("Conversion of '{}' to '{}' : OK", arg, paramType);
 			}
 		} catch (IOException ex) {
 			logger.debug("Conversion of '{}' to '{}' failed", arg, paramType);
@@ -147,6 +162,28 @@ public class ArgumentConvertor implements IArgumentConvertor {
 		return result;
 	}
 
+	/**
+	 * Get ObjectReader for type, build it on first use.<br>
+	 * TypeVariable are resolved to their bound
+	 *
+	 * @param type
+	 * @return
+	 */
+	ObjectReader getObjectReader(Type type) {
+		ObjectReader reader = readers.get(type);
+		if (reader == null) {
+			ObjectMapper mapper = getObjectMapper();
+			JavaType javaType = mapper.getTypeFactory().constructType(type);
+			logger.debug("Computing reader of {} : {}", type, javaType);
+			reader = mapper.readerFor(javaType);
+			ObjectReader previous = readers.putIfAbsent(type, reader);
+			if (previous != null) {
+				reader = previous;
+			}
+		}
+		return reader;
+	}
+
 	/**
 	 * check if class and argument are string
 	 *
@@ -165,38 +202,6 @@ public class ArgumentConvertor implements IArgumentConvertor {
 			}
 	}
 
-	private JavaType getJavaType(Type type) {
-		Class clazz;
-		logger.debug("Computing type of {} - {}", type.getClass(), type.toString());
-		if (type instanceof ParameterizedType) {
-			clazz = (Class) ((ParameterizedType) type).getRawType();
-		} else {
-			clazz = (Class) type;
-		}
-		JavaType javaType;
-		Type actualType;
-		if (Collection.class.isAssignableFrom(clazz)) {
-			ParameterizedType pt = (ParameterizedType) type;
-			actualType = pt.getActualTypeArguments()[0];
-			JavaType t1 = getJavaType(actualType);
-			javaType = CollectionType.construct(Collection.class, t1);
-		} else if (clazz.isArray()) {
-			Class t = clazz.getComponentType();
-			JavaType t1 = getJavaType(t);
-			javaType = ArrayType.construct(t1, null, null);
-		} else if (Map.class.isAssignableFrom(clazz)) {
-			ParameterizedType pt = (ParameterizedType) type;
-			actualType = pt.getActualTypeArguments()[0];
-			JavaType t1 = getJavaType(actualType);
-			actualType = pt.getActualTypeArguments()[1];
-			JavaType t2 = getJavaType(actualType);
-			javaType = MapType.construct(Map.class, t1, t2);
-		} else {
-			javaType = SimpleType.construct(clazz);
-		}
-		return javaType;
-	}
-
 	ObjectMapper getObjectMapper() {
 		return objectMapper;
 	}
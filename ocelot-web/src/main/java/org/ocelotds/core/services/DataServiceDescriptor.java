@@ -0,0 +1,93 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.services;
+
+import java.lang.annotation.Annotation;
+import org.ocelotds.annotations.DataService;
+import org.ocelotds.spi.IDataServiceResolver;
+import org.ocelotds.spi.Scope;
+
+/**
+ * Resolution informations about a dataservice class : resolver, scope.<br>
+ * For application scoped dataservice, the instance is kept too.
+ *
+ * @author hhfrancois
+ */
+public class DataServiceDescriptor {
+
+	private final Class cls;
+	private final DataService dataService;
+	private final IDataServiceResolver resolver;
+	private final Scope scope;
+	private final boolean singleton;
+	private volatile Object instance = null;
+
+	public DataServiceDescriptor(Class cls, IDataServiceResolver resolver) {
+		this.cls = cls;
+		this.dataService = (DataService) cls.getAnnotation(DataService.class);
+		this.resolver = resolver;
+		this.scope = resolver.getScope(cls);
+		this.singleton = Scope.MANAGED.equals(scope) && isApplicationScoped(cls);
+	}
+
+	/**
+	 * The instance of class is the same for all application ?
+	 *
+	 * @param cls
+	 * @return
+	 */
+	final boolean isApplicationScoped(Class cls) {
+		for (Annotation anno : cls.getAnnotations()) {
+			String annoName = anno.annotationType().getName();
+			switch (annoName) {
+				case "javax.enterprise.context.ApplicationScoped":
+				case "javax.inject.Singleton":
+				case "javax.ejb.Singleton":
+					return true;
+				default:
+			}
+		}
+		return false;
+	}
+
+	public Class getDataServiceClass() {
+		return cls;
+	}
+
+	public DataService getDataService() {
+		return dataService;
+	}
+
+	public IDataServiceResolver getResolver() {
+		return resolver;
+	}
+
+	public Scope getScope() {
+		return scope;
+	}
+
+	/**
+	 * Instance can be kept for all calls
+	 *
+	 * @return
+	 */
+	public boolean isSingleton() {
+		return singleton;
+	}
+
+	/**
+	 * Instance kept, null if not singleton or not yet resolved
+	 *
+	 * @return
+	 */
+	public Object getInstance() {
+		return instance;
+	}
+
+	public void setInstance(Object instance) {
+		if (singleton) {
+			this.instance = instance;
+		}
+	}
+}
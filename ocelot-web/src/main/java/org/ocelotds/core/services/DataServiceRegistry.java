@@ -0,0 +1,217 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.services;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import javax.enterprise.context.ApplicationScoped;
+import javax.enterprise.inject.Any;
+import javax.enterprise.inject.Instance;
+import javax.inject.Inject;
+import org.ocelotds.annotations.DataService;
+import org.ocelotds.resolvers.DataServiceResolverIdLitteral;
+import org.ocelotds.spi.DataServiceException;
+import org.ocelotds.spi.IDataServiceResolver;
+
+/**
+ * Dispatch table of dataservices.<br>
+ * Map class name to class, class to dataservice descriptor, and (class, operation, arity) to methods descriptors.<br>
+ * Tables are built lazily, on first call for each class
+ *
+ * @author hhfrancois
+ */
+@ApplicationScoped
+public class DataServiceRegistry {
+
+	private final ConcurrentMap<String, Class> classes = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<Class, Map<String, Map<Integer, List<MethodDescriptor>>>> operations = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<Class, DataServiceDescriptor> dataServices = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<Method, MethodDescriptor> methods = new ConcurrentHashMap<>();
+
+	private final ConcurrentMap<Class, Map<String, Map<String, MethodDescriptor>>> signatures = new ConcurrentHashMap<>();
+
+	@Inject
+	@Any
+	private Instance<IDataServiceResolver> resolvers;
+
+	IDataServiceResolver getResolver(String type) {
+		return resolvers.select(new DataServiceResolverIdLitteral(type)).get();
+	}
+
+	/**
+	 * Get resolution informations of dataservice class, compute them on first call
+	 *
+	 * @param cls
+	 * @return
+	 * @throws DataServiceException if class is not a dataservice
+	 */
+	public DataServiceDescriptor getDataServiceDescriptor(Class cls) throws DataServiceException {
+		DataServiceDescriptor descriptor = dataServices.get(cls);
+		if (descriptor == null) {
+			if (!cls.isAnnotationPresent(DataService.class)) {
+				throw new DataServiceException(cls.getName() + " is not annotated with @" + DataService.class.getSimpleName());
+			}
+			DataService dataServiceAnno = (DataService) cls.getAnnotation(DataService.class);
+			descriptor = new DataServiceDescriptor(cls, getResolver(dataServiceAnno.resolver()));
+			DataServiceDescriptor previous = dataServices.putIfAbsent(cls, descriptor);
+			if (previous != null) {
+				descriptor = previous;
+			}
+		}
+		return descriptor;
+	}
+
+	/**
+	 * Get descriptor of method, compute it on first call
+	 *
+	 * @param method
+	 * @return
+	 */
+	public MethodDescriptor getMethodDescriptor(Method method) {
+		MethodDescriptor descriptor = methods.get(method);
+		if (descriptor == null) {
+			descriptor = new MethodDescriptor(method);
+			MethodDescriptor previous = methods.putIfAbsent(method, descriptor);
+			if (previous != null) {
+				descriptor = previous;
+			}
+		}
+		return descriptor;
+	}
+
+	/**
+	 * Get dataservice class from its name
+	 *
+	 * @param className
+	 * @return
+	 * @throws ClassNotFoundException
+	 */
+	public Class getDataServiceClass(String className) throws ClassNotFoundException {
+		Class cls = classes.get(className);
+		if (cls == null) {
+			cls = Class.forName(className);
+			classes.putIfAbsent(className, cls);
+		}
+		return cls;
+	}
+
+	/**
+	 * Get methods descriptors for operation with arity arguments.<br>
+	 *
+	 * @param cls
+	 * @param operation
+	 * @param arity
+	 * @return
+	 */
+	public List<MethodDescriptor> getMethodDescriptors(Class cls, String operation, int arity) {
+		Map<String, Map<Integer, List<MethodDescriptor>>> table = getOperations(cls);
+		Map<Integer, List<MethodDescriptor>> byArity = table.get(operation);
+		if (byArity != null) {
+			List<MethodDescriptor> descriptors = byArity.get(arity);
+			if (descriptors != null) {
+				return descriptors;
+			}
+		}
+		return Collections.emptyList();
+	}
+
+	/**
+	 * Get method descriptor for operation with signature sent by client
+	 *
+	 * @param cls
+	 * @param operation
+	 * @param signature
+	 * @return descriptor, null if not found
+	 */
+	public MethodDescriptor getMethodDescriptor(Class cls, String operation, String signature) {
+		Map<String, Map<String, MethodDescriptor>> table = signatures.get(cls);
+		if (table == null) {
+			table = buildSignatures(getOperations(cls));
+			Map<String, Map<String, MethodDescriptor>> previous = signatures.putIfAbsent(cls, table);
+			if (previous != null) {
+				table = previous;
+			}
+		}
+		Map<String, MethodDescriptor> bySignature = table.get(operation);
+		if (bySignature != null) {
+			return bySignature.get(signature);
+		}
+		return null;
+	}
+
+	/**
+	 * Build signatures table from operations table : operation name -&gt; signature -&gt; descriptor
+	 *
+	 * @param operationsTable
+	 * @return
+	 */
+	Map<String, Map<String, MethodDescriptor>> buildSignatures(Map<String, Map<Integer, List<MethodDescriptor>>> operationsTable) {
+		Map<String, Map<String, MethodDescriptor>> table = new HashMap<>();
+		for (Map.Entry<String, Map<Integer, List<MethodDescriptor>>> entry : operationsTable.entrySet()) {
+			Map<String, MethodDescriptor> bySignature = new HashMap<>();
+			for (List<MethodDescriptor> descriptors : entry.getValue().values()) {
+				for (MethodDescriptor descriptor : descriptors) {
+					MethodDescriptor other = bySignature.get(descriptor.getSignature());
+					if (other == null || other.getMethod().isBridge()) { // bridge for covariant return has same signature, prefer the real method
+						bySignature.put(descriptor.getSignature(), descriptor);
+					}
+				}
+			}
+			table.put(entry.getKey(), bySignature);
+		}
+		return table;
+	}
+
+	/**
+	 * Get the operations table of class, build it if necessary
+	 *
+	 * @param cls
+	 * @return
+	 */
+	Map<String, Map<Integer, List<MethodDescriptor>>> getOperations(Class cls) {
+		Map<String, Map<Integer, List<MethodDescriptor>>> table = operations.get(cls);
+		if (table == null) {
+			table = buildOperations(cls);
+			Map<String, Map<Integer, List<MethodDescriptor>>> previous = operations.putIfAbsent(cls, table);
+			if (previous != null) {
+				table = previous;
+			}
+		}
+		return table;
+	}
+
+	/**
+	 * Build operations table : operation name -&gt; arity -&gt; descriptors
+	 *
+	 * @param cls
+	 * @return
+	 */
+	Map<String, Map<Integer, List<MethodDescriptor>>> buildOperations(Class cls) {
+		Map<String, Map<Integer, List<MethodDescriptor>>> table = new HashMap<>();
+		for (Method method : cls.getMethods()) {
+			Map<Integer, List<MethodDescriptor>> byArity = table.get(method.getName());
+			if (byArity == null) {
+				byArity = new HashMap<>();
+				table.put(method.getName(), byArity);
+			}
+			int arity = method.getParameterTypes().length;
+			List<MethodDescriptor> descriptors = byArity.get(arity);
+			if (descriptors == null) {
+				descriptors = new ArrayList<>();
+				byArity.put(arity, descriptors);
+			}
+			descriptors.add(getMethodDescriptor(method));
+		}
+		return table;
+	}
+}
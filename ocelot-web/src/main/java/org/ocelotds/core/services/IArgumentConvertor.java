@@ -5,6 +5,7 @@ package org.ocelotds.core.services;
 
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
+import org.ocelotds.marshalling.annotations.JsonUnmarshaller;
 import org.ocelotds.marshalling.exceptions.JsonMarshallerException;
 import org.ocelotds.marshalling.exceptions.JsonUnmarshallingException;
 
@@ -14,4 +15,6 @@ import org.ocelotds.marshalling.exceptions.JsonUnmarshallingException;
  */
 public interface IArgumentConvertor {
 	Object convertJsonToJava(String jsonArg, Type paramType, Annotation[] parameterAnnotations) throws JsonUnmarshallingException, JsonMarshallerException;
+
+	Object convertJsonArgument(String jsonArg, Type paramType, JsonUnmarshaller juma) throws JsonUnmarshallingException, JsonMarshallerException;
 }
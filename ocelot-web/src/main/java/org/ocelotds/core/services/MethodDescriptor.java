@@ -0,0 +1,365 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.services;
+
+import java.lang.annotation.Annotation;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import org.ocelotds.KeyMaker;
+import org.ocelotds.annotations.CallTimeout;
+import org.ocelotds.annotations.JsCacheRemove;
+import org.ocelotds.annotations.JsCacheRemoves;
+import org.ocelotds.annotations.JsCacheResult;
+import org.ocelotds.cache.JsCacheRemoveDescriptor;
+import org.ocelotds.marshalling.IJsonMarshaller;
+import org.ocelotds.marshalling.annotations.JsonMarshaller;
+import org.ocelotds.marshalling.annotations.JsonUnmarshaller;
+import org.ocelotds.security.OcelotSecured;
+
+/**
+ * Pre-resolved informations about a dataservice method.<br>
+ * Computed once, so reflective introspection is not done on each call
+ *
+ * @author hhfrancois
+ */
+public class MethodDescriptor {
+
+	private final Method method;
+	private final Type[] parameterTypes;
+	private final Class<?>[] parameterClasses;
+	private final Annotation[][] parameterAnnotations;
+	private final JsonUnmarshaller[] unmarshallers;
+	private final String signature;
+	private final boolean asynchronous;
+	private final JsonMarshaller jsonMarshaller;
+	private volatile IJsonMarshaller marshaller;
+	private final boolean jsCached;
+	private final long jsCacheTimeToLive;
+	private final String[] jsCacheKeys;
+	private final boolean jsCacheUserScope;
+	private final boolean jsCacheShared;
+	private final JsCacheRemoveDescriptor jsCacheRemove;
+	private final List<JsCacheRemoveDescriptor> jsCacheRemoves;
+	private final OcelotSecured ocelotSecured;
+	private final long timeout;
+
+	public MethodDescriptor(Method method) {
+		this.method = method;
+		this.parameterTypes = method.getGenericParameterTypes();
+		this.parameterClasses = method.getParameterTypes();
+		this.parameterAnnotations = method.getParameterAnnotations();
+		this.unmarshallers = new JsonUnmarshaller[parameterClasses.length];
+		for (int idx = 0; idx < parameterAnnotations.length; idx++) {
+			unmarshallers[idx] = getJsonUnmarshallerAnnotation(parameterAnnotations[idx]);
+		}
+		this.signature = computeSignature(parameterClasses);
+		this.asynchronous = CompletionStage.class.isAssignableFrom(method.getReturnType()) || Future.class.isAssignableFrom(method.getReturnType());
+		this.jsonMarshaller = method.getAnnotation(JsonMarshaller.class);
+		JsCacheResult jcr = method.getAnnotation(JsCacheResult.class);
+		this.jsCached = jcr != null;
+		this.jsCacheTimeToLive = jsCached ? computeTimeToLive(jcr, Calendar.getInstance()) : 0L;
+		this.jsCacheKeys = jsCached ? jcr.keys() : new String[0];
+		this.jsCacheUserScope = jsCached && jcr.userScope();
+		this.jsCacheShared = jsCached && jcr.shared();
+		JsCacheRemove remove = method.getAnnotation(JsCacheRemove.class);
+		this.jsCacheRemove = remove != null ? new JsCacheRemoveDescriptor(remove) : null;
+		this.jsCacheRemoves = getJsCacheRemoveDescriptors(method.getAnnotation(JsCacheRemoves.class));
+		this.ocelotSecured = getOcelotSecuredAnnotation(method);
+		this.timeout = getTimeout(method);
+	}
+
+	/**
+	 * Get timeout of CallTimeout annotation on method, else on declaring class
+	 *
+	 * @param method
+	 * @return timeout in milliseconds, 0 if none
+	 */
+	final long getTimeout(Method method) {
+		CallTimeout callTimeout = method.getAnnotation(CallTimeout.class);
+		if (callTimeout == null) {
+			callTimeout = method.getDeclaringClass().getAnnotation(CallTimeout.class);
+		}
+		if (callTimeout != null) {
+			return callTimeout.value();
+		}
+		return 0L;
+	}
+
+	/**
+	 * Compute time to live of JsCacheResult in milliseconds, if all fields are 0 : is 1 year cache<br>
+	 * Computed from now, like the deadline was
+	 *
+	 * @param jcr
+	 * @param now
+	 * @return
+	 */
+	final long computeTimeToLive(JsCacheResult jcr, Calendar now) {
+		long start = now.getTimeInMillis();
+		if ((jcr.year() + jcr.month() + jcr.day() + jcr.hour() + jcr.minute() + jcr.second() + jcr.millisecond()) == 0) {
+			now.add(Calendar.YEAR, 1);
+		} else {
+			now.add(Calendar.YEAR, jcr.year());
+			now.add(Calendar.MONTH, jcr.month());
+			now.add(Calendar.DATE, jcr.day());
+			now.add(Calendar.HOUR, jcr.hour());
+			now.add(Calendar.MINUTE, jcr.minute());
+			now.add(Calendar.SECOND, jcr.second());
+			now.add(Calendar.MILLISECOND, jcr.millisecond());
+		}
+		return now.getTimeInMillis() - start;
+	}
+
+	/**
+	 * Compute signature : md5 of erased parameter types, like the generated js stubs do
+	 *
+	 * @param classes
+	 * @return
+	 */
+	final String computeSignature(Class<?>[] classes) {
+		StringBuilder sb = new StringBuilder();
+		for (int idx = 0; idx < classes.length; idx++) {
+			if (idx > 0) {
+				sb.append(",");
+			}
+			String name = classes[idx].getCanonicalName();
+			sb.append(name != null ? name : classes[idx].getName());
+		}
+		return new KeyMaker().getMd5(sb.toString());
+	}
+
+	/**
+	 * Split keys of each JsCacheRemove in JsCacheRemoves
+	 *
+	 * @param jcrs
+	 * @return
+	 */
+	final List<JsCacheRemoveDescriptor> getJsCacheRemoveDescriptors(JsCacheRemoves jcrs) {
+		if (jcrs == null) {
+			return Collections.emptyList();
+		}
+		List<JsCacheRemoveDescriptor> result = new ArrayList<>();
+		for (JsCacheRemove jcr : jcrs.value()) {
+			result.add(new JsCacheRemoveDescriptor(jcr));
+		}
+		return Collections.unmodifiableList(result);
+	}
+
+	/**
+	 * Get OcelotSecured annotation on method, else on declaring class
+	 *
+	 * @param method
+	 * @return
+	 */
+	final OcelotSecured getOcelotSecuredAnnotation(Method method) {
+		if (method.isAnnotationPresent(OcelotSecured.class)) {
+			return method.getAnnotation(OcelotSecured.class);
+		} else {
+			return method.getDeclaringClass().getAnnotation(OcelotSecured.class);
+		}
+	}
+
+	/**
+	 * Invoke method on target with arguments
+	 *
+	 * @param target
+	 * @param arguments
+	 * @return
+	 * @throws InvocationTargetException
+	 * @throws IllegalAccessException
+	 */
+	public Object invoke(Object target, Object[] arguments) throws InvocationTargetException, IllegalAccessException {
+		return method.invoke(target, arguments);
+	}
+
+	/**
+	 * return the JsonUnmarshaller annotation
+	 *
+	 * @param annotations
+	 * @return
+	 */
+	final JsonUnmarshaller getJsonUnmarshallerAnnotation(Annotation[] annotations) {
+		for (Annotation annotation : annotations) {
+			if (JsonUnmarshaller.class.isInstance(annotation)) {
+				return (JsonUnmarshaller) annotation;
+			}
+		}
+		return null;
+	}
+
+	public Method getMethod() {
+		return method;
+	}
+
+	public String getName() {
+		return method.getName();
+	}
+
+	/**
+	 * md5 of erased parameter types
+	 *
+	 * @return
+	 */
+	public String getSignature() {
+		return signature;
+	}
+
+	/**
+	 * Method returns CompletionStage, CompletableFuture or Future
+	 *
+	 * @return
+	 */
+	public boolean isAsynchronous() {
+		return asynchronous;
+	}
+
+	public int getArity() {
+		return parameterClasses.length;
+	}
+
+	/**
+	 * Generic types of parameters
+	 *
+	 * @return
+	 */
+	public Type[] getParameterTypes() {
+		return parameterTypes;
+	}
+
+	/**
+	 * Raw types of parameters
+	 *
+	 * @return
+	 */
+	public Class<?>[] getParameterClasses() {
+		return parameterClasses;
+	}
+
+	public Annotation[][] getParameterAnnotations() {
+		return parameterAnnotations;
+	}
+
+	/**
+	 * JsonUnmarshaller annotation for each parameter, null if the parameter is not annotated
+	 *
+	 * @return
+	 */
+	public JsonUnmarshaller[] getUnmarshallers() {
+		return unmarshallers;
+	}
+
+	/**
+	 * JsonMarshaller annotation for result, null if method is not annotated
+	 *
+	 * @return
+	 */
+	public JsonMarshaller getJsonMarshaller() {
+		return jsonMarshaller;
+	}
+
+	/**
+	 * Instance of marshaller for result, null if not yet resolved
+	 *
+	 * @return
+	 */
+	public IJsonMarshaller getMarshaller() {
+		return marshaller;
+	}
+
+	public void setMarshaller(IJsonMarshaller marshaller) {
+		this.marshaller = marshaller;
+	}
+
+	/**
+	 * Result should be cached in front-end
+	 *
+	 * @return
+	 */
+	public boolean isJsCached() {
+		return jsCached;
+	}
+
+	/**
+	 * Time to live of result in front-end cache, in milliseconds
+	 *
+	 * @return
+	 */
+	public long getJsCacheTimeToLive() {
+		return jsCacheTimeToLive;
+	}
+
+	/**
+	 * Keys of JsCacheResult used to compute cache key, empty if result is not cached
+	 *
+	 * @return
+	 */
+	public String[] getJsCacheKeys() {
+		return jsCacheKeys;
+	}
+
+	/**
+	 * Result cached depends of user
+	 *
+	 * @return
+	 */
+	public boolean isJsCacheUserScope() {
+		return jsCacheUserScope;
+	}
+
+	/**
+	 * Result cached does not depend of user, it can be shared between users
+	 *
+	 * @return
+	 */
+	public boolean isJsCacheShared() {
+		return jsCacheShared;
+	}
+
+	/**
+	 * JsCacheRemove annotation with keys split, null if method is not annotated
+	 *
+	 * @return
+	 */
+	public JsCacheRemoveDescriptor getJsCacheRemove() {
+		return jsCacheRemove;
+	}
+
+	/**
+	 * JsCacheRemove annotations from JsCacheRemoves with keys split
+	 *
+	 * @return
+	 */
+	public List<JsCacheRemoveDescriptor> getJsCacheRemoves() {
+		return jsCacheRemoves;
+	}
+
+	/**
+	 * OcelotSecured annotation of method, or of its class, null if none
+	 *
+	 * @return
+	 */
+	public OcelotSecured getOcelotSecured() {
+		return ocelotSecured;
+	}
+
+	/**
+	 * Timeout of CallTimeout annotation, in milliseconds
+	 *
+	 * @return 0 if method is not annotated, the default timeout applies
+	 */
+	public long getTimeout() {
+		return timeout;
+	}
+
+	@Override
+	public String toString() {
+		return "MethodDescriptor{" + method + '}';
+	}
+}
@@ -3,14 +3,11 @@
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
 package org.ocelotds.core.services;
 
-import java.lang.annotation.Annotation;
-import java.lang.reflect.Method;
 import java.lang.reflect.Type;
-import java.util.ArrayList;
-import java.util.Collections;
 import java.util.List;
 import javax.inject.Inject;
 import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.marshalling.annotations.JsonUnmarshaller;
 import org.ocelotds.marshalling.exceptions.JsonMarshallerException;
 import org.ocelotds.marshalling.exceptions.JsonUnmarshallingException;
 import org.ocelotds.messaging.MessageFromClient;
@@ -30,10 +27,10 @@ public class MethodServices {
 	private ArgumentConvertor argumentConvertor;
 
 	@Inject
-	private MethodComparator comparator;
+	private DataServiceRegistry dataServiceRegistry;
 
 	/**
-	 * Get pertinent method and fill the argument list from message arguments
+	 * Get pertinent method descriptor from dispatch table and fill the argument list from message arguments
 	 *
 	 * @param dsClass
 	 * @param message
@@ -41,43 +38,57 @@ public class MethodServices {
 	 * @return
 	 * @throws java.lang.NoSuchMethodException
 	 */
-	public Method getMethodFromDataService(final Class dsClass, final MessageFromClient message, List<Object> arguments) throws NoSuchMethodException {
+	public MethodDescriptor getMethodDescriptorFromDataService(final Class dsClass, final MessageFromClient message, List<Object> arguments) throws NoSuchMethodException {
 		logger.debug("Try to find method {} on class {}", message.getOperation(), dsClass);
 		List<String> parameters = message.getParameters();
+		MethodDescriptor exact = getMethodDescriptorFromSignature(dsClass, message, arguments);
+		if (exact != null) {
+			return exact;
+		}
 		int nbparam = parameters.size() - getNumberOfNullEnderParameter(parameters); // determine how many parameter is null at the end
-		List<Method> candidates = getSortedCandidateMethods(message.getOperation(), dsClass.getMethods()); // take only method with the good name, and orderedby number of arguments
-		if (!candidates.isEmpty()) {
-			while (nbparam <= parameters.size()) {
-				for (Method method : candidates) {
-					if (method.getParameterTypes().length == nbparam) {
-						logger.debug("Process method {}", method.getName());
-						try {
-							checkMethod(method, arguments, parameters, nbparam);
-							logger.debug("Method {}.{} with good signature found.", dsClass, message.getOperation());
-							return method;
-						} catch (JsonMarshallerException | JsonUnmarshallingException | IllegalArgumentException iae) {
-							logger.debug("Method {}.{} not found. Some arguments didn't match. {}.", new Object[]{dsClass, message.getOperation(), iae.getMessage()});
-						}
-						arguments.clear();
-					}
+		while (nbparam <= parameters.size()) {
+			for (MethodDescriptor descriptor : dataServiceRegistry.getMethodDescriptors(dsClass, message.getOperation(), nbparam)) { // take only method with the good name and the good number of arguments
+				logger.debug("Process method {}", descriptor.getName());
+				try {
+					checkMethod(descriptor, arguments, parameters, nbparam);
+					logger.debug("Method {}.{} with good signature found.", dsClass, message.getOperation());
+					return descriptor;
+				} catch (JsonMarshallerException | JsonUnmarshallingException | IllegalArgumentException iae) {
+					logger.debug("Method {}.{} not found. Some arguments didn't match. {}.", new Object[]{dsClass, message.getOperation(), iae.getMessage()});
 				}
-				nbparam++;
+				arguments.clear();
 			}
+			nbparam++;
 		}
 		throw new NoSuchMethodException(dsClass.getName() + "." + message.getOperation());
 	}
 
 	/**
-	 * Get the method on origin class without proxies
+	 * Get method descriptor from signature sent by client, and fill the argument list from message arguments.<br>
+	 * Return null if message has no signature or if arguments didn't match, so the caller can try each overload
 	 *
-	 * @param cls
-	 * @param methodName
-	 * @param parameterTypes
-	 * @throws NoSuchMethodException
+	 * @param dsClass
+	 * @param message
+	 * @param arguments
 	 * @return
 	 */
-	public Method getNonProxiedMethod(Class cls, String methodName, Class<?>... parameterTypes) throws NoSuchMethodException {
-		return cls.getMethod(methodName, parameterTypes);
+	MethodDescriptor getMethodDescriptorFromSignature(final Class dsClass, final MessageFromClient message, List<Object> arguments) {
+		if (message.getSignature() == null) {
+			return null;
+		}
+		MethodDescriptor descriptor = dataServiceRegistry.getMethodDescriptor(dsClass, message.getOperation(), message.getSignature());
+		if (descriptor == null || descriptor.getArity() != message.getParameters().size()) {
+			logger.debug("Method {}.{} with signature {} not found.", new Object[]{dsClass, message.getOperation(), message.getSignature()});
+			return null;
+		}
+		try {
+			checkMethod(descriptor, arguments, message.getParameters(), descriptor.getArity());
+			return descriptor;
+		} catch (JsonMarshallerException | JsonUnmarshallingException | IllegalArgumentException iae) {
+			logger.debug("Method {}.{} with signature {} : some arguments didn't match. {}.", new Object[]{dsClass, message.getOperation(), message.getSignature(), iae.getMessage()});
+		}
+		arguments.clear();
+		return null;
 	}
 
 	/**
@@ -102,42 +113,24 @@ public class MethodServices {
 	/**
 	 * Check if for nbparam in parameters the method is correct. If yes, store parameters String converted to Java in arguments list
 	 *
-	 * @param method
+	 * @param descriptor
 	 * @param arguments
 	 * @param parameters
 	 * @param nbparam
 	 * @throws IllegalArgumentException
 	 * @throws JsonUnmarshallingException
 	 */
-	void checkMethod(Method method, List<Object> arguments, List<String> parameters, int nbparam) throws IllegalArgumentException, JsonUnmarshallingException, JsonMarshallerException {
-		Type[] paramTypes = method.getGenericParameterTypes();
-		Annotation[][] parametersAnnotations = method.getParameterAnnotations();
+	void checkMethod(MethodDescriptor descriptor, List<Object> arguments, List<String> parameters, int nbparam) throws IllegalArgumentException, JsonUnmarshallingException, JsonMarshallerException {
+		Type[] paramTypes = descriptor.getParameterTypes();
+		JsonUnmarshaller[] unmarshallers = descriptor.getUnmarshallers();
 		int idx = 0;
 		for (Type paramType : paramTypes) {
 			logger.debug("Try to convert argument ({}) {} : {}.", new Object[]{idx, paramType, parameters.get(idx)});
-			arguments.add(argumentConvertor.convertJsonToJava(parameters.get(idx), paramType, parametersAnnotations[idx]));
+			arguments.add(argumentConvertor.convertJsonArgument(parameters.get(idx), paramType, unmarshallers[idx]));
 			idx++;
 			if (idx > nbparam) {
 				throw new IllegalArgumentException();
 			}
 		}
 	}
-
-	/**
-	 * return candidates method (same name) sort by number of arguments
-	 *
-	 * @param methodName
-	 * @param methods
-	 * @return
-	 */
-	List<Method> getSortedCandidateMethods(String methodName, Method[] methods) {
-		List<Method> candidates = new ArrayList<>();
-		for (Method method : methods) {
-			if (method.getName().equals(methodName)) {
-				candidates.add(method);
-			}
-		}
-		Collections.sort(candidates, comparator);
-		return candidates;
-	}
 }
@@ -6,9 +6,24 @@ package org.ocelotds.core.ws;
 
 import org.ocelotds.messaging.MessageFromClient;
 import org.ocelotds.messaging.MessageToClient;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
 import javax.inject.Inject;
 import javax.websocket.Session;
+import org.ocelotds.Constants;
+import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.context.CancellationToken;
+import org.ocelotds.context.ThreadLocalContextHolder;
 import org.ocelotds.core.mtc.WSMessageToClientManager;
+import org.ocelotds.core.services.FaultServices;
+import org.slf4j.Logger;
 
 /**
  * Abstract class of OcelotDataService
@@ -17,21 +32,235 @@ import org.ocelotds.core.mtc.WSMessageToClientManager;
  */
 public class CallServiceManager implements CallService {
 
+	@Inject
+	@OcelotLogger
+	private Logger logger;
+
 	@Inject
 	private WSMessageToClientManager messageToClientService;
+
+	@Inject
+	private FaultServices faultServices;
+
+	@Inject
+	private CommandExecutor commandExecutor;
+
+	@Inject
+	private CancellationManager cancellationManager;
+
+	@Inject
+	private MessageSender messageSender;
 	
 	/**
-	 * Build and send response messages after call request
+	 * Build and send response messages after call request.<br>
+	 * If the method is asynchronous, the response is sent when the result is available, the calling thread is released
 	 *
 	 * @param message
 	 * @param client
-	 * @return
+	 * @return false if there is no response to send
 	 */
 	@Override
 	public boolean sendMessageToClient(MessageFromClient message, Session client) {
-		MessageToClient mtc = messageToClientService.createMessageToClient(message, client);
+		return sendMessageToClient(message, cancellationManager.register(client.getId(), message.getId()), client);
+	}
+
+	/**
+	 * Build and send response messages after call request registered with token.<br>
+	 * If the method is asynchronous, the response is sent when the result is available, the calling thread is released
+	 *
+	 * @param message
+	 * @param token : cancellation token registered when the call was received
+	 * @param client
+	 * @return false if there is no response to send
+	 */
+	public boolean sendMessageToClient(MessageFromClient message, CancellationToken token, final Session client) {
+		CompletableFuture<MessageToClient> future = createMessageToClient(message, token, client);
+		if (future == null) {
+			return false;
+		}
+		future = recover(message, future);
+		if (future.isDone()) {
+			return sendMessageToClient(future.join(), client);
+		}
+		future.thenAccept(new Consumer<MessageToClient>() {
+			@Override
+			public void accept(MessageToClient mtc) {
+				sendMessageToClient(mtc, client);
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Build responses of a batch of call requests, and send them in one message when all are available.<br>
+	 * Calls are executed one after the other, or in parallel if configured
+	 *
+	 * @param messages
+	 * @param tokens : cancellation tokens registered when the calls were received
+	 * @param client
+	 * @return
+	 */
+	public boolean sendMessagesToClient(final List<MessageFromClient> messages, List<CancellationToken> tokens, final Session client) {
+		List<CompletableFuture<MessageToClient>> futures = new ArrayList<>();
+		for (int idx = 0; idx < messages.size(); idx++) {
+			final MessageFromClient message = messages.get(idx);
+			final CancellationToken token = tokens.get(idx);
+			CompletableFuture<MessageToClient> future;
+			try {
+				if (commandExecutor.isBatchParallel()) {
+					future = commandExecutor.supplyAsync(new Supplier<CompletableFuture<MessageToClient>>() {
+						@Override
+						public CompletableFuture<MessageToClient> get() {
+							return createMessageToClient(message, token, client);
+						}
+					}).thenCompose(new Function<CompletableFuture<MessageToClient>, CompletableFuture<MessageToClient>>() {
+						@Override
+						public CompletableFuture<MessageToClient> apply(CompletableFuture<MessageToClient> future) {
+							return nonNull(future);
+						}
+					});
+				} else {
+					future = nonNull(createMessageToClient(message, token, client));
+				}
+			} catch (RuntimeException ex) {
+				future = new CompletableFuture<>();
+				future.completeExceptionally(ex);
+			}
+			futures.add(recover(message, future));
+		}
+		commandExecutor.allOf(futures).whenComplete(new BiConsumer<List<MessageToClient>, Throwable>() {
+			@Override
+			public void accept(List<MessageToClient> mtcs, Throwable error) {
+				if (error != null) {
+					logger.error("Batch cannot be processed", error);
+					mtcs = new ArrayList<>();
+					for (MessageFromClient message : messages) {
+						mtcs.add(createFault(message, error));
+					}
+				}
+				messageSender.send(mtcs, client);
+			}
+		});
+		return true;
+	}
+
+	/**
+	 * Replace failure of call by its fault response
+	 *
+	 * @param message
+	 * @param future
+	 * @return
+	 */
+	CompletableFuture<MessageToClient> recover(final MessageFromClient message, CompletableFuture<MessageToClient> future) {
+		return future.handle(new BiFunction<MessageToClient, Throwable, MessageToClient>() {
+			@Override
+			public MessageToClient apply(MessageToClient mtc, Throwable error) {
+				if (error != null) {
+					logger.error("Call " + message.getId() + " failed", error);
+					return createFault(message, error);
+				}
+				return mtc;
+			}
+		});
+	}
+
+	/**
+	 * Call without response, is completed with null
+	 *
+	 * @param future
+	 * @return
+	 */
+	CompletableFuture<MessageToClient> nonNull(CompletableFuture<MessageToClient> future) {
+		if (future == null) {
+			return CompletableFuture.completedFuture(null);
+		}
+		return future;
+	}
+
+	/**
+	 * Create response of call, the cancellation token of the call is available in context during invocation.<br>
+	 * A call cancelled while it was queued is not invoked, the response of a call cancelled is not sent.<br>
+	 * If the call is executed by a worker, the worker is interrupted on cancel
+	 *
+	 * @param message
+	 * @param token : cancellation token of call
+	 * @param client
+	 * @return future of response, completed with null if call is cancelled
+	 */
+	CompletableFuture<MessageToClient> createMessageToClient(MessageFromClient message, final CancellationToken token, Session client) {
+		final String sessionId = client.getId();
+		final String id = message.getId();
+		if (token.isCancelled()) {
+			cancellationManager.unregister(sessionId, id, token);
+			return CompletableFuture.completedFuture(null);
+		}
+		if (commandExecutor.isEnabled()) {
+			token.attach(Thread.currentThread());
+		}
+		ThreadLocalContextHolder.put(Constants.CANCELLATIONTOKEN, token);
+		CompletableFuture<MessageToClient> future;
+		try {
+			future = messageToClientService.createMessageToClientAsync(message, client);
+		} finally {
+			token.detach();
+			ThreadLocalContextHolder.put(Constants.CANCELLATIONTOKEN, null);
+		}
+		if (future == null) {
+			cancellationManager.unregister(sessionId, id, token);
+			return null;
+		}
+		return future.thenApply(new Function<MessageToClient, MessageToClient>() {
+			@Override
+			public MessageToClient apply(MessageToClient mtc) {
+				cancellationManager.unregister(sessionId, id, token);
+				if (token.isCancelled()) {
+					return null;
+				}
+				return mtc;
+			}
+		});
+	}
+
+	/**
+	 * Send fault response, when the request cannot be processed
+	 *
+	 * @param message
+	 * @param client
+	 * @param cause
+	 * @return
+	 */
+	public boolean sendFaultToClient(MessageFromClient message, Session client, Throwable cause) {
+		return sendMessageToClient(createFault(message, cause), client);
+	}
+
+	/**
+	 * Create fault response of call
+	 *
+	 * @param message
+	 * @param cause
+	 * @return
+	 */
+	MessageToClient createFault(MessageFromClient message, Throwable cause) {
+		Throwable error = cause;
+		if (CompletionException.class.isInstance(error) && error.getCause() != null) {
+			error = error.getCause();
+		}
+		MessageToClient mtc = new MessageToClient();
+		mtc.setId(message.getId());
+		mtc.setFault(faultServices.buildFault(error));
+		return mtc;
+	}
+
+	/**
+	 * Send response message
+	 *
+	 * @param mtc
+	 * @param client
+	 * @return
+	 */
+	boolean sendMessageToClient(MessageToClient mtc, Session client) {
 		if (mtc != null) {
-			client.getAsyncRemote().sendObject(mtc);
+			messageSender.send(mtc, client);
 			return true;
 		}
 		return false;
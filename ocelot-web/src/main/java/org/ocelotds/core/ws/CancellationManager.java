@@ -0,0 +1,120 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.ws;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.context.CancellationToken;
+import org.slf4j.Logger;
+
+/**
+ * Cancellation tokens of calls not yet answered, by websocket session and message id.<br>
+ * A token is registered when the call is received, so a call waiting a worker can be cancelled too.<br>
+ * Each call received has its own token, passed along the call, a call retried with the same id replaces the token registered.<br>
+ * Token cancelled stays registered until the call is dequeued or answered, or a call with the same id is received
+ *
+ * @author hhfrancois
+ */
+@ApplicationScoped
+public class CancellationManager {
+
+	@Inject
+	@OcelotLogger
+	private Logger logger;
+
+	private final ConcurrentMap<String, ConcurrentMap<String, CancellationToken>> tokens = new ConcurrentHashMap<>();
+
+	private final AtomicLong cancelledCount = new AtomicLong();
+
+	/**
+	 * Register a new token for call received, cancel by id applies then to this call
+	 *
+	 * @param sessionId
+	 * @param id : message id
+	 * @return
+	 */
+	public CancellationToken register(String sessionId, String id) {
+		if (sessionId == null || id == null) {
+			return new CancellationToken();
+		}
+		ConcurrentMap<String, CancellationToken> sessionTokens = tokens.get(sessionId);
+		if (sessionTokens == null) {
+			sessionTokens = new ConcurrentHashMap<>();
+			ConcurrentMap<String, CancellationToken> previous = tokens.putIfAbsent(sessionId, sessionTokens);
+			if (previous != null) {
+				sessionTokens = previous;
+			}
+		}
+		CancellationToken token = new CancellationToken();
+		sessionTokens.put(id, token);
+		return token;
+	}
+
+	/**
+	 * Remove token of call answered
+	 *
+	 * @param sessionId
+	 * @param id
+	 * @param token
+	 */
+	public void unregister(String sessionId, String id, CancellationToken token) {
+		if (sessionId == null || id == null) {
+			return;
+		}
+		Map<String, CancellationToken> sessionTokens = tokens.get(sessionId);
+		if (sessionTokens != null) {
+			sessionTokens.remove(id, token);
+		}
+	}
+
+	/**
+	 * Cancel call
+	 *
+	 * @param sessionId
+	 * @param id
+	 * @return false if there is no call with this id
+	 */
+	public boolean cancel(String sessionId, String id) {
+		Map<String, CancellationToken> sessionTokens = tokens.get(sessionId);
+		if (sessionTokens != null && id != null) {
+			CancellationToken token = sessionTokens.get(id);
+			if (token != null && !token.isCancelled()) {
+				logger.debug("Cancel call {} for session '{}'", id, sessionId);
+				token.cancel();
+				cancelledCount.incrementAndGet();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Session is closed, cancel all its calls
+	 *
+	 * @param sessionId
+	 */
+	public void removeSession(String sessionId) {
+		Map<String, CancellationToken> sessionTokens = tokens.remove(sessionId);
+		if (sessionTokens != null) {
+			for (CancellationToken token : sessionTokens.values()) {
+				token.cancel();
+				cancelledCount.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Number of calls cancelled
+	 *
+	 * @return
+	 */
+	public long getCancelledCount() {
+		return cancelledCount.get();
+	}
+}
@@ -0,0 +1,433 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.ws;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.naming.InitialContext;
+import javax.naming.NamingException;
+import org.ocelotds.Constants;
+import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.configuration.WorkersConfigurationManager;
+import org.ocelotds.context.ThreadLocalContextHolder;
+import org.slf4j.Logger;
+
+/**
+ * Bounded pool of workers executing websocket commands, instead of websocket threads.<br>
+ * In ordered mode, commands of a session are executed one by one in order of reception.<br>
+ * In virtual mode, each command is executed by a new virtual thread, or by a pool of platform threads if jvm doesn't support them.<br>
+ * Context of ThreadLocalContextHolder (http session, principal of websocket session, cancellation token) is propagated from websocket thread to worker.<br>
+ * Platform workers are created by the default ManagedThreadFactory of the container (EE 7 concurrency), so they have its naming context and class loader.<br>
+ * If the container has no ManagedThreadFactory, and for virtual threads, workers are raw threads : no java:comp naming context, no transaction,
+ * no container security identity, and no CDI request or session context. Dataservices must get the user from OcelotContext, not from container
+ *
+ * @author hhfrancois
+ */
+@ApplicationScoped
+public class CommandExecutor {
+
+	@Inject
+	@OcelotLogger
+	private Logger logger;
+
+	@Inject
+	private WorkersConfigurationManager configuration;
+
+	/**
+	 * Factory method of virtual threads executor, since java 21
+	 */
+	static final String VIRTUAL_FACTORY = "newVirtualThreadPerTaskExecutor";
+
+	/**
+	 * Jndi name of the default ManagedThreadFactory, since java EE 7
+	 */
+	static final String MANAGED_THREAD_FACTORY = "java:comp/DefaultManagedThreadFactory";
+
+	private final ConcurrentMap<String, SerialExecutor> serialExecutors = new ConcurrentHashMap<>();
+
+	private final AtomicInteger queueDepth = new AtomicInteger();
+
+	private final AtomicInteger maxQueueDepth = new AtomicInteger();
+
+	private final AtomicInteger activeCount = new AtomicInteger();
+
+	private final AtomicLong completedCount = new AtomicLong();
+
+	private final AtomicLong rejectedCount = new AtomicLong();
+
+	private ExecutorService executor;
+
+	private Semaphore places;
+
+	/**
+	 * Commands are executed by workers
+	 *
+	 * @return false if commands are executed by websocket thread
+	 */
+	public boolean isEnabled() {
+		return configuration.getSize() > 0 || configuration.isVirtual();
+	}
+
+	/**
+	 * Virtual mode, rest calls are executed by workers too
+	 *
+	 * @return
+	 */
+	public boolean isVirtual() {
+		return configuration.isVirtual();
+	}
+
+	/**
+	 * Calls of a batch are executed in parallel
+	 *
+	 * @return
+	 */
+	public boolean isBatchParallel() {
+		return configuration.isBatchParallel();
+	}
+
+	/**
+	 * Get result of supplier computed by a worker, or by common pool if workers are not enabled.<br>
+	 * Not bounded by the queue : used for parts of a command already accepted, like calls of a batch
+	 *
+	 * @param <T>
+	 * @param supplier
+	 * @return
+	 */
+	public <T> CompletableFuture<T> supplyAsync(final Supplier<T> supplier) {
+		final Map<String, Object> context = ThreadLocalContextHolder.getContext();
+		Supplier<T> contextual = new Supplier<T>() {
+			@Override
+			public T get() {
+				// each supplier gets its own copy, they can run in parallel
+				ThreadLocalContextHolder.setContext(context != null ? new HashMap<>(context) : null);
+				try {
+					return supplier.get();
+				} finally {
+					ThreadLocalContextHolder.cleanupThread();
+				}
+			}
+		};
+		if (isEnabled()) {
+			return CompletableFuture.supplyAsync(contextual, getExecutor());
+		}
+		return CompletableFuture.supplyAsync(contextual);
+	}
+
+	/**
+	 * Future of results of all futures, in order, when all are completed
+	 *
+	 * @param <T>
+	 * @param futures
+	 * @return
+	 */
+	public <T> CompletableFuture<List<T>> allOf(final List<CompletableFuture<T>> futures) {
+		return CompletableFuture.allOf(futures.toArray(new CompletableFuture[futures.size()])).thenApply(new Function<Void, List<T>>() {
+			@Override
+			public List<T> apply(Void v) {
+				List<T> results = new ArrayList<>();
+				for (CompletableFuture<T> future : futures) {
+					T result = future.join();
+					if (result != null) {
+						results.add(result);
+					}
+				}
+				return results;
+			}
+		});
+	}
+
+	/**
+	 * Execute command by a worker, without order
+	 *
+	 * @param command
+	 * @throws RejectedExecutionException
+	 */
+	public void execute(Runnable command) throws RejectedExecutionException {
+		execute(null, command);
+	}
+
+	/**
+	 * Execute command of session by a worker.<br>
+	 * If the queue is full, according to policy, wait a free place or throw RejectedExecutionException
+	 *
+	 * @param sessionId
+	 * @param command
+	 * @throws RejectedExecutionException
+	 */
+	public void execute(String sessionId, Runnable command) throws RejectedExecutionException {
+		ExecutorService workers = getExecutor();
+		acquirePlace(sessionId);
+		int depth = queueDepth.incrementAndGet();
+		updateMaxQueueDepth(depth);
+		Runnable task = new CommandTask(command, ThreadLocalContextHolder.getContext());
+		try {
+			if (sessionId != null && configuration.isOrdered()) {
+				getSerialExecutor(sessionId, workers).execute(task);
+			} else {
+				workers.execute(task);
+			}
+		} catch (RejectedExecutionException ex) {
+			queueDepth.decrementAndGet();
+			places.release();
+			rejectedCount.incrementAndGet();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Take a place in queue
+	 *
+	 * @param sessionId
+	 * @throws RejectedExecutionException
+	 */
+	void acquirePlace(String sessionId) throws RejectedExecutionException {
+		if (Constants.Options.REJECTION_BLOCK.equals(configuration.getRejection())) {
+			try {
+				places.acquire();
+				return;
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		} else if (places.tryAcquire()) {
+			return;
+		}
+		rejectedCount.incrementAndGet();
+		logger.warn("Command from session '{}' rejected, {} commands waiting a worker.", sessionId, queueDepth.get());
+		throw new RejectedExecutionException("Server is busy, too many commands waiting a worker");
+	}
+
+	void updateMaxQueueDepth(int depth) {
+		int max = maxQueueDepth.get();
+		while (depth > max && !maxQueueDepth.compareAndSet(max, depth)) {
+			max = maxQueueDepth.get();
+		}
+	}
+
+	/**
+	 * Get serial executor of session, create it if necessary
+	 *
+	 * @param sessionId
+	 * @param workers
+	 * @return
+	 */
+	SerialExecutor getSerialExecutor(String sessionId, ExecutorService workers) {
+		SerialExecutor serialExecutor = serialExecutors.get(sessionId);
+		if (serialExecutor == null) {
+			serialExecutor = new SerialExecutor(workers);
+			SerialExecutor previous = serialExecutors.putIfAbsent(sessionId, serialExecutor);
+			if (previous != null) {
+				serialExecutor = previous;
+			}
+		}
+		return serialExecutor;
+	}
+
+	/**
+	 * Get the workers pool, create it on first call from configuration
+	 *
+	 * @return
+	 */
+	synchronized ExecutorService getExecutor() {
+		if (executor == null) {
+			places = new Semaphore(configuration.getQueue());
+			if (configuration.isVirtual()) {
+				executor = createVirtualExecutor();
+			}
+			if (executor == null) {
+				int size = getPlatformSize();
+				logger.info("Create pool of {} workers, queue of {} commands, ordered : {}.", new Object[]{size, configuration.getQueue(), configuration.isOrdered()});
+				executor = Executors.newFixedThreadPool(size, new WorkerThreadFactory(lookupManagedThreadFactory()));
+			}
+		}
+		return executor;
+	}
+
+	/**
+	 * Number of platform workers, in virtual mode without size, the number of processors
+	 *
+	 * @return
+	 */
+	int getPlatformSize() {
+		if (configuration.getSize() > 0) {
+			return configuration.getSize();
+		}
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Create an executor starting a virtual thread for each command.<br>
+	 * Got by reflection, for run on jvm without virtual threads
+	 *
+	 * @return executor, null if jvm doesn't support virtual threads
+	 */
+	ExecutorService createVirtualExecutor() {
+		try {
+			ExecutorService virtualExecutor = (ExecutorService) Executors.class.getMethod(VIRTUAL_FACTORY).invoke(null);
+			logger.info("Create virtual threads workers, queue of {} commands, ordered : {}.", configuration.getQueue(), configuration.isOrdered());
+			return virtualExecutor;
+		} catch (ReflectiveOperationException | RuntimeException ex) {
+			logger.warn("Virtual threads are not supported by this jvm, use platform threads.");
+		}
+		return null;
+	}
+
+	/**
+	 * Get the default ManagedThreadFactory of container.<br>
+	 * Looked up here, from a component of the application, so the threads it creates have the context of the application
+	 *
+	 * @return factory, null if the container doesn't provide it
+	 */
+	ThreadFactory lookupManagedThreadFactory() {
+		try {
+			ThreadFactory factory = (ThreadFactory) new InitialContext().lookup(MANAGED_THREAD_FACTORY);
+			logger.info("Workers are created by container ManagedThreadFactory.");
+			return factory;
+		} catch (NamingException | RuntimeException ex) {
+			logger.warn("No ManagedThreadFactory in container, workers run without EE context.");
+		}
+		return null;
+	}
+
+	/**
+	 * Session is closed, forget its serial executor
+	 *
+	 * @param sessionId
+	 */
+	public void removeSession(String sessionId) {
+		serialExecutors.remove(sessionId);
+	}
+
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (executor != null) {
+			executor.shutdown();
+			executor = null;
+		}
+		serialExecutors.clear();
+	}
+
+	/**
+	 * Number of commands waiting a worker
+	 *
+	 * @return
+	 */
+	public int getQueueDepth() {
+		return queueDepth.get();
+	}
+
+	/**
+	 * Max number of commands waiting a worker since start
+	 *
+	 * @return
+	 */
+	public int getMaxQueueDepth() {
+		return maxQueueDepth.get();
+	}
+
+	/**
+	 * Number of commands waiting for a session, in ordered mode
+	 *
+	 * @param sessionId
+	 * @return
+	 */
+	public int getQueueDepth(String sessionId) {
+		SerialExecutor serialExecutor = serialExecutors.get(sessionId);
+		if (serialExecutor != null) {
+			return serialExecutor.size();
+		}
+		return 0;
+	}
+
+	/**
+	 * Number of commands in execution
+	 *
+	 * @return
+	 */
+	public int getActiveCount() {
+		return activeCount.get();
+	}
+
+	public long getCompletedCount() {
+		return completedCount.get();
+	}
+
+	public long getRejectedCount() {
+		return rejectedCount.get();
+	}
+
+	/**
+	 * Command executed with context of websocket thread
+	 */
+	class CommandTask implements Runnable {
+
+		private final Runnable command;
+		private final Map<String, Object> context;
+
+		CommandTask(Runnable command, Map<String, Object> context) {
+			this.command = command;
+			this.context = context;
+		}
+
+		@Override
+		public void run() {
+			queueDepth.decrementAndGet();
+			places.release();
+			activeCount.incrementAndGet();
+			ThreadLocalContextHolder.setContext(context);
+			try {
+				command.run();
+			} catch (Throwable t) {
+				logger.error("Command execution failed", t);
+			} finally {
+				ThreadLocalContextHolder.cleanupThread();
+				activeCount.decrementAndGet();
+				completedCount.incrementAndGet();
+			}
+		}
+	}
+
+	/**
+	 * Create threads named ocelot-worker-n, by managed factory if any, else daemon threads
+	 */
+	static class WorkerThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+		private final ThreadFactory managedFactory;
+
+		WorkerThreadFactory(ThreadFactory managedFactory) {
+			this.managedFactory = managedFactory;
+		}
+
+		@Override
+		public Thread newThread(Runnable r) {
+			String name = "ocelot-worker-" + count.incrementAndGet();
+			if (managedFactory != null) {
+				Thread thread = managedFactory.newThread(r);
+				thread.setName(name);
+				return thread;
+			}
+			Thread thread = new Thread(r, name);
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -0,0 +1,124 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.ws;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import org.ocelotds.encoders.CborCodec;
+import org.ocelotds.messaging.MessageToClient;
+
+/**
+ * Message encoded once and sent to many sessions.<br>
+ * CBOR form is written on first use, for sessions using the binary protocol, directly from the message if it is known, else transcoded from json.<br>
+ * Key identifies messages that can replace each other in a queue, like messages of a topic.<br>
+ * Latest message always replaces the waiting one with the same key, others only if the queue is full
+ *
+ * @author hhfrancois
+ */
+public class EncodedMessage {
+
+	private final String json;
+
+	private final String key;
+
+	private final boolean latest;
+
+	private final MessageToClient mtc;
+
+	private volatile byte[] cbor = null;
+
+	public EncodedMessage(String json) {
+		this(json, null);
+	}
+
+	/**
+	 *
+	 * @param json
+	 * @param key : conflation key, null if message cannot be replaced by a newer one
+	 */
+	public EncodedMessage(String json, String key) {
+		this(json, key, false);
+	}
+
+	/**
+	 *
+	 * @param json
+	 * @param key : conflation key
+	 * @param latest : only the latest message with the key is sent
+	 */
+	public EncodedMessage(String json, String key, boolean latest) {
+		this(json, key, latest, null);
+	}
+
+	/**
+	 *
+	 * @param mtc : message, not modified after
+	 * @param key : conflation key, null if message cannot be replaced by a newer one
+	 */
+	public EncodedMessage(MessageToClient mtc, String key) {
+		this(mtc, key, false);
+	}
+
+	/**
+	 *
+	 * @param mtc : message, not modified after
+	 * @param key : conflation key
+	 * @param latest : only the latest message with the key is sent
+	 */
+	public EncodedMessage(MessageToClient mtc, String key, boolean latest) {
+		this(mtc.toJson(), key, latest, mtc);
+	}
+
+	private EncodedMessage(String json, String key, boolean latest, MessageToClient mtc) {
+		this.json = json;
+		this.key = key;
+		this.latest = latest;
+		this.mtc = mtc;
+	}
+
+	public String getJson() {
+		return json;
+	}
+
+	public String getKey() {
+		return key;
+	}
+
+	public boolean isLatest() {
+		return latest;
+	}
+
+	/**
+	 * Message in CBOR, each call returns a new buffer on the same bytes
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	public ByteBuffer getCbor() throws IOException {
+		byte[] result = cbor;
+		if (result == null) {
+			result = encodeCbor();
+			cbor = result;
+		}
+		return ByteBuffer.wrap(result).asReadOnlyBuffer();
+	}
+
+	/**
+	 * Write message in CBOR, json has already replaced a response failing to serialize by a fault
+	 *
+	 * @return
+	 * @throws IOException
+	 */
+	byte[] encodeCbor() throws IOException {
+		if (mtc != null) {
+			try {
+				return CborCodec.encode(mtc);
+			} catch (JsonProcessingException ex) {
+				return CborCodec.encode(json);
+			}
+		}
+		return CborCodec.encode(json);
+	}
+}
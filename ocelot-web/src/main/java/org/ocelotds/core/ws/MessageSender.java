@@ -0,0 +1,254 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.ws;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import javax.websocket.Session;
+import org.ocelotds.Constants;
+import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.configuration.OutboundConfigurationManager;
+import org.ocelotds.encoders.CborCodec;
+import org.ocelotds.messaging.MessageToClient;
+import org.slf4j.Logger;
+
+/**
+ * Send messages to client.<br>
+ * Small message is written in a buffer and sent asynchronously, message larger than the threshold is streamed to the session by the sending thread,
+ * so it is never entirely in memory.<br>
+ * Sessions with subprotocol ocelot-cbor receive messages in CBOR, in binary frames, responses are written in CBOR without json text.<br>
+ * Messages to a session go through its bounded outbound queue, a message is streamed only if nothing is in flight for the session
+ *
+ * @author hhfrancois
+ */
+@ApplicationScoped
+public class MessageSender {
+
+	@Inject
+	@OcelotLogger
+	private Logger logger;
+
+	@Inject
+	private OutboundConfigurationManager configuration;
+
+	private final AtomicLong streamedCount = new AtomicLong();
+
+	private final ConcurrentMap<String, OutboundQueue> queues = new ConcurrentHashMap<>();
+
+	/**
+	 * Send message to session
+	 *
+	 * @param mtc
+	 * @param session
+	 */
+	public void send(MessageToClient mtc, Session session) {
+		if (isBinary(session)) {
+			try {
+				getQueue(session).offer(new OutboundQueue.Frame(ByteBuffer.wrap(CborCodec.encode(mtc)), null, false));
+			} catch (IOException ex) { // response failing to serialize is replaced by a fault in json
+				send(new EncodedMessage(mtc.toJson()), session);
+			}
+			return;
+		}
+		OutboundQueue queue = getQueue(session);
+		int threshold = configuration.getStreamingThreshold();
+		if (threshold <= 0 || !queue.tryAcquire()) {
+			queue.offer(new OutboundQueue.Frame(mtc.toJson(), null));
+			return;
+		}
+		StreamingWriter writer = createStreamingWriter(session, threshold);
+		try {
+			mtc.writeTo(writer);
+			send(writer, queue);
+		} catch (IOException ex) {
+			if (writer.isStreaming()) {
+				abort(writer, session, ex);
+				queue.release();
+			} else {
+				queue.send(new OutboundQueue.Frame(mtc.toJson(), null));
+			}
+		} catch (RuntimeException ex) {
+			queue.release();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Send messages to session in one json array, response of a batch
+	 *
+	 * @param mtcs
+	 * @param session
+	 */
+	public void send(List<MessageToClient> mtcs, Session session) {
+		if (isBinary(session)) {
+			try {
+				getQueue(session).offer(new OutboundQueue.Frame(ByteBuffer.wrap(CborCodec.encode(mtcs)), null, false));
+			} catch (IOException ex) {
+				send(new EncodedMessage(MessageToClient.toJson(mtcs)), session);
+			}
+			return;
+		}
+		OutboundQueue queue = getQueue(session);
+		int threshold = configuration.getStreamingThreshold();
+		if (threshold <= 0 || !queue.tryAcquire()) {
+			queue.offer(new OutboundQueue.Frame(MessageToClient.toJson(mtcs), null));
+			return;
+		}
+		StreamingWriter writer = createStreamingWriter(session, threshold);
+		try {
+			MessageToClient.writeTo(mtcs, writer);
+			send(writer, queue);
+		} catch (IOException ex) {
+			if (writer.isStreaming()) {
+				abort(writer, session, ex);
+				queue.release();
+			} else {
+				queue.send(new OutboundQueue.Frame(MessageToClient.toJson(mtcs), null));
+			}
+		} catch (RuntimeException ex) {
+			queue.release();
+			throw ex;
+		}
+	}
+
+	/**
+	 * Send message already encoded, in CBOR if session uses the binary protocol
+	 *
+	 * @param message
+	 * @param session
+	 */
+	public void send(EncodedMessage message, Session session) {
+		if (!isBinary(session)) {
+			getQueue(session).offer(new OutboundQueue.Frame(message.getJson(), message.getKey(), message.isLatest()));
+			return;
+		}
+		try {
+			ByteBuffer cbor = message.getCbor();
+			getQueue(session).offer(new OutboundQueue.Frame(cbor, message.getKey(), message.isLatest()));
+		} catch (IOException ex) {
+			logger.error("Fail to encode message in CBOR for session " + session.getId(), ex);
+		}
+	}
+
+	/**
+	 * Session negotiated the binary protocol
+	 *
+	 * @param session
+	 * @return
+	 */
+	public boolean isBinary(Session session) {
+		return Constants.SUBPROTOCOL_CBOR.equals(session.getNegotiatedSubprotocol());
+	}
+
+	/**
+	 * Get outbound queue of session, create it if necessary.<br>
+	 * Queue of a closed session is not kept
+	 *
+	 * @param session
+	 * @return
+	 */
+	OutboundQueue getQueue(Session session) {
+		if (!session.isOpen()) {
+			return createQueue(session);
+		}
+		OutboundQueue queue = queues.get(session.getId());
+		if (queue == null) {
+			queue = createQueue(session);
+			OutboundQueue previous = queues.putIfAbsent(session.getId(), queue);
+			if (previous != null) {
+				queue = previous;
+			}
+		}
+		return queue;
+	}
+
+	OutboundQueue createQueue(Session session) {
+		return new OutboundQueue(session, configuration.getOutboundQueue(), configuration.getOutboundPolicy(), logger);
+	}
+
+	StreamingWriter createStreamingWriter(Session session, int threshold) {
+		return new StreamingWriter(session, threshold);
+	}
+
+	/**
+	 * Complete the message streamed and release the queue, or send the message buffered
+	 *
+	 * @param writer
+	 * @param queue : held by the writer
+	 * @throws IOException
+	 */
+	void send(StreamingWriter writer, OutboundQueue queue) throws IOException {
+		if (writer.isStreaming()) {
+			writer.close();
+			streamedCount.incrementAndGet();
+			queue.release();
+		} else {
+			queue.send(new OutboundQueue.Frame(writer.toString(), null));
+		}
+	}
+
+	/**
+	 * Message streamed failed, part of it is already sent, so it cannot be replaced
+	 *
+	 * @param writer
+	 * @param session
+	 * @param cause
+	 */
+	void abort(StreamingWriter writer, Session session, IOException cause) {
+		logger.error("Fail to stream message to session " + session.getId(), cause);
+		try {
+			writer.close();
+		} catch (IOException ex) {
+			logger.debug("Fail to close writer of session {}.", session.getId());
+		}
+	}
+
+	/**
+	 * Number of messages streamed
+	 *
+	 * @return
+	 */
+	public long getStreamedCount() {
+		return streamedCount.get();
+	}
+
+	/**
+	 * Outbound queue of session, for its depth and drop counts
+	 *
+	 * @param sessionId
+	 * @return null if nothing was sent to session
+	 */
+	public OutboundQueue getOutboundQueue(String sessionId) {
+		return queues.get(sessionId);
+	}
+
+	/**
+	 * Outbound queues by session id
+	 *
+	 * @return
+	 */
+	public Map<String, OutboundQueue> getOutboundQueues() {
+		return Collections.unmodifiableMap(queues);
+	}
+
+	/**
+	 * Session is closed, forget its queue and the messages waiting
+	 *
+	 * @param sessionId
+	 */
+	public void removeSession(String sessionId) {
+		OutboundQueue queue = queues.remove(sessionId);
+		if (queue != null) {
+			queue.close();
+		}
+	}
+}
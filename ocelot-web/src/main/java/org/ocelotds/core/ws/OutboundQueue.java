@@ -0,0 +1,401 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.ws;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.ListIterator;
+import javax.websocket.CloseReason;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import org.ocelotds.Constants;
+import org.slf4j.Logger;
+
+/**
+ * Bounded queue of messages waiting to be sent to a session.<br>
+ * One message is in flight at a time, the next one is sent when the container calls back the SendHandler.<br>
+ * When the queue is full, according to the policy : the oldest topic message is dropped, a message of the same topic is replaced, or the session is closed.<br>
+ * Responses to calls (without key) are never dropped, else the client would wait them forever : they are queued over capacity, or the session is closed.<br>
+ * A latest-value message always replaces the waiting message with the same key
+ *
+ * @author hhfrancois
+ */
+public class OutboundQueue implements SendHandler {
+
+	private final Session session;
+
+	private final int capacity;
+
+	private final String policy;
+
+	private final Logger logger;
+
+	private final LinkedList<Frame> pending = new LinkedList<>();
+
+	/**
+	 * A message is in flight, or the queue is held by a thread streaming a message
+	 */
+	private boolean sending = false;
+
+	/**
+	 * A write is in progress, so a callback in the same thread doesn't send the next message itself
+	 */
+	private boolean writing = false;
+
+	private boolean completedInWrite = false;
+
+	private boolean closed = false;
+
+	private int maxDepth = 0;
+
+	private long sentCount = 0;
+
+	private long failedCount = 0;
+
+	private long droppedCount = 0;
+
+	private long conflatedCount = 0;
+
+	/**
+	 *
+	 * @param session
+	 * @param capacity : max number of messages waiting, 0 for unbounded
+	 * @param policy : overflow policy
+	 * @param logger
+	 */
+	public OutboundQueue(Session session, int capacity, String policy, Logger logger) {
+		this.session = session;
+		this.capacity = capacity;
+		this.policy = policy;
+		this.logger = logger;
+	}
+
+	/**
+	 * Send frame now if nothing is in flight, else queue it
+	 *
+	 * @param frame
+	 */
+	public void offer(Frame frame) {
+		boolean send = false;
+		boolean disconnect = false;
+		synchronized (this) {
+			if (closed) {
+				droppedCount++;
+				return;
+			}
+			if (!sending) {
+				sending = true;
+				send = true;
+			} else if (frame.latest && replace(frame)) {
+				return;
+			} else if (capacity <= 0 || pending.size() < capacity) {
+				add(frame);
+			} else {
+				disconnect = overflow(frame);
+			}
+		}
+		if (send) {
+			drain(frame);
+		} else if (disconnect) {
+			disconnect();
+		}
+	}
+
+	/**
+	 * Add frame at the end of queue, must be called in synchronized block
+	 *
+	 * @param frame
+	 */
+	void add(Frame frame) {
+		pending.addLast(frame);
+		maxDepth = Math.max(maxDepth, pending.size());
+	}
+
+	/**
+	 * Queue is full, apply policy, must be called in synchronized block.<br>
+	 * Only topic messages are dropped : the oldest one makes room, or the new one is dropped if only responses are waiting
+	 *
+	 * @param frame
+	 * @return true if session must be disconnected
+	 */
+	boolean overflow(Frame frame) {
+		if (Constants.Options.POLICY_DISCONNECT.equals(policy)) {
+			droppedCount += pending.size() + 1;
+			pending.clear();
+			closed = true;
+			return true;
+		}
+		if (Constants.Options.POLICY_CONFLATE.equals(policy) && replace(frame)) {
+			return false;
+		}
+		if (removeOldestTopicMessage()) {
+			droppedCount++;
+			add(frame);
+		} else if (frame.key == null) { // only responses are waiting, queued over capacity
+			add(frame);
+		} else {
+			droppedCount++;
+		}
+		return false;
+	}
+
+	/**
+	 * Remove the oldest message with a key, must be called in synchronized block
+	 *
+	 * @return true if a message was removed
+	 */
+	boolean removeOldestTopicMessage() {
+		Iterator<Frame> iterator = pending.iterator();
+		while (iterator.hasNext()) {
+			if (iterator.next().key != null) {
+				iterator.remove();
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Replace the pending frame with the same key, must be called in synchronized block
+	 *
+	 * @param frame
+	 * @return true if a frame was replaced
+	 */
+	boolean replace(Frame frame) {
+		if (frame.key == null) {
+			return false;
+		}
+		ListIterator<Frame> iterator = pending.listIterator();
+		while (iterator.hasNext()) {
+			if (frame.key.equals(iterator.next().key)) {
+				iterator.set(frame);
+				conflatedCount++;
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Hold the queue to write in session without SendHandler, like streaming
+	 *
+	 * @return false if a message is in flight
+	 */
+	public synchronized boolean tryAcquire() {
+		if (sending || closed) {
+			return false;
+		}
+		sending = true;
+		return true;
+	}
+
+	/**
+	 * Release the queue held, send the next message
+	 */
+	public void release() {
+		drain(next());
+	}
+
+	/**
+	 * Send frame with the queue held, then the next ones
+	 *
+	 * @param frame
+	 */
+	public void send(Frame frame) {
+		drain(frame);
+	}
+
+	/**
+	 * Next frame to send, if none the queue is released
+	 *
+	 * @return
+	 */
+	synchronized Frame next() {
+		Frame next = pending.pollFirst();
+		if (next == null) {
+			sending = false;
+		}
+		return next;
+	}
+
+	/**
+	 * Write frames while container completes them in the writing thread, else the callback continues
+	 *
+	 * @param first
+	 */
+	void drain(Frame first) {
+		Frame frame = first;
+		while (frame != null) {
+			synchronized (this) {
+				writing = true;
+				completedInWrite = false;
+			}
+			write(frame);
+			synchronized (this) {
+				writing = false;
+				if (!completedInWrite) {
+					return;
+				}
+			}
+			frame = next();
+		}
+	}
+
+	/**
+	 * Write frame, the container calls onResult when it is sent
+	 *
+	 * @param frame
+	 */
+	void write(Frame frame) {
+		try {
+			if (frame.binary != null) {
+				session.getAsyncRemote().sendBinary(frame.binary, this);
+			} else {
+				session.getAsyncRemote().sendText(frame.text, this);
+			}
+		} catch (RuntimeException ex) {
+			onResult(new SendResult(ex));
+		}
+	}
+
+	@Override
+	public void onResult(SendResult result) {
+		synchronized (this) {
+			if (result.isOK()) {
+				sentCount++;
+			} else {
+				failedCount++;
+				logger.debug("Fail to send message to session {} : {}", session.getId(), result.getException());
+			}
+			if (writing) {
+				completedInWrite = true;
+				return;
+			}
+		}
+		drain(next());
+	}
+
+	/**
+	 * Session doesn't read its messages, close it
+	 */
+	void disconnect() {
+		logger.warn("Session {} is too slow, {} messages are waiting, it is closed.", session.getId(), capacity);
+		try {
+			session.close(new CloseReason(CloseReason.CloseCodes.TRY_AGAIN_LATER, "Too many messages waiting"));
+		} catch (IOException | IllegalStateException ex) {
+			logger.debug("Fail to close session {}.", session.getId());
+		}
+	}
+
+	/**
+	 * Session is closed, forget messages waiting
+	 */
+	public synchronized void close() {
+		closed = true;
+		droppedCount += pending.size();
+		pending.clear();
+	}
+
+	/**
+	 * Number of messages waiting
+	 *
+	 * @return
+	 */
+	public synchronized int getDepth() {
+		return pending.size();
+	}
+
+	/**
+	 * Max number of messages waiting since the session is opened
+	 *
+	 * @return
+	 */
+	public synchronized int getMaxDepth() {
+		return maxDepth;
+	}
+
+	public synchronized long getSentCount() {
+		return sentCount;
+	}
+
+	public synchronized long getFailedCount() {
+		return failedCount;
+	}
+
+	/**
+	 * Number of messages never sent, dropped by policy or at close
+	 *
+	 * @return
+	 */
+	public synchronized long getDroppedCount() {
+		return droppedCount;
+	}
+
+	/**
+	 * Number of messages replaced by a newer message of the same topic
+	 *
+	 * @return
+	 */
+	public synchronized long getConflatedCount() {
+		return conflatedCount;
+	}
+
+	public synchronized boolean isClosed() {
+		return closed;
+	}
+
+	/**
+	 * Message to send, in text or in binary
+	 */
+	public static class Frame {
+
+		final String text;
+		final ByteBuffer binary;
+		final String key;
+		final boolean latest;
+
+		/**
+		 *
+		 * @param text
+		 * @param key : conflation key, null if message cannot be replaced
+		 */
+		public Frame(String text, String key) {
+			this(text, null, key, false);
+		}
+
+		/**
+		 *
+		 * @param text
+		 * @param key : conflation key
+		 * @param latest : replaces the waiting message with the same key
+		 */
+		public Frame(String text, String key, boolean latest) {
+			this(text, null, key, latest);
+		}
+
+		/**
+		 *
+		 * @param binary
+		 * @param key : conflation key
+		 * @param latest : replaces the waiting message with the same key
+		 */
+		public Frame(ByteBuffer binary, String key, boolean latest) {
+			this(null, binary, key, latest);
+		}
+
+		private Frame(String text, ByteBuffer binary, String key, boolean latest) {
+			this.text = text;
+			this.binary = binary;
+			this.key = key;
+			this.latest = latest;
+		}
+
+		public String getKey() {
+			return key;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.ws;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Executor;
+
+/**
+ * Execute tasks one by one, in order of submission, on an underlying executor
+ *
+ * @author hhfrancois
+ */
+public class SerialExecutor implements Executor {
+
+	private final Queue<Runnable> tasks = new ArrayDeque<>();
+	private final Executor executor;
+	private Runnable active;
+
+	public SerialExecutor(Executor executor) {
+		this.executor = executor;
+	}
+
+	@Override
+	public synchronized void execute(final Runnable command) {
+		tasks.offer(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					command.run();
+				} finally {
+					scheduleNext();
+				}
+			}
+		});
+		if (active == null) {
+			scheduleNext();
+		}
+	}
+
+	/**
+	 * Submit next task to underlying executor
+	 */
+	synchronized void scheduleNext() {
+		active = tasks.poll();
+		if (active != null) {
+			executor.execute(active);
+		}
+	}
+
+	/**
+	 * Number of tasks waiting, without the running one
+	 *
+	 * @return
+	 */
+	public synchronized int size() {
+		return tasks.size();
+	}
+}
@@ -0,0 +1,143 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.ws;
+
+import java.io.IOException;
+import java.io.Writer;
+import javax.websocket.Session;
+
+/**
+ * Writer of a message to a session.<br>
+ * Message is buffered until its size reaches the threshold, then buffer and the rest of message are streamed by the send writer of the session.<br>
+ * Buffer is reused by the thread, buffer grown by a large threshold is not kept
+ *
+ * @author hhfrancois
+ */
+class StreamingWriter extends Writer {
+
+	static final int INITIAL_CAPACITY = 1024;
+
+	static final int MAX_KEPT_CAPACITY = 64 * 1024;
+
+	private static final ThreadLocal<StringBuilder> BUFFERS = new ThreadLocal<StringBuilder>() {
+		@Override
+		protected StringBuilder initialValue() {
+			return new StringBuilder(INITIAL_CAPACITY);
+		}
+	};
+
+	private final Session session;
+
+	private final int threshold;
+
+	private final StringBuilder buffer;
+
+	private Writer sendWriter = null;
+
+	/**
+	 * Session refused to stream, a message is sending yet
+	 */
+	private boolean refused = false;
+
+	StreamingWriter(Session session, int threshold) {
+		this.session = session;
+		this.threshold = threshold;
+		this.buffer = getBuffer();
+	}
+
+	/**
+	 * Get empty buffer of current thread
+	 *
+	 * @return
+	 */
+	static StringBuilder getBuffer() {
+		StringBuilder sb = BUFFERS.get();
+		if (sb.capacity() > MAX_KEPT_CAPACITY) {
+			sb = new StringBuilder(INITIAL_CAPACITY);
+			BUFFERS.set(sb);
+		} else {
+			sb.setLength(0);
+		}
+		return sb;
+	}
+
+	/**
+	 * Start to stream if message would exceed the threshold.<br>
+	 * If an other message is sending, the session cannot stream, the message stays buffered
+	 *
+	 * @param len : number of chars to write
+	 * @throws IOException
+	 */
+	void checkThreshold(int len) throws IOException {
+		if (sendWriter != null || refused || buffer.length() + len <= threshold) {
+			return;
+		}
+		try {
+			sendWriter = session.getBasicRemote().getSendWriter();
+		} catch (IllegalStateException ex) {
+			refused = true;
+			return;
+		}
+		sendWriter.append(buffer);
+		buffer.setLength(0);
+	}
+
+	/**
+	 * Message is streamed to session
+	 *
+	 * @return
+	 */
+	boolean isStreaming() {
+		return sendWriter != null;
+	}
+
+	@Override
+	public void write(char[] cbuf, int off, int len) throws IOException {
+		checkThreshold(len);
+		if (sendWriter != null) {
+			sendWriter.write(cbuf, off, len);
+		} else {
+			buffer.append(cbuf, off, len);
+		}
+	}
+
+	@Override
+	public void write(String str, int off, int len) throws IOException {
+		checkThreshold(len);
+		if (sendWriter != null) {
+			sendWriter.write(str, off, len);
+		} else {
+			buffer.append(str, off, off + len);
+		}
+	}
+
+	@Override
+	public void flush() throws IOException {
+		if (sendWriter != null) {
+			sendWriter.flush();
+		}
+	}
+
+	/**
+	 * Close the send writer, so the message streamed is complete
+	 *
+	 * @throws IOException
+	 */
+	@Override
+	public void close() throws IOException {
+		if (sendWriter != null) {
+			sendWriter.close();
+		}
+	}
+
+	/**
+	 * Message buffered
+	 *
+	 * @return
+	 */
+	@Override
+	public String toString() {
+		return buffer.toString();
+	}
+}
@@ -0,0 +1,571 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.encoders;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+import org.ocelotds.marshalling.SharedObjectMapper;
+import org.ocelotds.messaging.MessageToClient;
+
+/**
+ * Transcode messages between json and CBOR (RFC 7049), the binary protocol of websocket sessions with subprotocol ocelot-cbor.<br>
+ * Messages to client are written directly by CborGenerator.<br>
+ * Json tokens are streamed, objects and arrays are written with indefinite length.<br>
+ * Integers beyond 64 bits are written as bignums (tags 2 and 3), numbers with decimals in double precision, or as decimal fractions (tag 4) if double would lose precision.<br>
+ * Nesting of decoded items is limited, so a hostile frame cannot exhaust the stack
+ *
+ * @author hhfrancois
+ */
+public final class CborCodec {
+
+	static final int MAJOR_UNSIGNED = 0;
+	static final int MAJOR_NEGATIVE = 1;
+	static final int MAJOR_BYTES = 2;
+	static final int MAJOR_TEXT = 3;
+	static final int MAJOR_ARRAY = 4;
+	static final int MAJOR_MAP = 5;
+	static final int MAJOR_TAG = 6;
+	static final int MAJOR_SIMPLE = 7;
+
+	static final int FALSE = 0xF4;
+	static final int TRUE = 0xF5;
+	static final int NULL = 0xF6;
+	static final int UNDEFINED = 0xF7;
+	static final int FLOAT16 = 0xF9;
+	static final int FLOAT32 = 0xFA;
+	static final int FLOAT64 = 0xFB;
+	static final int BREAK = 0xFF;
+	static final int INDEFINITE = 31;
+
+	static final int TAG_POSITIVE_BIGNUM = 2;
+	static final int TAG_NEGATIVE_BIGNUM = 3;
+	static final int TAG_DECIMAL_FRACTION = 4;
+
+	/**
+	 * Maximum nesting of arrays, maps and tags in decoded item
+	 */
+	static final int MAX_DEPTH = 256;
+
+	private static final BigInteger UNSIGNED_LONG = BigInteger.ONE.shiftLeft(64);
+
+	private CborCodec() {
+	}
+
+	/**
+	 * Transcode json to CBOR
+	 *
+	 * @param json
+	 * @return
+	 * @throws IOException
+	 */
+	public static byte[] encode(String json) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(json.length());
+		try (JsonParser parser = getJsonFactory().createParser(json)) {
+			JsonToken token;
+			while ((token = parser.nextToken()) != null) {
+				writeToken(parser, token, out);
+			}
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Write message in CBOR, without json text
+	 *
+	 * @param mtc
+	 * @return
+	 * @throws IOException if response fails to serialize
+	 */
+	public static byte[] encode(MessageToClient mtc) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (JsonGenerator generator = new CborGenerator(out)) {
+			mtc.writeTo(generator);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Write array of messages in CBOR, without json text
+	 *
+	 * @param mtcs
+	 * @return
+	 * @throws IOException if a response fails to serialize
+	 */
+	public static byte[] encode(List<MessageToClient> mtcs) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (JsonGenerator generator = new CborGenerator(out)) {
+			MessageToClient.writeTo(mtcs, generator);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Transcode CBOR to json.<br>
+	 * Arguments of messages from client are bound from json slices, so CBOR is streamed in a json generator
+	 *
+	 * @param bytes
+	 * @return
+	 * @throws IOException
+	 */
+	public static String decode(ByteBuffer bytes) throws IOException {
+		StringWriter writer = new StringWriter(bytes.remaining() * 2);
+		try (JsonGenerator generator = getJsonFactory().createGenerator(writer)) {
+			readItem(bytes, generator, false, 0);
+			if (bytes.hasRemaining()) {
+				throw new IOException("Unexpected data after CBOR item");
+			}
+		} catch (BufferUnderflowException ex) {
+			throw new IOException("Truncated CBOR item", ex);
+		}
+		return writer.toString();
+	}
+
+	static JsonFactory getJsonFactory() {
+		return SharedObjectMapper.getObjectMapper().getFactory();
+	}
+
+	/**
+	 * Write json token in CBOR
+	 *
+	 * @param parser
+	 * @param token
+	 * @param out
+	 * @throws IOException
+	 */
+	static void writeToken(JsonParser parser, JsonToken token, ByteArrayOutputStream out) throws IOException {
+		switch (token) {
+			case START_OBJECT:
+				out.write((MAJOR_MAP << 5) | INDEFINITE);
+				break;
+			case START_ARRAY:
+				out.write((MAJOR_ARRAY << 5) | INDEFINITE);
+				break;
+			case END_OBJECT:
+			case END_ARRAY:
+				out.write(BREAK);
+				break;
+			case FIELD_NAME:
+			case VALUE_STRING:
+				writeText(parser.getText(), out);
+				break;
+			case VALUE_NUMBER_INT:
+				if (parser.getNumberType() == JsonParser.NumberType.BIG_INTEGER) {
+					writeInteger(parser.getBigIntegerValue(), out);
+				} else {
+					writeLong(parser.getLongValue(), out);
+				}
+				break;
+			case VALUE_NUMBER_FLOAT:
+				writeDecimal(parser.getDecimalValue(), out);
+				break;
+			case VALUE_TRUE:
+				out.write(TRUE);
+				break;
+			case VALUE_FALSE:
+				out.write(FALSE);
+				break;
+			default:
+				out.write(NULL);
+		}
+	}
+
+	static void writeText(String text, ByteArrayOutputStream out) {
+		byte[] bytes = text.getBytes(StandardCharsets.UTF_8);
+		writeHead(MAJOR_TEXT, bytes.length, out);
+		out.write(bytes, 0, bytes.length);
+	}
+
+	static void writeLong(long value, ByteArrayOutputStream out) {
+		if (value < 0) {
+			writeHead(MAJOR_NEGATIVE, -1 - value, out);
+		} else {
+			writeHead(MAJOR_UNSIGNED, value, out);
+		}
+	}
+
+	/**
+	 * Write integer, as bignum if it doesn't fit in 64 bits
+	 *
+	 * @param value
+	 * @param out
+	 */
+	static void writeInteger(BigInteger value, ByteArrayOutputStream out) {
+		if (value.bitLength() < 64) {
+			writeLong(value.longValue(), out);
+			return;
+		}
+		boolean negative = value.signum() < 0;
+		byte[] bytes = (negative ? value.negate().subtract(BigInteger.ONE) : value).toByteArray();
+		int offset = bytes[0] == 0 ? 1 : 0; // sign byte
+		writeHead(MAJOR_TAG, negative ? TAG_NEGATIVE_BIGNUM : TAG_POSITIVE_BIGNUM, out);
+		writeHead(MAJOR_BYTES, bytes.length - offset, out);
+		out.write(bytes, offset, bytes.length - offset);
+	}
+
+	/**
+	 * Write number with decimals, in double precision if it is exact, else as decimal fraction
+	 *
+	 * @param value
+	 * @param out
+	 */
+	static void writeDecimal(BigDecimal value, ByteArrayOutputStream out) {
+		double d = value.doubleValue();
+		if (!Double.isInfinite(d) && BigDecimal.valueOf(d).compareTo(value) == 0) {
+			writeDouble(d, out);
+			return;
+		}
+		writeHead(MAJOR_TAG, TAG_DECIMAL_FRACTION, out);
+		writeHead(MAJOR_ARRAY, 2, out);
+		writeLong(-value.scale(), out);
+		writeInteger(value.unscaledValue(), out);
+	}
+
+	static void writeDouble(double value, ByteArrayOutputStream out) {
+		out.write(FLOAT64);
+		writeBytes(Double.doubleToLongBits(value), 8, out);
+	}
+
+	/**
+	 * Write major type and argument in the shortest form
+	 *
+	 * @param major
+	 * @param argument : unsigned
+	 * @param out
+	 */
+	static void writeHead(int major, long argument, ByteArrayOutputStream out) {
+		int type = major << 5;
+		if (argument < 24) {
+			out.write(type | (int) argument);
+		} else if (argument < 0x100) {
+			out.write(type | 24);
+			writeBytes(argument, 1, out);
+		} else if (argument < 0x10000) {
+			out.write(type | 25);
+			writeBytes(argument, 2, out);
+		} else if (argument < 0x100000000L) {
+			out.write(type | 26);
+			writeBytes(argument, 4, out);
+		} else {
+			out.write(type | 27);
+			writeBytes(argument, 8, out);
+		}
+	}
+
+	static void writeBytes(long value, int length, ByteArrayOutputStream out) {
+		for (int shift = (length - 1) * 8; shift >= 0; shift -= 8) {
+			out.write((int) (value >>> shift) & 0xFF);
+		}
+	}
+
+	/**
+	 * Read CBOR item and write it with generator
+	 *
+	 * @param bytes
+	 * @param generator
+	 * @param fieldName : item is the key of a map
+	 * @param depth : nesting of item
+	 * @return false if item is a break
+	 * @throws IOException
+	 */
+	static boolean readItem(ByteBuffer bytes, JsonGenerator generator, boolean fieldName, int depth) throws IOException {
+		if (depth > MAX_DEPTH) {
+			throw new IOException("CBOR item nested deeper than " + MAX_DEPTH);
+		}
+		int initial = bytes.get() & 0xFF;
+		int major = initial >>> 5;
+		int info = initial & 0x1F;
+		if (initial == BREAK) {
+			return false;
+		}
+		if (fieldName && major != MAJOR_TEXT) {
+			throw new IOException("Key of CBOR map must be a text");
+		}
+		switch (major) {
+			case MAJOR_UNSIGNED:
+				writeUnsigned(readArgument(bytes, info), generator);
+				break;
+			case MAJOR_NEGATIVE:
+				long argument = readArgument(bytes, info);
+				if (argument < 0) {
+					generator.writeNumber(BigInteger.valueOf(-1).subtract(BigInteger.valueOf(argument).add(UNSIGNED_LONG)));
+				} else {
+					generator.writeNumber(-1 - argument);
+				}
+				break;
+			case MAJOR_BYTES:
+				generator.writeBinary(readBytes(bytes, info, MAJOR_BYTES));
+				break;
+			case MAJOR_TEXT:
+				String text = new String(readBytes(bytes, info, MAJOR_TEXT), StandardCharsets.UTF_8);
+				if (fieldName) {
+					generator.writeFieldName(text);
+				} else {
+					generator.writeString(text);
+				}
+				break;
+			case MAJOR_ARRAY:
+				generator.writeStartArray();
+				readItems(bytes, generator, info, false, depth + 1);
+				generator.writeEndArray();
+				break;
+			case MAJOR_MAP:
+				generator.writeStartObject();
+				readItems(bytes, generator, info, true, depth + 1);
+				generator.writeEndObject();
+				break;
+			case MAJOR_TAG:
+				readTag(bytes, generator, readArgument(bytes, info), depth + 1);
+				break;
+			default:
+				readSimple(bytes, generator, initial);
+		}
+		return true;
+	}
+
+	/**
+	 * Read items of array, or pairs of map
+	 *
+	 * @param bytes
+	 * @param generator
+	 * @param info
+	 * @param map
+	 * @param depth : nesting of items
+	 * @throws IOException
+	 */
+	static void readItems(ByteBuffer bytes, JsonGenerator generator, int info, boolean map, int depth) throws IOException {
+		if (info == INDEFINITE) {
+			while (readItem(bytes, generator, map, depth)) {
+				if (map) {
+					readValue(bytes, generator, false, depth);
+				}
+			}
+		} else {
+			long size = readArgument(bytes, info);
+			for (long idx = 0; idx < size; idx++) {
+				if (map) {
+					readValue(bytes, generator, true, depth);
+				}
+				readValue(bytes, generator, false, depth);
+			}
+		}
+	}
+
+	static void readValue(ByteBuffer bytes, JsonGenerator generator, boolean fieldName, int depth) throws IOException {
+		if (!readItem(bytes, generator, fieldName, depth)) {
+			throw new IOException("Unexpected CBOR break");
+		}
+	}
+
+	/**
+	 * Read tagged item, bignums and decimal fractions are written as numbers, other tags are ignored
+	 *
+	 * @param bytes
+	 * @param generator
+	 * @param tag
+	 * @param depth : nesting of tagged item
+	 * @throws IOException
+	 */
+	static void readTag(ByteBuffer bytes, JsonGenerator generator, long tag, int depth) throws IOException {
+		if (tag == TAG_POSITIVE_BIGNUM || tag == TAG_NEGATIVE_BIGNUM || tag == TAG_DECIMAL_FRACTION) {
+			generator.writeNumber(readDecimal(bytes, tag, depth));
+		} else {
+			readValue(bytes, generator, false, depth);
+		}
+	}
+
+	/**
+	 * Read number of tag bignum or decimal fraction
+	 *
+	 * @param bytes
+	 * @param tag
+	 * @param depth
+	 * @return
+	 * @throws IOException
+	 */
+	static BigDecimal readDecimal(ByteBuffer bytes, long tag, int depth) throws IOException {
+		if (depth > MAX_DEPTH) {
+			throw new IOException("CBOR item nested deeper than " + MAX_DEPTH);
+		}
+		int initial = bytes.get() & 0xFF;
+		int major = initial >>> 5;
+		if (tag == TAG_DECIMAL_FRACTION) {
+			if (initial != ((MAJOR_ARRAY << 5) | 2)) {
+				throw new IOException("CBOR decimal fraction must be an array of 2 integers");
+			}
+			BigInteger exponent = readInteger(bytes, depth + 1);
+			if (exponent.bitLength() > 31) {
+				throw new IOException("Exponent of CBOR decimal fraction is too large");
+			}
+			return new BigDecimal(readInteger(bytes, depth + 1), -exponent.intValue());
+		}
+		if (major != MAJOR_BYTES) {
+			throw new IOException("CBOR bignum must be a byte string");
+		}
+		BigInteger magnitude = new BigInteger(1, readBytes(bytes, initial & 0x1F, MAJOR_BYTES));
+		if (tag == TAG_NEGATIVE_BIGNUM) {
+			magnitude = magnitude.negate().subtract(BigInteger.ONE);
+		}
+		return new BigDecimal(magnitude);
+	}
+
+	/**
+	 * Read integer or bignum
+	 *
+	 * @param bytes
+	 * @param depth
+	 * @return
+	 * @throws IOException
+	 */
+	static BigInteger readInteger(ByteBuffer bytes, int depth) throws IOException {
+		int initial = bytes.get() & 0xFF;
+		int major = initial >>> 5;
+		switch (major) {
+			case MAJOR_UNSIGNED:
+				return toUnsigned(readArgument(bytes, initial & 0x1F));
+			case MAJOR_NEGATIVE:
+				return BigInteger.valueOf(-1).subtract(toUnsigned(readArgument(bytes, initial & 0x1F)));
+			case MAJOR_TAG:
+				long tag = readArgument(bytes, initial & 0x1F);
+				if (tag == TAG_POSITIVE_BIGNUM || tag == TAG_NEGATIVE_BIGNUM) {
+					return readDecimal(bytes, tag, depth + 1).toBigInteger();
+				}
+				throw new IOException("CBOR integer expected");
+			default:
+				throw new IOException("CBOR integer expected");
+		}
+	}
+
+	static BigInteger toUnsigned(long argument) {
+		BigInteger value = BigInteger.valueOf(argument);
+		if (argument < 0) {
+			value = value.add(UNSIGNED_LONG);
+		}
+		return value;
+	}
+
+	static void readSimple(ByteBuffer bytes, JsonGenerator generator, int initial) throws IOException {
+		switch (initial) {
+			case FALSE:
+				generator.writeBoolean(false);
+				break;
+			case TRUE:
+				generator.writeBoolean(true);
+				break;
+			case NULL:
+			case UNDEFINED:
+				generator.writeNull();
+				break;
+			case FLOAT16:
+				generator.writeNumber(toFloat(bytes.getShort() & 0xFFFF));
+				break;
+			case FLOAT32:
+				generator.writeNumber(bytes.getFloat());
+				break;
+			case FLOAT64:
+				generator.writeNumber(bytes.getDouble());
+				break;
+			default:
+				throw new IOException("Unsupported CBOR simple value " + initial);
+		}
+	}
+
+	static void writeUnsigned(long argument, JsonGenerator generator) throws IOException {
+		if (argument < 0) {
+			generator.writeNumber(BigInteger.valueOf(argument).add(UNSIGNED_LONG));
+		} else {
+			generator.writeNumber(argument);
+		}
+	}
+
+	/**
+	 * Read argument of head, as unsigned long
+	 *
+	 * @param bytes
+	 * @param info
+	 * @return
+	 * @throws IOException
+	 */
+	static long readArgument(ByteBuffer bytes, int info) throws IOException {
+		if (info < 24) {
+			return info;
+		}
+		switch (info) {
+			case 24:
+				return bytes.get() & 0xFFL;
+			case 25:
+				return bytes.getShort() & 0xFFFFL;
+			case 26:
+				return bytes.getInt() & 0xFFFFFFFFL;
+			case 27:
+				return bytes.getLong();
+			default:
+				throw new IOException("Unsupported CBOR argument " + info);
+		}
+	}
+
+	/**
+	 * Read byte or text string, indefinite string is the concatenation of its chunks
+	 *
+	 * @param bytes
+	 * @param info
+	 * @param major
+	 * @return
+	 * @throws IOException
+	 */
+	static byte[] readBytes(ByteBuffer bytes, int info, int major) throws IOException {
+		if (info == INDEFINITE) {
+			ByteArrayOutputStream out = new ByteArrayOutputStream();
+			int initial;
+			while ((initial = bytes.get() & 0xFF) != BREAK) {
+				if ((initial >>> 5) != major) {
+					throw new IOException("Invalid chunk of CBOR string");
+				}
+				if ((initial & 0x1F) == INDEFINITE) {
+					throw new IOException("Invalid chunk of CBOR string");
+				}
+				byte[] chunk = readBytes(bytes, initial & 0x1F, major);
+				out.write(chunk, 0, chunk.length);
+			}
+			return out.toByteArray();
+		}
+		long length = readArgument(bytes, info);
+		if (length < 0 || length > bytes.remaining()) {
+			throw new IOException("Truncated CBOR string");
+		}
+		byte[] result = new byte[(int) length];
+		bytes.get(result);
+		return result;
+	}
+
+	/**
+	 * Convert half precision float
+	 *
+	 * @param half
+	 * @return
+	 */
+	static float toFloat(int half) {
+		int exponent = (half >>> 10) & 0x1F;
+		int mantissa = half & 0x3FF;
+		float value;
+		if (exponent == 0) {
+			value = (float) (mantissa * Math.pow(2, -24));
+		} else if (exponent == 31) {
+			value = mantissa == 0 ? Float.POSITIVE_INFINITY : Float.NaN;
+		} else {
+			value = (float) ((mantissa + 1024) * Math.pow(2, exponent - 25));
+		}
+		return (half & 0x8000) != 0 ? -value : value;
+	}
+}
@@ -0,0 +1,256 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.encoders;
+
+import com.fasterxml.jackson.core.Base64Variant;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.core.base.GeneratorBase;
+import com.fasterxml.jackson.core.json.JsonWriteContext;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import org.ocelotds.marshalling.SharedObjectMapper;
+
+/**
+ * Generator writing CBOR, objects are serialized directly in the binary protocol, without json text.<br>
+ * Values are written like CborCodec transcodes their json form, so both protocols give the same message to the client.<br>
+ * Raw json values, like responses already marshalled, are transcoded
+ *
+ * @author hhfrancois
+ */
+public class CborGenerator extends GeneratorBase {
+
+	private final ByteArrayOutputStream out;
+
+	public CborGenerator(ByteArrayOutputStream out) {
+		super(JsonGenerator.Feature.collectDefaults(), SharedObjectMapper.getObjectMapper());
+		this.out = out;
+	}
+
+	@Override
+	public void writeStartArray() throws IOException {
+		_verifyValueWrite("start an array");
+		_writeContext = _writeContext.createChildArrayContext();
+		out.write((CborCodec.MAJOR_ARRAY << 5) | CborCodec.INDEFINITE);
+	}
+
+	@Override
+	public void writeEndArray() throws IOException {
+		if (!_writeContext.inArray()) {
+			_reportError("Current context not an array but " + _writeContext.getTypeDesc());
+		}
+		_writeContext = _writeContext.getParent();
+		out.write(CborCodec.BREAK);
+	}
+
+	@Override
+	public void writeStartObject() throws IOException {
+		_verifyValueWrite("start an object");
+		_writeContext = _writeContext.createChildObjectContext();
+		out.write((CborCodec.MAJOR_MAP << 5) | CborCodec.INDEFINITE);
+	}
+
+	@Override
+	public void writeEndObject() throws IOException {
+		if (!_writeContext.inObject()) {
+			_reportError("Current context not an object but " + _writeContext.getTypeDesc());
+		}
+		_writeContext = _writeContext.getParent();
+		out.write(CborCodec.BREAK);
+	}
+
+	@Override
+	public void writeFieldName(String name) throws IOException {
+		if (!_writeContext.inObject() || _writeContext.writeFieldName(name) == JsonWriteContext.STATUS_EXPECT_VALUE) {
+			_reportError("Can not write a field name, expecting a value");
+		}
+		CborCodec.writeText(name, out);
+	}
+
+	@Override
+	public void writeString(String text) throws IOException {
+		if (text == null) {
+			writeNull();
+			return;
+		}
+		_verifyValueWrite(WRITE_STRING);
+		CborCodec.writeText(text, out);
+	}
+
+	@Override
+	public void writeString(char[] text, int offset, int len) throws IOException {
+		writeString(new String(text, offset, len));
+	}
+
+	@Override
+	public void writeRawUTF8String(byte[] text, int offset, int length) throws IOException {
+		writeUTF8String(text, offset, length);
+	}
+
+	@Override
+	public void writeUTF8String(byte[] text, int offset, int length) throws IOException {
+		_verifyValueWrite(WRITE_STRING);
+		CborCodec.writeHead(CborCodec.MAJOR_TEXT, length, out);
+		out.write(text, offset, length);
+	}
+
+	/**
+	 * There is no raw text in CBOR, only raw values are supported
+	 *
+	 * @param text
+	 */
+	@Override
+	public void writeRaw(String text) {
+		throw new UnsupportedOperationException("Raw text is not supported in CBOR");
+	}
+
+	@Override
+	public void writeRaw(String text, int offset, int len) {
+		throw new UnsupportedOperationException("Raw text is not supported in CBOR");
+	}
+
+	@Override
+	public void writeRaw(char[] text, int offset, int len) {
+		throw new UnsupportedOperationException("Raw text is not supported in CBOR");
+	}
+
+	@Override
+	public void writeRaw(char c) {
+		throw new UnsupportedOperationException("Raw text is not supported in CBOR");
+	}
+
+	/**
+	 * Write json value in CBOR
+	 *
+	 * @param json
+	 * @throws IOException
+	 */
+	@Override
+	public void writeRawValue(String json) throws IOException {
+		_verifyValueWrite("write raw value");
+		try (JsonParser parser = CborCodec.getJsonFactory().createParser(json)) {
+			JsonToken token;
+			while ((token = parser.nextToken()) != null) {
+				CborCodec.writeToken(parser, token, out);
+			}
+		}
+	}
+
+	@Override
+	public void writeRawValue(String text, int offset, int len) throws IOException {
+		writeRawValue(text.substring(offset, offset + len));
+	}
+
+	@Override
+	public void writeRawValue(char[] text, int offset, int len) throws IOException {
+		writeRawValue(new String(text, offset, len));
+	}
+
+	/**
+	 * Binary is written in base64 text, like in json
+	 *
+	 * @param variant
+	 * @param data
+	 * @param offset
+	 * @param len
+	 * @throws IOException
+	 */
+	@Override
+	public void writeBinary(Base64Variant variant, byte[] data, int offset, int len) throws IOException {
+		byte[] bytes = data;
+		if (offset != 0 || len != data.length) {
+			bytes = new byte[len];
+			System.arraycopy(data, offset, bytes, 0, len);
+		}
+		writeString(variant.encode(bytes));
+	}
+
+	@Override
+	public void writeNumber(int value) throws IOException {
+		writeNumber((long) value);
+	}
+
+	@Override
+	public void writeNumber(long value) throws IOException {
+		_verifyValueWrite(WRITE_NUMBER);
+		CborCodec.writeLong(value, out);
+	}
+
+	@Override
+	public void writeNumber(BigInteger value) throws IOException {
+		if (value == null) {
+			writeNull();
+			return;
+		}
+		_verifyValueWrite(WRITE_NUMBER);
+		CborCodec.writeInteger(value, out);
+	}
+
+	@Override
+	public void writeNumber(double value) throws IOException {
+		if (Double.isNaN(value) || Double.isInfinite(value)) {
+			writeString(String.valueOf(value)); // quoted in json
+			return;
+		}
+		writeNumber(new BigDecimal(Double.toString(value)));
+	}
+
+	@Override
+	public void writeNumber(float value) throws IOException {
+		if (Float.isNaN(value) || Float.isInfinite(value)) {
+			writeString(String.valueOf(value));
+			return;
+		}
+		writeNumber(new BigDecimal(Float.toString(value)));
+	}
+
+	@Override
+	public void writeNumber(BigDecimal value) throws IOException {
+		if (value == null) {
+			writeNull();
+			return;
+		}
+		_verifyValueWrite(WRITE_NUMBER);
+		CborCodec.writeDecimal(value, out);
+	}
+
+	@Override
+	public void writeNumber(String encodedValue) throws IOException {
+		if (encodedValue == null) {
+			writeNull();
+			return;
+		}
+		writeRawValue(encodedValue);
+	}
+
+	@Override
+	public void writeBoolean(boolean state) throws IOException {
+		_verifyValueWrite(WRITE_BOOLEAN);
+		out.write(state ? CborCodec.TRUE : CborCodec.FALSE);
+	}
+
+	@Override
+	public void writeNull() throws IOException {
+		_verifyValueWrite(WRITE_NULL);
+		out.write(CborCodec.NULL);
+	}
+
+	@Override
+	public void flush() {
+	}
+
+	@Override
+	protected void _releaseBuffers() {
+	}
+
+	@Override
+	protected void _verifyValueWrite(String typeMsg) throws IOException {
+		if (_writeContext.writeValue() == JsonWriteContext.STATUS_EXPECT_NAME) {
+			_reportError("Can not " + typeMsg + ", expecting field name");
+		}
+	}
+}
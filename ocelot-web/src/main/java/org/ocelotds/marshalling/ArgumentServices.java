@@ -90,7 +90,19 @@ public class ArgumentServices {
 	 * @throws org.ocelotds.marshalling.exceptions.JsonMarshallerException
 	 */
 	public String getJsonResultFromSpecificMarshaller(JsonMarshaller jm, Object result) throws JsonMarshallingException, JsonMarshallerException {
-		IJsonMarshaller marshaller = getIJsonMarshallerInstance(jm.value());
+		return getJsonResultFromSpecificMarshaller(jm, getIJsonMarshallerInstance(jm.value()), result);
+	}
+
+	/**
+	 * Marshall result with marshaller already resolved
+	 *
+	 * @param jm
+	 * @param marshaller
+	 * @param result
+	 * @return
+	 * @throws JsonMarshallingException
+	 */
+	public String getJsonResultFromSpecificMarshaller(JsonMarshaller jm, IJsonMarshaller marshaller, Object result) throws JsonMarshallingException {
 		String res;
 		switch (jm.type()) {
 			case LIST:
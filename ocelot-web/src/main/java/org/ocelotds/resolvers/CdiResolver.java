@@ -10,14 +10,19 @@ import org.ocelotds.spi.IDataServiceResolver;
 import org.ocelotds.Constants;
 import org.ocelotds.spi.Scope;
 import java.lang.annotation.Annotation;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
 import java.util.Set;
+import javax.enterprise.context.Dependent;
 import javax.enterprise.context.spi.CreationalContext;
 import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
 import javax.inject.Inject;
 
 /**
- * Resolver of CDI
+ * Resolver of CDI<br>
+ * Dependent instances are kept with their creational context, so they are destroyed when they are released
  *
  * @author hhfrancois
  */
@@ -27,17 +32,36 @@ public class CdiResolver implements IDataServiceResolver {
 	@Inject
 	BeanManager beanManager;
 
+	final Map<Object, DependentInstance> dependents = Collections.synchronizedMap(new IdentityHashMap<Object, DependentInstance>());
+
 	@Override
 	public <T> T resolveDataService(Class<T> clazz) throws DataServiceException {
 //		return CDI.current().select(clazz, new DataserviceLiteral()).get(); // equivalent, but no testable
 		Set<Bean<?>> beans = beanManager.getBeans(clazz, new DataserviceLiteral());
 		for (Bean<?> b : beans) {
 			final CreationalContext context = beanManager.createCreationalContext(b);
-			return clazz.cast(beanManager.getReference(b, b.getBeanClass(), context));
+			T instance = clazz.cast(beanManager.getReference(b, b.getBeanClass(), context));
+			if (Dependent.class.equals(b.getScope())) {
+				dependents.put(instance, new DependentInstance(b, context));
+			}
+			return instance;
 		}
 		throw new DataServiceException(clazz.getName());
 	}
 
+	/**
+	 * Destroy dependent instance, @PreDestroy is called and its dependents are released
+	 *
+	 * @param dataService
+	 */
+	@Override
+	public void releaseDataService(Object dataService) {
+		DependentInstance dependent = dependents.remove(dataService);
+		if (dependent != null) {
+			dependent.bean.destroy(dataService, dependent.context);
+		}
+	}
+
 	@Override
 	public Scope getScope(Class clazz) {
 		for (Annotation anno : clazz.getAnnotations()) {
@@ -52,4 +76,18 @@ public class CdiResolver implements IDataServiceResolver {
 		}
 		return Scope.MANAGED;
 	}
+
+	/**
+	 * Bean and creational context of a dependent instance
+	 */
+	static class DependentInstance {
+
+		final Bean bean;
+		final CreationalContext context;
+
+		DependentInstance(Bean bean, CreationalContext context) {
+			this.bean = bean;
+			this.context = context;
+		}
+	}
 }
@@ -0,0 +1,309 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.topic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import javax.annotation.PreDestroy;
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Inject;
+import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.configuration.OutboundConfigurationManager;
+import org.slf4j.Logger;
+
+/**
+ * Fan-out of topic messages.<br>
+ * Subscribers of a small topic are served by the publisher thread.<br>
+ * Subscribers of a large topic are split in shards, sent in parallel by a dedicated pool, so the publisher doesn't wait the fan-out.<br>
+ * Each session belongs to a fixed lane of the pool, a lane is served by one thread in order, so messages reach a session in the order they are published.<br>
+ * A lane holds at most LANE_CAPACITY shards, then the publisher waits a place at most LANE_WAIT ms, else the shard is dropped.<br>
+ * Shards only offer frames to outbound queues, which drop or conflate messages of slow sessions, so a full lane means the publisher is too fast for the pool
+ *
+ * @author hhfrancois
+ */
+@ApplicationScoped
+public class FanoutExecutor {
+
+	static final int LANE_CAPACITY = 1024;
+
+	static final long LANE_WAIT = 1000;
+
+	@Inject
+	@OcelotLogger
+	private Logger logger;
+
+	@Inject
+	private OutboundConfigurationManager configuration;
+
+	private final AtomicLong inlineCount = new AtomicLong();
+
+	private final AtomicLong parallelCount = new AtomicLong();
+
+	private final AtomicLong shardCount = new AtomicLong();
+
+	private volatile Lane[] lanes;
+
+	/**
+	 * Send items by sender, inline or by shards in parallel.<br>
+	 * Items are sent inline only if no shard is waiting in their lanes, else they would overtake previous messages
+	 *
+	 * @param <T>
+	 * @param items : items with a stable hashCode, like sessions
+	 * @param sender : send a shard, return number of items delivered
+	 * @return future of number of items delivered, already completed if items are sent inline
+	 */
+	public <T> CompletableFuture<Integer> execute(Collection<T> items, final Function<Collection<T>, Integer> sender) {
+		if (getShardCount(items.size()) <= 1 && isIdle(lanes, items)) {
+			inlineCount.incrementAndGet();
+			return CompletableFuture.completedFuture(sender.apply(items));
+		}
+		parallelCount.incrementAndGet();
+		Lane[] current = getLanes();
+		List<List<T>> shards = split(items, current.length);
+		CompletableFuture<Integer> result = CompletableFuture.completedFuture(0);
+		for (int idx = 0; idx < current.length; idx++) {
+			List<T> shard = shards.get(idx);
+			if (shard.isEmpty()) {
+				continue;
+			}
+			shardCount.incrementAndGet();
+			result = result.thenCombine(submit(current[idx], shard, sender), new BiFunction<Integer, Integer, Integer>() {
+				@Override
+				public Integer apply(Integer total, Integer delivered) {
+					return total + delivered;
+				}
+			});
+		}
+		return result;
+	}
+
+	/**
+	 * Send a shard in its lane
+	 *
+	 * @param <T>
+	 * @param lane
+	 * @param shard
+	 * @param sender
+	 * @return future of number of items delivered
+	 */
+	<T> CompletableFuture<Integer> submit(final Lane lane, final Collection<T> shard, final Function<Collection<T>, Integer> sender) {
+		lane.pending.incrementAndGet();
+		try {
+			return CompletableFuture.supplyAsync(new Supplier<Integer>() {
+				@Override
+				public Integer get() {
+					try {
+						return sender.apply(shard);
+					} catch (RuntimeException ex) {
+						logger.error("Shard of " + shard.size() + " sessions failed", ex);
+						return 0;
+					} finally {
+						lane.pending.decrementAndGet();
+					}
+				}
+			}, lane.executor);
+		} catch (RejectedExecutionException ex) {
+			lane.pending.decrementAndGet();
+			logger.error("Shard of " + shard.size() + " sessions rejected", ex);
+			return CompletableFuture.completedFuture(0);
+		}
+	}
+
+	/**
+	 * No shard is waiting or being sent in the lanes of items
+	 *
+	 * @param <T>
+	 * @param current
+	 * @param items
+	 * @return
+	 */
+	<T> boolean isIdle(Lane[] current, Collection<T> items) {
+		if (current == null) {
+			return true;
+		}
+		for (T item : items) {
+			if (current[getLane(item, current.length)].pending.get() > 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Lane of item, always the same for an item
+	 *
+	 * @param item
+	 * @param count
+	 * @return
+	 */
+	int getLane(Object item, int count) {
+		return Math.floorMod(item.hashCode(), count);
+	}
+
+	/**
+	 * Number of shards for items, each shard has at least threshold items, and there is no more shards than threads
+	 *
+	 * @param size
+	 * @return 1 if items are sent inline
+	 */
+	int getShardCount(int size) {
+		int threshold = configuration.getFanoutThreshold();
+		if (threshold <= 0) {
+			return 1;
+		}
+		return Math.max(1, Math.min(getPoolSize(), size / threshold));
+	}
+
+	/**
+	 * Split items in one shard by lane
+	 *
+	 * @param <T>
+	 * @param items
+	 * @param shards : number of lanes
+	 * @return
+	 */
+	<T> List<List<T>> split(Collection<T> items, int shards) {
+		int size = items.size() / shards + 1;
+		List<List<T>> result = new ArrayList<>(shards);
+		for (int idx = 0; idx < shards; idx++) {
+			result.add(new ArrayList<T>(size));
+		}
+		for (T item : items) {
+			result.get(getLane(item, shards)).add(item);
+		}
+		return result;
+	}
+
+	/**
+	 * Number of threads, if not configured, the number of processors
+	 *
+	 * @return
+	 */
+	int getPoolSize() {
+		if (configuration.getFanoutPool() > 0) {
+			return configuration.getFanoutPool();
+		}
+		return Runtime.getRuntime().availableProcessors();
+	}
+
+	/**
+	 * Get the lanes of fan-out pool, create them on first call from configuration
+	 *
+	 * @return
+	 */
+	synchronized Lane[] getLanes() {
+		if (lanes == null) {
+			int size = getPoolSize();
+			logger.info("Create fan-out pool of {} lanes.", size);
+			ThreadFactory factory = new FanoutThreadFactory();
+			Lane[] created = new Lane[size];
+			for (int idx = 0; idx < size; idx++) {
+				created[idx] = new Lane(factory);
+			}
+			lanes = created;
+		}
+		return lanes;
+	}
+
+	@PreDestroy
+	public synchronized void shutdown() {
+		if (lanes != null) {
+			for (Lane lane : lanes) {
+				lane.executor.shutdown();
+			}
+			lanes = null;
+		}
+	}
+
+	/**
+	 * Number of fan-outs done by publisher thread
+	 *
+	 * @return
+	 */
+	public long getInlineCount() {
+		return inlineCount.get();
+	}
+
+	/**
+	 * Number of fan-outs done by the pool
+	 *
+	 * @return
+	 */
+	public long getParallelCount() {
+		return parallelCount.get();
+	}
+
+	/**
+	 * Number of shards sent by the pool
+	 *
+	 * @return
+	 */
+	public long getShardCount() {
+		return shardCount.get();
+	}
+
+	/**
+	 * One thread sending shards in order, at most LANE_CAPACITY shards are waiting
+	 */
+	static class Lane {
+
+		final ThreadPoolExecutor executor;
+
+		final AtomicInteger pending = new AtomicInteger();
+
+		Lane(ThreadFactory factory) {
+			executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new LinkedBlockingQueue<Runnable>(LANE_CAPACITY), factory, new WaitPolicy());
+		}
+	}
+
+	/**
+	 * The lane is full, the publisher waits a place, so the order is kept.<br>
+	 * The wait is bounded, the publisher is never blocked by the fan-out
+	 */
+	static class WaitPolicy implements RejectedExecutionHandler {
+
+		@Override
+		public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+			if (executor.isShutdown()) {
+				throw new RejectedExecutionException("Fan-out pool is shut down");
+			}
+			try {
+				if (!executor.getQueue().offer(r, LANE_WAIT, TimeUnit.MILLISECONDS)) {
+					throw new RejectedExecutionException("Fan-out lane is full after " + LANE_WAIT + "ms");
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				throw new RejectedExecutionException(ex);
+			}
+		}
+	}
+
+	/**
+	 * Create daemon threads named ocelot-fanout-n
+	 */
+	static class FanoutThreadFactory implements ThreadFactory {
+
+		private final AtomicInteger count = new AtomicInteger();
+
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread thread = new Thread(r, "ocelot-fanout-" + count.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		}
+	}
+}
@@ -57,7 +57,7 @@ public interface TopicManager {
 
 
 	/**
-	 * Get Sessions for topics
+	 * Get Sessions for topics, sessions subscribed to a pattern matching topic are included
 	 *
 	 * @param topic
 	 * @return
@@ -4,24 +4,36 @@
  */
 package org.ocelotds.topic;
 
-import java.util.ArrayList;
 import java.util.Arrays;
 import org.ocelotds.topic.topicAccess.TopicAccessManager;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.BiFunction;
+import java.util.function.Function;
 import javax.enterprise.context.ApplicationScoped;
 import javax.inject.Inject;
 import javax.websocket.Session;
 import org.ocelotds.Constants;
 import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.core.ws.EncodedMessage;
+import org.ocelotds.core.ws.MessageSender;
 import org.ocelotds.messaging.MessageToClient;
 import org.ocelotds.messaging.MessageType;
 import org.slf4j.Logger;
 
 /**
- * Singleton sessions manager
+ * Singleton sessions manager<br>
+ * Sessions subscribed to a topic are a concurrent set, the entry of a topic is created and removed atomically with its first and last subscriber.<br>
+ * A reverse index keeps the topics of each session, so a closed session is removed from its topics only.<br>
+ * A session can subscribe to a pattern like orders:* or market:eu:>, patterns matching a topic are found by a trie at publish time.<br>
+ * Access is checked on the pattern at subscription, then on each concrete topic at publish time, so a pattern doesn't bypass the controller of a topic
  *
  * @author hhfrancois
  */
@@ -32,13 +44,38 @@ public class TopicManagerImpl implements TopicManager {
 	@OcelotLogger
 	private Logger logger;
 
-	final Map<String, Collection<Session>> map = new ConcurrentHashMap<>();
+	/**
+	 * Sessions by topic
+	 */
+	final ConcurrentMap<String, Collection<Session>> map = new ConcurrentHashMap<>();
+
+	/**
+	 * Topics by session, with the number of subscriptions of the session to each topic.<br>
+	 * A client can subscribe many times to a topic, the session leaves the topic with its last subscription
+	 */
+	final ConcurrentMap<Session, Map<String, Integer>> topicsBySession = new ConcurrentHashMap<>();
+
+	/**
+	 * Patterns subscribed, a pattern is added and removed with its entry in map
+	 */
+	final TopicTrie patterns = new TopicTrie();
+
+	static final int MAX_ACCESS_BY_SESSION = 1024;
+
+	/**
+	 * Access of sessions subscribed to patterns to concrete topics, checked once by session and topic.<br>
+	 * Forgotten when the session leaves a topic, so access is checked again at next subscription
+	 */
+	final ConcurrentMap<Session, ConcurrentMap<String, Boolean>> accessBySession = new ConcurrentHashMap<>();
 
 	@Inject
 	TopicAccessManager topicAccessManager;
 
 	@Inject
 	private UserContextFactory userContextFactory;
+
+	@Inject
+	private MessageSender messageSender;
 	
 	/**
 	 * Return map topics and all sessions associate
@@ -63,21 +100,133 @@ public class TopicManagerImpl implements TopicManager {
 		if (isInconsistenceContext(topic, session)) {
 			return 0;
 		}
-		Collection<Session> sessions;
-		if (map.containsKey(topic)) {
-			sessions = map.get(topic);
-		} else {
-			sessions = Collections.synchronizedCollection(new ArrayList<Session>());
-			map.put(topic, sessions);
-		}
 		topicAccessManager.checkAccessTopic(userContextFactory.getUserContext(session.getId()), topic);
 		logger.debug("'{}' subscribe to '{}'", session.getId(), topic);
 		if (session.isOpen()) {
-			sessions.add(session);
+			addSessionToTopic(topic, session);
 		}
 		return getNumberSubscribers(topic);
 	}
 
+	/**
+	 * Add session to topic and topic to session, topic entry is created if needed
+	 *
+	 * @param topic
+	 * @param session
+	 */
+	void addSessionToTopic(final String topic, final Session session) {
+		map.compute(topic, new BiFunction<String, Collection<Session>, Collection<Session>>() {
+			@Override
+			public Collection<Session> apply(String key, Collection<Session> sessions) {
+				Collection<Session> result = sessions;
+				if (result == null) {
+					result = ConcurrentHashMap.<Session>newKeySet();
+					if (TopicTrie.isPattern(topic)) {
+						patterns.add(topic);
+					}
+				}
+				result.add(session);
+				updateSubscriptions(session, topic, 1);
+				return result;
+			}
+		});
+	}
+
+	/**
+	 * Remove a subscription of session to topic, session leaves the topic with its last subscription.<br>
+	 * Topic entry is removed without subscriber
+	 *
+	 * @param topic
+	 * @param session
+	 * @return true if session left the topic
+	 */
+	boolean removeSessionToTopic(final String topic, final Session session) {
+		final boolean[] removed = new boolean[]{false};
+		map.computeIfPresent(topic, new BiFunction<String, Collection<Session>, Collection<Session>>() {
+			@Override
+			public Collection<Session> apply(String key, Collection<Session> sessions) {
+				if (updateSubscriptions(session, topic, -1) == 0) {
+					removed[0] = removeSessionToSessions(session, sessions) == 1;
+					accessBySession.remove(session);
+				}
+				return removeTopicIfEmpty(topic, sessions);
+			}
+		});
+		return removed[0];
+	}
+
+	/**
+	 * Remove session from all its topics, found in reverse index.<br>
+	 * Topic entries are removed without subscriber
+	 *
+	 * @param session
+	 * @return topics that session left
+	 */
+	Collection<String> removeSessionToAllTopics(final Session session) {
+		Map<String, Integer> topics = topicsBySession.remove(session);
+		accessBySession.remove(session);
+		if (topics == null) {
+			return Collections.EMPTY_LIST;
+		}
+		for (String topic : topics.keySet()) {
+			map.computeIfPresent(topic, new BiFunction<String, Collection<Session>, Collection<Session>>() {
+				@Override
+				public Collection<Session> apply(String key, Collection<Session> sessions) {
+					removeSessionToSessions(session, sessions);
+					return removeTopicIfEmpty(key, sessions);
+				}
+			});
+		}
+		return topics.keySet();
+	}
+
+	/**
+	 * Topic without subscriber is removed, with its pattern. Must be called by compute on map
+	 *
+	 * @param topic
+	 * @param sessions
+	 * @return null if topic entry must be removed
+	 */
+	Collection<Session> removeTopicIfEmpty(String topic, Collection<Session> sessions) {
+		if (!sessions.isEmpty()) {
+			return sessions;
+		}
+		if (TopicTrie.isPattern(topic)) {
+			patterns.remove(topic);
+		}
+		return null;
+	}
+
+	/**
+	 * Update number of subscriptions of session to topic in reverse index, entries without subscription are removed
+	 *
+	 * @param session
+	 * @param topic
+	 * @param delta
+	 * @return number of subscriptions remaining
+	 */
+	int updateSubscriptions(Session session, final String topic, final int delta) {
+		final int[] count = new int[]{0};
+		topicsBySession.compute(session, new BiFunction<Session, Map<String, Integer>, Map<String, Integer>>() {
+			@Override
+			public Map<String, Integer> apply(Session key, Map<String, Integer> topics) {
+				Map<String, Integer> result = topics;
+				if (result == null) {
+					result = new HashMap<>();
+				}
+				Integer current = result.get(topic);
+				count[0] = Math.max(0, (current != null ? current : 0) + delta);
+				if (count[0] > 0) {
+					result.put(topic, count[0]);
+				} else {
+					result.remove(topic);
+				}
+				return result.isEmpty() ? null : result;
+			}
+		});
+		return count[0];
+	}
+
 	/**
 	 * Unregister session for topic. topic 'ALL' remove session for all topics
 	 *
@@ -92,19 +241,9 @@ public class TopicManagerImpl implements TopicManager {
 		}
 		logger.debug("'{}' unsubscribe to '{}'", session.getId(), topic);
 		if (Constants.Topic.ALL.equals(topic)) {
-			for (Map.Entry<String, Collection<Session>> entry : map.entrySet()) {
-				Collection<Session> sessions = entry.getValue();
-				removeSessionToSessions(session, sessions);
-				if (sessions.isEmpty()) {
-					map.remove(entry.getKey());
-				}
-			}
+			removeSessionToAllTopics(session);
 		} else {
-			Collection<Session> sessions = map.get(topic);
-			removeSessionToSessions(session, sessions);
-			if (sessions==null || sessions.isEmpty()) {
-				map.remove(topic);
-			}
+			removeSessionToTopic(topic, session);
 		}
 		return getNumberSubscribers(topic);
 	}
@@ -137,40 +276,19 @@ public class TopicManagerImpl implements TopicManager {
 	}
 
 	/**
-	 * Unregister sessions for topic
-	 *
-	 * @param topic
-	 * @param sessions
-	 * @return
-	 */
-	boolean unregisterTopicSessions(String topic, Collection<Session> sessions) {
-		boolean unregister = false;
-		if (sessions != null && !sessions.isEmpty()) {
-			Collection<Session> all = map.get(topic);
-			if(all != null) {
-				unregister = all.removeAll(sessions);
-				if (all.isEmpty()) {
-					map.remove(topic);
-				}
-			}
-		}
-		return unregister;
-	}
-
-	/**
-	 * Remove sessions cause they are closed
+	 * Remove sessions cause they are closed, each session is removed from its topics only
 	 *
 	 * @param sessions
 	 */
 	@Override
 	public Collection<String> removeSessionsToTopic(Collection<Session> sessions) {
 		if (sessions != null && !sessions.isEmpty()) {
-			Collection<String> topicUpdated = new ArrayList<>();
-			for (String topic : map.keySet()) {
-				if(unregisterTopicSessions(topic, sessions)) {
-					topicUpdated.add(topic);
-					sendSubscriptionEvent(Constants.Topic.SUBSCRIBERS + Constants.Topic.COLON + topic, getNumberSubscribers(topic));
-				}
+			Collection<String> topicUpdated = new LinkedHashSet<>();
+			for (Session session : sessions) {
+				topicUpdated.addAll(removeSessionToAllTopics(session));
+			}
+			for (String topic : topicUpdated) {
+				sendSubscriptionEvent(Constants.Topic.SUBSCRIBERS + Constants.Topic.COLON + topic, getNumberSubscribers(topic));
 			}
 			return topicUpdated;
 		}
@@ -194,7 +312,7 @@ public class TopicManagerImpl implements TopicManager {
 	}
 
 	/**
-	 * Send subscription event to all client
+	 * Send subscription event to all client, event is encoded once
 	 *
 	 * @param topic
 	 * @param session
@@ -206,10 +324,11 @@ public class TopicManagerImpl implements TopicManager {
 			messageToClient.setId(topic);
 			messageToClient.setType(MessageType.MESSAGE);
 			messageToClient.setResponse(nb);
+			EncodedMessage message = new EncodedMessage(messageToClient, topic);
 //			Collection<Session> sessionsClosed = new ArrayList<>(); // throws java.lang.StackOverflowError
 			for (Session session : sessions) {
 				if (session.isOpen()) {
-					session.getAsyncRemote().sendObject(messageToClient);
+					messageSender.send(message, session);
 //				} else {
 //					sessionsClosed.add(session);
 				}
@@ -219,33 +338,92 @@ public class TopicManagerImpl implements TopicManager {
 	}
 
 	/**
-	 * Get Sessions for topics
+	 * Get Sessions for topics, with sessions subscribed to patterns matching topic and granted to topic.<br>
+	 * A pattern is not published, its sessions are only the ones subscribed to it
 	 *
 	 * @param topic
 	 * @return
 	 */
 	@Override
 	public Collection<Session> getSessionsForTopic(String topic) {
-		Collection<Session> result;
-		if (map.containsKey(topic)) {
-			return Collections.unmodifiableCollection(map.get(topic));
-		} else {
-			result = Collections.EMPTY_LIST;
+		Collection<Session> sessions = map.get(topic);
+		Collection<String> matching = Collections.EMPTY_LIST;
+		if (patterns.size() > 0 && !TopicTrie.isPattern(topic)) {
+			matching = patterns.match(topic);
 		}
-		return result;
+		if (matching.isEmpty()) {
+			if (sessions != null) {
+				return Collections.unmodifiableCollection(sessions);
+			}
+			return Collections.EMPTY_LIST;
+		}
+		Set<Session> result = new HashSet<>();
+		if (sessions != null) {
+			result.addAll(sessions);
+		}
+		for (String pattern : matching) {
+			Collection<Session> patternSessions = map.get(pattern);
+			if (patternSessions != null) {
+				for (Session session : patternSessions) {
+					if (!result.contains(session) && isGranted(session, topic)) {
+						result.add(session);
+					}
+				}
+			}
+		}
+		return Collections.unmodifiableSet(result);
 	}
 
 	/**
-	 * Get Number Sessions for topics
+	 * Session subscribed to a pattern is granted to topic, access is checked once by session and topic
+	 *
+	 * @param session
+	 * @param topic
+	 * @return
+	 */
+	boolean isGranted(Session session, String topic) {
+		ConcurrentMap<String, Boolean> access = accessBySession.computeIfAbsent(session, new Function<Session, ConcurrentMap<String, Boolean>>() {
+			@Override
+			public ConcurrentMap<String, Boolean> apply(Session key) {
+				return new ConcurrentHashMap<>();
+			}
+		});
+		Boolean granted = access.get(topic);
+		if (granted == null) {
+			granted = checkAccessTopic(session, topic);
+			if (access.size() >= MAX_ACCESS_BY_SESSION) {
+				access.clear();
+			}
+			access.put(topic, granted);
+		}
+		return granted;
+	}
+
+	/**
+	 * Check access of session to topic
+	 *
+	 * @param session
+	 * @param topic
+	 * @return false if access is denied
+	 */
+	boolean checkAccessTopic(Session session, String topic) {
+		try {
+			topicAccessManager.checkAccessTopic(userContextFactory.getUserContext(session.getId()), topic);
+			return true;
+		} catch (IllegalAccessException ex) {
+			logger.debug("'{}' subscribed to a pattern is not granted to '{}'", session.getId(), topic);
+			return false;
+		}
+	}
+
+	/**
+	 * Get Number Sessions for topics, sessions subscribed to patterns matching topic are counted
 	 *
 	 * @param topic
 	 * @return
 	 */
 	@Override
 	public int getNumberSubscribers(String topic) {
-		if (map.containsKey(topic)) {
-			return map.get(topic).size();
-		}
-		return 0;
+		return getSessionsForTopic(topic).size();
 	}
 }
@@ -0,0 +1,175 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.topic;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.ocelotds.Constants;
+
+/**
+ * Trie of topic patterns, levels of topic are separated by colon like topics built with JsTopicName prefix and postfix.<br>
+ * '*' matches one level, '>' matches one or more levels at the end of topic.<br>
+ * Publishing walks levels of topic only, whatever the number of patterns.<br>
+ * Patterns are added and removed under lock, matching is lock free
+ *
+ * @author hhfrancois
+ */
+public class TopicTrie {
+
+	private final Node root = new Node();
+
+	private volatile int size = 0;
+
+	/**
+	 * Is topic a pattern
+	 *
+	 * @param topic
+	 * @return true if a level of topic is a wildcard
+	 */
+	public static boolean isPattern(String topic) {
+		if (topic == null) {
+			return false;
+		}
+		for (String level : split(topic)) {
+			if (Constants.Topic.WILDCARD.equals(level) || Constants.Topic.WILDCARD_TAIL.equals(level)) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	/**
+	 * Split topic in levels
+	 *
+	 * @param topic
+	 * @return
+	 */
+	static String[] split(String topic) {
+		return topic.split(Constants.Topic.COLON, -1);
+	}
+
+	/**
+	 * Add pattern
+	 *
+	 * @param pattern
+	 * @return false if pattern was already present
+	 */
+	public synchronized boolean add(String pattern) {
+		Node node = root;
+		for (String level : split(pattern)) {
+			Node child = node.children.get(level);
+			if (child == null) {
+				child = new Node();
+				node.children.put(level, child);
+			}
+			node = child;
+		}
+		if (node.pattern != null) {
+			return false;
+		}
+		node.pattern = pattern;
+		size++;
+		return true;
+	}
+
+	/**
+	 * Remove pattern, branches without pattern are pruned
+	 *
+	 * @param pattern
+	 * @return false if pattern was absent
+	 */
+	public synchronized boolean remove(String pattern) {
+		String[] levels = split(pattern);
+		List<Node> path = new ArrayList<>(levels.length + 1);
+		Node node = root;
+		path.add(node);
+		for (String level : levels) {
+			node = node.children.get(level);
+			if (node == null) {
+				return false;
+			}
+			path.add(node);
+		}
+		if (node.pattern == null) {
+			return false;
+		}
+		node.pattern = null;
+		size--;
+		for (int idx = levels.length; idx > 0; idx--) {
+			Node current = path.get(idx);
+			if (current.pattern != null || !current.children.isEmpty()) {
+				break;
+			}
+			path.get(idx - 1).children.remove(levels[idx - 1]);
+		}
+		return true;
+	}
+
+	/**
+	 * Patterns matching topic
+	 *
+	 * @param topic
+	 * @return
+	 */
+	public Collection<String> match(String topic) {
+		if (size == 0 || topic == null) {
+			return Collections.EMPTY_LIST;
+		}
+		Collection<String> result = new ArrayList<>();
+		match(root, split(topic), 0, result);
+		return result;
+	}
+
+	/**
+	 * Collect patterns under node matching levels from idx
+	 *
+	 * @param node
+	 * @param levels
+	 * @param idx
+	 * @param result
+	 */
+	void match(Node node, String[] levels, int idx, Collection<String> result) {
+		if (idx == levels.length) {
+			if (node.pattern != null) {
+				result.add(node.pattern);
+			}
+			return;
+		}
+		Node child = node.children.get(levels[idx]);
+		if (child != null) {
+			match(child, levels, idx + 1, result);
+		}
+		child = node.children.get(Constants.Topic.WILDCARD);
+		if (child != null) {
+			match(child, levels, idx + 1, result);
+		}
+		child = node.children.get(Constants.Topic.WILDCARD_TAIL);
+		if (child != null && child.pattern != null) {
+			result.add(child.pattern);
+		}
+	}
+
+	/**
+	 * Number of patterns
+	 *
+	 * @return
+	 */
+	public int size() {
+		return size;
+	}
+
+	/**
+	 * Level of trie, pattern is set if a pattern ends at this level
+	 */
+	static class Node {
+
+		final ConcurrentMap<String, Node> children = new ConcurrentHashMap<>();
+
+		volatile String pattern = null;
+	}
+}
@@ -10,11 +10,17 @@ import org.ocelotds.messaging.MessageType;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.Function;
 import javax.inject.Inject;
 import javax.websocket.Session;
 import javax.websocket.SessionException;
 import org.ocelotds.annotations.OcelotLogger;
+import org.ocelotds.core.ws.EncodedMessage;
+import org.ocelotds.core.ws.MessageSender;
 import org.ocelotds.security.UserContext;
 import org.ocelotds.security.JsTopicMessageController;
 import org.ocelotds.security.NotRecipientException;
@@ -40,90 +46,156 @@ public class TopicsMessagesBroadcaster {
 	@Inject
 	private MessageControllerManager messageControllerManager;
 
+	@Inject
+	private MessageSender messageSender;
+
+	@Inject
+	private FanoutExecutor fanoutExecutor;
+
 	/**
 	 * Send message to all sessions for topic mtc.getId()
-	 * return number sended
+	 * return future of number sended
 	 * @param mtc
 	 * @param payload
 	 * @return
 	 */
-	public int sendMessageToTopic(MessageToClient mtc, Object payload) {
+	public CompletableFuture<Integer> sendMessageToTopic(MessageToClient mtc, Object payload) {
 		return sendMessageToTopic(null, mtc, payload);
 	}
 
 	/**
 	 * Send message to all sessions for topic mtc.getId() and intersection of sessionTargets
-	 * return number sended
+	 * return future of number sended
 	 * @param sessionTargets
 	 * @param mtc
 	 * @param payload
 	 * @return 
 	 */
-	public int sendMessageToTopic(Collection<Session> sessionTargets, MessageToClient mtc, Object payload) {
-		int sended = 0;
+	public CompletableFuture<Integer> sendMessageToTopic(Collection<Session> sessionTargets, MessageToClient mtc, Object payload) {
 		logger.debug("Sending message to topic {}...", mtc);
-		Collection<Session> doublons = topicManager.getSessionsForTopic(mtc.getId());
-		if (doublons != null && !doublons.isEmpty()) {
-			Set<Session> sessions = new HashSet<>(doublons);
+		Collection<Session> sessions = topicManager.getSessionsForTopic(mtc.getId());
+		if (sessions != null && !sessions.isEmpty()) {
 			if (sessionTargets != null) {
-				sessions.retainAll(sessionTargets);
+				Set<Session> targets = new HashSet<>(sessionTargets);
+				targets.retainAll(sessions);
+				sessions = targets;
 			}
-			sended = sendMessageToTopicForSessions(sessions, mtc, payload);
-		} else {
-			logger.debug("No client for topic '{}'", mtc.getId());
+			return sendMessageToTopicForSessions(sessions, mtc, payload);
 		}
-		return sended;
+		logger.debug("No client for topic '{}'", mtc.getId());
+		return CompletableFuture.completedFuture(0);
 	}
 
 	/**
-	 * send message to sessions
-	 * apply msgControl to topic
+	 * send message to sessions, inline or by shards in parallel
+	 * apply msgControl to topic, on the publisher thread, before the fan-out
+	 * message is encoded once, the same json is sent to all sessions
+	 * closed sessions are removed when all shards are sent
 	 * @param sessions
 	 * @param mtc
 	 * @param payload
 	 * @return 
 	 */
-	int sendMessageToTopicForSessions(Collection<Session> sessions, MessageToClient mtc, Object payload) {
-		int sended = 0;
+	CompletableFuture<Integer> sendMessageToTopicForSessions(Collection<Session> sessions, final MessageToClient mtc, final Object payload) {
 		JsTopicMessageController msgControl = messageControllerManager.getJsTopicMessageController(mtc.getId());
-		Collection<Session> sessionsClosed = new ArrayList<>();
+		final Collection<Session> sessionsClosed = new ConcurrentLinkedQueue<>();
+		mtc.setType(MessageType.MESSAGE);
+		final EncodedMessage message = createEncodedMessage(mtc);
+		Collection<Session> recipients = getRecipients(sessions, msgControl, mtc.getId(), payload);
+		return fanoutExecutor.execute(recipients, new Function<Collection<Session>, Integer>() {
+			@Override
+			public Integer apply(Collection<Session> shard) {
+				return sendMessageToShard(shard, mtc, message, sessionsClosed);
+			}
+		}).thenApply(new Function<Integer, Integer>() {
+			@Override
+			public Integer apply(Integer sended) {
+				if (logger.isDebugEnabled()) {
+					logger.debug("Send message to '{}' topic {} client(s) : {}", new Object[]{mtc.getId(), sended, mtc});
+				}
+				topicManager.removeSessionsToTopic(sessionsClosed);
+				return sended;
+			}
+		});
+	}
+
+	/**
+	 * Encode message once, message of a conflated topic replaces the waiting one with the same key, others can be replaced if a queue is full
+	 * @param mtc
+	 * @return 
+	 */
+	EncodedMessage createEncodedMessage(MessageToClient mtc) {
+		if (mtc.getConflationKey() != null) {
+			return new EncodedMessage(mtc, mtc.getConflationKey(), true);
+		}
+		return new EncodedMessage(mtc, mtc.getId());
+	}
+
+	/**
+	 * Get sessions granted by msgControl.<br>
+	 * msgControl is called by the publisher thread, with its request and security contexts, fan-out threads have none and only send
+	 * @param sessions
+	 * @param msgControl
+	 * @param topic
+	 * @param payload
+	 * @return sessions granted, closed sessions are kept to be removed after send
+	 */
+	Collection<Session> getRecipients(Collection<Session> sessions, JsTopicMessageController msgControl, String topic, Object payload) {
+		if (null == msgControl) {
+			return sessions;
+		}
+		List<Session> recipients = new ArrayList<>(sessions.size());
 		for (Session session : sessions) {
+			if (session == null) {
+				continue;
+			}
+			if (session.isOpen()) {
+				try {
+					checkMessageTopic(userContextFactory.getUserContext(session.getId()), topic, payload, msgControl);
+				} catch (NotRecipientException ex) {
+					logger.debug("{} is exclude to receive a message in {}", ex.getMessage(), topic);
+					continue;
+				}
+			}
+			recipients.add(session);
+		}
+		return recipients;
+	}
+
+	/**
+	 * send message to a shard of sessions
+	 * @param shard
+	 * @param mtc
+	 * @param message : mtc already encoded
+	 * @param sessionsClosed : closed sessions found
+	 * @return number sended
+	 */
+	int sendMessageToShard(Collection<Session> shard, MessageToClient mtc, EncodedMessage message, Collection<Session> sessionsClosed) {
+		int sended = 0;
+		for (Session session : shard) {
 			try {
-				sended += checkAndSendMtcToSession(session, msgControl, mtc, payload);
+				sended += sendMtcToSession(session, mtc, message);
 			} catch (SessionException se) {
-				sessionsClosed.add(se.getSession());
+				sessionsClosed.add(session);
 			}
 		}
-		if (logger.isDebugEnabled()) {
-			logger.debug("Send message to '{}' topic {} client(s) : {}", new Object[]{mtc.getId(), sessions.size() - sessionsClosed.size(), mtc});
-		}
-		topicManager.removeSessionsToTopic(sessionsClosed);
 		return sended;
 	}
 
 	/**
-	 * Send Message to session, check right before
+	 * Send Message to session, right is already checked
 	 *
 	 * @param session
-	 * @param msgControl
 	 * @param mtc
-	 * @param payload
+	 * @param message : mtc already encoded
 	 * @return
 	 * @throws SessionException
 	 */
-	int checkAndSendMtcToSession(Session session, JsTopicMessageController msgControl, MessageToClient mtc, Object payload) throws SessionException {
+	int sendMtcToSession(Session session, MessageToClient mtc, EncodedMessage message) throws SessionException {
 		if (session != null) {
 			if (session.isOpen()) {
-				try {
-					if (null != msgControl) {
-						checkMessageTopic(userContextFactory.getUserContext(session.getId()), mtc.getId(), payload, msgControl);
-					}
-					mtc.setType(MessageType.MESSAGE);
-					session.getAsyncRemote().sendObject(mtc);
-					return 1;
-				} catch (NotRecipientException ex) {
-					logger.debug("{} is exclude to receive a message in {}", ex.getMessage(), mtc.getId());
-				}
+				messageSender.send(message, session);
+				return 1;
 			} else {
 				throw new SessionException("CLOSED", null, session);
 			}
@@ -5,6 +5,7 @@
 package org.ocelotds.topic;
 
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import org.ocelotds.messaging.MessageEvent;
 import org.ocelotds.messaging.MessageToClient;
 import javax.enterprise.event.Observes;
@@ -14,10 +15,12 @@ import javax.enterprise.inject.spi.InjectionPoint;
 import javax.inject.Inject;
 import javax.servlet.http.HttpSession;
 import javax.websocket.Session;
+import org.ocelotds.annotations.JsTopicConflate;
 import org.ocelotds.annotations.JsTopicEvent;
 import org.ocelotds.annotations.OcelotLogger;
 import org.ocelotds.context.OcelotContext;
 import org.ocelotds.marshalling.ArgumentServices;
+import org.ocelotds.messaging.ConflationKeyMaker;
 import org.ocelotds.marshalling.annotations.JsonMarshaller;
 import org.ocelotds.marshalling.exceptions.JsonMarshallingException;
 import org.ocelotds.web.SessionManager;
@@ -72,6 +75,10 @@ public class TopicsMessagesObservers {
 				} else {
 					msg.setResponse(payload);
 				}
+				JsTopicConflate jtc = annotated.getAnnotation(JsTopicConflate.class);
+				if (jtc != null) {
+					msg.setConflationKey(new ConflationKeyMaker().getConflationKey(jtc, topic, payload));
+				}
 				topicsMessagesBroadcaster.sendMessageToTopic(msg, payload);
 			} catch (JsonMarshallingException ex) {
 				logger.error("'"+payload+"' cannot be send to : '"+topic+"'. It cannot be serialized with marshaller "+jm, ex);
@@ -82,22 +89,22 @@ public class TopicsMessagesObservers {
 	}
 	
 	/**
-	 * Send message to topic, return number sended
+	 * Send message to topic, return future of number sended
 	 * @param msg
 	 * @return 
 	 */
-	public int sendMessageToTopic(@Observes @MessageEvent MessageToClient msg) {
+	public CompletableFuture<Integer> sendMessageToTopic(@Observes @MessageEvent MessageToClient msg) {
 		return topicsMessagesBroadcaster.sendMessageToTopic(msg, getPayload(msg));
 	}
 	
-	public int sendMessageToUserTopic(@Observes @MessageEvent(userScope = true) MessageToClient msg) {
+	public CompletableFuture<Integer> sendMessageToUserTopic(@Observes @MessageEvent(userScope = true) MessageToClient msg) {
 		HttpSession httpSession = ocelotContext.getHttpSession();
 		if(httpSession!=null) {
 			String httpid = httpSession.getId();
 			Collection<Session> userSessions = sessionManager.getUserSessions(httpid);
 			return topicsMessagesBroadcaster.sendMessageToTopic(userSessions, msg, getPayload(msg));
 		}
-		return 0;
+		return CompletableFuture.completedFuture(0);
 	}
 
 	Object getPayload(MessageToClient msg) {
@@ -4,13 +4,14 @@
 package org.ocelotds.web.rest;
 
 import javax.servlet.http.HttpSession;
+import javax.ws.rs.container.AsyncResponse;
 
 /**
  *
  * @author hhfrancois
  */
 public interface IRSEndpoint {
-	public String getMessageToClient(String json);
+	public void getMessageToClient(String json, AsyncResponse asyncResponse);
 	
 	public HttpSession getHttpSession();
 	
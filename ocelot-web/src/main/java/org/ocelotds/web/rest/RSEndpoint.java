@@ -13,13 +13,26 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
 import javax.ws.rs.Consumes;
 import javax.ws.rs.FormParam;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Supplier;
 import javax.ws.rs.POST;
+import javax.ws.rs.container.AsyncResponse;
+import javax.ws.rs.container.Suspended;
 import javax.ws.rs.core.MediaType;
 import org.ocelotds.Constants;
 import org.ocelotds.annotations.OcelotLogger;
 import org.ocelotds.annotations.OcelotResource;
 import org.ocelotds.context.ThreadLocalContextHolder;
 import org.ocelotds.core.mtc.RSMessageToClientService;
+import org.ocelotds.core.services.FaultServices;
+import org.ocelotds.core.ws.CommandExecutor;
 import org.ocelotds.messaging.MessageFromClient;
 import org.ocelotds.messaging.MessageToClient;
 import org.slf4j.Logger;
@@ -45,20 +58,176 @@ public class RSEndpoint implements IRSEndpoint {
 	@Inject
 	private RSMessageToClientService messageToClientService;
 
+	@Inject
+	private CommandExecutor commandExecutor;
+
+	@Inject
+	private FaultServices faultServices;
+
 	/**
-	 * Retrieves representation of an instance of org.ocelotds.GenericResource
+	 * Retrieves representation of an instance of org.ocelotds.GenericResource.<br>
+	 * mfc can be a batch of messages, the response is then an array of messages.<br>
+	 * In virtual mode, the call is executed by a virtual thread and the request thread is released
 	 *
 	 * @param json
-	 * @return an instance of java.lang.String
+	 * @param asyncResponse resumed with json of messageToClient
 	 */
 	@POST
 	@Produces(MediaType.APPLICATION_JSON)
 	@Consumes(MediaType.APPLICATION_FORM_URLENCODED)
 	@Override
-	public String getMessageToClient(@FormParam(Constants.Message.MFC) String json) {
-		HttpSession httpSession = getHttpSession();
+	public void getMessageToClient(@FormParam(Constants.Message.MFC) String json, @Suspended final AsyncResponse asyncResponse) {
+		final HttpSession httpSession = getHttpSession();
 		setContext(httpSession);
-		MessageFromClient message = MessageFromClient.createFromJson(json);
+		final boolean batch = MessageFromClient.isBatch(json);
+		final List<MessageFromClient> messages;
+		if (batch) {
+			messages = MessageFromClient.createListFromJson(json);
+		} else {
+			messages = Collections.singletonList(MessageFromClient.createFromJson(json));
+		}
+		if (getCommandExecutor().isVirtual()) {
+			try {
+				getCommandExecutor().execute(new Runnable() {
+					@Override
+					public void run() {
+						resume(asyncResponse, messages, batch, httpSession);
+					}
+				});
+			} catch (RejectedExecutionException ex) {
+				resumeWithFaults(asyncResponse, messages, batch, ex);
+			}
+		} else {
+			resume(asyncResponse, messages, batch, httpSession);
+		}
+	}
+
+	/**
+	 * Execute calls and resume asyncResponse with json of result, or json array of results for batch
+	 *
+	 * @param asyncResponse
+	 * @param messages
+	 * @param batch
+	 * @param httpSession
+	 */
+	void resume(final AsyncResponse asyncResponse, final List<MessageFromClient> messages, boolean batch, HttpSession httpSession) {
+		if (!batch) {
+			String json;
+			try {
+				json = createMessageToClient(messages.get(0), httpSession);
+			} catch (RuntimeException ex) {
+				resumeWithFaults(asyncResponse, messages, false, ex);
+				return;
+			}
+			asyncResponse.resume(json);
+			return;
+		}
+		createMessagesToClient(messages, httpSession).whenComplete(new BiConsumer<List<MessageToClient>, Throwable>() {
+			@Override
+			public void accept(List<MessageToClient> mtcs, Throwable error) {
+				if (error != null) {
+					resumeWithFaults(asyncResponse, messages, true, error);
+				} else {
+					asyncResponse.resume(MessageToClient.toJson(mtcs));
+				}
+			}
+		});
+	}
+
+	/**
+	 * Resume asyncResponse with a fault for each message, when calls cannot be processed
+	 *
+	 * @param asyncResponse
+	 * @param messages
+	 * @param batch
+	 * @param cause
+	 */
+	void resumeWithFaults(AsyncResponse asyncResponse, List<MessageFromClient> messages, boolean batch, Throwable cause) {
+		getLogger().error("Calls cannot be processed", cause);
+		List<MessageToClient> mtcs = new ArrayList<>();
+		for (MessageFromClient message : messages) {
+			mtcs.add(createFault(message, cause));
+		}
+		asyncResponse.resume(batch ? MessageToClient.toJson(mtcs) : mtcs.get(0).toJson());
+	}
+
+	/**
+	 * Create fault response of call
+	 *
+	 * @param message
+	 * @param cause
+	 * @return
+	 */
+	MessageToClient createFault(MessageFromClient message, Throwable cause) {
+		Throwable error = cause;
+		if (CompletionException.class.isInstance(error) && error.getCause() != null) {
+			error = error.getCause();
+		}
+		MessageToClient mtc = new MessageToClient();
+		mtc.setId(message.getId());
+		mtc.setFault(faultServices.buildFault(error));
+		return mtc;
+	}
+
+	/**
+	 * Execute calls of batch, one after the other or in parallel if configured
+	 *
+	 * @param messages
+	 * @param httpSession
+	 * @return
+	 */
+	CompletableFuture<List<MessageToClient>> createMessagesToClient(List<MessageFromClient> messages, final HttpSession httpSession) {
+		List<CompletableFuture<MessageToClient>> futures = new ArrayList<>();
+		for (final MessageFromClient message : messages) {
+			CompletableFuture<MessageToClient> future;
+			try {
+				if (getCommandExecutor().isBatchParallel()) {
+					future = getCommandExecutor().supplyAsync(new Supplier<MessageToClient>() {
+						@Override
+						public MessageToClient get() {
+							return getMessageToClientService().createMessageToClient(message, httpSession);
+						}
+					});
+				} else {
+					future = CompletableFuture.completedFuture(getMessageToClientService().createMessageToClient(message, httpSession));
+				}
+			} catch (RuntimeException ex) {
+				future = new CompletableFuture<>();
+				future.completeExceptionally(ex);
+			}
+			futures.add(recover(message, future));
+		}
+		return getCommandExecutor().allOf(futures);
+	}
+
+	/**
+	 * Replace failure of call by its fault response
+	 *
+	 * @param message
+	 * @param future
+	 * @return
+	 */
+	CompletableFuture<MessageToClient> recover(final MessageFromClient message, CompletableFuture<MessageToClient> future) {
+		return future.handle(new BiFunction<MessageToClient, Throwable, MessageToClient>() {
+			@Override
+			public MessageToClient apply(MessageToClient mtc, Throwable error) {
+				if (error != null) {
+					getLogger().error("Call " + message.getId() + " failed", error);
+					return createFault(message, error);
+				}
+				return mtc;
+			}
+		});
+	}
+
+	/**
+	 * Execute call and get json of result
+	 *
+	 * @param message
+	 * @param httpSession
+	 * @return
+	 */
+	String createMessageToClient(MessageFromClient message, HttpSession httpSession) {
 		MessageToClient mtc = getMessageToClientService().createMessageToClient(message, httpSession);
 		return mtc.toJson();
 	}
@@ -68,9 +237,15 @@ public class RSEndpoint implements IRSEndpoint {
 		return request.getSession();
 	}
 
+	/**
+	 * Request, session and principal of caller are set in thread context, workers receive them with the context
+	 *
+	 * @param httpSession
+	 */
 	void setContext(HttpSession httpSession) {
 		ThreadLocalContextHolder.put(Constants.HTTPREQUEST, request);
 		ThreadLocalContextHolder.put(Constants.HTTPSESSION, httpSession);
+		ThreadLocalContextHolder.put(Constants.PRINCIPAL, request.getUserPrincipal());
 	}
 
 	Logger getLogger() {
@@ -80,6 +255,13 @@ public class RSEndpoint implements IRSEndpoint {
 		return logger;
 	}
 
+	CommandExecutor getCommandExecutor() {
+		if(null == commandExecutor) {
+			commandExecutor = CDI.current().select(CommandExecutor.class).get();
+		}
+		return commandExecutor;
+	}
+
 	RSMessageToClientService getMessageToClientService() {
 		if(null == messageToClientService) {
 			messageToClientService = CDI.current().select(RSMessageToClientService.class).get();
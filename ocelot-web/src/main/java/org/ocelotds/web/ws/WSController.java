@@ -4,9 +4,12 @@
 package org.ocelotds.web.ws;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
 import javax.inject.Inject;
 import javax.servlet.http.HttpSession;
 import javax.websocket.CloseReason;
@@ -17,8 +20,13 @@ import javax.ws.rs.core.HttpHeaders;
 import org.ocelotds.Constants;
 import org.ocelotds.annotations.OcelotLogger;
 import org.ocelotds.configuration.LocaleExtractor;
+import org.ocelotds.context.CancellationToken;
 import org.ocelotds.context.ThreadLocalContextHolder;
+import org.ocelotds.core.mtc.SessionBeansStore;
 import org.ocelotds.core.ws.CallServiceManager;
+import org.ocelotds.core.ws.CancellationManager;
+import org.ocelotds.core.ws.CommandExecutor;
+import org.ocelotds.core.ws.MessageSender;
 import org.ocelotds.exceptions.LocaleNotFoundException;
 import org.ocelotds.messaging.MessageFromClient;
 import org.ocelotds.topic.TopicManager;
@@ -46,6 +54,18 @@ public class WSController implements IWSController {
 	
 	@Inject
 	private LocaleExtractor localeExtractor;
+
+	@Inject
+	private SessionBeansStore sessionBeansStore;
+
+	@Inject
+	private CommandExecutor commandExecutor;
+
+	@Inject
+	private CancellationManager cancellationManager;
+
+	@Inject
+	private MessageSender messageSender;
 	
 	
 	@Override
@@ -63,6 +83,10 @@ public class WSController implements IWSController {
 		logger.error("Unknow error for session " + session.getId()+" : "+t.getMessage());
 		if (!session.isOpen()) {
 			userContextFactory.destroyUserContext(session.getId());
+			sessionBeansStore.removeSessionBeans(session.getId());
+			commandExecutor.removeSession(session.getId());
+			cancellationManager.removeSession(session.getId());
+			messageSender.removeSession(session.getId());
 			topicManager.removeSessionToTopics(session);
 		}
 	}
@@ -77,20 +101,67 @@ public class WSController implements IWSController {
 			}
 		}
 		userContextFactory.destroyUserContext(session.getId());
+		sessionBeansStore.removeSessionBeans(session.getId());
+		commandExecutor.removeSession(session.getId());
+		cancellationManager.removeSession(session.getId());
+		messageSender.removeSession(session.getId());
 		topicManager.removeSessionToTopics(session);
 	}
 
 	/**
-	 * A message is a call service request or subscribe/unsubscribe topic
+	 * A message is a call service request or subscribe/unsubscribe topic, or a batch of them, or the cancel of a call.<br>
+	 * If workers are enabled, the call is executed by a worker, else by websocket thread.<br>
+ * Principal of websocket session is set in thread context, workers receive it with the context.<br>
+	 * Calls are registered before they are queued, so they can be cancelled while they wait a worker
 	 *
 	 * @param client
 	 * @param json
 	 */
 	@Override
-	public void receiveCommandMessage(Session client, String json) {
-		MessageFromClient message = MessageFromClient.createFromJson(json);
-		logger.debug("Receive call message in websocket '{}' for session '{}'", message.getId(), client.getId());
-		callServiceManager.sendMessageToClient(message, client);
+	public void receiveCommandMessage(final Session client, String json) {
+		String cancelledId = MessageFromClient.getCancelledId(json);
+		if (cancelledId != null) {
+			logger.debug("Receive cancel of call '{}' in websocket for session '{}'", cancelledId, client.getId());
+			cancellationManager.cancel(client.getId(), cancelledId);
+			return;
+		}
+		final boolean batch = MessageFromClient.isBatch(json);
+		final List<MessageFromClient> messages;
+		if (batch) {
+			messages = MessageFromClient.createListFromJson(json);
+			logger.debug("Receive batch of {} call messages in websocket for session '{}'", messages.size(), client.getId());
+		} else {
+			messages = Collections.singletonList(MessageFromClient.createFromJson(json));
+			logger.debug("Receive call message in websocket '{}' for session '{}'", messages.get(0).getId(), client.getId());
+		}
+		ThreadLocalContextHolder.put(Constants.PRINCIPAL, client.getUserPrincipal());
+		final List<CancellationToken> tokens = new ArrayList<>();
+		for (MessageFromClient message : messages) {
+			tokens.add(cancellationManager.register(client.getId(), message.getId()));
+		}
+		Runnable command = new Runnable() {
+			@Override
+			public void run() {
+				if (batch) {
+					callServiceManager.sendMessagesToClient(messages, tokens, client);
+				} else {
+					callServiceManager.sendMessageToClient(messages.get(0), tokens.get(0), client);
+				}
+			}
+		};
+		if (commandExecutor.isEnabled()) {
+			try {
+				commandExecutor.execute(client.getId(), command);
+			} catch (RejectedExecutionException ex) {
+				for (int idx = 0; idx < messages.size(); idx++) {
+					MessageFromClient message = messages.get(idx);
+					cancellationManager.unregister(client.getId(), message.getId(), tokens.get(idx));
+					callServiceManager.sendFaultToClient(message, client, ex);
+				}
+			}
+		} else {
+			command.run();
+		}
 	}
 
 	/**
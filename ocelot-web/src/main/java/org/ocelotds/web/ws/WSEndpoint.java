@@ -7,6 +7,7 @@ package org.ocelotds.web.ws;
 import org.ocelotds.configuration.OcelotRequestConfigurator;
 import org.ocelotds.encoders.MessageToClientEncoder;
 import java.io.IOException;
+import java.nio.ByteBuffer;
 import javax.enterprise.inject.spi.CDI;
 import javax.inject.Inject;
 import javax.websocket.CloseReason;
@@ -17,13 +18,15 @@ import javax.websocket.OnMessage;
 import javax.websocket.OnOpen;
 import javax.websocket.Session;
 import javax.websocket.server.ServerEndpoint;
+import org.ocelotds.Constants;
+import org.ocelotds.encoders.CborCodec;
 
 /**
  * WebSocket endpoint
  *
  * @author hhfrancois
  */
-@ServerEndpoint(value = "/ocelot-endpoint", encoders = {MessageToClientEncoder.class}, configurator = OcelotRequestConfigurator.class)
+@ServerEndpoint(value = "/ocelot-endpoint", encoders = {MessageToClientEncoder.class}, subprotocols = {Constants.SUBPROTOCOL_CBOR}, configurator = OcelotRequestConfigurator.class)
 public class WSEndpoint {
 
 	@Inject
@@ -48,6 +51,18 @@ public class WSEndpoint {
 	public void receiveCommandMessage(Session client, String json) {
 		getWSController().receiveCommandMessage(client, json);
 	}
+
+	/**
+	 * Message in CBOR, from session with subprotocol ocelot-cbor
+	 *
+	 * @param client
+	 * @param cbor
+	 * @throws IOException if message is not valid CBOR
+	 */
+	@OnMessage
+	public void receiveBinaryCommandMessage(Session client, ByteBuffer cbor) throws IOException {
+		getWSController().receiveCommandMessage(client, CborCodec.decode(cbor));
+	}
 	
 	
 	/**
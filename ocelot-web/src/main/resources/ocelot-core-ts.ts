@@ -160,6 +160,370 @@ interface String {
 	}
 	return MD5Tools.rhex(a) + MD5Tools.rhex(b) + MD5Tools.rhex(c) + MD5Tools.rhex(d);
 };
+/**
+ * TopicPattern : levels of topic are separated by colon, * matches one level, > matches one or more levels at the end
+ */
+class TopicPattern {
+	public static isPattern(topic: string): boolean {
+		return topic.split(":").some(function (level: string): boolean {
+			return level === "*" || level === ">";
+		});
+	}
+	public static matches(pattern: string, topic: string): boolean {
+		let levels: string[] = topic.split(":");
+		let patternLevels: string[] = pattern.split(":");
+		for (let i = 0; i < patternLevels.length; i++) {
+			if (patternLevels[i] === ">" && i === patternLevels.length - 1) {
+				return levels.length > i;
+			}
+			if (i >= levels.length || (patternLevels[i] !== "*" && patternLevels[i] !== levels[i])) {
+				return false;
+			}
+		}
+		return levels.length === patternLevels.length;
+	}
+	/**
+	 * Promises for topic message : subscriptions to the topic and to patterns matching it
+	 */
+	public static getPromises(promisesMap: PromisesMap, topic: string): IOcelotPromise[] {
+		let result: IOcelotPromise[] = promisesMap[topic] || [];
+		if (TopicPattern.isPattern(topic)) {
+			return result;
+		}
+		Object.keys(promisesMap).forEach(function (key: string) {
+			if (TopicPattern.isPattern(key) && TopicPattern.matches(key, topic)) {
+				result = result.concat(promisesMap[key]);
+			}
+		});
+		return result;
+	}
+}
+/**
+ * CborDecoder : decode messages received in binary frames, when websocket uses subprotocol ocelot-cbor
+ */
+class CborDecoder {
+	private view: DataView;
+	private offset: number = 0;
+	public constructor(buffer: ArrayBuffer) {
+		this.view = new DataView(buffer);
+	}
+	public static decode(buffer: ArrayBuffer): any {
+		let decoder: CborDecoder = new CborDecoder(buffer);
+		let result: any = decoder.readItem();
+		if (decoder.offset !== buffer.byteLength) {
+			throw new Error("Unexpected data after CBOR item");
+		}
+		return result;
+	}
+	private readItem(): any {
+		let initial: number = this.view.getUint8(this.offset++);
+		let info: number = initial & 0x1F;
+		switch (initial >> 5) {
+			case 0:
+				return this.readArgument(info);
+			case 1:
+				return -1 - this.readArgument(info);
+			case 2:
+				return this.readBytes(info, 2);
+			case 3:
+				return CborDecoder.utf8(this.readBytes(info, 3));
+			case 4:
+				let array: any[] = [];
+				this.readItems(info, function (decoder: CborDecoder) {
+					array.push(decoder.readItem());
+				});
+				return array;
+			case 5:
+				let map: any = {};
+				this.readItems(info, function (decoder: CborDecoder) {
+					let key: any = decoder.readItem();
+					map[key] = decoder.readItem();
+				});
+				return map;
+			case 6:
+				return this.readTag(this.readArgument(info));
+			default:
+				return this.readSimple(info);
+		}
+	}
+	/**
+	 * bignums (2, 3) and decimal fractions (4) become numbers, as JSON.parse would do, other tags are ignored
+	 */
+	private readTag(tag: number): any {
+		let value: any = this.readItem();
+		switch (tag) {
+			case 2:
+			case 3:
+				let n: number = 0;
+				for (let i = 0; i < value.length; i++) {
+					n = n * 256 + value[i];
+				}
+				return tag === 2 ? n : -1 - n;
+			case 4:
+				return parseFloat(value[1] + "e" + value[0]);
+			default:
+				return value;
+		}
+	}
+	private readItems(info: number, read: (decoder: CborDecoder) => void): void {
+		if (info === 31) {
+			while (!this.readBreak()) {
+				read(this);
+			}
+		} else {
+			let size: number = this.readArgument(info);
+			for (let i = 0; i < size; i++) {
+				read(this);
+			}
+		}
+	}
+	private readBreak(): boolean {
+		if (this.view.getUint8(this.offset) === 0xFF) {
+			this.offset++;
+			return true;
+		}
+		return false;
+	}
+	private readSimple(info: number): any {
+		let value: number;
+		switch (info) {
+			case 20:
+				return false;
+			case 21:
+				return true;
+			case 22:
+			case 23:
+				return null;
+			case 25:
+				value = CborDecoder.half(this.view.getUint16(this.offset));
+				this.offset += 2;
+				return value;
+			case 26:
+				value = this.view.getFloat32(this.offset);
+				this.offset += 4;
+				return value;
+			case 27:
+				value = this.view.getFloat64(this.offset);
+				this.offset += 8;
+				return value;
+			default:
+				throw new Error("Unsupported CBOR simple value " + info);
+		}
+	}
+	private readArgument(info: number): number {
+		let value: number;
+		if (info < 24) {
+			return info;
+		}
+		switch (info) {
+			case 24:
+				value = this.view.getUint8(this.offset);
+				this.offset += 1;
+				break;
+			case 25:
+				value = this.view.getUint16(this.offset);
+				this.offset += 2;
+				break;
+			case 26:
+				value = this.view.getUint32(this.offset);
+				this.offset += 4;
+				break;
+			case 27:
+				value = this.view.getUint32(this.offset) * 4294967296 + this.view.getUint32(this.offset + 4);
+				this.offset += 8;
+				break;
+			default:
+				throw new Error("Unsupported CBOR argument " + info);
+		}
+		return value;
+	}
+	private readBytes(info: number, major: number): Uint8Array {
+		if (info === 31) { // indefinite string is the concatenation of its chunks
+			let chunks: Uint8Array[] = [];
+			let length: number = 0;
+			while (!this.readBreak()) {
+				let initial: number = this.view.getUint8(this.offset++);
+				if ((initial >> 5) !== major) {
+					throw new Error("Invalid chunk of CBOR string");
+				}
+				let chunk: Uint8Array = this.readBytes(initial & 0x1F, major);
+				chunks.push(chunk);
+				length += chunk.length;
+			}
+			let result: Uint8Array = new Uint8Array(length);
+			let pos: number = 0;
+			chunks.forEach(function (chunk: Uint8Array) {
+				result.set(chunk, pos);
+				pos += chunk.length;
+			});
+			return result;
+		}
+		let size: number = this.readArgument(info);
+		if (this.offset + size > this.view.byteLength) {
+			throw new Error("Truncated CBOR string");
+		}
+		let bytes: Uint8Array = new Uint8Array(this.view.buffer, this.view.byteOffset + this.offset, size);
+		this.offset += size;
+		return bytes;
+	}
+	private static half(half: number): number {
+		let exponent: number = (half >> 10) & 0x1F;
+		let mantissa: number = half & 0x3FF;
+		let value: number;
+		if (exponent === 0) {
+			value = mantissa * Math.pow(2, -24);
+		} else if (exponent === 31) {
+			value = mantissa === 0 ? Infinity : NaN;
+		} else {
+			value = (mantissa + 1024) * Math.pow(2, exponent - 25);
+		}
+		return (half & 0x8000) ? -value : value;
+	}
+	private static utf8(bytes: Uint8Array): string {
+		let result: string = "";
+		let i: number = 0;
+		while (i < bytes.length) {
+			let c: number = bytes[i++];
+			if (c > 0x7F) {
+				if (c > 0xEF) {
+					c = ((c & 0x07) << 18) | ((bytes[i++] & 0x3F) << 12) | ((bytes[i++] & 0x3F) << 6) | (bytes[i++] & 0x3F);
+				} else if (c > 0xDF) {
+					c = ((c & 0x0F) << 12) | ((bytes[i++] & 0x3F) << 6) | (bytes[i++] & 0x3F);
+				} else {
+					c = ((c & 0x1F) << 6) | (bytes[i++] & 0x3F);
+				}
+			}
+			if (c > 0xFFFF) {
+				c -= 0x10000;
+				result += String.fromCharCode(0xD800 + (c >> 10), 0xDC00 + (c & 0x3FF));
+			} else {
+				result += String.fromCharCode(c);
+			}
+		}
+		return result;
+	}
+}
+/**
+ * CborEncoder : encode messages sent in binary frames, when websocket uses subprotocol ocelot-cbor
+ */
+class CborEncoder {
+	private bytes: number[] = [];
+	public static encode(value: any): ArrayBuffer {
+		let encoder: CborEncoder = new CborEncoder();
+		encoder.writeItem(value);
+		return new Uint8Array(encoder.bytes).buffer;
+	}
+	/**
+	 * values are written as JSON.stringify would do : toJSON is used if defined, undefined is null in arrays and skipped in objects
+	 */
+	private writeItem(value: any): void {
+		if (value && typeof value.toJSON === "function") {
+			value = value.toJSON();
+		}
+		switch (typeof value) {
+			case "number":
+				this.writeNumber(<number>value);
+				break;
+			case "string":
+				this.writeText(<string>value);
+				break;
+			case "boolean":
+				this.bytes.push(value ? 0xF5 : 0xF4);
+				break;
+			case "object":
+				if (value === null) {
+					this.bytes.push(0xF6);
+				} else if (Array.isArray(value)) {
+					this.writeHead(4, value.length);
+					for (let i = 0; i < value.length; i++) {
+						this.writeItem(value[i]);
+					}
+				} else {
+					let keys: string[] = Object.keys(value).filter(function (key: string) {
+						return value[key] !== undefined && typeof value[key] !== "function";
+					});
+					this.writeHead(5, keys.length);
+					for (let i = 0; i < keys.length; i++) {
+						this.writeText(keys[i]);
+						this.writeItem(value[keys[i]]);
+					}
+				}
+				break;
+			default: // undefined or function
+				this.bytes.push(0xF6);
+		}
+	}
+	/**
+	 * safe integers are written in the shortest form, other numbers in double precision
+	 */
+	private writeNumber(value: number): void {
+		if (!isFinite(value)) { // null, as JSON.stringify
+			this.bytes.push(0xF6);
+		} else if (Math.floor(value) === value && Math.abs(value) <= 9007199254740991) {
+			if (value < 0) {
+				this.writeHead(1, -1 - value);
+			} else {
+				this.writeHead(0, value);
+			}
+		} else {
+			let view: DataView = new DataView(new ArrayBuffer(8));
+			view.setFloat64(0, value);
+			this.bytes.push(0xFB);
+			for (let i = 0; i < 8; i++) {
+				this.bytes.push(view.getUint8(i));
+			}
+		}
+	}
+	private writeText(text: string): void {
+		let utf8: number[] = [];
+		for (let i = 0; i < text.length; i++) {
+			let c: number = text.charCodeAt(i);
+			if (c >= 0xD800 && c < 0xDC00 && i + 1 < text.length) { // surrogate pair
+				let low: number = text.charCodeAt(i + 1);
+				if (low >= 0xDC00 && low < 0xE000) {
+					c = 0x10000 + ((c - 0xD800) << 10) + (low - 0xDC00);
+					i++;
+				}
+			}
+			if (c < 0x80) {
+				utf8.push(c);
+			} else if (c < 0x800) {
+				utf8.push(0xC0 | (c >> 6), 0x80 | (c & 0x3F));
+			} else if (c < 0x10000) {
+				utf8.push(0xE0 | (c >> 12), 0x80 | ((c >> 6) & 0x3F), 0x80 | (c & 0x3F));
+			} else {
+				utf8.push(0xF0 | (c >> 18), 0x80 | ((c >> 12) & 0x3F), 0x80 | ((c >> 6) & 0x3F), 0x80 | (c & 0x3F));
+			}
+		}
+		this.writeHead(3, utf8.length);
+		for (let i = 0; i < utf8.length; i++) {
+			this.bytes.push(utf8[i]);
+		}
+	}
+	/**
+	 * major type and argument in the shortest form
+	 */
+	private writeHead(major: number, argument: number): void {
+		let type: number = major << 5;
+		if (argument < 24) {
+			this.bytes.push(type | argument);
+		} else if (argument < 0x100) {
+			this.bytes.push(type | 24, argument);
+		} else if (argument < 0x10000) {
+			this.bytes.push(type | 25, argument >> 8, argument & 0xFF);
+		} else if (argument < 0x100000000) {
+			this.bytes.push(type | 26);
+			this.writeUint32(argument);
+		} else {
+			this.bytes.push(type | 27);
+			this.writeUint32(Math.floor(argument / 0x100000000));
+			this.writeUint32(argument % 0x100000000);
+		}
+	}
+	private writeUint32(value: number): void {
+		this.bytes.push((value >>> 24) & 0xFF, (value >>> 16) & 0xFF, (value >>> 8) & 0xFF, value & 0xFF);
+	}
+}
 class LastUpdateManager {
 	public addEntry(id: string): void {
 		let lastUpdates: LastUpdatedMap = this.getLastUpdateCache();
@@ -290,9 +654,13 @@ class OcelotCacheManager implements IOcelotCacheManager {
 class OcelotController {
 	private opts: IOcelotOptions = { "monitor": false, "debug": false, "reconnect": true };
 	private ws: WebSocket;
+	private cbor: boolean = true; // request binary protocol, until server refuses it
+	private wsOpened: boolean = false;
 	private promisesMap: PromisesMap = {}
 	private path: string;
 	private closetimer: number;
+	private pendingPromises: IOcelotPromise[] = [];
+	private timers: { [id: string]: number } = {};
 	private ocelotCacheManager: IOcelotCacheManager = new OcelotCacheManager();
 	public constructor() {
 		// init a standard httpsession and init websocket
@@ -446,25 +814,105 @@ class OcelotController {
 			}
 		});
 	}
+	public cancelPromise(promise: IOcelotPromise): void { // nobody waits the result anymore
+		let aPromises: IOcelotPromise[] = this.promisesMap[promise.id];
+		if (aPromises) {
+			let idx: number = aPromises.indexOf(promise);
+			if (idx !== -1) {
+				aPromises.splice(idx, 1);
+			}
+			if (!aPromises.length) {
+				this.clearPromisesForId(promise.id);
+				idx = this.pendingPromises.indexOf(promise);
+				if (idx !== -1) { // not sent yet
+					this.pendingPromises.splice(idx, 1);
+				} else {
+					this.sendCancel(promise.id);
+				}
+			}
+		}
+	}
+	private clearTimerForId(id: string): void {
+		if (this.timers[id]) {
+			clearTimeout(this.timers[id]);
+			delete this.timers[id];
+		}
+	}
+	private armTimer(promise: IOcelotPromise): void { // cancel the call and reject it when no response comes in time
+		let oc: OcelotController = this;
+		this.timers[promise.id] = setTimeout(function () {
+			oc.sendCancel(promise.id);
+			oc.receiveMtc(<MessageToCLient>{ "id": promise.id, "type": OcelotConstants.FAULT, "response": { "classname": "TimeoutException", "message": "No response after " + promise.maxtime + "ms, call cancelled", "stacktrace": [] }, "t": 0 });
+		}, promise.maxtime);
+	}
+	private sendCancel(id: string): void { // server skips or interrupts the call, and doesn't send its result
+		this.clearTimerForId(id);
+		if (this.ws && this.ws.readyState === WebSocket.OPEN) {
+			this.ws.send(JSON.stringify({ "cancel": id }));
+		}
+	}
 	private sendMfc(promise: IOcelotPromise): void {
 		if (!this.addPromiseToId(promise, promise.id)) {
-			// Subscription or unsubscription to topic, use websocket
-			let mfc: string = JSON.stringify(promise.json);
-			let xhttp: XMLHttpRequest = new XMLHttpRequest();
-			let oc: OcelotController = this;
-			xhttp.onreadystatechange = function () {
-				if (xhttp.readyState === 4) {
-					if (xhttp.status === 200) {
-						let msgToClient: MessageToCLient = JSON.parse(xhttp.responseText);
-						oc.receiveMtc(msgToClient);
-					} else {
+			// calls made in the same tick are sent together, in one batch
+			this.pendingPromises.push(promise);
+			if (this.pendingPromises.length === 1) {
+				let oc: OcelotController = this;
+				setTimeout(function () {
+					oc.flushMfcs();
+				}, 0);
+			}
+		}
+	}
+	private flushMfcs(): void {
+		let promises: IOcelotPromise[] = this.pendingPromises;
+		this.pendingPromises = [];
+		if (!promises.length) { // all cancelled
+			return;
+		}
+		let data: MessageFromClient | MessageFromClient[];
+		if (promises.length === 1) {
+			data = promises[0].json;
+		} else {
+			data = promises.map(function (promise: IOcelotPromise) {
+				return promise.json;
+			});
+		}
+		let oc: OcelotController = this;
+		promises.forEach(function (promise: IOcelotPromise) {
+			if (promise.timed) {
+				oc.armTimer(promise);
+			}
+		});
+		if (this.ws && this.ws.readyState === WebSocket.OPEN) { // responses come back by onwsmessage, and calls can be cancelled
+			// binary frame if subprotocol ocelot-cbor is accepted, else text frame
+			this.ws.send((this.ws.protocol === OcelotConstants.CBOR) ? CborEncoder.encode(data) : JSON.stringify(data));
+			return;
+		}
+		let mfc: string = JSON.stringify(data);
+		let xhttp: XMLHttpRequest = new XMLHttpRequest();
+		xhttp.onreadystatechange = function () {
+			if (xhttp.readyState === 4) {
+				if (xhttp.status === 200) {
+					oc.receiveMtcs(JSON.parse(xhttp.responseText));
+				} else {
+					promises.forEach(function (promise: IOcelotPromise) {
 						oc.receiveMtc(<MessageToCLient>{ "id": promise.id, "type": OcelotConstants.FAULT, "response": { "classname": "XMLHttpRequest", "message": "XMLHttpRequest request failed : code = " + xhttp.status, "stacktrace": [] }, "t": 0 });
-					}
+					});
 				}
-			};
-			xhttp.open("POST", "http" + this.path + "ocelot/endpoint", true);
-			xhttp.setRequestHeader("Content-type", "application/x-www-form-urlencoded");
-			xhttp.send("mfc=" + mfc);
+			}
+		};
+		xhttp.open("POST", "http" + this.path + "ocelot/endpoint", true);
+		xhttp.setRequestHeader("Content-type", "application/x-www-form-urlencoded");
+		xhttp.send("mfc=" + mfc);
+	}
+	private receiveMtcs(data: MessageToCLient | MessageToCLient[]): void { // response of a batch is an array
+		if (Array.isArray(data)) {
+			let oc: OcelotController = this;
+			(<MessageToCLient[]>data).forEach(function (msgToClient: MessageToCLient) {
+				oc.receiveMtc(msgToClient);
+			});
+		} else {
+			this.receiveMtc(<MessageToCLient>data);
 		}
 	}
 	private receiveMtc(msgToClient: MessageToCLient): void {
@@ -472,7 +920,8 @@ class OcelotController {
 			// if msgToClient has dead line so we stock in cache
 			this.ocelotCacheManager.putResultInCache(msgToClient);
 		}
-		this.foreachPromiseInPromisesDo(msgToClient.id, function (promise: OcelotPromise) {
+		let promises: IOcelotPromise[] = (msgToClient.type === OcelotConstants.MSG) ? TopicPattern.getPromises(this.promisesMap, msgToClient.id) : this.getPromises(msgToClient.id);
+		this.foreachPromiseDo(promises, function (promise: OcelotPromise) {
 			switch (msgToClient.type) {
 				case OcelotConstants.FAULT:
 					promise.response = this.createFaultEventFromPromise(promise, msgToClient);
@@ -497,17 +946,23 @@ class OcelotController {
 		// when receive result or fault, remove handlers, except for topic
 		if (msgToClient.type !== OcelotConstants.MSG) {
 			this.clearPromisesForId(msgToClient.id);
+			this.clearTimerForId(msgToClient.id);
 		}
 	}
 	private onwsmessage(evt: MessageEvent): void {
-		if (this.options.debug) console.debug(evt.data);
-		this.receiveMtc(JSON.parse(evt.data));
+		// binary frame if subprotocol ocelot-cbor is accepted, else text frame
+		let data: MessageToCLient | MessageToCLient[] = (typeof evt.data === "string") ? JSON.parse(evt.data) : CborDecoder.decode(<ArrayBuffer>evt.data);
+		if (this.options.debug) console.debug(data);
+		this.receiveMtcs(data);
 	}
 	private onwserror(evt: ErrorEvent): void {
 		console.info("Websocket error : " + evt.error);
 		this.stateUpdated();
 	}
 	private onwsclose(evt: CloseEvent): void {
+		if (this.cbor && !this.wsOpened) { // handshake failed, server doesn't accept subprotocol, fall back to json
+			this.cbor = false;
+		}
 		this.stateUpdated();
 		if (evt.reason !== "ONUNLOAD") {
 			if (this.options.debug) console.debug("Websocket closed : " + evt.reason + " try reconnect each " + 1000 + "ms");
@@ -517,6 +972,7 @@ class OcelotController {
 		}
 	}
 	private onwsopen(evt: Event): void {
+		this.wsOpened = true;
 		clearInterval(this.closetimer);
 		if (this.options.debug) console.debug("Websocket opened");
 		let ps: PromisesMap;
@@ -542,7 +998,9 @@ class OcelotController {
 		this.extractOptions(document.location.search);
 		// init a standard httpsession and init websocket
 		return ocelotServices.initCore(this.options).then(function () {
-			this.ws = new WebSocket("ws" + this.path + "ocelot-endpoint");
+			this.wsOpened = false;
+			this.ws = this.cbor ? new WebSocket("ws" + this.path + "ocelot-endpoint", OcelotConstants.CBOR) : new WebSocket("ws" + this.path + "ocelot-endpoint");
+			this.ws.binaryType = "arraybuffer";
 			this.ws.onmessage = this.onwsmessage;
 			this.ws.onopen = this.onwsopen;
 			this.ws.onerror = this.onwserror;
@@ -553,8 +1011,8 @@ class OcelotController {
 }
 let ocelotController: OcelotController = new OcelotController();
 let OcelotPromiseFactory:any = {
-	createPromise: function(ds: string, id: string, op: string, argNames: string[], args: string[]): IOcelotPromise {
-		return new OcelotPromiseSrv(ds, id, op, argNames, args);
+	createPromise: function(ds: string, id: string, op: string, argNames: string[], args: string[], sig?: string): IOcelotPromise {
+		return new OcelotPromiseSrv(ds, id, op, argNames, args, sig);
 	}
 }
 interface IOcelotCacheManager {
@@ -617,6 +1075,7 @@ let OcelotConstants = {
 	get OSRV(): string { return "org.ocelotds.OcelotServices" },
 	get SUB(): string { return "subscribe" },
 	get UNSUB(): string { return "unsubscribe" },
+	get CBOR(): string { return "ocelot-cbor" },
 	get stateLabels(): string[] { return ['CONNECTING', 'OPEN', 'CLOSING', 'CLOSED'] }
 };
 /**
@@ -635,13 +1094,21 @@ window.addEventListener("beforeunload", function (e: Event) {
 	public constructor(public monitor: boolean = false, public debug: boolean = false) {}
 }*/
 abstract class OcelotPromise implements IOcelotPromise {
-	public constructor(public dataservice: string, public id: string, public operation: string, public argNames: string[], public args: any[]) {
+	public constructor(public dataservice: string, public id: string, public operation: string, public argNames: string[], public args: any[], public sig?: string) {
 		this.key = id;
 		this.t = new Date().getTime();
 		this.launch();
 	}
 	protected key: string;
 	public t: number;
+	private _timeout: number = 10000;
+	private _timed: boolean = false;
+	get maxtime(): number {
+		return this._timeout;
+	}
+	get timed(): boolean {
+		return this._timed;
+	}
 	get cacheIgnored(): boolean {
 		return false;
 	}
@@ -665,7 +1132,7 @@ abstract class OcelotPromise implements IOcelotPromise {
 		this.process();
 	}
 	get json(): MessageFromClient {
-		return { "id": this.id, "ds": this.dataservice, "op": this.operation, "argNames": this.argNames, "args": this.args };
+		return { "id": this.id, "ds": this.dataservice, "op": this.operation, "argNames": this.argNames, "args": this.args, "sig": this.sig };
 	}
 	public then(onFulfilled: Function, onRejected?: Function): OcelotPromise {
 		this.thenHandlers.push(onFulfilled);
@@ -689,6 +1156,15 @@ abstract class OcelotPromise implements IOcelotPromise {
 		this.process();// event already receive ?
 		return this;
 	}
+	public cancel(): OcelotPromise {
+		ocelotController.cancelPromise(this);
+		return this;
+	}
+	public timeout(ms: number): OcelotPromise { // without response after ms, the call is cancelled and rejected with TimeoutException
+		this._timeout = ms;
+		this._timed = true;
+		return this;
+	}
 	protected process(): void {
 		let handler: Function;
 		if (!this.evt) {
@@ -737,7 +1213,7 @@ class OcelotPromiseSrv extends OcelotPromise {
 }
 class OcelotPromiseTopic extends OcelotPromise {
 	public constructor(p: IOcelotPromise) {
-		super(p.dataservice, p.id, p.operation, p.argNames, p.args);
+		super(p.dataservice, p.id, p.operation, p.argNames, p.args, p.sig);
 	}
 	get topic(): string {
 		return this.args[0];
@@ -1046,7 +1522,8 @@ if ("WebSocket" in window) {
 					// if msgToClient has dead line so we stock in cache
 					ocelotCacheManager.putResultInCache(msgToClient);
 				}
-				foreachPromiseInPromisesDo(msgToClient.id, function (promise: OcelotPromise) {
+				let promises: IOcelotPromise[] = (msgToClient.type === OcelotConstants.MSG) ? TopicPattern.getPromises(promisesMap, msgToClient.id) : getPromises(msgToClient.id);
+				foreachPromiseDo(promises, function (promise: OcelotPromise) {
 					switch (msgToClient.type) {
 						case OcelotConstants.FAULT:
 							promise.response = createFaultEventFromPromise(promise, msgToClient);
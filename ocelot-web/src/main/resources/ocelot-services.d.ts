@@ -44,6 +44,7 @@ declare interface MessageFromClient {
     op: string; 
     argNames: string[];
     args: any[];
+    sig?: string;
 }
 declare interface MessageToCLient {
     t: number;
@@ -58,13 +59,18 @@ declare interface IOcelotPromise {
     operation:string;
     argNames:string[];
     args:any[];
+    sig?:string;
     response: OcelotResultEvent;
     json: MessageFromClient;
     cacheIgnored:boolean;
     t:number;
+    timed:boolean;
+    maxtime:number;
     then(onFulfilled: Function, onRejected?: Function): IOcelotPromise;
     catch(onRejected: Function): IOcelotPromise;
     event(onEvented: Function): IOcelotPromise;
+    cancel(): IOcelotPromise;
+    timeout(ms: number): IOcelotPromise;
 }
 declare module ocelotServices {
     export function initCore(option: IOcelotOptions): IOcelotPromise;
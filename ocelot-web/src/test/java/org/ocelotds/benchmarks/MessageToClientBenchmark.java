@@ -0,0 +1,95 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.ocelotds.Constants;
+import org.ocelotds.messaging.MessageToClient;
+
+/**
+ * Compare serialization of MessageToClient with a new ObjectMapper and String.format, as it was, with the shared writer and generator.<br>
+ * GC profiler reports allocation per message (gc.alloc.rate.norm).<br>
+ * Run main from test classpath : java -cp ... org.ocelotds.benchmarks.MessageToClientBenchmark
+ *
+ * @author hhfrancois
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MessageToClientBenchmark {
+
+	private MessageToClient mtc;
+
+	@Setup
+	public void setup() {
+		mtc = new MessageToClient();
+		mtc.setId("3c1f8b8a0e4d2c6f9b7a5d3e1f0c2b4a_8d777f385d3dfec8815d20f7496026dc");
+		mtc.setResult(new BenchResult("foo", 5, Arrays.asList("a", "b", "c")));
+		mtc.setTime(12);
+	}
+
+	@Benchmark
+	public String formatWithNewMapper() throws Exception {
+		String jsonResponse = new ObjectMapper().writeValueAsString(mtc.getResponse());
+		return String.format("{\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":%s,\"%s\":%s,\"%s\":%s}",
+				  Constants.Message.TYPE, mtc.getType(), Constants.Message.ID, mtc.getId(), Constants.Message.TIME, mtc.getTime(),
+				  Constants.Message.DEADLINE, mtc.getDeadline(), Constants.Message.RESPONSE, jsonResponse);
+	}
+
+	@Benchmark
+	public String sharedWriter() {
+		return mtc.toJson();
+	}
+
+	public static void main(String[] args) throws RunnerException {
+		Options opt = new OptionsBuilder().include(MessageToClientBenchmark.class.getSimpleName()).addProfiler(GCProfiler.class).build();
+		new Runner(opt).run();
+	}
+
+	public static class BenchResult {
+
+		private final String name;
+		private final int count;
+		private final List<String> items;
+
+		public BenchResult(String name, int count, List<String> items) {
+			this.name = name;
+			this.count = count;
+			this.items = items;
+		}
+
+		public String getName() {
+			return name;
+		}
+
+		public int getCount() {
+			return count;
+		}
+
+		public List<String> getItems() {
+			return items;
+		}
+	}
+}
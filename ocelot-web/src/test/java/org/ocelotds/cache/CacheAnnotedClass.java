@@ -27,6 +27,11 @@ public class CacheAnnotedClass {
 		
 	}
 
+	@JsCacheResult(keys = {"s"})
+	public void jsCacheResultAnnotatedMethodWithArgs(int i, String s) {
+		
+	}
+
 	@JsCacheRemove(cls=CacheManagerTest.class, methodName = "methodName")
 	public void jsCacheRemoveAnnotatedMethodWithAllArgs(int a, String b) {
 		
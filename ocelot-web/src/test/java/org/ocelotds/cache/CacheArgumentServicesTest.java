@@ -8,6 +8,7 @@ package org.ocelotds.cache;
 import java.util.Arrays;
 import java.util.List;
 import org.junit.Test;
+import org.ocelotds.annotations.JsCacheRemove;
 import static org.assertj.core.api.Assertions.*;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -68,6 +69,29 @@ public class CacheArgumentServicesTest {
 		assertThat(result).isEqualTo("computed");
 	}
 
+	/**
+	 * Test of computeArgPart method, of class CacheArgumentServices.
+	 *
+	 * @throws java.lang.NoSuchMethodException
+	 */
+	@Test
+	public void testComputeArgPartFromDescriptor() throws NoSuchMethodException {
+		System.out.println("computeArgPartFromDescriptor");
+		List<String> jsonArgs = Arrays.asList("5", "{\"i\":5, \"j\":6}");
+		List<String> paramNames = Arrays.asList("a", "b");
+		JsCacheRemove jcr = CacheAnnotedClass.class.getMethod("jsCacheRemoveAnnotatedMethodWith0Arg", Integer.TYPE, String.class).getAnnotation(JsCacheRemove.class);
+		String result = instance.computeArgPart(new JsCacheRemoveDescriptor(jcr), jsonArgs, paramNames);
+		assertThat(result).isEqualTo("");
+		jcr = CacheAnnotedClass.class.getMethod("jsCacheRemoveAnnotatedMethodWithAllArgs", Integer.TYPE, String.class).getAnnotation(JsCacheRemove.class);
+		result = instance.computeArgPart(new JsCacheRemoveDescriptor(jcr), jsonArgs, paramNames);
+		assertThat(result).isEqualTo("[5, {\"i\":5, \"j\":6}]");
+		jcr = CacheAnnotedClass.class.getMethod("jsCacheRemoveAnnotatedMethodWithSomeArgs", Integer.TYPE, CacheManagerTest.Result.class).getAnnotation(JsCacheRemove.class);
+		doReturn("5").when(instance).processArg(eq(new String[]{"i"}), eq("{\"i\":5, \"j\":6}"));
+		result = instance.computeArgPart(new JsCacheRemoveDescriptor(jcr), jsonArgs, paramNames);
+		assertThat(result).isEqualTo("[5]");
+		verify(instance, never()).computeSpecifiedArgPart(any(String[].class), anyListOf(String.class), anyListOf(String.class));
+	}
+
 	/**
 	 * Test of computeSpecifiedArgPart method, of class CacheArgumentServices.
 	 */
@@ -3,9 +3,14 @@
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
 package org.ocelotds.cache;
 
+import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.List;
 import org.junit.Test;
 import org.ocelotds.annotations.JsCacheResult;
+import org.ocelotds.core.services.MethodDescriptor;
+import org.ocelotds.marshalling.ArgumentServices;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
@@ -27,6 +32,15 @@ public class CacheManagerTest {
 	
 	@Mock
 	private JsCacheAnnotationServices jsCacheAnnotationServices;
+
+	@Mock
+	private CacheArgumentServices cacheArgumentServices;
+
+	@Mock
+	private CacheParamNameServices cacheParamNameServices;
+
+	@Mock
+	private ArgumentServices argumentServices;
 	
 	@Spy
 	@InjectMocks
@@ -37,30 +51,37 @@ public class CacheManagerTest {
 	 * @throws java.lang.NoSuchMethodException
 	 */
 	@Test
-	public void testProcessCacheAnnotations() throws NoSuchMethodException {
-		System.out.println("processCacheAnnotations");
-		Method method = CacheAnnotedClass.class.getMethod("jsCacheResultAnnotatedMethod");
-		doReturn(false).doReturn(true).when(instance).isJsCached(any(Method.class));
-		when(jsCacheAnnotationServices.getJsCacheResultDeadline(any(JsCacheResult.class))).thenReturn(6L);
-		long result = instance.processCacheAnnotations(method, null);
+	public void testProcessCacheAnnotationsFromDescriptor() throws NoSuchMethodException {
+		System.out.println("processCacheAnnotationsFromDescriptor");
+		MethodDescriptor descriptor = new MethodDescriptor(CacheAnnotedClass.class.getMethod("nonJsCacheResultAnnotatedMethod"));
+		long result = instance.processCacheAnnotations(descriptor);
 		assertThat(result).isEqualTo(0L);
-		result = instance.processCacheAnnotations(method, null);
-		assertThat(result).isEqualTo(6L);
+		descriptor = new MethodDescriptor(CacheAnnotedClass.class.getMethod("jsCacheResultAnnotatedMethodDeadline10Min"));
+		long now = System.currentTimeMillis();
+		result = instance.processCacheAnnotations(descriptor);
+		assertThat(result).isBetween(now + 600000L, System.currentTimeMillis() + 600000L);
 	}
 
 	/**
-	 * Test of isJsCached method, of class CacheManager.
-	 * @throws java.lang.NoSuchMethodException
+	 * Test of computeCacheKey method, of class CacheManager.
+	 *
+	 * @throws java.lang.Exception
 	 */
 	@Test
-	public void testIsJsCached() throws NoSuchMethodException {
-		System.out.println("isJsCached");
-		Method method = CacheAnnotedClass.class.getMethod("jsCacheResultAnnotatedMethod");
-		boolean result = instance.isJsCached(method);
-		assertThat(result).isTrue();
-		method = CacheAnnotedClass.class.getMethod("nonJsCacheResultAnnotatedMethod");
-		result = instance.isJsCached(method);
-		assertThat(result).isFalse();
+	public void testComputeCacheKey() throws Exception {
+		System.out.println("computeCacheKey");
+		Method method = CacheAnnotedClass.class.getMethod("jsCacheResultAnnotatedMethodWithArgs", Integer.TYPE, String.class);
+		MethodDescriptor descriptor = new MethodDescriptor(method);
+		Object[] arguments = new Object[]{5, "a"};
+		List<String> jsonArgs = Arrays.asList("5", "\"a\"");
+		List<String> paramNames = Arrays.asList("i", "s");
+		when(argumentServices.getJsonParameters(eq(arguments), any(Annotation[][].class))).thenReturn(jsonArgs);
+		when(cacheParamNameServices.getMethodParamNames(eq(CacheAnnotedClass.class), eq("jsCacheResultAnnotatedMethodWithArgs"))).thenReturn(paramNames);
+		when(cacheArgumentServices.computeArgPart(eq(new String[]{"s"}), eq(jsonArgs), eq(paramNames))).thenReturn("[\"a\"]");
+		when(jsCacheAnnotationServices.computeCacheKey(eq(CacheManagerTest.class), eq("jsCacheResultAnnotatedMethodWithArgs"), eq("[\"a\"]"))).thenReturn("KEY");
+
+		String result = instance.computeCacheKey(CacheManagerTest.class, descriptor, arguments);
+		assertThat(result).isEqualTo("KEY");
 	}
 
 	public class Result {
@@ -4,7 +4,6 @@
 package org.ocelotds.cache;
 
 import java.util.Arrays;
-import java.util.Calendar;
 import java.util.List;
 import javax.enterprise.event.Event;
 import org.junit.Test;
@@ -19,7 +18,6 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.ocelotds.Constants;
 import org.ocelotds.KeyMaker;
 import org.ocelotds.annotations.JsCacheRemove;
-import org.ocelotds.annotations.JsCacheResult;
 import org.ocelotds.messaging.MessageToClient;
 import org.slf4j.Logger;
 
@@ -49,6 +47,9 @@ public class JsCacheAnnotationServicesTest {
 	@Mock
 	CacheArgumentServices cacheArgumentServices;
 
+	@Mock
+	ResultCache resultCache;
+
 	@InjectMocks
 	@Spy
 	private JsCacheAnnotationServices instance;
@@ -64,84 +65,7 @@ public class JsCacheAnnotationServicesTest {
 		verify(wsEvent).fire(captureMTC.capture());
 		assertThat(captureMTC.getValue().getId()).isEqualTo(Constants.Cache.CLEANCACHE_TOPIC);
 		assertThat(captureMTC.getValue().getResponse()).isEqualTo(Constants.Cache.ALL);
-	}
-
-	int MILLISECOND = 1;
-	int SECOND = 1000 * MILLISECOND;
-	int MINUTE = 60 * SECOND;
-	int HOUR = 60 * MINUTE;
-	int DAY = 24 * HOUR;
-	int MONTH = 28 * DAY;
-	int YEAR = 364 * DAY;
-	// MONTH AND YEAR depend of context
-
-	/**
-	 * Test of getJsCacheResultDeadline method, of class JsCacheAnnotationServices.
-	 */
-	@Test
-	public void testGetJsCacheResultDeadline() {
-		System.out.println("getJsCacheResultDeadline");
-		Calendar c = Calendar.getInstance();
-		doReturn(c).when(instance).getNowCalendar();
-		long expResult = c.getTime().getTime() + YEAR;
-		JsCacheResult jcr = new LiteralJsCacheResult();
-		long result = instance.getJsCacheResultDeadline(jcr);
-		assertThat(result).isGreaterThanOrEqualTo(expResult);
-	}
-
-	/**
-	 * Test of getJsCacheResultDeadline method, of class JsCacheAnnotationServices.
-	 */
-	@Test
-	public void testGetJsCacheResultDeadline2() {
-		System.out.println("getJsCacheResultDeadline");
-		Calendar c = Calendar.getInstance();
-		doReturn(c).when(instance).getNowCalendar();
-		long expResult = c.getTime().getTime()+MILLISECOND;
-		JsCacheResult jcr = new LiteralJsCacheResult(0, 0, 0, 0, 0, 0, 1);
-		long result = instance.getJsCacheResultDeadline(jcr);
-		assertThat(result).isEqualTo(expResult);
-
-		expResult = c.getTime().getTime()+SECOND;
-		jcr = new LiteralJsCacheResult(0, 0, 0, 0, 0, 1, 0);
-		result = instance.getJsCacheResultDeadline(jcr);
-		assertThat(result).isEqualTo(expResult);
-
-		expResult = c.getTime().getTime()+MINUTE;
-		jcr = new LiteralJsCacheResult(0, 0, 0, 0, 1, 0, 0);
-		result = instance.getJsCacheResultDeadline(jcr);
-		assertThat(result).isEqualTo(expResult);
-
-		expResult = c.getTime().getTime()+HOUR;
-		jcr = new LiteralJsCacheResult(0, 0, 0, 1, 0, 0, 0);
-		result = instance.getJsCacheResultDeadline(jcr);
-		assertThat(result).isEqualTo(expResult);
-
-		expResult = c.getTime().getTime()+DAY;
-		jcr = new LiteralJsCacheResult(0, 0, 1, 0, 0, 0, 0);
-		result = instance.getJsCacheResultDeadline(jcr);
-		assertThat(result).isEqualTo(expResult);
-
-		expResult = c.getTime().getTime()+MONTH;
-		jcr = new LiteralJsCacheResult(0, 1, 0, 0, 0, 0, 0);
-		result = instance.getJsCacheResultDeadline(jcr);
-		assertThat(result).isGreaterThanOrEqualTo(expResult);
-
-		expResult = c.getTime().getTime()+YEAR;
-		jcr = new LiteralJsCacheResult(0, 1, 0, 0, 0, 0, 0);
-		result = instance.getJsCacheResultDeadline(jcr);
-		assertThat(result).isGreaterThanOrEqualTo(expResult);
-	}
-	
-	/**
-	 * Test of getNowCalendar method, of class JsCacheAnnotationServices.
-	 */
-	@Test
-	public void testGetNowCalendar() {
-		System.out.println("getNowCalendar");
-		Calendar result = instance.getNowCalendar();
-		assertThat(result).isNotNull();
-		assertThat(result).isInstanceOf(Calendar.class);
+		verify(resultCache).clear();
 	}
 
 	/**
@@ -177,6 +101,8 @@ public class JsCacheAnnotationServicesTest {
 		verify(wsUserEvent).fire(captureMTC.capture());
 		assertThat(captureMTC.getValue().getId()).isEqualTo(Constants.Cache.CLEANCACHE_TOPIC);
 		assertThat(captureMTC.getValue().getResponse()).isEqualTo("MD5");
+		verify(resultCache).removeUserEntry(eq("MD5"));
+		verify(cacheEvent, never()).fire(anyString());
 	}
 	
 	void testProcessJsCacheRemove(JsCacheRemove jcr) {
@@ -0,0 +1,48 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.cache;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.*;
+import org.ocelotds.annotations.JsCacheRemove;
+
+/**
+ *
+ * @author hhfrancois
+ */
+public class JsCacheRemoveDescriptorTest {
+
+	/**
+	 * Test of constructor, of class JsCacheRemoveDescriptor.
+	 *
+	 * @throws java.lang.NoSuchMethodException
+	 */
+	@Test
+	public void testJsCacheRemoveDescriptor() throws NoSuchMethodException {
+		System.out.println("JsCacheRemoveDescriptor");
+		JsCacheRemove jcr = CacheAnnotedClass.class.getMethod("jsCacheRemoveAnnotatedMethodWithSomeArgs", Integer.TYPE, CacheManagerTest.Result.class).getAnnotation(JsCacheRemove.class);
+		JsCacheRemoveDescriptor instance = new JsCacheRemoveDescriptor(jcr);
+		assertThat(instance.getJsCacheRemove()).isEqualTo(jcr);
+		assertThat(instance.isAllArguments()).isFalse();
+		assertThat(instance.getKeyParams()).containsExactly("b");
+		assertThat(instance.getKeyFields()[0]).containsExactly("i");
+	}
+
+	/**
+	 * Test of constructor, of class JsCacheRemoveDescriptor.
+	 *
+	 * @throws java.lang.NoSuchMethodException
+	 */
+	@Test
+	public void testJsCacheRemoveDescriptorAllArgs() throws NoSuchMethodException {
+		System.out.println("JsCacheRemoveDescriptorAllArgs");
+		JsCacheRemove jcr = CacheAnnotedClass.class.getMethod("jsCacheRemoveAnnotatedMethodWithAllArgs", Integer.TYPE, String.class).getAnnotation(JsCacheRemove.class);
+		JsCacheRemoveDescriptor instance = new JsCacheRemoveDescriptor(jcr);
+		assertThat(instance.isAllArguments()).isTrue();
+		jcr = CacheAnnotedClass.class.getMethod("jsCacheRemoveAnnotatedMethodWith0Arg", Integer.TYPE, String.class).getAnnotation(JsCacheRemove.class);
+		instance = new JsCacheRemoveDescriptor(jcr);
+		assertThat(instance.isAllArguments()).isFalse();
+		assertThat(instance.getKeyParams()).isEmpty();
+	}
+}
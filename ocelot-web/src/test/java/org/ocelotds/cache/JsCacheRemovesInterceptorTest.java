@@ -8,16 +8,20 @@ import com.fasterxml.jackson.core.JsonProcessingException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.interceptor.InvocationContext;
 import org.junit.Test;
 import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
 import org.junit.Before;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
-import org.ocelotds.annotations.JsCacheRemove;
+import org.mockito.stubbing.Answer;
+import org.ocelotds.core.services.DataServiceRegistry;
 import org.ocelotds.marshalling.ArgumentServices;
 import org.ocelotds.marshalling.exceptions.JsonMarshallerException;
 import org.ocelotds.marshalling.exceptions.JsonMarshallingException;
@@ -41,6 +45,9 @@ public class JsCacheRemovesInterceptorTest {
 	
 	@Mock
 	ArgumentServices argumentServices;
+
+	@Spy
+	DataServiceRegistry dataServiceRegistry = new DataServiceRegistry();
 	
 	@Before
 	public void init() throws JsonMarshallingException, JsonMarshallerException, JsonProcessingException {
@@ -59,8 +66,46 @@ public class JsCacheRemovesInterceptorTest {
 		Method method = CacheAnnotedClass.class.getDeclaredMethod("jsCacheRemovesAnnotatedMethod", Integer.TYPE, CacheManagerTest.Result.class);
 		when(ctx.getMethod()).thenReturn(method);
 		instance.processJsCacheRemoves(ctx);
-		verify(jsCacheAnnotationServices, times(2)).processJsCacheRemove(any(JsCacheRemove.class), anyList(), anyList());
+		verify(jsCacheAnnotationServices, times(4)).processJsCacheRemove(any(JsCacheRemoveDescriptor.class), anyList(), anyList());
 		verify(ctx).proceed();
 	}
 
-}
\ No newline at end of file
+	/**
+	 * Test of processJsCacheRemoves method, of class JsCacheRemovesInterceptor, a result read during the method is removed after it, even if it fails.<br>
+	 * Generation is incremented by each remove, like in ResultCache
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testProcessJsCacheRemovesInterleaved() throws Exception {
+		System.out.println("processJsCacheRemovesInterleaved");
+		final AtomicLong generation = new AtomicLong();
+		final AtomicLong readDuringUpdate = new AtomicLong(-1);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				generation.incrementAndGet();
+				return null;
+			}
+		}).when(jsCacheAnnotationServices).processJsCacheRemove(any(JsCacheRemoveDescriptor.class), anyList(), anyList());
+		InvocationContext ctx = mock(InvocationContext.class);
+		Method method = CacheAnnotedClass.class.getDeclaredMethod("jsCacheRemovesAnnotatedMethod", Integer.TYPE, CacheManagerTest.Result.class);
+		when(ctx.getMethod()).thenReturn(method);
+		when(ctx.proceed()).thenAnswer(new Answer<Object>() {
+			@Override
+			public Object answer(InvocationOnMock invocation) throws Throwable {
+				// a concurrent call reads the cache during the update
+				readDuringUpdate.set(generation.get());
+				throw new IllegalStateException();
+			}
+		});
+		try {
+			instance.processJsCacheRemoves(ctx);
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException ex) {
+		}
+		assertThat(readDuringUpdate.get()).isEqualTo(2L);
+		assertThat(generation.get()).isEqualTo(4L);
+	}
+
+}
@@ -75,4 +75,14 @@ public class LiteralJsCacheResult  extends AnnotationLiteral<JsCacheResult> impl
 	public String[] keys() {
 		return null;
 	}
+
+	@Override
+	public boolean userScope() {
+		return false;
+	}
+
+	@Override
+	public boolean shared() {
+		return false;
+	}
 }
@@ -0,0 +1,290 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.cache;
+
+import java.security.Principal;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.Constants;
+import org.ocelotds.configuration.ResultCacheConfigurationManager;
+import org.ocelotds.configuration.WorkersConfigurationManager;
+import org.ocelotds.context.OcelotContext;
+import org.ocelotds.context.ThreadLocalContextHolder;
+import org.ocelotds.core.ws.CommandExecutor;
+import org.ocelotds.messaging.MessageToClient;
+import org.ocelotds.messaging.MessageType;
+import org.slf4j.Logger;
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ResultCacheTest {
+
+	@Mock
+	private Logger logger;
+
+	@Spy
+	private ResultCacheConfigurationManager configuration = new ResultCacheConfigurationManager();
+
+	@Mock
+	private OcelotContext ocelotContext;
+
+	@InjectMocks
+	@Spy
+	private ResultCache instance;
+
+	@Spy
+	private WorkersConfigurationManager workersConfiguration = new WorkersConfigurationManager();
+
+	@InjectMocks
+	private CommandExecutor commandExecutor;
+
+	@Before
+	public void setUp() {
+		configuration.setSize(2);
+	}
+
+	private MessageToClient createResult(Object result, long deadline) {
+		MessageToClient mtc = new MessageToClient();
+		mtc.setId("ID");
+		mtc.setResult(result);
+		mtc.setDeadline(deadline);
+		return mtc;
+	}
+
+	/**
+	 * Test of get and put methods, of class ResultCache.
+	 */
+	@Test
+	public void testGetPut() {
+		System.out.println("getPut");
+		long deadline = System.currentTimeMillis() + 60000L;
+		assertThat(instance.get("KEY")).isNull();
+		MessageToClient mtc = createResult("r", deadline);
+		instance.put("KEY", mtc, 0L);
+		assertThat(mtc.getJson()).isEqualTo("\"r\"");
+
+		MessageToClient result = instance.get("KEY");
+		assertThat(result).isNotNull();
+		assertThat(result.getId()).isNull();
+		assertThat(result.getType()).isEqualTo(MessageType.RESULT);
+		assertThat(result.getJsonResponse()).isEqualTo("\"r\"");
+		assertThat(result.getDeadline()).isEqualTo(deadline);
+		assertThat(instance.getHitCount()).isEqualTo(1L);
+		assertThat(instance.getMissCount()).isEqualTo(1L);
+		assertThat(instance.getSize()).isEqualTo(1);
+	}
+
+	/**
+	 * Test of put method, of class ResultCache, faults, expired results and disabled cache are not stored.
+	 */
+	@Test
+	public void testPutIgnored() {
+		System.out.println("putIgnored");
+		MessageToClient fault = new MessageToClient();
+		fault.setFault("f");
+		fault.setDeadline(System.currentTimeMillis() + 60000L);
+		instance.put("KEY1", fault, 0L);
+		instance.put("KEY2", createResult("r", System.currentTimeMillis() - 1L), 0L);
+		configuration.setSize(0);
+		instance.put("KEY3", createResult("r", System.currentTimeMillis() + 60000L), 0L);
+		assertThat(instance.getSize()).isEqualTo(0);
+		assertThat(instance.isEnabled()).isFalse();
+		assertThat(instance.get("KEY3")).isNull();
+		assertThat(instance.getMissCount()).isEqualTo(0L);
+	}
+
+	/**
+	 * Test of get method, of class ResultCache, expired entry is removed.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetExpired() throws Exception {
+		System.out.println("getExpired");
+		instance.put("KEY", createResult("r", System.currentTimeMillis() + 200L), 0L);
+		assertThat(instance.getSize()).isEqualTo(1);
+		Thread.sleep(300L);
+		assertThat(instance.get("KEY")).isNull();
+		assertThat(instance.getSize()).isEqualTo(0);
+	}
+
+	/**
+	 * Test of evict method, of class ResultCache, least recently used.
+	 */
+	@Test
+	public void testEvictLru() {
+		System.out.println("evictLru");
+		long deadline = System.currentTimeMillis() + 60000L;
+		instance.put("KEY1", createResult("r1", deadline), 0L);
+		instance.put("KEY2", createResult("r2", deadline), 0L);
+		instance.get("KEY1");
+		instance.put("KEY3", createResult("r3", deadline), 0L);
+		assertThat(instance.getSize()).isEqualTo(2);
+		assertThat(instance.getEvictionCount()).isEqualTo(1L);
+		assertThat(instance.get("KEY2")).isNull();
+		assertThat(instance.get("KEY1")).isNotNull();
+		assertThat(instance.get("KEY3")).isNotNull();
+	}
+
+	/**
+	 * Test of evict method, of class ResultCache, least frequently used.
+	 */
+	@Test
+	public void testEvictLfu() {
+		System.out.println("evictLfu");
+		configuration.setPolicy(Constants.Options.POLICY_LFU);
+		long deadline = System.currentTimeMillis() + 60000L;
+		instance.put("KEY1", createResult("r1", deadline), 0L);
+		instance.put("KEY2", createResult("r2", deadline), 0L);
+		instance.get("KEY1");
+		instance.get("KEY1");
+		instance.get("KEY2");
+		instance.put("KEY3", createResult("r3", deadline), 0L);
+		assertThat(instance.get("KEY2")).isNull();
+		assertThat(instance.get("KEY1")).isNotNull();
+		assertThat(instance.get("KEY3")).isNotNull();
+	}
+
+	/**
+	 * Test of getKey method, of class ResultCache.
+	 */
+	@Test
+	public void testGetKey() {
+		System.out.println("getKey");
+		Principal principal = mock(Principal.class);
+		when(principal.getName()).thenReturn("user");
+		when(ocelotContext.getPrincipal()).thenReturn(principal).thenReturn(null);
+		assertThat(instance.getKey("KEY", false)).isEqualTo("KEY");
+		assertThat(instance.getKey("KEY", true)).isEqualTo("KEY" + ResultCache.USER_SEPARATOR + "user");
+		assertThat(instance.getKey("KEY", true)).isEqualTo("KEY" + ResultCache.USER_SEPARATOR + Constants.ANONYMOUS);
+		assertThat(instance.getCacheKey("KEY")).isEqualTo("KEY");
+		assertThat(instance.getCacheKey("KEY" + ResultCache.USER_SEPARATOR + "user@domain")).isEqualTo("KEY");
+	}
+
+	/**
+	 * Test of remove, removeUserEntry and clear methods, of class ResultCache.
+	 */
+	@Test
+	public void testRemove() {
+		System.out.println("remove");
+		configuration.setSize(10);
+		long deadline = System.currentTimeMillis() + 60000L;
+		doReturn("user1").when(instance).getUsername();
+		instance.put("KEY", createResult("r", deadline), 0L);
+		instance.put("KEY@user1", createResult("r", deadline), 0L);
+		instance.put("KEY@user2", createResult("r", deadline), 0L);
+		instance.put("OTHER", createResult("r", deadline), 0L);
+		instance.put("OTHER@user1", createResult("r", deadline), 0L);
+
+		instance.put("OTHER@user2", createResult("r", deadline), 0L);
+
+		instance.removeUserEntry("OTHER");
+		assertThat(instance.get("OTHER@user1")).isNull();
+		assertThat(instance.get("OTHER")).isNull();
+		assertThat(instance.get("OTHER@user2")).isNotNull();
+
+		instance.receiveCacheRemoveEvent("KEY");
+		assertThat(instance.get("KEY")).isNull();
+		assertThat(instance.get("KEY@user1")).isNull();
+		assertThat(instance.get("KEY@user2")).isNull();
+		assertThat(instance.getSize()).isEqualTo(1);
+
+		instance.clear();
+		assertThat(instance.getSize()).isEqualTo(0);
+		assertThat(instance.get("OTHER@user2")).isNull();
+	}
+
+	/**
+	 * Test of put method, of class ResultCache, result computed before a remove is not put.
+	 */
+	@Test
+	public void testPutAfterRemove() {
+		System.out.println("putAfterRemove");
+		long deadline = System.currentTimeMillis() + 60000L;
+		doReturn("user1").when(instance).getUsername();
+		long generation = instance.getGeneration("KEY@user1");
+		instance.removeUserEntry("KEY");
+		instance.put("KEY@user1", createResult("r", deadline), generation);
+		assertThat(instance.get("KEY@user1")).isNull();
+		assertThat(instance.getSize()).isEqualTo(0);
+
+		generation = instance.getGeneration("KEY");
+		instance.receiveCacheRemoveEvent("KEY");
+		instance.put("KEY", createResult("r", deadline), generation);
+		assertThat(instance.get("KEY")).isNull();
+
+		generation = instance.getGeneration("KEY");
+		instance.clear();
+		instance.put("KEY", createResult("r", deadline), generation);
+		assertThat(instance.get("KEY")).isNull();
+
+		instance.put("KEY", createResult("r", deadline), instance.getGeneration("KEY"));
+		assertThat(instance.get("KEY")).isNotNull();
+	}
+
+	/**
+	 * Test of put method, of class ResultCache, entry replaced keeps one place in eviction order.
+	 */
+	@Test
+	public void testPutReplace() {
+		System.out.println("putReplace");
+		long deadline = System.currentTimeMillis() + 60000L;
+		instance.put("KEY1", createResult("r1", deadline), 0L);
+		instance.put("KEY1", createResult("r2", deadline), 0L);
+		instance.put("KEY2", createResult("r3", deadline), 0L);
+		assertThat(instance.getSize()).isEqualTo(2);
+		assertThat(instance.getEvictionCount()).isEqualTo(0L);
+		assertThat(instance.get("KEY1").getJsonResponse()).isEqualTo("\"r2\"");
+	}
+
+	/**
+	 * Test of getKey method, of class ResultCache, calls of two sessions executed by the same worker get the key of their user.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testGetKeyOnWorker() throws InterruptedException {
+		System.out.println("getKeyOnWorker");
+		workersConfiguration.setSize(1);
+		doCallRealMethod().when(ocelotContext).getPrincipal();
+		final List<String> keys = Collections.synchronizedList(new ArrayList<String>());
+		final CountDownLatch latch = new CountDownLatch(2);
+		try {
+			for (String user : new String[]{"alice", "bob"}) {
+				Principal principal = mock(Principal.class);
+				when(principal.getName()).thenReturn(user);
+				// as websocket thread does when it receives the call
+				ThreadLocalContextHolder.put(Constants.PRINCIPAL, principal);
+				commandExecutor.execute("SESSION_" + user, new Runnable() {
+					@Override
+					public void run() {
+						keys.add(instance.getKey("KEY", true));
+						latch.countDown();
+					}
+				});
+			}
+			assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		} finally {
+			commandExecutor.shutdown();
+			ThreadLocalContextHolder.cleanupThread();
+		}
+		assertThat(keys).containsExactly("KEY" + ResultCache.USER_SEPARATOR + "alice", "KEY" + ResultCache.USER_SEPARATOR + "bob");
+	}
+
+}
@@ -0,0 +1,139 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.cache;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.messaging.MessageToClient;
+import org.slf4j.Logger;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SingleFlightManagerTest {
+
+	@Mock
+	private Logger logger;
+
+	@InjectMocks
+	private SingleFlightManager instance;
+
+	/**
+	 * Test of execute method, of class SingleFlightManager, identical calls wait the same invocation.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testExecute() throws Exception {
+		System.out.println("execute");
+		final AtomicInteger invocations = new AtomicInteger();
+		final CompletableFuture<MessageToClient> pending = new CompletableFuture<>();
+		Function<LongSupplier, CompletableFuture<MessageToClient>> invocation = new Function<LongSupplier, CompletableFuture<MessageToClient>>() {
+			@Override
+			public CompletableFuture<MessageToClient> apply(LongSupplier deadline) {
+				invocations.incrementAndGet();
+				return pending;
+			}
+		};
+		CompletableFuture<MessageToClient> first = instance.execute("KEY", 0L, invocation);
+		CompletableFuture<MessageToClient> second = instance.execute("KEY", 0L, invocation);
+		assertThat(second).isSameAs(first);
+		assertThat(invocations.get()).isEqualTo(1);
+		assertThat(instance.getInFlightCount()).isEqualTo(1);
+
+		MessageToClient mtc = new MessageToClient();
+		pending.complete(mtc);
+		assertThat(first.get()).isSameAs(mtc);
+		assertThat(instance.getInFlightCount()).isEqualTo(0);
+		assertThat(instance.getInvocationCount()).isEqualTo(1L);
+		assertThat(instance.getCoalescedCount()).isEqualTo(1L);
+
+		instance.execute("KEY", 0L, invocation);
+		assertThat(invocations.get()).isEqualTo(2);
+		assertThat(instance.getInvocationCount()).isEqualTo(2L);
+	}
+
+	/**
+	 * Test of execute method, of class SingleFlightManager, different keys are not coalesced.
+	 */
+	@Test
+	public void testExecuteDifferentKeys() {
+		System.out.println("executeDifferentKeys");
+		Function<LongSupplier, CompletableFuture<MessageToClient>> invocation = new Function<LongSupplier, CompletableFuture<MessageToClient>>() {
+			@Override
+			public CompletableFuture<MessageToClient> apply(LongSupplier deadline) {
+				return new CompletableFuture<>();
+			}
+		};
+		CompletableFuture<MessageToClient> first = instance.execute("KEY1", 0L, invocation);
+		CompletableFuture<MessageToClient> second = instance.execute("KEY2", 0L, invocation);
+		assertThat(second).isNotSameAs(first);
+		assertThat(instance.getInFlightCount()).isEqualTo(2);
+		assertThat(instance.getCoalescedCount()).isEqualTo(0L);
+	}
+
+	/**
+	 * Test of execute method, of class SingleFlightManager, when invocation fails.
+	 */
+	@Test
+	public void testExecuteFail() {
+		System.out.println("executeFail");
+		CompletableFuture<MessageToClient> result = instance.execute("KEY", 0L, new Function<LongSupplier, CompletableFuture<MessageToClient>>() {
+			@Override
+			public CompletableFuture<MessageToClient> apply(LongSupplier deadline) {
+				throw new IllegalStateException();
+			}
+		});
+		assertThat(result.isCompletedExceptionally()).isTrue();
+		assertThat(instance.getInFlightCount()).isEqualTo(0);
+
+		final CompletableFuture<MessageToClient> pending = new CompletableFuture<>();
+		result = instance.execute("KEY", 0L, new Function<LongSupplier, CompletableFuture<MessageToClient>>() {
+			@Override
+			public CompletableFuture<MessageToClient> apply(LongSupplier deadline) {
+				return pending;
+			}
+		});
+		pending.completeExceptionally(new IllegalStateException());
+		assertThat(result.isCompletedExceptionally()).isTrue();
+		assertThat(instance.getInFlightCount()).isEqualTo(0);
+	}
+
+	/**
+	 * Test of execute method, of class SingleFlightManager, deadline of flight is the latest deadline of calls.
+	 */
+	@Test
+	public void testExecuteDeadline() {
+		System.out.println("executeDeadline");
+		final LongSupplier[] flight = new LongSupplier[1];
+		Function<LongSupplier, CompletableFuture<MessageToClient>> invocation = new Function<LongSupplier, CompletableFuture<MessageToClient>>() {
+			@Override
+			public CompletableFuture<MessageToClient> apply(LongSupplier deadline) {
+				flight[0] = deadline;
+				return new CompletableFuture<>();
+			}
+		};
+		instance.execute("KEY", 100L, invocation);
+		assertThat(flight[0].getAsLong()).isEqualTo(100L);
+		instance.execute("KEY", 50L, invocation);
+		assertThat(flight[0].getAsLong()).isEqualTo(100L);
+		instance.execute("KEY", 200L, invocation);
+		assertThat(flight[0].getAsLong()).isEqualTo(200L);
+		instance.execute("KEY", 0L, invocation);
+		assertThat(flight[0].getAsLong()).isEqualTo(0L);
+		instance.execute("KEY", 300L, invocation);
+		assertThat(flight[0].getAsLong()).isEqualTo(0L);
+	}
+
+}
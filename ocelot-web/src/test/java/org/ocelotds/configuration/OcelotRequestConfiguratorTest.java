@@ -4,7 +4,10 @@
 package org.ocelotds.configuration;
 
 import java.util.HashMap;
+import java.util.Arrays;
+import java.util.Collections;
 import java.util.Map;
+import java.util.List;
 import javax.websocket.HandshakeResponse;
 import javax.websocket.server.HandshakeRequest;
 import javax.websocket.server.ServerEndpointConfig;
@@ -50,4 +53,17 @@ public class OcelotRequestConfiguratorTest {
 
 		assertThat(userProperties.get(Constants.HANDSHAKEREQUEST)).isEqualTo(request);
 	}
+
+
+	/**
+	 * Test of getNegotiatedSubprotocol method, of class OcelotRequestConfigurator.
+	 */
+	@Test
+	public void testGetNegotiatedSubprotocol() {
+		System.out.println("getNegotiatedSubprotocol");
+		List<String> supported = Arrays.asList(Constants.SUBPROTOCOL_CBOR);
+		assertThat(instance.getNegotiatedSubprotocol(supported, Arrays.asList("other", Constants.SUBPROTOCOL_CBOR))).isEqualTo(Constants.SUBPROTOCOL_CBOR);
+		assertThat(instance.getNegotiatedSubprotocol(supported, Arrays.asList("other"))).isEmpty();
+		assertThat(instance.getNegotiatedSubprotocol(supported, Collections.<String>emptyList())).isEmpty();
+	}
 }
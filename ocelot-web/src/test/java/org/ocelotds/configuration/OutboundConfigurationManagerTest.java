@@ -0,0 +1,106 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.configuration;
+
+import javax.enterprise.inject.Instance;
+import javax.servlet.ServletContext;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.Constants;
+import org.slf4j.Logger;
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class OutboundConfigurationManagerTest {
+
+	@Mock
+	private Logger logger;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsStreamingThreshold;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsFanoutThreshold;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsFanoutPool;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsOutboundQueue;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsOutboundPolicy;
+
+	@InjectMocks
+	@Spy
+	private OutboundConfigurationManager instance;
+
+	/**
+	 * Test of readOutboundConfig method, of class OutboundConfigurationManager.
+	 */
+	@Test
+	public void testReadConfigFromContext() {
+		System.out.println("readConfigFromContext");
+		ServletContext sc = mock(ServletContext.class);
+		when(ocelotConfigurationsStreamingThreshold.isUnsatisfied()).thenReturn(true);
+		when(ocelotConfigurationsFanoutThreshold.isUnsatisfied()).thenReturn(true);
+		when(ocelotConfigurationsFanoutPool.isUnsatisfied()).thenReturn(true);
+		when(ocelotConfigurationsOutboundQueue.isUnsatisfied()).thenReturn(true);
+		when(ocelotConfigurationsOutboundPolicy.isUnsatisfied()).thenReturn(true);
+		when(sc.getInitParameter(eq(Constants.Options.STREAMING_THRESHOLD))).thenReturn(null).thenReturn("0");
+		when(sc.getInitParameter(eq(Constants.Options.FANOUT_THRESHOLD))).thenReturn(null).thenReturn("0");
+		when(sc.getInitParameter(eq(Constants.Options.FANOUT_POOL))).thenReturn(null).thenReturn("4");
+		when(sc.getInitParameter(eq(Constants.Options.OUTBOUND_QUEUE))).thenReturn(null).thenReturn("10");
+		when(sc.getInitParameter(eq(Constants.Options.OUTBOUND_POLICY))).thenReturn(null).thenReturn(Constants.Options.POLICY_CONFLATE);
+
+		instance.readOutboundConfig(sc);
+		assertThat(instance.getStreamingThreshold()).isEqualTo(65536);
+		assertThat(instance.getFanoutThreshold()).isEqualTo(256);
+		assertThat(instance.getFanoutPool()).isEqualTo(0);
+		assertThat(instance.getOutboundQueue()).isEqualTo(1000);
+		assertThat(instance.getOutboundPolicy()).isEqualTo(Constants.Options.POLICY_DROP_OLDEST);
+
+		instance.readOutboundConfig(sc);
+		assertThat(instance.getStreamingThreshold()).isEqualTo(0);
+		assertThat(instance.getFanoutThreshold()).isEqualTo(0);
+		assertThat(instance.getFanoutPool()).isEqualTo(4);
+		assertThat(instance.getOutboundQueue()).isEqualTo(10);
+		assertThat(instance.getOutboundPolicy()).isEqualTo(Constants.Options.POLICY_CONFLATE);
+	}
+
+	/**
+	 * Test of readOutboundConfig method, of class OutboundConfigurationManager.
+	 */
+	@Test
+	public void testReadConfigFromProducer() {
+		System.out.println("readConfigFromProducer");
+		ServletContext sc = mock(ServletContext.class);
+		when(ocelotConfigurationsStreamingThreshold.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsStreamingThreshold.get()).thenReturn("1024");
+		when(ocelotConfigurationsFanoutThreshold.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsFanoutThreshold.get()).thenReturn("100");
+		when(ocelotConfigurationsFanoutPool.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsFanoutPool.get()).thenReturn("2");
+		when(ocelotConfigurationsOutboundQueue.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsOutboundQueue.get()).thenReturn("0");
+		when(ocelotConfigurationsOutboundPolicy.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsOutboundPolicy.get()).thenReturn(Constants.Options.POLICY_DISCONNECT);
+
+		instance.readOutboundConfig(sc);
+		assertThat(instance.getStreamingThreshold()).isEqualTo(1024);
+		assertThat(instance.getFanoutThreshold()).isEqualTo(100);
+		assertThat(instance.getFanoutPool()).isEqualTo(2);
+		assertThat(instance.getOutboundQueue()).isEqualTo(0);
+		assertThat(instance.getOutboundPolicy()).isEqualTo(Constants.Options.POLICY_DISCONNECT);
+	}
+}
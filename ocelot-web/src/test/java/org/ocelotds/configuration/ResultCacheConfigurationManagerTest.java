@@ -0,0 +1,76 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.configuration;
+
+import javax.enterprise.inject.Instance;
+import javax.servlet.ServletContext;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.Constants;
+import org.slf4j.Logger;
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class ResultCacheConfigurationManagerTest {
+
+	@Mock
+	private Logger logger;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsSize;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsPolicy;
+
+	@InjectMocks
+	@Spy
+	private ResultCacheConfigurationManager instance;
+
+	/**
+	 * Test of readResultCacheConfig method, of class ResultCacheConfigurationManager.
+	 */
+	@Test
+	public void testReadConfigFromContext() {
+		System.out.println("readConfigFromContext");
+		ServletContext sc = mock(ServletContext.class);
+		when(ocelotConfigurationsSize.isUnsatisfied()).thenReturn(true);
+		when(ocelotConfigurationsPolicy.isUnsatisfied()).thenReturn(true);
+		when(sc.getInitParameter(eq(Constants.Options.RESULTCACHE_SIZE))).thenReturn(null).thenReturn("100");
+		when(sc.getInitParameter(eq(Constants.Options.RESULTCACHE_POLICY))).thenReturn(null).thenReturn(Constants.Options.POLICY_LFU);
+
+		instance.readResultCacheConfig(sc);
+		assertThat(instance.getSize()).isEqualTo(0);
+		assertThat(instance.getPolicy()).isEqualTo(Constants.Options.POLICY_LRU);
+
+		instance.readResultCacheConfig(sc);
+		assertThat(instance.getSize()).isEqualTo(100);
+		assertThat(instance.getPolicy()).isEqualTo(Constants.Options.POLICY_LFU);
+	}
+
+	/**
+	 * Test of readResultCacheConfig method, of class ResultCacheConfigurationManager.
+	 */
+	@Test
+	public void testReadConfigFromProducer() {
+		System.out.println("readConfigFromProducer");
+		ServletContext sc = mock(ServletContext.class);
+		when(ocelotConfigurationsSize.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsSize.get()).thenReturn("50");
+		when(ocelotConfigurationsPolicy.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsPolicy.get()).thenReturn(Constants.Options.POLICY_LFU);
+
+		instance.readResultCacheConfig(sc);
+		assertThat(instance.getSize()).isEqualTo(50);
+		assertThat(instance.getPolicy()).isEqualTo(Constants.Options.POLICY_LFU);
+	}
+}
@@ -0,0 +1,76 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.configuration;
+
+import javax.enterprise.inject.Instance;
+import javax.servlet.ServletContext;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.Constants;
+import org.slf4j.Logger;
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SessionBeansConfigurationManagerTest {
+
+	@Mock
+	private Logger logger;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsMax;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsIdle;
+
+	@InjectMocks
+	@Spy
+	private SessionBeansConfigurationManager instance;
+
+	/**
+	 * Test of readSessionBeansConfig method, of class SessionBeansConfigurationManager.
+	 */
+	@Test
+	public void testReadConfigFromContext() {
+		System.out.println("readConfigFromContext");
+		ServletContext sc = mock(ServletContext.class);
+		when(ocelotConfigurationsMax.isUnsatisfied()).thenReturn(true);
+		when(ocelotConfigurationsIdle.isUnsatisfied()).thenReturn(true);
+		when(sc.getInitParameter(eq(Constants.Options.SESSIONBEANS_MAX))).thenReturn(null).thenReturn("5");
+		when(sc.getInitParameter(eq(Constants.Options.SESSIONBEANS_IDLE))).thenReturn(null).thenReturn("1000");
+
+		instance.readSessionBeansConfig(sc);
+		assertThat(instance.getMax()).isEqualTo(100);
+		assertThat(instance.getIdle()).isEqualTo(1800000L);
+
+		instance.readSessionBeansConfig(sc);
+		assertThat(instance.getMax()).isEqualTo(5);
+		assertThat(instance.getIdle()).isEqualTo(1000L);
+	}
+
+	/**
+	 * Test of readSessionBeansConfig method, of class SessionBeansConfigurationManager.
+	 */
+	@Test
+	public void testReadConfigFromProducer() {
+		System.out.println("readConfigFromProducer");
+		ServletContext sc = mock(ServletContext.class);
+		when(ocelotConfigurationsMax.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsMax.get()).thenReturn("20");
+		when(ocelotConfigurationsIdle.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsIdle.get()).thenReturn("0");
+
+		instance.readSessionBeansConfig(sc);
+		assertThat(instance.getMax()).isEqualTo(20);
+		assertThat(instance.getIdle()).isEqualTo(0L);
+	}
+}
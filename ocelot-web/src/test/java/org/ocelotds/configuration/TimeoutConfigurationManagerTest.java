@@ -0,0 +1,66 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.configuration;
+
+import javax.enterprise.inject.Instance;
+import javax.servlet.ServletContext;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.Constants;
+import org.slf4j.Logger;
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TimeoutConfigurationManagerTest {
+
+	@Mock
+	private Logger logger;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsTimeout;
+
+	@InjectMocks
+	@Spy
+	private TimeoutConfigurationManager instance;
+
+	/**
+	 * Test of readTimeoutConfig method, of class TimeoutConfigurationManager.
+	 */
+	@Test
+	public void testReadConfigFromContext() {
+		System.out.println("readConfigFromContext");
+		ServletContext sc = mock(ServletContext.class);
+		when(ocelotConfigurationsTimeout.isUnsatisfied()).thenReturn(true);
+		when(sc.getInitParameter(eq(Constants.Options.TIMEOUT_DEFAULT))).thenReturn(null).thenReturn("30000");
+
+		instance.readTimeoutConfig(sc);
+		assertThat(instance.getDefaultTimeout()).isEqualTo(0L);
+
+		instance.readTimeoutConfig(sc);
+		assertThat(instance.getDefaultTimeout()).isEqualTo(30000L);
+	}
+
+	/**
+	 * Test of readTimeoutConfig method, of class TimeoutConfigurationManager.
+	 */
+	@Test
+	public void testReadConfigFromProducer() {
+		System.out.println("readConfigFromProducer");
+		ServletContext sc = mock(ServletContext.class);
+		when(ocelotConfigurationsTimeout.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsTimeout.get()).thenReturn("5000");
+
+		instance.readTimeoutConfig(sc);
+		assertThat(instance.getDefaultTimeout()).isEqualTo(5000L);
+	}
+}
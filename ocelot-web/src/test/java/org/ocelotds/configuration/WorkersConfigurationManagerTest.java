@@ -0,0 +1,115 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.configuration;
+
+import javax.enterprise.inject.Instance;
+import javax.servlet.ServletContext;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.Constants;
+import org.slf4j.Logger;
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class WorkersConfigurationManagerTest {
+
+	@Mock
+	private Logger logger;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsSize;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsQueue;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsOrdered;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsRejection;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsVirtual;
+
+	@Mock
+	private Instance<String> ocelotConfigurationsBatchParallel;
+
+	@InjectMocks
+	@Spy
+	private WorkersConfigurationManager instance;
+
+	/**
+	 * Test of readWorkersConfig method, of class WorkersConfigurationManager.
+	 */
+	@Test
+	public void testReadConfigFromContext() {
+		System.out.println("readConfigFromContext");
+		ServletContext sc = mock(ServletContext.class);
+		when(ocelotConfigurationsSize.isUnsatisfied()).thenReturn(true);
+		when(ocelotConfigurationsQueue.isUnsatisfied()).thenReturn(true);
+		when(ocelotConfigurationsOrdered.isUnsatisfied()).thenReturn(true);
+		when(ocelotConfigurationsRejection.isUnsatisfied()).thenReturn(true);
+		when(ocelotConfigurationsVirtual.isUnsatisfied()).thenReturn(true);
+		when(ocelotConfigurationsBatchParallel.isUnsatisfied()).thenReturn(true);
+		when(sc.getInitParameter(eq(Constants.Options.WORKERS_SIZE))).thenReturn(null).thenReturn("8");
+		when(sc.getInitParameter(eq(Constants.Options.WORKERS_QUEUE))).thenReturn(null).thenReturn("50");
+		when(sc.getInitParameter(eq(Constants.Options.WORKERS_ORDERED))).thenReturn(null).thenReturn(Constants.FALSE);
+		when(sc.getInitParameter(eq(Constants.Options.WORKERS_REJECTION))).thenReturn(null).thenReturn(Constants.Options.REJECTION_BLOCK);
+		when(sc.getInitParameter(eq(Constants.Options.WORKERS_VIRTUAL))).thenReturn(null).thenReturn(Constants.TRUE);
+		when(sc.getInitParameter(eq(Constants.Options.BATCH_PARALLEL))).thenReturn(null).thenReturn(Constants.TRUE);
+
+		instance.readWorkersConfig(sc);
+		assertThat(instance.getSize()).isEqualTo(0);
+		assertThat(instance.getQueue()).isEqualTo(1000);
+		assertThat(instance.isOrdered()).isTrue();
+		assertThat(instance.getRejection()).isEqualTo(Constants.Options.REJECTION_FAULT);
+		assertThat(instance.isVirtual()).isFalse();
+		assertThat(instance.isBatchParallel()).isFalse();
+
+		instance.readWorkersConfig(sc);
+		assertThat(instance.getSize()).isEqualTo(8);
+		assertThat(instance.getQueue()).isEqualTo(50);
+		assertThat(instance.isOrdered()).isFalse();
+		assertThat(instance.getRejection()).isEqualTo(Constants.Options.REJECTION_BLOCK);
+		assertThat(instance.isVirtual()).isTrue();
+		assertThat(instance.isBatchParallel()).isTrue();
+	}
+
+	/**
+	 * Test of readWorkersConfig method, of class WorkersConfigurationManager.
+	 */
+	@Test
+	public void testReadConfigFromProducer() {
+		System.out.println("readConfigFromProducer");
+		ServletContext sc = mock(ServletContext.class);
+		when(ocelotConfigurationsSize.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsSize.get()).thenReturn("4");
+		when(ocelotConfigurationsQueue.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsQueue.get()).thenReturn("10");
+		when(ocelotConfigurationsOrdered.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsOrdered.get()).thenReturn(Constants.TRUE);
+		when(ocelotConfigurationsRejection.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsRejection.get()).thenReturn(Constants.Options.REJECTION_FAULT);
+		when(ocelotConfigurationsVirtual.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsVirtual.get()).thenReturn(Constants.FALSE);
+		when(ocelotConfigurationsBatchParallel.isUnsatisfied()).thenReturn(false);
+		when(ocelotConfigurationsBatchParallel.get()).thenReturn(Constants.TRUE);
+
+		instance.readWorkersConfig(sc);
+		assertThat(instance.getSize()).isEqualTo(4);
+		assertThat(instance.getQueue()).isEqualTo(10);
+		assertThat(instance.isOrdered()).isTrue();
+		assertThat(instance.getRejection()).isEqualTo(Constants.Options.REJECTION_FAULT);
+		assertThat(instance.isBatchParallel()).isTrue();
+	}
+}
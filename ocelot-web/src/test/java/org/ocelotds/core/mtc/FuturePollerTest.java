@@ -0,0 +1,197 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.mtc;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
+import java.util.function.LongSupplier;
+import org.junit.After;
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+public class FuturePollerTest {
+
+	private static final LongSupplier NO_DEADLINE = new LongSupplier() {
+		@Override
+		public long getAsLong() {
+			return 0L;
+		}
+	};
+
+	private final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+
+	private final ExecutorService executor = Executors.newSingleThreadExecutor();
+
+	@After
+	public void tearDown() {
+		scheduler.shutdownNow();
+		executor.shutdownNow();
+	}
+
+	/**
+	 * Test of poll method, of class FuturePoller.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testPoll() throws Exception {
+		System.out.println("poll");
+		FutureTask<String> task = new FutureTask<>(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				return "r";
+			}
+		});
+		CompletableFuture<Object> result = FuturePoller.poll(task, scheduler, executor, NO_DEADLINE);
+		assertThat(result.isDone()).isFalse();
+		task.run();
+		assertThat(result.get(5, TimeUnit.SECONDS)).isEqualTo("r");
+	}
+
+	/**
+	 * Test of poll method, of class FuturePoller, when future fails.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testPollFail() throws Exception {
+		System.out.println("pollFail");
+		final IllegalStateException ise = new IllegalStateException();
+		FutureTask<String> task = new FutureTask<>(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				throw ise;
+			}
+		});
+		task.run();
+		CompletableFuture<Object> result = FuturePoller.poll(task, scheduler, executor, NO_DEADLINE);
+		assertThat(result.isDone()).isTrue();
+		try {
+			result.get();
+			fail("ExecutionException expected");
+		} catch (ExecutionException ex) {
+			assertThat(ex.getCause()).isEqualTo(ise);
+		}
+	}
+
+	/**
+	 * Test of poll method, of class FuturePoller, scheduler is stopped.
+	 */
+	@Test
+	public void testPollRejected() {
+		System.out.println("pollRejected");
+		scheduler.shutdown();
+		CompletableFuture<Object> result = FuturePoller.poll(new FutureTask<>(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				return "r";
+			}
+		}), scheduler, executor, NO_DEADLINE);
+		assertThat(result.isCompletedExceptionally()).isTrue();
+		try {
+			result.join();
+			fail("RejectedExecutionException expected");
+		} catch (RuntimeException ex) {
+			assertThat(ex.getCause()).isInstanceOf(RejectedExecutionException.class);
+		}
+	}
+
+	/**
+	 * Test of poll method, of class FuturePoller, result is completed by executor, not by scheduler.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testPollCompletedByExecutor() throws Exception {
+		System.out.println("pollCompletedByExecutor");
+		final Thread schedulerThread = scheduler.submit(new Callable<Thread>() {
+			@Override
+			public Thread call() throws Exception {
+				return Thread.currentThread();
+			}
+		}).get();
+		FutureTask<String> task = new FutureTask<>(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				return "r";
+			}
+		});
+		final AtomicReference<Thread> completer = new AtomicReference<>();
+		CompletableFuture<Object> result = FuturePoller.poll(task, scheduler, executor, NO_DEADLINE);
+		CompletableFuture<Object> dependent = result.whenComplete(new BiConsumer<Object, Throwable>() {
+			@Override
+			public void accept(Object t, Throwable u) {
+				completer.set(Thread.currentThread());
+			}
+		});
+		task.run();
+		assertThat(dependent.get(5, TimeUnit.SECONDS)).isEqualTo("r");
+		assertThat(completer.get()).isNotSameAs(schedulerThread);
+	}
+
+	/**
+	 * Test of poll method, of class FuturePoller, polling stops at deadline.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testPollDeadline() throws Exception {
+		System.out.println("pollDeadline");
+		final long deadline = System.currentTimeMillis() + 30L;
+		CompletableFuture<Object> result = FuturePoller.poll(new FutureTask<>(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				return "r";
+			}
+		}), scheduler, executor, new LongSupplier() {
+			@Override
+			public long getAsLong() {
+				return deadline;
+			}
+		});
+		try {
+			result.get(5, TimeUnit.SECONDS);
+			fail("TimeoutException expected");
+		} catch (ExecutionException ex) {
+			assertThat(ex.getCause()).isInstanceOf(TimeoutException.class);
+		}
+	}
+
+	/**
+	 * Test of run method, of class FuturePoller, polling stops when result is done elsewhere.
+	 */
+	@Test
+	public void testRunResultDone() {
+		System.out.println("runResultDone");
+		ScheduledExecutorService mockScheduler = mock(ScheduledExecutorService.class);
+		CompletableFuture<Object> result = new CompletableFuture<>();
+		FuturePoller instance = new FuturePoller(new FutureTask<>(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				return "r";
+			}
+		}), result, mockScheduler, executor, NO_DEADLINE);
+		instance.run();
+		verify(mockScheduler).schedule(eq(instance), anyLong(), any(TimeUnit.class));
+		result.cancel(false);
+		instance.run();
+		verifyNoMoreInteractions(mockScheduler);
+	}
+
+}
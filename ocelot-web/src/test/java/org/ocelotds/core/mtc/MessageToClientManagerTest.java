@@ -5,16 +5,31 @@
 package org.ocelotds.core.mtc;
 
 import java.lang.reflect.Method;
+import java.security.Principal;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
-import javax.enterprise.inject.Instance;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+import javax.enterprise.context.ApplicationScoped;
 import javax.servlet.http.HttpSession;
 import javax.validation.ConstraintViolationException;
 import javax.websocket.Session;
+import org.junit.Before;
 import org.junit.Test;
+import static org.mockito.AdditionalAnswers.returnsFirstArg;
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.*;
 import org.junit.runner.RunWith;
@@ -22,19 +37,32 @@ import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.ocelotds.Constants;
+import org.ocelotds.annotations.DataService;
+import org.ocelotds.annotations.JsCacheResult;
 import org.ocelotds.cache.CacheManager;
+import org.ocelotds.cache.ResultCache;
+import org.ocelotds.cache.SingleFlightManager;
+import org.ocelotds.context.CancellationToken;
+import org.ocelotds.context.ThreadLocalContextHolder;
 import org.ocelotds.marshalling.ArgumentServices;
+import org.ocelotds.marshalling.IJsonMarshaller;
 import org.ocelotds.core.services.ClassAsDataService;
 import org.ocelotds.core.services.ConstraintServices;
+import org.ocelotds.core.services.DataServiceDescriptor;
+import org.ocelotds.core.services.DataServiceRegistry;
 import org.ocelotds.core.services.FaultServices;
+import org.ocelotds.core.services.MethodDescriptor;
 import org.ocelotds.core.services.MethodServices;
 import org.ocelotds.marshalling.annotations.JsonMarshaller;
 import org.ocelotds.messaging.Fault;
 import org.ocelotds.messaging.MessageFromClient;
 import org.ocelotds.messaging.MessageToClient;
-import org.ocelotds.resolvers.CdiResolver;
-import org.ocelotds.resolvers.DataServiceResolverIdLitteral;
+import org.ocelotds.messaging.MessageType;
+import org.ocelotds.security.OcelotSecured;
 import org.ocelotds.spi.DataServiceException;
 import org.ocelotds.spi.IDataServiceResolver;
 import org.ocelotds.spi.Scope;
@@ -51,15 +79,15 @@ public class MessageToClientManagerTest {
 	@Mock
 	private Logger logger;
 
-	@Mock
-	private Instance<IDataServiceResolver> resolvers;
-
 	@Mock
 	private CacheManager cacheManager;
 
 	@Mock
 	private MethodServices methodServices;
 
+	@Spy
+	private DataServiceRegistry dataServiceRegistry = new DataServiceRegistry();
+
 	@Mock
 	private ArgumentServices argumentServices;
 
@@ -69,6 +97,15 @@ public class MessageToClientManagerTest {
 	@Mock
 	private ConstraintServices constraintServices;
 
+	@Mock
+	private SingleFlightManager singleFlightManager;
+
+	@Mock
+	private ResultCache resultCache;
+
+	@Mock
+	private TimeoutManager timeoutManager;
+
 	@Spy
 	@InjectMocks
 	private MessageToClientManager instance = new MessageToClientManager() {
@@ -78,20 +115,13 @@ public class MessageToClientManagerTest {
 		}
 	};
 
-	/**
-	 * Test of getResolver method, of class WSMessageToClientManager.
-	 */
-	@Test
-	public void testGetResolver() {
-		Instance<IDataServiceResolver> inst = mock(Instance.class);
-		when(resolvers.select(eq(new DataServiceResolverIdLitteral("cdi")))).thenReturn(inst);
-		when(inst.get()).thenReturn(new CdiResolver());
-		IDataServiceResolver result = instance.getResolver("cdi");
-		assertThat(result).isInstanceOf(CdiResolver.class);
+	@Before
+	public void setUp() {
+		when(timeoutManager.within(any(CompletableFuture.class), anyString(), anyLong())).then(returnsFirstArg());
 	}
 
 	/**
-	 * Test of getDataService method, of class WSMessageToClientManager.
+	 * Test of _getDataService method, of class WSMessageToClientManager.
 	 *
 	 * @throws org.ocelotds.spi.DataServiceException
 	 */
@@ -108,24 +138,51 @@ public class MessageToClientManagerTest {
 		when(resolver.getScope(any(Class.class))).thenReturn(Scope.MANAGED).thenReturn(Scope.SESSION);
 		when(resolver.resolveDataService(cls)).thenReturn(ds1).thenReturn(ds2).thenReturn(ds3);
 		doReturn(sessions).when(instance).getSessionBeans(session);
-		doReturn(resolver).when(instance).getResolver("TEST");
 
 		// normal scope
-		Object result = instance._getDataService(session, cls);
+		DataServiceDescriptor descriptor = new DataServiceDescriptor(cls, resolver);
+		Object result = instance._getDataService(session, descriptor);
 		assertThat(result).isEqualTo(ds1);
 		assertThat(sessions).doesNotContainKey(cls.getName());
+		assertThat(descriptor.getInstance()).isNull();
 
 		// session scope
-		result = instance._getDataService(session, cls);
+		descriptor = new DataServiceDescriptor(cls, resolver);
+		result = instance._getDataService(session, descriptor);
 		assertThat(result).isEqualTo(ds2);
 		assertThat(sessions).containsKey(cls.getName());
-		result = instance._getDataService(session, cls);
+		result = instance._getDataService(session, descriptor);
 		assertThat(result).isEqualTo(ds2);
 		assertThat(sessions).containsKey(cls.getName());
 
 		// no session
-		result = instance._getDataService(null, cls);
+		result = instance._getDataService(null, descriptor);
 		assertThat(result).isEqualTo(ds3);
+		verify(resolver, times(2)).getScope(any(Class.class));
+	}
+
+	/**
+	 * Test of _getDataService method, of class WSMessageToClientManager.
+	 *
+	 * @throws org.ocelotds.spi.DataServiceException
+	 */
+	@Test
+	public void test_GetDataServiceApplicationScoped() throws Exception {
+		System.out.println("_getDataServiceApplicationScoped");
+		Class cls = ApplicationScopedDataService.class;
+		IDataServiceResolver resolver = mock(IDataServiceResolver.class);
+		Session session = mock(Session.class);
+		ApplicationScopedDataService ds1 = new ApplicationScopedDataService();
+		ApplicationScopedDataService ds2 = new ApplicationScopedDataService();
+		when(resolver.getScope(any(Class.class))).thenReturn(Scope.MANAGED);
+		when(resolver.resolveDataService(cls)).thenReturn(ds1).thenReturn(ds2);
+
+		DataServiceDescriptor descriptor = new DataServiceDescriptor(cls, resolver);
+		Object result = instance._getDataService(session, descriptor);
+		assertThat(result).isEqualTo(ds1);
+		result = instance._getDataService(session, descriptor);
+		assertThat(result).isEqualTo(ds1);
+		verify(resolver).resolveDataService(cls);
 	}
 
 	@Test
@@ -134,8 +191,10 @@ public class MessageToClientManagerTest {
 		Class cls = ClassAsDataService.class;
 		Session session = mock(Session.class);
 		ClassAsDataService expected = new ClassAsDataService();
-		
-		doReturn(expected).when(instance)._getDataService(any(Session.class), any(Class.class));
+		DataServiceDescriptor descriptor = mock(DataServiceDescriptor.class);
+
+		doReturn(descriptor).when(dataServiceRegistry).getDataServiceDescriptor(cls);
+		doReturn(expected).when(instance)._getDataService(any(Session.class), any(DataServiceDescriptor.class));
 
 		Object result = instance.getDataService(session, cls);
 		
@@ -166,7 +225,8 @@ public class MessageToClientManagerTest {
 		Class cls = ClassAsDataService.class;
 		Session session = mock(Session.class);
 		
-		doThrow(DataServiceException.class).when(instance)._getDataService(any(Session.class), any(Class.class));
+		doReturn(mock(DataServiceDescriptor.class)).when(dataServiceRegistry).getDataServiceDescriptor(cls);
+		doThrow(DataServiceException.class).when(instance)._getDataService(any(Session.class), any(DataServiceDescriptor.class));
 
 		instance.getDataService(session, cls);
 	}
@@ -174,6 +234,11 @@ public class MessageToClientManagerTest {
 	private class ClassAsNotDataService {
 	}
 
+	@DataService(resolver = "TEST")
+	@ApplicationScoped
+	public static class ApplicationScopedDataService {
+	}
+
 	/**
 	 * Test of _createMessageToClient method, of class WSMessageToClientManager.
 	 *
@@ -196,9 +261,8 @@ public class MessageToClientManagerTest {
 		
 		doReturn(obj).when(instance).getDataService(any(Session.class), any(Class.class));
 		doReturn(Arrays.asList("v")).when(instance).getArrayList();
-		when(methodServices.getMethodFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(method);
+		when(methodServices.getMethodDescriptorFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(new MethodDescriptor(method));
 		doNothing().when(instance).injectSession(any(Class[].class), anyList(), anyObject());
-		when(methodServices.getNonProxiedMethod(any(Class.class), anyString(), any(Class[].class))).thenReturn(method);
 		
 		MessageToClient result = instance.createMessageToClient(message, session);
 
@@ -227,17 +291,15 @@ public class MessageToClientManagerTest {
 		
 		doReturn(obj).when(instance).getDataService(any(Session.class), any(Class.class));
 		doReturn(Arrays.asList("v")).when(instance).getArrayList();
-		when(methodServices.getMethodFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(method);
+		MethodDescriptor descriptor = new MethodDescriptor(method);
+		when(methodServices.getMethodDescriptorFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(descriptor);
 		doNothing().when(instance).injectSession(any(Class[].class), anyList(), anyObject());
-		when(methodServices.getNonProxiedMethod(any(Class.class), anyString(), any(Class[].class))).thenThrow(NoSuchMethodException.class);
+		when(cacheManager.processCacheAnnotations(eq(descriptor))).thenReturn(5L);
 		
 		MessageToClient result = instance.createMessageToClient(message, session);
 
 		assertThat(result.getResponse()).isEqualTo(obj.methodReturnString2("v"));
-
-		ArgumentCaptor<String> captureLog = ArgumentCaptor.forClass(String.class);
-		verify(logger).error(captureLog.capture(), any(NoSuchMethodException.class));
-		assertThat(captureLog.getValue()).isEqualTo("Fail to process extra annotations (JsCacheResult, JsCacheRemove) for method : "+methodname);
+		assertThat(result.getDeadline()).isEqualTo(5L);
 	}
 
 	/**
@@ -262,11 +324,12 @@ public class MessageToClientManagerTest {
 		
 		doReturn(obj).when(instance).getDataService(any(Session.class), any(Class.class));
 		doReturn(Arrays.asList("v")).when(instance).getArrayList();
-		when(methodServices.getMethodFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(method);
+		when(methodServices.getMethodDescriptorFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(new MethodDescriptor(method));
 		doNothing().when(instance).injectSession(any(Class[].class), anyList(), anyObject());
-		when(methodServices.getNonProxiedMethod(any(Class.class), anyString(), any(Class[].class))).thenReturn(method);
+		IJsonMarshaller marshaller = mock(IJsonMarshaller.class);
+		doReturn(marshaller).when(instance).getMarshaller(any(MethodDescriptor.class));
 		when(argumentServices
-				  .getJsonResultFromSpecificMarshaller(any(JsonMarshaller.class), any(Object.class)))
+				  .getJsonResultFromSpecificMarshaller(any(JsonMarshaller.class), eq(marshaller), any(Object.class)))
 				  .thenReturn("{\"language\":\"fr\",\"country\":\"FR\"}");
 		
 		MessageToClient result = instance.createMessageToClient(message, session);
@@ -298,7 +361,7 @@ public class MessageToClientManagerTest {
 		
 		doReturn(obj).when(instance).getDataService(any(Session.class), any(Class.class));
 		doReturn(Arrays.asList("v")).when(instance).getArrayList();
-		when(methodServices.getMethodFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(method);
+		when(methodServices.getMethodDescriptorFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(new MethodDescriptor(method));
 		doNothing().when(instance).injectSession(any(Class[].class), anyList(), anyObject());
 		when(faultServices.buildFault(any(Throwable.class))).thenReturn(fault);
 		
@@ -351,7 +414,7 @@ public class MessageToClientManagerTest {
 		
 		doReturn(obj).when(instance).getDataService(any(Session.class), any(Class.class));
 		doReturn(Arrays.asList("v")).when(instance).getArrayList();
-		when(methodServices.getMethodFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(method);
+		when(methodServices.getMethodDescriptorFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(new MethodDescriptor(method));
 		doNothing().when(instance).injectSession(any(Class[].class), anyList(), anyObject());
 		when(faultServices.buildFault(any(Throwable.class))).thenReturn(fault);
 		when(constraintServices.extractViolations(any(ConstraintViolationException.class))).thenReturn(null);
@@ -418,6 +481,24 @@ public class MessageToClientManagerTest {
 		assertThat(arguments.get(1)).isNull();
 	}
 
+	/**
+	 * Test of getMarshaller method, of class MessageToClientManager.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetMarshaller() throws Exception {
+		System.out.println("getMarshaller");
+		MethodDescriptor descriptor = new MethodDescriptor(ClassAsDataService.class.getMethod("methodWithMarshaller", String.class));
+		IJsonMarshaller marshaller = mock(IJsonMarshaller.class);
+		when(argumentServices.getIJsonMarshallerInstance(any(Class.class))).thenReturn(marshaller);
+		IJsonMarshaller result = instance.getMarshaller(descriptor);
+		assertThat(result).isEqualTo(marshaller);
+		result = instance.getMarshaller(descriptor);
+		assertThat(result).isEqualTo(marshaller);
+		verify(argumentServices).getIJsonMarshallerInstance(any(Class.class));
+	}
+
 	/**
 	 * Test of getArrayList method, of class WSMessageToClientManager.
 	 *
@@ -429,4 +510,447 @@ public class MessageToClientManagerTest {
 		List<Object> arrayList = instance.getArrayList();
 		assertThat(arrayList).isNotNull();
 	}
+
+	/**
+	 * Test of createMessageToClientAsync method, of class MessageToClientManager.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testCreateMessageToClientAsync() throws Exception {
+		String methodname = "methodReturnCompletableFuture";
+		System.out.println("createMessageToClientAsync("+methodname+")");
+		Class cls = ClassAsDataService.class;
+		MessageFromClient message = new MessageFromClient();
+		message.setDataService(cls.getName());
+		message.setOperation(methodname);
+		message.setParameters(Arrays.asList("\"v\""));
+		message.setId(UUID.randomUUID().toString());
+		Session session = mock(Session.class);
+		Method method = cls.getMethod(methodname, String.class);
+
+		ClassAsDataService obj = new ClassAsDataService();
+
+		doReturn(obj).when(instance).getDataService(any(Session.class), any(Class.class));
+		doReturn(Arrays.asList("v")).when(instance).getArrayList();
+		MethodDescriptor descriptor = new MethodDescriptor(method);
+		when(methodServices.getMethodDescriptorFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(descriptor);
+		doNothing().when(instance).injectSession(any(Class[].class), anyList(), anyObject());
+		when(cacheManager.processCacheAnnotations(eq(descriptor))).thenReturn(5L);
+
+		CompletableFuture<MessageToClient> future = instance.createMessageToClientAsync(message, session);
+
+		MessageToClient result = future.get(5, TimeUnit.SECONDS);
+		assertThat(result.getId()).isEqualTo(message.getId());
+		assertThat(result.getResponse()).isEqualTo("asyncv");
+		assertThat(result.getDeadline()).isEqualTo(5L);
+	}
+
+	/**
+	 * Test of createMessageToClientAsync method, of class MessageToClientManager.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testCreateMessageToClientAsync2() throws Exception {
+		String methodname = "methodReturnFailedStage";
+		System.out.println("createMessageToClientAsync("+methodname+")");
+		Class cls = ClassAsDataService.class;
+		MessageFromClient message = new MessageFromClient();
+		message.setDataService(cls.getName());
+		message.setOperation(methodname);
+		message.setParameters(Arrays.asList("\"v\""));
+		message.setId(UUID.randomUUID().toString());
+		Session session = mock(Session.class);
+		Method method = cls.getMethod(methodname, String.class);
+
+		ClassAsDataService obj = new ClassAsDataService();
+
+		doReturn(obj).when(instance).getDataService(any(Session.class), any(Class.class));
+		doReturn(Arrays.asList("v")).when(instance).getArrayList();
+		MethodDescriptor descriptor = new MethodDescriptor(method);
+		when(methodServices.getMethodDescriptorFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(descriptor);
+		doNothing().when(instance).injectSession(any(Class[].class), anyList(), anyObject());
+		when(constraintServices.extractViolations(any(ConstraintViolationException.class))).thenReturn(null);
+
+		CompletableFuture<MessageToClient> future = instance.createMessageToClientAsync(message, session);
+
+		MessageToClient result = future.get(5, TimeUnit.SECONDS);
+
+		assertThat(result.getId()).isEqualTo(message.getId());
+		verify(constraintServices).extractViolations(any(ConstraintViolationException.class));
+		verify(faultServices, never()).buildFault(any(Throwable.class));
+	}
+
+	/**
+	 * Test of createMessageToClientAsync method, of class MessageToClientManager.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testCreateMessageToClientAsync3() throws Exception {
+		String methodname = "methodReturnFuture";
+		System.out.println("createMessageToClientAsync("+methodname+")");
+		Class cls = ClassAsDataService.class;
+		MessageFromClient message = new MessageFromClient();
+		message.setDataService(cls.getName());
+		message.setOperation(methodname);
+		message.setParameters(Arrays.asList("\"v\""));
+		message.setId(UUID.randomUUID().toString());
+		Session session = mock(Session.class);
+		Method method = cls.getMethod(methodname, String.class);
+
+		ClassAsDataService obj = new ClassAsDataService();
+
+		doReturn(obj).when(instance).getDataService(any(Session.class), any(Class.class));
+		doReturn(Arrays.asList("v")).when(instance).getArrayList();
+		MethodDescriptor descriptor = new MethodDescriptor(method);
+		when(methodServices.getMethodDescriptorFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(descriptor);
+		doNothing().when(instance).injectSession(any(Class[].class), anyList(), anyObject());
+		Fault fault = mock(Fault.class);
+		when(faultServices.buildFault(any(AbstractMethodError.class))).thenReturn(fault);
+
+		CompletableFuture<MessageToClient> future = instance.createMessageToClientAsync(message, session);
+
+		MessageToClient result = future.get(5, TimeUnit.SECONDS);
+
+		assertThat(result.getResponse()).isEqualTo(fault);
+	}
+
+	/**
+	 * Test of unwrap method, of class MessageToClientManager.
+	 */
+	@Test
+	public void testUnwrap() {
+		System.out.println("unwrap");
+		Exception cause = new Exception();
+		assertThat(instance.unwrap(cause)).isEqualTo(cause);
+		assertThat(instance.unwrap(new CompletionException(cause))).isEqualTo(cause);
+		assertThat(instance.unwrap(new CompletionException(new ExecutionException(cause)))).isEqualTo(cause);
+		CompletionException ce = new CompletionException(null);
+		assertThat(instance.unwrap(ce)).isEqualTo(ce);
+	}
+
+	/**
+	 * Test of toCompletionStage method, of class MessageToClientManager.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testToCompletionStage() throws Exception {
+		System.out.println("toCompletionStage");
+		CompletableFuture<String> stage = CompletableFuture.completedFuture("r");
+		assertThat(instance.toCompletionStage(stage, instance.getDeadlineSupplier(0L))).isSameAs(stage);
+		FutureTask<String> task = new FutureTask<>(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				return "r";
+			}
+		});
+		ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor();
+		when(timeoutManager.getScheduler()).thenReturn(scheduler);
+		CompletionStage<?> result = instance.toCompletionStage(task, instance.getDeadlineSupplier(0L));
+		task.run();
+		assertThat(result.toCompletableFuture().get(5, TimeUnit.SECONDS)).isEqualTo("r");
+		scheduler.shutdownNow();
+	}
+
+	/**
+	 * Test of createMessageToClientAsync method, of class MessageToClientManager, identical calls of cached method are coalesced.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testCreateMessageToClientAsyncCoalesced() throws Exception {
+		System.out.println("createMessageToClientAsyncCoalesced");
+		MessageFromClient message = new MessageFromClient();
+		message.setId("ID");
+		message.setDataService(ClassAsDataService.class.getName());
+		MethodDescriptor descriptor = new MethodDescriptor(ClassAsDataService.class.getMethod("methodReturnString", String.class));
+		Object obj = new ClassAsDataService();
+		doReturn(obj).when(instance).getDataService(any(Session.class), any(Class.class));
+		when(methodServices.getMethodDescriptorFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(descriptor);
+		doReturn("KEY").when(instance).getFlightKey(any(Class.class), any(MethodDescriptor.class), anyList());
+		doReturn(CompletableFuture.completedFuture(new MessageToClient())).when(instance).coalesce(anyString(), any(MessageToClient.class), any(MethodDescriptor.class), any(), any(Object[].class), anyLong());
+
+		CompletableFuture<MessageToClient> future = instance.createMessageToClientAsync(message, mock(Session.class));
+
+		assertThat(future.isDone()).isTrue();
+		verify(instance).coalesce(eq("KEY"), any(MessageToClient.class), eq(descriptor), eq(obj), any(Object[].class), anyLong());
+		verify(instance, never()).invoke(any(MessageToClient.class), any(MethodDescriptor.class), any(), any(Object[].class), any(LongSupplier.class));
+		verify(timeoutManager, never()).interruptAt(anyLong());
+	}
+
+	/**
+	 * Test of coalesce method, of class MessageToClientManager, the cancel of the caller doesn't interrupt the shared invocation.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testCoalesceCancelled() throws Exception {
+		System.out.println("coalesceCancelled");
+		final MethodDescriptor descriptor = new MethodDescriptor(ClassAsDataService.class.getMethod("methodCached", String.class));
+		final Object obj = new ClassAsDataService();
+		final Object[] arguments = new Object[]{"a"};
+		final CancellationToken token = new CancellationToken();
+		final MessageToClient shared = new MessageToClient();
+		shared.setResult("RESULT");
+		when(singleFlightManager.execute(anyString(), anyLong(), any(Function.class))).thenAnswer(new Answer<CompletableFuture<MessageToClient>>() {
+			@Override
+			public CompletableFuture<MessageToClient> answer(InvocationOnMock invocation) throws Throwable {
+				return ((Function<LongSupplier, CompletableFuture<MessageToClient>>) invocation.getArguments()[2]).apply(mock(LongSupplier.class));
+			}
+		});
+		doAnswer(new Answer<CompletableFuture<MessageToClient>>() {
+			@Override
+			public CompletableFuture<MessageToClient> answer(InvocationOnMock invocation) throws Throwable {
+				assertThat(ThreadLocalContextHolder.get(Constants.CANCELLATIONTOKEN)).isNull();
+				token.cancel();
+				assertThat(Thread.currentThread().isInterrupted()).isFalse();
+				return CompletableFuture.completedFuture(shared);
+			}
+		}).when(instance).invoke(any(MessageToClient.class), eq(descriptor), eq(obj), eq(arguments), any(LongSupplier.class));
+		token.attach(Thread.currentThread());
+		ThreadLocalContextHolder.put(Constants.CANCELLATIONTOKEN, token);
+		try {
+			MessageToClient mtc = new MessageToClient();
+			CompletableFuture<MessageToClient> future = instance.coalesce("KEY", mtc, descriptor, obj, arguments, 5L);
+
+			assertThat(future.get().getResponse()).isEqualTo("RESULT");
+			assertThat(ThreadLocalContextHolder.get(Constants.CANCELLATIONTOKEN)).isSameAs(token);
+			assertThat(token.isCancelled()).isTrue();
+		} finally {
+			Thread.interrupted();
+			ThreadLocalContextHolder.cleanupThread();
+		}
+	}
+
+	/**
+	 * Test of getFlightKey method, of class MessageToClientManager.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetFlightKey() throws Exception {
+		System.out.println("getFlightKey");
+		Class cls = ClassAsDataService.class;
+		List<Object> arguments = Arrays.asList((Object) "a");
+		MethodDescriptor notCached = new MethodDescriptor(cls.getMethod("methodReturnString", String.class));
+		MethodDescriptor notShared = new MethodDescriptor(cls.getMethod("methodCached", String.class));
+		MethodDescriptor cached = new MethodDescriptor(cls.getMethod("methodCachedShared", String.class));
+		MethodDescriptor userScope = new MethodDescriptor(cls.getMethod("methodCachedUserScope", String.class));
+		DataServiceDescriptor dsDescriptor = mock(DataServiceDescriptor.class);
+		doReturn(dsDescriptor).when(dataServiceRegistry).getDataServiceDescriptor(eq(cls));
+		when(dsDescriptor.getScope()).thenReturn(Scope.MANAGED).thenReturn(Scope.SESSION).thenReturn(Scope.MANAGED);
+		when(cacheManager.computeCacheKey(eq(cls), eq(cached), any(Object[].class))).thenReturn("KEY").thenThrow(IllegalArgumentException.class);
+		when(cacheManager.computeCacheKey(eq(cls), eq(userScope), any(Object[].class))).thenReturn("KEY");
+		when(resultCache.getKey(eq("KEY"), eq(false))).thenReturn("KEY");
+		when(resultCache.getKey(eq("KEY"), eq(true))).thenReturn("KEY@USER");
+
+		assertThat(instance.getFlightKey(cls, notCached, arguments)).isNull();
+		assertThat(instance.getFlightKey(cls, notShared, arguments)).isNull();
+		assertThat(instance.getFlightKey(cls, cached, arguments)).isEqualTo("KEY");
+		assertThat(instance.getFlightKey(cls, cached, arguments)).isNull();
+		assertThat(instance.getFlightKey(cls, cached, arguments)).isNull();
+		assertThat(instance.getFlightKey(cls, userScope, arguments)).isEqualTo("KEY@USER");
+	}
+
+	/**
+	 * Test of coalesce method, of class MessageToClientManager.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testCoalesce() throws Exception {
+		System.out.println("coalesce");
+		final MethodDescriptor descriptor = new MethodDescriptor(ClassAsDataService.class.getMethod("methodCached", String.class));
+		final Object obj = new ClassAsDataService();
+		final Object[] arguments = new Object[]{"a"};
+		final LongSupplier flightDeadline = mock(LongSupplier.class);
+		MessageToClient leader = new MessageToClient();
+		leader.setId("LEADER");
+		leader.setResult("RESULT");
+		leader.setDeadline(5L);
+		when(singleFlightManager.execute(anyString(), anyLong(), any(Function.class))).thenAnswer(new Answer<CompletableFuture<MessageToClient>>() {
+			@Override
+			public CompletableFuture<MessageToClient> answer(InvocationOnMock invocation) throws Throwable {
+				return ((Function<LongSupplier, CompletableFuture<MessageToClient>>) invocation.getArguments()[2]).apply(flightDeadline);
+			}
+		}).thenReturn(CompletableFuture.completedFuture(leader));
+		doReturn(CompletableFuture.completedFuture(leader)).when(instance).invoke(any(MessageToClient.class), eq(descriptor), eq(obj), eq(arguments), eq(flightDeadline));
+
+		// first call invokes method
+		MessageToClient mtc = new MessageToClient();
+		mtc.setId("ID1");
+		CompletableFuture<MessageToClient> future = instance.coalesce("KEY", mtc, descriptor, obj, arguments, 5L);
+		assertThat(future.get()).isSameAs(mtc);
+		verify(instance).invoke(eq(mtc), eq(descriptor), eq(obj), eq(arguments), eq(flightDeadline));
+		verify(singleFlightManager).execute(eq("KEY"), eq(5L), any(Function.class));
+
+		// second call receives result of invocation in flight
+		mtc = new MessageToClient();
+		mtc.setId("ID2");
+		future = instance.coalesce("KEY", mtc, descriptor, obj, arguments, 5L);
+		MessageToClient result = future.get();
+		assertThat(result).isSameAs(mtc);
+		assertThat(result.getId()).isEqualTo("ID2");
+		assertThat(result.getType()).isEqualTo(MessageType.RESULT);
+		assertThat(result.getResponse()).isEqualTo("RESULT");
+		assertThat(result.getDeadline()).isEqualTo(5L);
+		verify(instance, times(1)).invoke(any(MessageToClient.class), any(MethodDescriptor.class), any(), any(Object[].class), any(LongSupplier.class));
+		verify(resultCache).put(eq("KEY"), eq(leader), anyLong());
+	}
+
+	/**
+	 * Test of coalesce method, of class MessageToClientManager, result is in server side cache.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testCoalesceFromCache() throws Exception {
+		System.out.println("coalesceFromCache");
+		MethodDescriptor descriptor = new MethodDescriptor(ClassAsDataService.class.getMethod("methodCached", String.class));
+		MessageToClient cached = new MessageToClient();
+		cached.setResult(null);
+		cached.setJson("\"RESULT\"");
+		cached.setDeadline(5L);
+		when(resultCache.get(eq("KEY"))).thenReturn(cached);
+		MessageToClient mtc = new MessageToClient();
+		mtc.setId("ID");
+
+		CompletableFuture<MessageToClient> future = instance.coalesce("KEY", mtc, descriptor, new ClassAsDataService(), new Object[]{"a"}, 5L);
+
+		assertThat(future.isDone()).isTrue();
+		MessageToClient result = future.get();
+		assertThat(result).isSameAs(mtc);
+		assertThat(result.getJsonResponse()).isEqualTo("\"RESULT\"");
+		assertThat(result.getDeadline()).isEqualTo(5L);
+		verify(singleFlightManager, never()).execute(anyString(), anyLong(), any(Function.class));
+		verify(instance, never()).invoke(any(MessageToClient.class), any(MethodDescriptor.class), any(), any(Object[].class), any(LongSupplier.class));
+	}
+
+
+	/**
+	 * Test of createMessageToClientAsync method, of class MessageToClientManager, call expired before invocation.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testCreateMessageToClientAsyncExpired() throws Exception {
+		System.out.println("createMessageToClientAsyncExpired");
+		Class cls = ClassAsDataService.class;
+		MessageFromClient message = new MessageFromClient();
+		message.setDataService(cls.getName());
+		message.setOperation("methodReturnString");
+		message.setId("ID");
+		MethodDescriptor descriptor = mock(MethodDescriptor.class);
+		MessageToClient timeout = new MessageToClient();
+
+		doReturn(new ClassAsDataService()).when(instance).getDataService(any(Session.class), any(Class.class));
+		when(methodServices.getMethodDescriptorFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(descriptor);
+		when(timeoutManager.getDeadline(eq(message), eq(descriptor))).thenReturn(5L);
+		when(timeoutManager.isExpired(eq(5L))).thenReturn(true);
+		when(timeoutManager.createTimeoutResponse(eq("ID"), eq(5L))).thenReturn(timeout);
+
+		CompletableFuture<MessageToClient> future = instance.createMessageToClientAsync(message, mock(Session.class));
+
+		MessageToClient result = future.get();
+
+		assertThat(result).isSameAs(timeout);
+		verify(descriptor, never()).invoke(anyObject(), any(Object[].class));
+		verify(timeoutManager, never()).within(any(CompletableFuture.class), anyString(), anyLong());
+	}
+
+	/**
+	 * Test of createMessageToClientAsync method, of class MessageToClientManager, call is bounded by its deadline.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testCreateMessageToClientAsyncWithDeadline() throws Exception {
+		System.out.println("createMessageToClientAsyncWithDeadline");
+		Class cls = ClassAsDataService.class;
+		MessageFromClient message = new MessageFromClient();
+		message.setDataService(cls.getName());
+		message.setOperation("methodReturnString");
+		message.setParameters(Arrays.asList("\"v\""));
+		message.setId("ID");
+		MethodDescriptor descriptor = new MethodDescriptor(cls.getMethod("methodReturnString", String.class));
+		ScheduledFuture interruption = mock(ScheduledFuture.class);
+		MessageToClient timeout = new MessageToClient();
+
+		doReturn(new ClassAsDataService()).when(instance).getDataService(any(Session.class), any(Class.class));
+		doReturn(Arrays.asList("v")).when(instance).getArrayList();
+		when(methodServices.getMethodDescriptorFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(descriptor);
+		doNothing().when(instance).injectSession(any(Class[].class), anyList(), anyObject());
+		when(timeoutManager.getDeadline(eq(message), eq(descriptor))).thenReturn(5L);
+		when(timeoutManager.interruptAt(eq(5L))).thenReturn(interruption);
+		when(timeoutManager.within(any(CompletableFuture.class), eq("ID"), eq(5L))).thenReturn(CompletableFuture.completedFuture(timeout));
+
+		CompletableFuture<MessageToClient> future = instance.createMessageToClientAsync(message, mock(Session.class));
+
+		MessageToClient result = future.get();
+
+		assertThat(result).isSameAs(timeout);
+		verify(interruption).cancel(eq(false));
+	}
+
+	/**
+	 * Test of createMessageToClientAsync method, of class MessageToClientManager, calls of secured method are neither coalesced nor cached.<br>
+	 * The user without role doesn't receive the result of the user with role
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testCreateMessageToClientAsyncSecured() throws Exception {
+		System.out.println("createMessageToClientAsyncSecured");
+		MessageFromClient message = new MessageFromClient();
+		message.setId("ID");
+		message.setDataService(SecuredDataService.class.getName());
+		MethodDescriptor descriptor = new MethodDescriptor(SecuredDataService.class.getMethod("methodCachedShared", String.class));
+		doReturn(new SecuredDataService()).when(instance).getDataService(any(Session.class), any(Class.class));
+		doReturn(Arrays.asList((Object) "a")).when(instance).getArrayList();
+		when(methodServices.getMethodDescriptorFromDataService(any(Class.class), any(MessageFromClient.class), anyList())).thenReturn(descriptor);
+		DataServiceDescriptor dsDescriptor = mock(DataServiceDescriptor.class);
+		doReturn(dsDescriptor).when(dataServiceRegistry).getDataServiceDescriptor(eq(SecuredDataService.class));
+		when(dsDescriptor.getScope()).thenReturn(Scope.MANAGED);
+		when(cacheManager.computeCacheKey(eq(SecuredDataService.class), eq(descriptor), any(Object[].class))).thenReturn("KEY");
+		when(resultCache.getKey(eq("KEY"), anyBoolean())).thenReturn("KEY");
+		Principal admin = mock(Principal.class);
+		when(admin.getName()).thenReturn("admin");
+		Principal user = mock(Principal.class);
+		when(user.getName()).thenReturn("user");
+		try {
+			ThreadLocalContextHolder.put(Constants.PRINCIPAL, admin);
+			MessageToClient result = (MessageToClient) instance.createMessageToClientAsync(message, mock(Session.class)).get();
+			assertThat(result.getResponse()).isEqualTo("SECRET");
+
+			ThreadLocalContextHolder.put(Constants.PRINCIPAL, user);
+			result = (MessageToClient) instance.createMessageToClientAsync(message, mock(Session.class)).get();
+			assertThat(result.getResponse()).isNotEqualTo("SECRET");
+			verify(faultServices).buildFault(any(IllegalAccessException.class));
+		} finally {
+			ThreadLocalContextHolder.cleanupThread();
+		}
+		verify(singleFlightManager, never()).execute(anyString(), anyLong(), any(Function.class));
+		verify(resultCache, never()).get(anyString());
+		verify(resultCache, never()).put(anyString(), any(MessageToClient.class), anyLong());
+	}
+
+	/**
+	 * Shared cached method, secured : roles of caller are checked like SecureInterceptor does
+	 */
+	public static class SecuredDataService {
+
+		@OcelotSecured(roles = "ADMIN")
+		@JsCacheResult(shared = true)
+		public String methodCachedShared(String a) throws IllegalAccessException {
+			Principal principal = (Principal) ThreadLocalContextHolder.get(Constants.PRINCIPAL);
+			if (!"admin".equals(principal.getName())) {
+				throw new IllegalAccessException(principal.getName() + " is not ADMIN");
+			}
+			return "SECRET";
+		}
+	}
+
 }
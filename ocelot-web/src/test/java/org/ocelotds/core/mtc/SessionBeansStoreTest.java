@@ -0,0 +1,94 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.mtc;
+
+import java.util.Map;
+import org.junit.Test;
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.configuration.SessionBeansConfigurationManager;
+import org.ocelotds.core.services.DataServiceDescriptor;
+import org.ocelotds.core.services.DataServiceRegistry;
+import org.ocelotds.spi.IDataServiceResolver;
+import org.slf4j.Logger;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class SessionBeansStoreTest {
+
+	@Mock
+	private Logger logger;
+
+	@Mock
+	private SessionBeansConfigurationManager configuration;
+
+	@Mock
+	private DataServiceRegistry dataServiceRegistry;
+
+	@InjectMocks
+	private SessionBeansStore instance;
+
+	/**
+	 * Test of getSessionBeans method, of class SessionBeansStore.
+	 */
+	@Test
+	public void testGetSessionBeans() {
+		System.out.println("getSessionBeans");
+		when(configuration.getMax()).thenReturn(10);
+		when(configuration.getIdle()).thenReturn(0L);
+		Map<String, Object> result = instance.getSessionBeans("WSID");
+		assertThat(result).isInstanceOf(SessionBeans.class);
+		result.put("A", "a");
+		assertThat(instance.getSessionBeans("WSID")).isSameAs(result);
+		assertThat(instance.getSessionBeans("WSID2")).isNotSameAs(result);
+		assertThat(instance.size()).isEqualTo(2);
+	}
+
+	/**
+	 * Test of removeSessionBeans method, of class SessionBeansStore.
+	 */
+	@Test
+	public void testRemoveSessionBeans() {
+		System.out.println("removeSessionBeans");
+		Map<String, Object> result = instance.getSessionBeans("WSID");
+		result.put("A", "a");
+		instance.removeSessionBeans("WSID");
+		instance.removeSessionBeans("UNKNOWN");
+		assertThat(result).isEmpty();
+		assertThat(instance.size()).isEqualTo(0);
+		assertThat(instance.getSessionBeans("WSID")).isNotSameAs(result);
+	}
+
+
+	/**
+	 * Test of releaseSessionBean method, of class SessionBeansStore, evicted bean is released by its resolver.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testEvictionReleasesBean() throws Exception {
+		System.out.println("evictionReleasesBean");
+		IDataServiceResolver resolver = mock(IDataServiceResolver.class);
+		DataServiceDescriptor descriptor = mock(DataServiceDescriptor.class);
+		when(descriptor.getResolver()).thenReturn(resolver);
+		when(dataServiceRegistry.getDataServiceClass("java.lang.String")).thenReturn((Class) String.class);
+		when(dataServiceRegistry.getDataServiceDescriptor(String.class)).thenReturn(descriptor);
+		when(configuration.getMax()).thenReturn(1);
+		Map<String, Object> result = instance.getSessionBeans("WSID");
+		result.put("java.lang.String", "a");
+		result.put("java.lang.Integer", 5); // String is evicted
+		verify(resolver).releaseDataService("a");
+
+		// unknown class is logged
+		instance.releaseSessionBean("java.lang.Integer", 5);
+		verify(logger).warn(anyString(), any(NullPointerException.class));
+	}
+}
@@ -0,0 +1,130 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.mtc;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.BiConsumer;
+import org.junit.Test;
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+public class SessionBeansTest {
+
+	/**
+	 * Test of removeEldestEntry method, of class SessionBeans.
+	 */
+	@Test
+	public void testMax() {
+		System.out.println("max");
+		SessionBeans instance = new SessionBeans(2, 0);
+		instance.put("A", "a");
+		instance.put("B", "b");
+		assertThat(instance.get("A")).isEqualTo("a"); // B is now the least recently used
+		instance.put("C", "c");
+		assertThat(instance).hasSize(2);
+		assertThat(instance.get("B")).isNull();
+		assertThat(instance.get("A")).isEqualTo("a");
+		assertThat(instance.get("C")).isEqualTo("c");
+	}
+
+	/**
+	 * Test of evictIdles method, of class SessionBeans.
+	 */
+	@Test
+	public void testIdle() {
+		System.out.println("idle");
+		SessionBeans instance = spy(new SessionBeans(0, 100));
+		when(instance.now()).thenReturn(1000L, 1050L, 1080L, 1160L, 1170L);
+		instance.put("A", "a"); // 1000
+		instance.put("B", "b"); // 1050
+		assertThat(instance.get("A")).isEqualTo("a"); // 1080, A is used
+		assertThat(instance.get("B")).isNull(); // 1160, B is not used since 110ms
+		assertThat(instance.get("A")).isEqualTo("a"); // 1170, A is used since 90ms
+	}
+
+	/**
+	 * Test of evictIdles method, of class SessionBeans.
+	 */
+	@Test
+	public void testEvictIdles() {
+		System.out.println("evictIdles");
+		SessionBeans instance = spy(new SessionBeans(0, 100));
+		when(instance.now()).thenReturn(1000L, 1050L);
+		instance.put("A", "a"); // 1000
+		instance.put("B", "b"); // 1050
+		List<Map.Entry<String, Object>> evicted = new ArrayList<>();
+		instance.evictIdles(1120L, evicted);
+		assertThat(instance).containsOnlyKeys("B");
+		assertThat(evicted).hasSize(1);
+		assertThat(evicted.get(0).getKey()).isEqualTo("A");
+		instance.evictIdles(1150L, evicted);
+		assertThat(instance).isEmpty();
+		assertThat(evicted).hasSize(2);
+	}
+
+	/**
+	 * Test of remove and clear methods, of class SessionBeans.
+	 */
+	@Test
+	public void testRemoveAndClear() {
+		System.out.println("removeAndClear");
+		SessionBeans instance = new SessionBeans(10, 1000);
+		instance.put("A", "a");
+		instance.put("B", "b");
+		instance.remove("A");
+		assertThat(instance).containsOnlyKeys("B");
+		instance.clear();
+		assertThat(instance).isEmpty();
+	}
+
+	/**
+	 * Test of entrySet method, of class SessionBeans, iteration works on a copy.
+	 */
+	@Test
+	public void testEntrySet() {
+		System.out.println("entrySet");
+		SessionBeans instance = new SessionBeans(10, 1000);
+		instance.put("A", "a");
+		instance.put("B", "b");
+		int count = 0;
+		for (String key : instance.keySet()) {
+			instance.get("A"); // reorder during iteration
+			instance.put("C" + key, "c");
+			count++;
+		}
+		assertThat(count).isEqualTo(2);
+		assertThat(instance.containsKey("CA")).isTrue();
+		assertThat(instance.size()).isEqualTo(4);
+	}
+
+
+	/**
+	 * Test of release method, of class SessionBeans, beans evicted, replaced or cleared are released.
+	 */
+	@Test
+	public void testRelease() {
+		System.out.println("release");
+		BiConsumer<String, Object> releaser = mock(BiConsumer.class);
+		SessionBeans instance = spy(new SessionBeans(2, 100, releaser));
+		when(instance.now()).thenReturn(1000L, 1010L, 1020L, 1030L, 1200L);
+		instance.put("A", "a"); // 1000
+		instance.put("B", "b"); // 1010
+		instance.put("C", "c"); // 1020, A is over max
+		verify(releaser).accept("A", "a");
+		instance.put("C", "c2"); // 1030, C is replaced
+		verify(releaser).accept("C", "c");
+		instance.put("D", "d"); // 1200, B and C are idle
+		verify(releaser).accept("B", "b");
+		verify(releaser).accept("C", "c2");
+		instance.clear();
+		verify(releaser).accept("D", "d");
+		verifyNoMoreInteractions(releaser);
+	}
+}
@@ -0,0 +1,179 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.mtc;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.Constants;
+import org.ocelotds.configuration.TimeoutConfigurationManager;
+import org.ocelotds.context.CancellationToken;
+import org.ocelotds.context.ThreadLocalContextHolder;
+import org.ocelotds.core.services.FaultServices;
+import org.ocelotds.core.services.MethodDescriptor;
+import org.ocelotds.messaging.Fault;
+import org.ocelotds.messaging.MessageFromClient;
+import org.ocelotds.messaging.MessageToClient;
+import org.ocelotds.messaging.MessageType;
+import org.slf4j.Logger;
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TimeoutManagerTest {
+
+	@Mock
+	private Logger logger;
+
+	@Mock
+	private TimeoutConfigurationManager configuration;
+
+	@Mock
+	private FaultServices faultServices;
+
+	@Spy
+	@InjectMocks
+	private TimeoutManager instance;
+
+	@After
+	public void tearDown() {
+		instance.shutdown();
+		ThreadLocalContextHolder.cleanupThread();
+	}
+
+	/**
+	 * Test of getDeadline method, of class TimeoutManager.
+	 */
+	@Test
+	public void testGetDeadline() {
+		System.out.println("getDeadline");
+		MessageFromClient message = new MessageFromClient();
+		MethodDescriptor descriptor = mock(MethodDescriptor.class);
+		long received = message.getReceived();
+		// not bounded
+		assertThat(instance.getDeadline(message, descriptor)).isEqualTo(0L);
+		// default timeout
+		when(configuration.getDefaultTimeout()).thenReturn(1000L);
+		assertThat(instance.getDeadline(message, descriptor)).isEqualTo(received + 1000L);
+		// timeout of method
+		when(descriptor.getTimeout()).thenReturn(500L);
+		assertThat(instance.getDeadline(message, descriptor)).isEqualTo(received + 500L);
+		// deadline of client is earlier
+		message.setDeadline(received + 100L);
+		assertThat(instance.getDeadline(message, descriptor)).isEqualTo(received + 100L);
+		// deadline of client is later
+		message.setDeadline(received + 800L);
+		assertThat(instance.getDeadline(message, descriptor)).isEqualTo(received + 500L);
+		// only deadline of client
+		when(descriptor.getTimeout()).thenReturn(0L);
+		when(configuration.getDefaultTimeout()).thenReturn(0L);
+		assertThat(instance.getDeadline(message, descriptor)).isEqualTo(received + 800L);
+	}
+
+	/**
+	 * Test of isExpired method, of class TimeoutManager.
+	 */
+	@Test
+	public void testIsExpired() {
+		System.out.println("isExpired");
+		assertThat(instance.isExpired(0L)).isFalse();
+		assertThat(instance.isExpired(System.currentTimeMillis() + 10000L)).isFalse();
+		assertThat(instance.isExpired(System.currentTimeMillis() - 1L)).isTrue();
+		assertThat(instance.getExpiredCount()).isEqualTo(1L);
+	}
+
+	/**
+	 * Test of createTimeoutResponse method, of class TimeoutManager.
+	 */
+	@Test
+	public void testCreateTimeoutResponse() {
+		System.out.println("createTimeoutResponse");
+		Fault fault = new Fault(new TimeoutException(), 0);
+		when(faultServices.buildFault(any(TimeoutException.class))).thenReturn(fault);
+		MessageToClient result = instance.createTimeoutResponse("ID", System.currentTimeMillis());
+		assertThat(result.getId()).isEqualTo("ID");
+		assertThat(result.getType()).isEqualTo(MessageType.FAULT);
+		assertThat(result.getResponse()).isEqualTo(fault);
+		assertThat(instance.getTimeoutCount()).isEqualTo(0L);
+	}
+
+	/**
+	 * Test of within method, of class TimeoutManager, response is available in time.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testWithinInTime() throws Exception {
+		System.out.println("withinInTime");
+		MessageToClient mtc = new MessageToClient();
+		CompletableFuture<MessageToClient> future = CompletableFuture.completedFuture(mtc);
+		assertThat(instance.within(future, "ID", 0L)).isSameAs(future);
+		assertThat(instance.within(future, "ID", System.currentTimeMillis() + 10000L)).isSameAs(future);
+
+		future = new CompletableFuture<>();
+		CompletableFuture<MessageToClient> result = instance.within(future, "ID", System.currentTimeMillis() + 10000L);
+		assertThat(result.isDone()).isFalse();
+		future.complete(mtc);
+		assertThat(result.get(1, TimeUnit.SECONDS)).isSameAs(mtc);
+		assertThat(instance.getTimeoutCount()).isEqualTo(0L);
+	}
+
+	/**
+	 * Test of within method, of class TimeoutManager, response is available after deadline.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testWithinLate() throws Exception {
+		System.out.println("withinLate");
+		MessageToClient timeout = new MessageToClient();
+		doReturn(timeout).when(instance).createTimeoutResponse(anyString(), anyLong());
+		CompletableFuture<MessageToClient> future = CompletableFuture.completedFuture(new MessageToClient());
+		assertThat(instance.within(future, "ID", System.currentTimeMillis() - 1L).get()).isSameAs(timeout);
+
+		future = new CompletableFuture<>();
+		CompletableFuture<MessageToClient> result = instance.within(future, "ID", System.currentTimeMillis() + 50L);
+		assertThat(result.get(5, TimeUnit.SECONDS)).isSameAs(timeout);
+		future.complete(new MessageToClient());
+		assertThat(result.get()).isSameAs(timeout);
+		assertThat(instance.getTimeoutCount()).isEqualTo(2L);
+	}
+
+	/**
+	 * Test of interruptAt method, of class TimeoutManager.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testInterruptAt() {
+		System.out.println("interruptAt");
+		assertThat(instance.interruptAt(System.currentTimeMillis() + 50L)).isNull();
+		CancellationToken token = new CancellationToken();
+		ThreadLocalContextHolder.put(Constants.CANCELLATIONTOKEN, token);
+		assertThat(instance.interruptAt(0L)).isNull();
+
+		token.attach(Thread.currentThread());
+		ScheduledFuture<?> timer = instance.interruptAt(System.currentTimeMillis() + 50L);
+		long end = System.currentTimeMillis() + 5000L;
+		while (!timer.isDone() && System.currentTimeMillis() < end) { // don't sleep, thread will be interrupted
+			Thread.yield();
+		}
+		assertThat(Thread.currentThread().isInterrupted()).isTrue();
+		assertThat(token.isCancelled()).isFalse();
+		token.detach();
+		assertThat(Thread.currentThread().isInterrupted()).isFalse();
+	}
+}
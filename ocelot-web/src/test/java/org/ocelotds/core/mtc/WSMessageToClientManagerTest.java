@@ -3,6 +3,7 @@
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
 package org.ocelotds.core.mtc;
 
+import java.util.HashMap;
 import java.util.Map;
 import javax.websocket.Session;
 import org.junit.Test;
@@ -10,6 +11,7 @@ import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.*;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
+import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 
 /**
@@ -19,6 +21,9 @@ import org.mockito.runners.MockitoJUnitRunner;
 @RunWith(MockitoJUnitRunner.class)
 public class WSMessageToClientManagerTest {
 
+	@Mock
+	private SessionBeansStore sessionBeansStore;
+
 	@InjectMocks
 	private WSMessageToClientManager instance ;
 	
@@ -29,7 +34,12 @@ public class WSMessageToClientManagerTest {
 	public void testGetSessionBeans() {
 		System.out.println("getSessionBeans");
 		Session session = mock(Session.class);
+		when(session.getId()).thenReturn("WSID");
+		Map<String, Object> beans = new HashMap<>();
+		when(sessionBeansStore.getSessionBeans(eq("WSID"))).thenReturn(beans);
 		Map<String, Object> result = instance.getSessionBeans(session);
+		assertThat(result).isSameAs(beans);
+		result = instance.getSessionBeans(null);
 		assertThat(result).isNotNull();
 		assertThat(result).isEmpty();
 	}
@@ -14,6 +14,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ocelotds.core.Cleaner;
+import org.ocelotds.marshalling.annotations.JsonUnmarshaller;
 import org.slf4j.Logger;
 
 /**
@@ -49,7 +50,20 @@ public class ArgCleanerDecoratorTest {
 		assertThat(result).isEqualTo("OK");
 	}
 
+	/**
+	 * Test of convertJsonArgument method, of class ArgCleanerDecorator.
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testConvertJsonArgument() throws Exception {
+		System.out.println("convertJsonArgument");
+		when(cleaner.cleanArg(anyString())).thenReturn("cleaned");
+		when(argumentConvertor.convertJsonArgument(eq("cleaned"), any(Type.class), any(JsonUnmarshaller.class))).thenReturn("OK");
+		Object result = instance.convertJsonArgument("", null, null);
+		assertThat(result).isEqualTo("OK");
+	}
+
 	public class ArgCleanerDecoratorImpl extends ArgCleanerDecorator {
 	}
 
-}
\ No newline at end of file
+}
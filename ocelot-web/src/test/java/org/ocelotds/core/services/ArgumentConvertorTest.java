@@ -5,6 +5,7 @@ package org.ocelotds.core.services;
 
 import org.ocelotds.marshalling.ArgumentServices;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
 import java.io.IOException;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.GenericArrayType;
@@ -120,6 +121,22 @@ public class ArgumentConvertorTest {
 		assertThat(result).isInstanceOf(Locale.class);
 	}
 
+	/**
+	 * Test of convertJsonArgument method, of class ArgumentConvertor.
+	 *
+	 * @throws org.ocelotds.marshalling.exceptions.JsonUnmarshallingException
+	 * @throws org.ocelotds.marshalling.exceptions.JsonMarshallerException
+	 */
+	@Test
+	public void testConvertJsonArgument() throws JsonUnmarshallingException, JsonMarshallerException {
+		System.out.println("convertJsonArgument");
+		Object result = instance.convertJsonArgument("null", String.class, null);
+		assertThat(result).isNull();
+		result = instance.convertJsonArgument("\"result\"", String.class, null);
+		assertThat(result).isEqualTo("result");
+		verify(instance, never()).getJsonUnmarshallerAnnotation(any(Annotation[].class));
+	}
+
 	@Test
 	public void testGetResultSingle() throws JsonUnmarshallingException {
 		System.out.println("getResult");
@@ -244,21 +261,52 @@ public class ArgumentConvertorTest {
 		Object result = instance.convertArgument("", type);
 		assertThat(result).isNull();
 
-		type = mock(GenericArrayType.class);
-		result = instance.convertArgument("", type);
-		assertThat(result).isNull();
-
-		type = mock(TypeVariable.class);
-		result = instance.convertArgument("", type);
-		assertThat(result).isNull();
-
 		ArgumentCaptor<Type> types = ArgumentCaptor.forClass(Type.class);
-		verify(logger, times(3)).warn(anyString(), anyString(), types.capture());
+		verify(logger, times(1)).warn(anyString(), anyString(), types.capture());
 		List<Type> results = types.getAllValues();
-		assertThat(results).hasSize(3);
+		assertThat(results).hasSize(1);
 		assertThat(results.get(0)).isInstanceOf(WildcardType.class);
-		assertThat(results.get(1)).isInstanceOf(GenericArrayType.class);
-		assertThat(results.get(2)).isInstanceOf(TypeVariable.class);
+	}
+
+	/**
+	 * Test of convertArgument method, of class ArgumentConvertor.
+	 *
+	 * @throws java.lang.NoSuchMethodException
+	 */
+	@Test
+	public void testConvertArgumentGenericArrayAndTypeVariable() throws NoSuchMethodException {
+		System.out.println("convertArgumentGenericArrayAndTypeVariable");
+		Method method = GenericMethods.class.getMethod("method", List[].class, Number.class);
+		Type[] types = method.getGenericParameterTypes();
+		assertThat(types[0]).isInstanceOf(GenericArrayType.class);
+		assertThat(types[1]).isInstanceOf(TypeVariable.class);
+		Object result = instance.convertArgument("[[\"a\"],[\"b\",\"c\"]]", types[0]);
+		assertThat(result).isInstanceOf(List[].class);
+		assertThat(((List[]) result)[1]).containsExactly("b", "c");
+		result = instance.convertArgument("5", types[1]);
+		assertThat(result).isEqualTo(5);
+	}
+
+	/**
+	 * Test of getObjectReader method, of class ArgumentConvertor.
+	 */
+	@Test
+	public void testGetObjectReader() {
+		System.out.println("getObjectReader");
+		Type col = new GenericType<Collection<String>>() {
+		}.getType();
+		ObjectReader result = instance.getObjectReader(col);
+		assertThat(instance.getObjectReader(col)).isSameAs(result);
+		Type col2 = new GenericType<Collection<String>>() {
+		}.getType();
+		assertThat(instance.getObjectReader(col2)).isSameAs(result);
+		verify(instance, times(1)).getObjectMapper();
+	}
+
+	public static class GenericMethods {
+
+		public <T extends Number> void method(List<String>[] a, T b) {
+		}
 	}
 
 	@Test
@@ -6,6 +6,12 @@ package org.ocelotds.core.services;
 import java.util.Collection;
 import java.util.Locale;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import javax.validation.ConstraintViolationException;
 import org.ocelotds.annotations.DataService;
 import org.ocelotds.annotations.JsCacheResult;
@@ -38,6 +44,21 @@ public class ClassAsDataService {
 		return "r3";
 	}
 
+	@JsCacheResult
+	public String methodCached(String a) {
+		return "r4";
+	}
+
+	@JsCacheResult(userScope = true)
+	public String methodCachedUserScope(String a) {
+		return "r4";
+	}
+
+	@JsCacheResult(shared = true)
+	public String methodCachedShared(String a) {
+		return "r4";
+	}
+
 	public String methodThrowException(String a) throws AbstractMethodError {
 		throw new AbstractMethodError("MyMessage");
 	}
@@ -46,6 +67,27 @@ public class ClassAsDataService {
 		throw new ConstraintViolationException(null);
 	}
 
+	public CompletableFuture<String> methodReturnCompletableFuture(String a) {
+		return CompletableFuture.completedFuture("async" + a);
+	}
+
+	public CompletionStage<String> methodReturnFailedStage(String a) {
+		CompletableFuture<String> future = new CompletableFuture<>();
+		future.completeExceptionally(new CompletionException(new ConstraintViolationException(null)));
+		return future;
+	}
+
+	public Future<String> methodReturnFuture(String a) {
+		FutureTask<String> task = new FutureTask<>(new Callable<String>() {
+			@Override
+			public String call() throws Exception {
+				throw new AbstractMethodError("MyMessage");
+			}
+		});
+		task.run();
+		return task;
+	}
+
 	@JsCacheResult
 	public String methodReturnCachedString(String a) {
 		return "r5";
@@ -0,0 +1,66 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.services;
+
+import javax.enterprise.context.ApplicationScoped;
+import javax.inject.Singleton;
+import org.junit.Test;
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+import org.ocelotds.spi.IDataServiceResolver;
+import org.ocelotds.spi.Scope;
+
+/**
+ *
+ * @author hhfrancois
+ */
+public class DataServiceDescriptorTest {
+
+	/**
+	 * Test of isApplicationScoped method, of class DataServiceDescriptor.
+	 */
+	@Test
+	public void testIsApplicationScoped() {
+		System.out.println("isApplicationScoped");
+		IDataServiceResolver resolver = mock(IDataServiceResolver.class);
+		when(resolver.getScope(any(Class.class))).thenReturn(Scope.MANAGED);
+		DataServiceDescriptor instance = new DataServiceDescriptor(ClassAsDataService.class, resolver);
+		assertThat(instance.isApplicationScoped(ClassAsDataService.class)).isFalse();
+		assertThat(instance.isApplicationScoped(AppScoped.class)).isTrue();
+		assertThat(instance.isApplicationScoped(SingletonScoped.class)).isTrue();
+	}
+
+	/**
+	 * Test of setInstance method, of class DataServiceDescriptor.
+	 */
+	@Test
+	public void testSetInstance() {
+		System.out.println("setInstance");
+		IDataServiceResolver resolver = mock(IDataServiceResolver.class);
+		when(resolver.getScope(any(Class.class))).thenReturn(Scope.MANAGED);
+		DataServiceDescriptor instance = new DataServiceDescriptor(ClassAsDataService.class, resolver);
+		instance.setInstance(new ClassAsDataService());
+		assertThat(instance.isSingleton()).isFalse();
+		assertThat(instance.getInstance()).isNull();
+
+		instance = new DataServiceDescriptor(AppScoped.class, resolver);
+		AppScoped ds = new AppScoped();
+		instance.setInstance(ds);
+		assertThat(instance.isSingleton()).isTrue();
+		assertThat(instance.getInstance()).isEqualTo(ds);
+		assertThat(instance.getDataServiceClass()).isEqualTo(AppScoped.class);
+
+		when(resolver.getScope(any(Class.class))).thenReturn(Scope.SESSION);
+		instance = new DataServiceDescriptor(AppScoped.class, resolver);
+		assertThat(instance.isSingleton()).isFalse();
+	}
+
+	@ApplicationScoped
+	static class AppScoped {
+	}
+
+	@Singleton
+	static class SingletonScoped {
+	}
+}
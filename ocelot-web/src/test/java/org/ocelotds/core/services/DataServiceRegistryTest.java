@@ -0,0 +1,192 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.services;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import javax.enterprise.inject.Instance;
+import org.junit.Test;
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.marshallers.LocaleMarshaller;
+import org.ocelotds.resolvers.CdiResolver;
+import org.ocelotds.resolvers.DataServiceResolverIdLitteral;
+import org.ocelotds.spi.DataServiceException;
+import org.ocelotds.spi.IDataServiceResolver;
+import org.ocelotds.spi.Scope;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class DataServiceRegistryTest {
+
+	@Mock
+	private Instance<IDataServiceResolver> resolvers;
+
+	@Spy
+	@InjectMocks
+	private DataServiceRegistry instance;
+
+	/**
+	 * Test of getResolver method, of class DataServiceRegistry.
+	 */
+	@Test
+	public void testGetResolver() {
+		System.out.println("getResolver");
+		Instance<IDataServiceResolver> inst = mock(Instance.class);
+		when(resolvers.select(eq(new DataServiceResolverIdLitteral("cdi")))).thenReturn(inst);
+		when(inst.get()).thenReturn(new CdiResolver());
+		IDataServiceResolver result = instance.getResolver("cdi");
+		assertThat(result).isInstanceOf(CdiResolver.class);
+	}
+
+	/**
+	 * Test of getDataServiceDescriptor method, of class DataServiceRegistry.
+	 *
+	 * @throws org.ocelotds.spi.DataServiceException
+	 */
+	@Test
+	public void testGetDataServiceDescriptor() throws DataServiceException {
+		System.out.println("getDataServiceDescriptor");
+		IDataServiceResolver resolver = mock(IDataServiceResolver.class);
+		when(resolver.getScope(any(Class.class))).thenReturn(Scope.SESSION);
+		doReturn(resolver).when(instance).getResolver("TEST");
+		DataServiceDescriptor result = instance.getDataServiceDescriptor(ClassAsDataService.class);
+		assertThat(result.getResolver()).isEqualTo(resolver);
+		assertThat(result.getScope()).isEqualTo(Scope.SESSION);
+		assertThat(result.getDataService().resolver()).isEqualTo("TEST");
+		assertThat(result.isSingleton()).isFalse();
+		assertThat(instance.getDataServiceDescriptor(ClassAsDataService.class)).isSameAs(result);
+		verify(instance).getResolver("TEST");
+		verify(resolver).getScope(any(Class.class));
+	}
+
+	/**
+	 * Test of getDataServiceDescriptor method, of class DataServiceRegistry.
+	 *
+	 * @throws org.ocelotds.spi.DataServiceException
+	 */
+	@Test(expected = DataServiceException.class)
+	public void testGetDataServiceDescriptorFail() throws DataServiceException {
+		System.out.println("getDataServiceDescriptorFail");
+		instance.getDataServiceDescriptor(String.class);
+	}
+
+	/**
+	 * Test of getDataServiceClass method, of class DataServiceRegistry.
+	 *
+	 * @throws java.lang.ClassNotFoundException
+	 */
+	@Test
+	public void testGetDataServiceClass() throws ClassNotFoundException {
+		System.out.println("getDataServiceClass");
+		Class result = instance.getDataServiceClass(ClassAsDataService.class.getName());
+		assertThat(result).isEqualTo(ClassAsDataService.class);
+		result = instance.getDataServiceClass(ClassAsDataService.class.getName());
+		assertThat(result).isEqualTo(ClassAsDataService.class);
+	}
+
+	/**
+	 * Test of getDataServiceClass method, of class DataServiceRegistry.
+	 *
+	 * @throws java.lang.ClassNotFoundException
+	 */
+	@Test(expected = ClassNotFoundException.class)
+	public void testGetDataServiceClassFail() throws ClassNotFoundException {
+		System.out.println("getDataServiceClassFail");
+		instance.getDataServiceClass("BadClass");
+	}
+
+	/**
+	 * Test of getMethodDescriptor method, of class DataServiceRegistry.
+	 *
+	 * @throws java.lang.NoSuchMethodException
+	 */
+	@Test
+	public void testGetMethodDescriptor() throws NoSuchMethodException {
+		System.out.println("getMethodDescriptor");
+		Method method = ClassAsDataService.class.getMethod("methodWith2Arguments", Integer.class, String.class);
+		MethodDescriptor result = instance.getMethodDescriptor(method);
+		assertThat(result.getMethod()).isEqualTo(method);
+		assertThat(instance.getMethodDescriptor(method)).isSameAs(result);
+		assertThat(instance.getMethodDescriptors(ClassAsDataService.class, "methodWith2Arguments", 2)).containsExactly(result);
+	}
+
+	/**
+	 * Test of getMethodDescriptors method, of class DataServiceRegistry.
+	 */
+	@Test
+	public void testGetMethodDescriptors() {
+		System.out.println("getMethodDescriptors");
+		List<MethodDescriptor> result = instance.getMethodDescriptors(ClassAsDataService.class, "methodWith2Arguments", 2);
+		assertThat(result).hasSize(1);
+		assertThat(result.get(0).getName()).isEqualTo("methodWith2Arguments");
+		assertThat(result.get(0).getArity()).isEqualTo(2);
+		assertThat(result.get(0).getParameterClasses()).containsExactly(Integer.class, String.class);
+
+		result = instance.getMethodDescriptors(ClassAsDataService.class, "methodWith2Arguments", 1);
+		assertThat(result).isEmpty();
+
+		result = instance.getMethodDescriptors(ClassAsDataService.class, "unknownMethod", 0);
+		assertThat(result).isEmpty();
+
+		instance.getMethodDescriptors(ClassAsDataService.class, "methodReturnString", 1);
+		verify(instance).buildOperations(eq(ClassAsDataService.class));
+	}
+
+	/**
+	 * Test of getMethodDescriptors method, of class DataServiceRegistry.
+	 */
+	@Test
+	public void testGetMethodDescriptorsWithUnmarshaller() {
+		System.out.println("getMethodDescriptorsWithUnmarshaller");
+		List<MethodDescriptor> result = instance.getMethodDescriptors(ClassAsDataService.class, "methodWithUnmarshaller", 1);
+		assertThat(result).hasSize(1);
+		assertThat(result.get(0).getParameterClasses()).containsExactly(Locale.class);
+		assertThat(result.get(0).getUnmarshallers()[0].value()).isEqualTo(LocaleMarshaller.class);
+
+		result = instance.getMethodDescriptors(ClassAsDataService.class, "methodWith2Arguments", 2);
+		assertThat(result.get(0).getUnmarshallers()).containsExactly(null, null);
+	}
+
+	/**
+	 * Test of buildOperations method, of class DataServiceRegistry.
+	 */
+	@Test
+	public void testBuildOperations() {
+		System.out.println("buildOperations");
+		Map<String, Map<Integer, List<MethodDescriptor>>> result = instance.buildOperations(ClassAsDataService.class);
+		assertThat(result).containsKeys("methodWithSomeArguments", "methodWith2Arguments", "methodReturnString", "hashCode");
+		assertThat(result.get("methodWithSomeArguments")).containsKey(5);
+		assertThat(result.get("methodWithSomeArguments").get(5).get(0).getParameterTypes()[3].toString()).isEqualTo("java.util.Collection<java.lang.String>");
+	}
+
+	/**
+	 * Test of getMethodDescriptor method with signature, of class DataServiceRegistry.
+	 *
+	 * @throws java.lang.NoSuchMethodException
+	 */
+	@Test
+	public void testGetMethodDescriptorFromSignature() throws NoSuchMethodException {
+		System.out.println("getMethodDescriptorFromSignature");
+		Method method = ClassAsDataService.class.getMethod("methodWith2Arguments", Integer.class, String.class);
+		String signature = new MethodDescriptor(method).getSignature();
+		MethodDescriptor result = instance.getMethodDescriptor(ClassAsDataService.class, "methodWith2Arguments", signature);
+		assertThat(result.getMethod()).isEqualTo(method);
+		assertThat(instance.getMethodDescriptor(ClassAsDataService.class, "methodWith2Arguments", "BADSIGNATURE")).isNull();
+		assertThat(instance.getMethodDescriptor(ClassAsDataService.class, "unknownMethod", signature)).isNull();
+		instance.getMethodDescriptor(ClassAsDataService.class, "methodWith2Arguments", signature);
+		verify(instance).buildSignatures(anyMap());
+	}
+
+}
@@ -0,0 +1,201 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.services;
+
+import java.lang.reflect.Method;
+import java.util.Calendar;
+import java.util.Map;
+import javax.websocket.Session;
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.*;
+import org.ocelotds.OcelotServices;
+import org.ocelotds.annotations.CallTimeout;
+import org.ocelotds.annotations.JsCacheResult;
+import org.ocelotds.cache.CacheAnnotedClass;
+import org.ocelotds.cache.CacheManagerTest;
+import org.ocelotds.marshallers.LocaleMarshaller;
+import org.ocelotds.marshalling.IJsonMarshaller;
+import org.ocelotds.security.OcelotSecured;
+
+/**
+ *
+ * @author hhfrancois
+ */
+public class MethodDescriptorTest {
+
+	/**
+	 * Test of invoke method, of class MethodDescriptor.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testInvoke() throws Exception {
+		System.out.println("invoke");
+		Method method = ClassAsDataService.class.getMethod("methodReturnString", String.class);
+		MethodDescriptor instance = new MethodDescriptor(method);
+		Object result = instance.invoke(new ClassAsDataService(), new Object[]{"a"});
+		assertThat(result).isEqualTo("r1");
+	}
+
+	/**
+	 * Test of getters, of class MethodDescriptor.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testGetters() throws Exception {
+		System.out.println("getters");
+		Method method = ClassAsDataService.class.getMethod("methodWithUnmarshaller", java.util.Locale.class);
+		MethodDescriptor instance = new MethodDescriptor(method);
+		assertThat(instance.getMethod()).isEqualTo(method);
+		assertThat(instance.getName()).isEqualTo("methodWithUnmarshaller");
+		assertThat(instance.getArity()).isEqualTo(1);
+		assertThat(instance.getParameterAnnotations()[0]).hasSize(1);
+		assertThat(instance.getUnmarshallers()[0]).isNotNull();
+		assertThat(instance.toString()).contains("methodWithUnmarshaller");
+	}
+
+	/**
+	 * Test of metadata used after invocation, of class MethodDescriptor.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testPostInvocationMetadata() throws Exception {
+		System.out.println("postInvocationMetadata");
+		MethodDescriptor instance = new MethodDescriptor(ClassAsDataService.class.getMethod("methodReturnString", String.class));
+		assertThat(instance.getJsonMarshaller()).isNull();
+		assertThat(instance.isJsCached()).isFalse();
+		assertThat(instance.getJsCacheTimeToLive()).isEqualTo(0L);
+		assertThat(instance.getJsCacheKeys()).isEmpty();
+		assertThat(instance.isJsCacheUserScope()).isFalse();
+		assertThat(instance.isJsCacheShared()).isFalse();
+		assertThat(instance.getJsCacheRemove()).isNull();
+		assertThat(instance.getJsCacheRemoves()).isEmpty();
+		assertThat(instance.getOcelotSecured()).isNull();
+
+		instance = new MethodDescriptor(ClassAsDataService.class.getMethod("methodWithMarshaller", String.class));
+		assertThat(instance.getJsonMarshaller().value()).isEqualTo(LocaleMarshaller.class);
+		assertThat(instance.getMarshaller()).isNull();
+		IJsonMarshaller marshaller = new LocaleMarshaller();
+		instance.setMarshaller(marshaller);
+		assertThat(instance.getMarshaller()).isSameAs(marshaller);
+
+		instance = new MethodDescriptor(CacheAnnotedClass.class.getMethod("jsCacheResultAnnotatedMethodDeadline10Min"));
+		assertThat(instance.isJsCached()).isTrue();
+		assertThat(instance.getJsCacheTimeToLive()).isEqualTo(600000L);
+		assertThat(instance.getJsCacheKeys()).containsExactly("*");
+
+		instance = new MethodDescriptor(ClassAsDataService.class.getMethod("methodCachedUserScope", String.class));
+		assertThat(instance.isJsCacheUserScope()).isTrue();
+		assertThat(instance.isJsCacheShared()).isFalse();
+
+		instance = new MethodDescriptor(ClassAsDataService.class.getMethod("methodCachedShared", String.class));
+		assertThat(instance.isJsCacheUserScope()).isFalse();
+		assertThat(instance.isJsCacheShared()).isTrue();
+
+		instance = new MethodDescriptor(CacheAnnotedClass.class.getMethod("jsCacheRemoveAndjsCacheRemovesAnnotatedMethod", Integer.TYPE, CacheManagerTest.Result.class));
+		assertThat(instance.getJsCacheRemove()).isNotNull();
+		assertThat(instance.getJsCacheRemoves()).hasSize(2);
+		assertThat(instance.getJsCacheRemoves().get(0).getKeyParams()).containsExactly("b");
+	}
+
+	/**
+	 * Test of computeTimeToLive method, of class MethodDescriptor.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testComputeTimeToLive() throws Exception {
+		System.out.println("computeTimeToLive");
+		MethodDescriptor instance = new MethodDescriptor(CacheAnnotedClass.class.getMethod("jsCacheResultAnnotatedMethod"));
+		JsCacheResult jcr = CacheAnnotedClass.class.getMethod("jsCacheResultAnnotatedMethod").getAnnotation(JsCacheResult.class);
+		Calendar now = Calendar.getInstance();
+		now.set(2015, Calendar.JANUARY, 1);
+		long result = instance.computeTimeToLive(jcr, now);
+		assertThat(result).isEqualTo(365L * 24 * 60 * 60 * 1000);
+	}
+
+	/**
+	 * Test of getOcelotSecuredAnnotation method, of class MethodDescriptor.
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testGetOcelotSecuredAnnotation() throws Exception {
+		System.out.println("getOcelotSecuredAnnotation");
+		MethodDescriptor instance = new MethodDescriptor(SecuredClass.class.getMethod("methodNoAnnoted"));
+		assertThat(instance.getOcelotSecured().roles()).containsExactly("ROLE_ON_CLASS");
+		instance = new MethodDescriptor(SecuredClass.class.getMethod("methodAnnoted"));
+		assertThat(instance.getOcelotSecured().roles()).containsExactly("ROLE_ON_METHOD");
+	}
+
+	@OcelotSecured(roles = {"ROLE_ON_CLASS"})
+	public static class SecuredClass {
+
+		public void methodNoAnnoted() {
+		}
+
+		@OcelotSecured(roles = {"ROLE_ON_METHOD"})
+		public void methodAnnoted() {
+		}
+	}
+
+	/**
+	 * Test of getSignature method, of class MethodDescriptor.<br>
+	 * Must be the same as the signature generated in js stubs
+	 *
+	 * @throws java.lang.Exception
+	 */
+	@Test
+	public void testGetSignature() throws Exception {
+		System.out.println("getSignature");
+		MethodDescriptor instance = new MethodDescriptor(OcelotServices.class.getMethod("subscribe", String.class, Session.class));
+		assertThat(instance.getSignature()).isEqualTo("537d4e9b591fc3fae6232e3a6bfa352a");
+		instance = new MethodDescriptor(OcelotServices.class.getMethod("getOutDatedCache", Map.class));
+		assertThat(instance.getSignature()).isEqualTo("03ec136776d19432e0a31b46ebe07d1a");
+		instance = new MethodDescriptor(OcelotServices.class.getMethod("getVersion"));
+		assertThat(instance.getSignature()).isEqualTo("d41d8cd98f00b204e9800998ecf8427e");
+	}
+
+	/**
+	 * Test of isAsynchronous method, of class MethodDescriptor.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testIsAsynchronous() throws Exception {
+		System.out.println("isAsynchronous");
+		Class cls = ClassAsDataService.class;
+		assertThat(new MethodDescriptor(cls.getMethod("methodReturnString", String.class)).isAsynchronous()).isFalse();
+		assertThat(new MethodDescriptor(cls.getMethod("methodReturnCompletableFuture", String.class)).isAsynchronous()).isTrue();
+		assertThat(new MethodDescriptor(cls.getMethod("methodReturnFailedStage", String.class)).isAsynchronous()).isTrue();
+		assertThat(new MethodDescriptor(cls.getMethod("methodReturnFuture", String.class)).isAsynchronous()).isTrue();
+	}
+
+
+	/**
+	 * Test of getTimeout method, of class MethodDescriptor.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testGetTimeout() throws Exception {
+		System.out.println("getTimeout");
+		assertThat(new MethodDescriptor(TimedClass.class.getMethod("methodNoAnnoted")).getTimeout()).isEqualTo(1000L);
+		assertThat(new MethodDescriptor(TimedClass.class.getMethod("methodAnnoted")).getTimeout()).isEqualTo(200L);
+		assertThat(new MethodDescriptor(SecuredClass.class.getMethod("methodNoAnnoted")).getTimeout()).isEqualTo(0L);
+	}
+
+	@CallTimeout(1000)
+	public static class TimedClass {
+
+		public void methodNoAnnoted() {
+		}
+
+		@CallTimeout(200)
+		public void methodAnnoted() {
+		}
+	}
+}
@@ -3,7 +3,6 @@
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
 package org.ocelotds.core.services;
 
-import java.lang.annotation.Annotation;
 import java.lang.reflect.Method;
 import java.lang.reflect.Type;
 import java.util.ArrayList;
@@ -16,11 +15,12 @@ import static org.assertj.core.api.Assertions.*;
 import org.junit.runner.RunWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.marshalling.annotations.JsonUnmarshaller;
 import org.ocelotds.marshalling.exceptions.JsonMarshallerException;
 import org.ocelotds.marshalling.exceptions.JsonUnmarshallingException;
 import org.ocelotds.messaging.MessageFromClient;
-import org.ocelotds.objects.Result;
 import org.slf4j.Logger;
 
 /**
@@ -39,8 +39,11 @@ public class MethodServicesTest {
 	@Mock
 	private ArgumentConvertor argumentsServices;
 
+	@Spy
+	private DataServiceRegistry dataServiceRegistry = new DataServiceRegistry();
+
 	/**
-	 * Test of getMethodFromDataService method, of class MethodServices.
+	 * Test of getMethodDescriptorFromDataService method, of class MethodServices.
 	 *
 	 * @throws java.lang.NoSuchMethodException
 	 * @throws org.ocelotds.marshalling.exceptions.JsonUnmarshallingException
@@ -48,7 +51,7 @@ public class MethodServicesTest {
 	 */
 	@Test
 	public void testGetMethodFromDataService() throws NoSuchMethodException, JsonUnmarshallingException, JsonMarshallerException {
-		System.out.println("getMethodFromDataService");
+		System.out.println("getMethodDescriptorFromDataService");
 		Class dsClass = ClassAsDataService.class;
 		MessageFromClient message = new MessageFromClient();
 		message.setOperation("methodWith2Arguments");
@@ -56,15 +59,15 @@ public class MethodServicesTest {
 		List<Object> arguments = new ArrayList<>();
 		Method expResult = dsClass.getMethod("methodWith2Arguments", new Class<?>[]{Integer.class, String.class});
 
-		when(argumentsServices.convertJsonToJava(eq("5"), any(Type.class), any(Annotation[].class))).thenReturn(5);
-		when(argumentsServices.convertJsonToJava(eq("\"toto\""), any(Type.class), any(Annotation[].class))).thenReturn("toto");
+		when(argumentsServices.convertJsonArgument(eq("5"), any(Type.class), any(JsonUnmarshaller.class))).thenReturn(5);
+		when(argumentsServices.convertJsonArgument(eq("\"toto\""), any(Type.class), any(JsonUnmarshaller.class))).thenReturn("toto");
 
-		Method result = instance.getMethodFromDataService(dsClass, message, arguments);
+		Method result = instance.getMethodDescriptorFromDataService(dsClass, message, arguments).getMethod();
 		assertThat(result).isEqualTo(expResult);
 	}
 
 	/**
-	 * Test of getMethodFromDataService method, of class MethodServices.
+	 * Test of getMethodDescriptorFromDataService method, of class MethodServices.
 	 *
 	 * @throws java.lang.NoSuchMethodException
 	 * @throws org.ocelotds.marshalling.exceptions.JsonUnmarshallingException
@@ -72,20 +75,20 @@ public class MethodServicesTest {
 	 */
 	@Test(expected = NoSuchMethodException.class)
 	public void testGetMethodFromDataServiceNotFound() throws NoSuchMethodException, JsonUnmarshallingException, JsonMarshallerException {
-		System.out.println("getMethodFromDataService");
+		System.out.println("getMethodDescriptorFromDataService");
 		Class dsClass = ClassAsDataService.class;
 		MessageFromClient message = new MessageFromClient();
 		message.setOperation("methodWith2Arguments");
 		message.setParameters(Arrays.asList("\"toto\"", "5"));
 		List<Object> arguments = new ArrayList<>();
 
-		when(argumentsServices.convertJsonToJava(anyString(), any(Type.class), any(Annotation[].class))).thenThrow(JsonUnmarshallingException.class);
+		when(argumentsServices.convertJsonArgument(anyString(), any(Type.class), any(JsonUnmarshaller.class))).thenThrow(JsonUnmarshallingException.class);
 
-		instance.getMethodFromDataService(dsClass, message, arguments);
+		instance.getMethodDescriptorFromDataService(dsClass, message, arguments);
 	}
 
 	/**
-	 * Test of getMethodFromDataService method, of class MethodServices.
+	 * Test of getMethodDescriptorFromDataService method, of class MethodServices.
 	 *
 	 * @throws java.lang.NoSuchMethodException
 	 * @throws org.ocelotds.marshalling.exceptions.JsonUnmarshallingException
@@ -93,7 +96,7 @@ public class MethodServicesTest {
 	 */
 	@Test
 	public void testGetMethodFromDataServiceWithWithUnmarshaller() throws NoSuchMethodException, JsonUnmarshallingException, JsonMarshallerException {
-		System.out.println("getMethodFromDataService");
+		System.out.println("getMethodDescriptorFromDataService");
 		Class dsClass = ClassAsDataService.class;
 		MessageFromClient message = new MessageFromClient();
 		message.setOperation("methodWithUnmarshaller");
@@ -102,9 +105,9 @@ public class MethodServicesTest {
 		List<Object> arguments = new ArrayList<>();
 		Method expResult = dsClass.getMethod("methodWithUnmarshaller", new Class<?>[]{Locale.class});
 
-		when(argumentsServices.convertJsonToJava(eq(json), any(Type.class), any(Annotation[].class))).thenReturn(Locale.FRANCE);
+		when(argumentsServices.convertJsonArgument(eq(json), any(Type.class), any(JsonUnmarshaller.class))).thenReturn(Locale.FRANCE);
 
-		Method result = instance.getMethodFromDataService(dsClass, message, arguments);
+		Method result = instance.getMethodDescriptorFromDataService(dsClass, message, arguments).getMethod();
 		assertThat(result).isEqualTo(expResult);
 		assertThat(arguments).hasSize(1);
 		Locale l = (Locale) arguments.get(0);
@@ -112,32 +115,6 @@ public class MethodServicesTest {
 		assertThat(l.getLanguage()).isEqualTo("fr");
 	}
 
-	/**
-	 * Test of getNonProxiedMethod method, of class MethodServices.
-	 *
-	 * @throws java.lang.NoSuchMethodException
-	 */
-	@Test
-	public void testGetNonProxiedMethod() throws NoSuchMethodException {
-		System.out.println("getNonProxiedMethod");
-		Method m = instance.getNonProxiedMethod(Result.class, "getInteger");
-		assertThat(m).isNotNull();
-
-		m = instance.getNonProxiedMethod(Result.class, "setInteger", Integer.TYPE);
-		assertThat(m).isNotNull();
-	}
-
-	/**
-	 * Test of getNonProxiedMethod method, of class MethodServices.
-	 *
-	 * @throws java.lang.NoSuchMethodException
-	 */
-	@Test(expected = NoSuchMethodException.class)
-	public void testGetNonProxiedMethodFailed() throws NoSuchMethodException {
-		System.out.println("getNonProxiedMethod");
-		Method m = instance.getNonProxiedMethod(Result.class, "unknownMethod");
-	}
-
 	/**
 	 * Test of getNumberOfNullEnderParameter method, of class MethodServices.
 	 *
@@ -169,12 +146,12 @@ public class MethodServicesTest {
 	public void testCheckMethod() throws NoSuchMethodException, JsonUnmarshallingException, JsonMarshallerException {
 		String methodname = "methodWith2Arguments";
 		Class dsClass = ClassAsDataService.class;
-		Method method = dsClass.getMethod(methodname, Integer.class, String.class);
+		MethodDescriptor method = new MethodDescriptor(dsClass.getMethod(methodname, Integer.class, String.class));
 		List<Object> arguments = new ArrayList<>();
 		List<String> parameters = Arrays.asList("5", "\"foo\"");
 		int nbparam = 2;
 
-		when(argumentsServices.convertJsonToJava(anyString(), any(Class.class), any(Annotation[].class))).thenReturn("ok");
+		when(argumentsServices.convertJsonArgument(anyString(), any(Class.class), any(JsonUnmarshaller.class))).thenReturn("ok");
 
 		instance.checkMethod(method, arguments, parameters, nbparam);
 		assertThat(arguments).hasSize(2);
@@ -191,13 +168,92 @@ public class MethodServicesTest {
 	public void testCheckMethodFail() throws NoSuchMethodException, JsonUnmarshallingException, JsonMarshallerException {
 		String methodname = "methodWith2Arguments";
 		Class dsClass = ClassAsDataService.class;
-		Method method = dsClass.getMethod(methodname, Integer.class, String.class);
+		MethodDescriptor method = new MethodDescriptor(dsClass.getMethod(methodname, Integer.class, String.class));
 		List<Object> arguments = new ArrayList<>();
 		List<String> parameters = Arrays.asList("5", "\"foo\"");
 		int nbparam = 1;
 
-		when(argumentsServices.convertJsonToJava(anyString(), any(Class.class), any(Annotation[].class))).thenReturn("ok");
+		when(argumentsServices.convertJsonArgument(anyString(), any(Class.class), any(JsonUnmarshaller.class))).thenReturn("ok");
 
 		instance.checkMethod(method, arguments, parameters, nbparam);
 	}
+
+	/**
+	 * Test of getMethodDescriptorFromDataService method, of class MethodServices.
+	 *
+	 * @throws java.lang.NoSuchMethodException
+	 * @throws org.ocelotds.marshalling.exceptions.JsonUnmarshallingException
+	 * @throws org.ocelotds.marshalling.exceptions.JsonMarshallerException
+	 */
+	@Test
+	public void testGetMethodDescriptorFromDataService() throws NoSuchMethodException, JsonUnmarshallingException, JsonMarshallerException {
+		System.out.println("getMethodDescriptorFromDataService");
+		Class dsClass = ClassAsDataService.class;
+		MessageFromClient message = new MessageFromClient();
+		message.setOperation("methodWith2Arguments");
+		message.setParameters(Arrays.asList("5", "null"));
+		List<Object> arguments = new ArrayList<>();
+
+		when(argumentsServices.convertJsonArgument(anyString(), any(Type.class), any(JsonUnmarshaller.class))).thenReturn(5).thenReturn(null);
+
+		MethodDescriptor result = instance.getMethodDescriptorFromDataService(dsClass, message, arguments);
+		assertThat(result.getMethod()).isEqualTo(dsClass.getMethod("methodWith2Arguments", new Class<?>[]{Integer.class, String.class}));
+		assertThat(arguments).containsExactly(5, null);
+		verify(dataServiceRegistry).getMethodDescriptors(eq(dsClass), eq("methodWith2Arguments"), eq(1));
+		verify(dataServiceRegistry).getMethodDescriptors(eq(dsClass), eq("methodWith2Arguments"), eq(2));
+	}
+
+	/**
+	 * Test of getMethodDescriptorFromDataService method with signature, of class MethodServices.
+	 *
+	 * @throws java.lang.NoSuchMethodException
+	 * @throws org.ocelotds.marshalling.exceptions.JsonUnmarshallingException
+	 * @throws org.ocelotds.marshalling.exceptions.JsonMarshallerException
+	 */
+	@Test
+	public void testGetMethodDescriptorFromDataServiceWithSignature() throws NoSuchMethodException, JsonUnmarshallingException, JsonMarshallerException {
+		System.out.println("getMethodDescriptorFromDataServiceWithSignature");
+		Class dsClass = ClassAsDataService.class;
+		Method method = dsClass.getMethod("methodWith2Arguments", new Class<?>[]{Integer.class, String.class});
+		MessageFromClient message = new MessageFromClient();
+		message.setOperation("methodWith2Arguments");
+		message.setParameters(Arrays.asList("5", "\"toto\""));
+		message.setSignature(new MethodDescriptor(method).getSignature());
+		List<Object> arguments = new ArrayList<>();
+		when(argumentsServices.convertJsonArgument(eq("5"), any(Type.class), any(JsonUnmarshaller.class))).thenReturn(5);
+		when(argumentsServices.convertJsonArgument(eq("\"toto\""), any(Type.class), any(JsonUnmarshaller.class))).thenReturn("toto");
+
+		MethodDescriptor result = instance.getMethodDescriptorFromDataService(dsClass, message, arguments);
+
+		assertThat(result.getMethod()).isEqualTo(method);
+		assertThat(arguments).containsExactly(5, "toto");
+		verify(dataServiceRegistry, never()).getMethodDescriptors(any(Class.class), anyString(), anyInt());
+	}
+
+	/**
+	 * Test of getMethodDescriptorFromSignature method, of class MethodServices.
+	 *
+	 * @throws org.ocelotds.marshalling.exceptions.JsonUnmarshallingException
+	 * @throws org.ocelotds.marshalling.exceptions.JsonMarshallerException
+	 */
+	@Test
+	public void testGetMethodDescriptorFromSignatureFallback() throws JsonUnmarshallingException, JsonMarshallerException {
+		System.out.println("getMethodDescriptorFromSignatureFallback");
+		Class dsClass = ClassAsDataService.class;
+		MessageFromClient message = new MessageFromClient();
+		message.setOperation("methodWith2Arguments");
+		message.setParameters(Arrays.asList("5", "\"toto\""));
+		List<Object> arguments = new ArrayList<>();
+		// old client : no signature
+		assertThat(instance.getMethodDescriptorFromSignature(dsClass, message, arguments)).isNull();
+		// unknown signature
+		message.setSignature("BADSIGNATURE");
+		assertThat(instance.getMethodDescriptorFromSignature(dsClass, message, arguments)).isNull();
+		// arguments didn't match
+		message.setSignature(dataServiceRegistry.getMethodDescriptors(dsClass, "methodWith2Arguments", 2).get(0).getSignature());
+		when(argumentsServices.convertJsonArgument(anyString(), any(Type.class), any(JsonUnmarshaller.class))).thenReturn(5).thenThrow(IllegalArgumentException.class);
+		assertThat(instance.getMethodDescriptorFromSignature(dsClass, message, arguments)).isNull();
+		assertThat(arguments).isEmpty();
+	}
+
 }
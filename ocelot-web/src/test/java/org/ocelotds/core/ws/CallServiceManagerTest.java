@@ -3,7 +3,11 @@
  * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
 package org.ocelotds.core.ws;
 
-import javax.websocket.RemoteEndpoint;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 import javax.websocket.Session;
 import org.ocelotds.messaging.MessageFromClient;
 import org.junit.Test;
@@ -13,10 +17,17 @@ import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.ocelotds.Constants;
+import org.ocelotds.context.CancellationToken;
+import org.ocelotds.context.ThreadLocalContextHolder;
 import org.ocelotds.messaging.MessageToClient;
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.*;
 import org.ocelotds.core.mtc.WSMessageToClientManager;
+import org.ocelotds.core.services.FaultServices;
+import org.ocelotds.messaging.Fault;
 import org.slf4j.Logger;
 
 /**
@@ -32,6 +43,18 @@ public class CallServiceManagerTest {
 	@Mock
 	private WSMessageToClientManager messageToClientService;
 
+	@Mock
+	private FaultServices faultServices;
+
+	@Mock
+	private CommandExecutor commandExecutor;
+
+	@Spy
+	private CancellationManager cancellationManager = new CancellationManager();
+
+	@Mock
+	private MessageSender messageSender;
+
 	@Spy
 	@InjectMocks
 	private CallServiceManager instance;
@@ -44,9 +67,7 @@ public class CallServiceManagerTest {
 		System.out.println("sendMessageToClient");
 		Session client = mock(Session.class);
 		MessageToClient mtc = mock(MessageToClient.class);
-		RemoteEndpoint.Async async = mock(RemoteEndpoint.Async.class);
-		when(client.getAsyncRemote()).thenReturn(async);
-		when(messageToClientService.createMessageToClient(any(MessageFromClient.class), any(Session.class))).thenReturn(mtc).thenReturn(null);
+		when(messageToClientService.createMessageToClientAsync(any(MessageFromClient.class), any(Session.class))).thenReturn(CompletableFuture.completedFuture(mtc)).thenReturn(CompletableFuture.<MessageToClient>completedFuture(null)).thenReturn(null);
 		
 		boolean result = instance.sendMessageToClient(new MessageFromClient(), client);
 		assertThat(result).isTrue();
@@ -54,9 +75,224 @@ public class CallServiceManagerTest {
 		result = instance.sendMessageToClient(new MessageFromClient(), client);
 		assertThat(result).isFalse();
 
+		result = instance.sendMessageToClient(new MessageFromClient(), client);
+		assertThat(result).isFalse();
+
 		ArgumentCaptor<MessageToClient> captureMsg = ArgumentCaptor.forClass(MessageToClient.class);
-		verify(async).sendObject(captureMsg.capture());
+		verify(messageSender).send(captureMsg.capture(), eq(client));
 		
 		assertThat(captureMsg.getValue()).isEqualTo(mtc);
 	}
+
+	/**
+	 * Test of sendMessageToClient method, of class CallServiceManager, when result is not yet available.
+	 */
+	@Test
+	public void testSendMessageToClientAsync() {
+		System.out.println("sendMessageToClientAsync");
+		Session client = mock(Session.class);
+		MessageToClient mtc = mock(MessageToClient.class);
+		CompletableFuture<MessageToClient> future = new CompletableFuture<>();
+		when(messageToClientService.createMessageToClientAsync(any(MessageFromClient.class), any(Session.class))).thenReturn(future);
+
+		boolean result = instance.sendMessageToClient(new MessageFromClient(), client);
+		assertThat(result).isTrue();
+		verify(messageSender, never()).send(any(MessageToClient.class), any(Session.class));
+
+		future.complete(mtc);
+		verify(messageSender).send(eq(mtc), eq(client));
+	}
+
+	/**
+	 * Test of sendFaultToClient method, of class CallServiceManager.
+	 */
+	@Test
+	public void testSendFaultToClient() {
+		System.out.println("sendFaultToClient");
+		Session client = mock(Session.class);
+		Fault fault = mock(Fault.class);
+		when(faultServices.buildFault(any(Throwable.class))).thenReturn(fault);
+		MessageFromClient message = new MessageFromClient();
+		message.setId("ID");
+
+		boolean result = instance.sendFaultToClient(message, client, new RejectedExecutionException());
+		assertThat(result).isTrue();
+
+		ArgumentCaptor<MessageToClient> captureMsg = ArgumentCaptor.forClass(MessageToClient.class);
+		verify(messageSender).send(captureMsg.capture(), eq(client));
+		assertThat(captureMsg.getValue().getId()).isEqualTo("ID");
+		assertThat(captureMsg.getValue().getResponse()).isEqualTo(fault);
+	}
+
+	/**
+	 * Test of sendMessagesToClient method, of class CallServiceManager.
+	 */
+	@Test
+	public void testSendMessagesToClient() {
+		System.out.println("sendMessagesToClient");
+		Session client = mock(Session.class);
+		MessageToClient mtc1 = new MessageToClient();
+		mtc1.setId("1");
+		MessageToClient mtc2 = new MessageToClient();
+		mtc2.setId("2");
+		CompletableFuture<MessageToClient> pending = new CompletableFuture<>();
+		when(commandExecutor.allOf(anyList())).thenCallRealMethod();
+		when(messageToClientService.createMessageToClientAsync(any(MessageFromClient.class), any(Session.class))).thenReturn(CompletableFuture.completedFuture(mtc1)).thenReturn(pending);
+
+		boolean result = instance.sendMessagesToClient(Arrays.asList(new MessageFromClient(), new MessageFromClient()), Arrays.asList(new CancellationToken(), new CancellationToken()), client);
+		assertThat(result).isTrue();
+		verify(messageSender, never()).send(anyListOf(MessageToClient.class), any(Session.class));
+
+		pending.complete(mtc2);
+		verify(messageSender).send(eq(Arrays.asList(mtc1, mtc2)), eq(client));
+	}
+
+	/**
+	 * Test of sendMessagesToClient method, of class CallServiceManager, in parallel.
+	 */
+	@Test
+	public void testSendMessagesToClientParallel() {
+		System.out.println("sendMessagesToClientParallel");
+		Session client = mock(Session.class);
+		MessageToClient mtc = new MessageToClient();
+		mtc.setId("1");
+		when(commandExecutor.isBatchParallel()).thenReturn(true);
+		when(commandExecutor.supplyAsync(any(Supplier.class))).thenAnswer(new Answer<CompletableFuture>() {
+			@Override
+			public CompletableFuture answer(InvocationOnMock invocation) throws Throwable {
+				return CompletableFuture.completedFuture(((Supplier) invocation.getArguments()[0]).get());
+			}
+		});
+		when(commandExecutor.allOf(anyList())).thenCallRealMethod();
+		when(messageToClientService.createMessageToClientAsync(any(MessageFromClient.class), any(Session.class))).thenReturn(CompletableFuture.completedFuture(mtc));
+
+		instance.sendMessagesToClient(Arrays.asList(new MessageFromClient(), new MessageFromClient()), Arrays.asList(new CancellationToken(), new CancellationToken()), client);
+
+		verify(commandExecutor, times(2)).supplyAsync(any(Supplier.class));
+		verify(messageSender).send(eq(Arrays.asList(mtc, mtc)), eq(client));
+	}
+
+
+	/**
+	 * Test of createMessageToClient method, of class CallServiceManager.
+	 */
+	@Test
+	public void testCreateMessageToClient() {
+		System.out.println("createMessageToClient");
+		Session client = mock(Session.class);
+		when(client.getId()).thenReturn("WSSESSIONID");
+		MessageFromClient message = new MessageFromClient();
+		message.setId("111");
+		final MessageToClient mtc = new MessageToClient();
+		when(commandExecutor.isEnabled()).thenReturn(true);
+		when(messageToClientService.createMessageToClientAsync(any(MessageFromClient.class), any(Session.class))).thenAnswer(new Answer<CompletableFuture<MessageToClient>>() {
+			@Override
+			public CompletableFuture<MessageToClient> answer(InvocationOnMock invocation) throws Throwable {
+				assertThat(ThreadLocalContextHolder.get(Constants.CANCELLATIONTOKEN)).isInstanceOf(CancellationToken.class);
+				return CompletableFuture.completedFuture(mtc);
+			}
+		});
+
+		MessageToClient result = instance.createMessageToClient(message, cancellationManager.register("WSSESSIONID", "111"), client).join();
+
+		assertThat(result).isEqualTo(mtc);
+		assertThat(ThreadLocalContextHolder.get(Constants.CANCELLATIONTOKEN)).isNull();
+		verify(cancellationManager).unregister(eq("WSSESSIONID"), eq("111"), any(CancellationToken.class));
+	}
+
+	/**
+	 * Test of createMessageToClient method, of class CallServiceManager, when call is cancelled while it is queued.
+	 */
+	@Test
+	public void testCreateMessageToClientCancelledInQueue() {
+		System.out.println("createMessageToClientCancelledInQueue");
+		Session client = mock(Session.class);
+		when(client.getId()).thenReturn("WSSESSIONID");
+		MessageFromClient message = new MessageFromClient();
+		message.setId("111");
+		CancellationToken token = cancellationManager.register("WSSESSIONID", "111");
+		token.cancel();
+
+		MessageToClient result = instance.createMessageToClient(message, token, client).join();
+
+		assertThat(result).isNull();
+		verify(messageToClientService, never()).createMessageToClientAsync(any(MessageFromClient.class), any(Session.class));
+		assertThat(cancellationManager.cancel("WSSESSIONID", "111")).isFalse();
+	}
+
+	/**
+	 * Test of createMessageToClient method, of class CallServiceManager, when call is cancelled while it is running.
+	 */
+	@Test
+	public void testCreateMessageToClientCancelledRunning() {
+		System.out.println("createMessageToClientCancelledRunning");
+		Session client = mock(Session.class);
+		when(client.getId()).thenReturn("WSSESSIONID");
+		MessageFromClient message = new MessageFromClient();
+		message.setId("111");
+		CompletableFuture<MessageToClient> future = new CompletableFuture<>();
+		when(messageToClientService.createMessageToClientAsync(any(MessageFromClient.class), any(Session.class))).thenReturn(future);
+
+		CancellationToken token = cancellationManager.register("WSSESSIONID", "111");
+		CompletableFuture<MessageToClient> result = instance.createMessageToClient(message, token, client);
+		token.cancel();
+		future.complete(new MessageToClient());
+
+		assertThat(result.join()).isNull();
+	}
+
+	/**
+	 * Test of sendMessageToClient method, of class CallServiceManager, when call fails.
+	 */
+	@Test
+	public void testSendMessageToClientFailed() {
+		System.out.println("sendMessageToClientFailed");
+		Session client = mock(Session.class);
+		Fault fault = mock(Fault.class);
+		when(faultServices.buildFault(any(Throwable.class))).thenReturn(fault);
+		CompletableFuture<MessageToClient> future = new CompletableFuture<>();
+		when(messageToClientService.createMessageToClientAsync(any(MessageFromClient.class), any(Session.class))).thenReturn(future);
+		MessageFromClient message = new MessageFromClient();
+		message.setId("ID");
+
+		instance.sendMessageToClient(message, client);
+		future.completeExceptionally(new IllegalStateException());
+
+		ArgumentCaptor<MessageToClient> captureMsg = ArgumentCaptor.forClass(MessageToClient.class);
+		verify(messageSender).send(captureMsg.capture(), eq(client));
+		assertThat(captureMsg.getValue().getId()).isEqualTo("ID");
+		assertThat(captureMsg.getValue().getResponse()).isEqualTo(fault);
+		verify(faultServices).buildFault(any(IllegalStateException.class));
+	}
+
+	/**
+	 * Test of sendMessagesToClient method, of class CallServiceManager, in parallel when calls fail or are rejected.
+	 */
+	@Test
+	public void testSendMessagesToClientFailed() {
+		System.out.println("sendMessagesToClientFailed");
+		Session client = mock(Session.class);
+		Fault fault = mock(Fault.class);
+		when(faultServices.buildFault(any(Throwable.class))).thenReturn(fault);
+		when(commandExecutor.isBatchParallel()).thenReturn(true);
+		CompletableFuture<CompletableFuture<MessageToClient>> failed = new CompletableFuture<>();
+		failed.completeExceptionally(new IllegalStateException());
+		when(commandExecutor.supplyAsync(any(Supplier.class))).thenThrow(RejectedExecutionException.class).thenReturn(failed);
+		when(commandExecutor.allOf(anyList())).thenCallRealMethod();
+		MessageFromClient message1 = new MessageFromClient();
+		message1.setId("1");
+		MessageFromClient message2 = new MessageFromClient();
+		message2.setId("2");
+
+		boolean result = instance.sendMessagesToClient(Arrays.asList(message1, message2), Arrays.asList(new CancellationToken(), new CancellationToken()), client);
+		assertThat(result).isTrue();
+
+		ArgumentCaptor<List> captureMsgs = ArgumentCaptor.forClass(List.class);
+		verify(messageSender).send(captureMsgs.capture(), eq(client));
+		List<MessageToClient> mtcs = captureMsgs.getValue();
+		assertThat(mtcs).hasSize(2);
+		assertThat(mtcs.get(0).getId()).isEqualTo("1");
+		assertThat(mtcs.get(1).getId()).isEqualTo("2");
+		assertThat(mtcs.get(1).getResponse()).isEqualTo(fault);
+	}
 }
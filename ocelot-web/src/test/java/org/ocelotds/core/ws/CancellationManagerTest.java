@@ -0,0 +1,110 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.ws;
+
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.context.CancellationToken;
+import org.slf4j.Logger;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CancellationManagerTest {
+
+	@Mock
+	private Logger logger;
+
+	@Spy
+	@InjectMocks
+	private CancellationManager instance;
+
+	/**
+	 * Test of register method, of class CancellationManager.
+	 */
+	@Test
+	public void testRegister() {
+		System.out.println("register");
+		CancellationToken token = instance.register("SESSION", "111");
+		assertThat(token).isNotNull();
+		assertThat(instance.register("OTHER", "111")).isNotSameAs(token);
+		assertThat(instance.register("SESSION", null)).isNotNull();
+		assertThat(instance.register(null, "111")).isNotSameAs(token);
+	}
+
+	/**
+	 * Test of cancel method, of class CancellationManager.
+	 */
+	@Test
+	public void testCancel() {
+		System.out.println("cancel");
+		CancellationToken token = instance.register("SESSION", "111");
+		assertThat(instance.cancel("SESSION", "222")).isFalse();
+		assertThat(instance.cancel("OTHER", "111")).isFalse();
+		assertThat(instance.cancel("SESSION", null)).isFalse();
+		assertThat(token.isCancelled()).isFalse();
+
+		assertThat(instance.cancel("SESSION", "111")).isTrue();
+		assertThat(token.isCancelled()).isTrue();
+		assertThat(instance.cancel("SESSION", "111")).isFalse();
+		assertThat(instance.getCancelledCount()).isEqualTo(1L);
+	}
+
+	/**
+	 * Test of register method, of class CancellationManager, call retried with the same id while the call cancelled is running.
+	 */
+	@Test
+	public void testRegisterAfterCancel() {
+		System.out.println("registerAfterCancel");
+		CancellationToken cancelled = instance.register("SESSION", "111");
+		instance.cancel("SESSION", "111");
+
+		CancellationToken token = instance.register("SESSION", "111");
+		assertThat(token).isNotSameAs(cancelled);
+		assertThat(token.isCancelled()).isFalse();
+		// call cancelled ends, retry stays registered
+		instance.unregister("SESSION", "111", cancelled);
+		assertThat(instance.cancel("SESSION", "111")).isTrue();
+		assertThat(token.isCancelled()).isTrue();
+	}
+
+	/**
+	 * Test of unregister method, of class CancellationManager.
+	 */
+	@Test
+	public void testUnregister() {
+		System.out.println("unregister");
+		CancellationToken token = instance.register("SESSION", "111");
+		instance.unregister("SESSION", "111", new CancellationToken());
+		instance.unregister("OTHER", "111", token);
+		instance.unregister("SESSION", null, token);
+		instance.unregister("SESSION", "111", token);
+		assertThat(instance.cancel("SESSION", "111")).isFalse();
+		assertThat(token.isCancelled()).isFalse();
+	}
+
+	/**
+	 * Test of removeSession method, of class CancellationManager.
+	 */
+	@Test
+	public void testRemoveSession() {
+		System.out.println("removeSession");
+		CancellationToken token1 = instance.register("SESSION", "111");
+		CancellationToken token2 = instance.register("SESSION", "222");
+		CancellationToken other = instance.register("OTHER", "111");
+		instance.removeSession("SESSION");
+		instance.removeSession("UNKNOWN");
+		assertThat(token1.isCancelled()).isTrue();
+		assertThat(token2.isCancelled()).isTrue();
+		assertThat(other.isCancelled()).isFalse();
+		assertThat(instance.getCancelledCount()).isEqualTo(2L);
+	}
+}
@@ -0,0 +1,311 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.ws;
+
+import java.util.ArrayList;
+import java.security.Principal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Supplier;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.Constants;
+import org.ocelotds.configuration.WorkersConfigurationManager;
+import org.ocelotds.context.ThreadLocalContextHolder;
+import org.slf4j.Logger;
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class CommandExecutorTest {
+
+	@Mock
+	private Logger logger;
+
+	@Spy
+	private WorkersConfigurationManager configuration = new WorkersConfigurationManager();
+
+	@InjectMocks
+	@Spy
+	private CommandExecutor instance;
+
+	@After
+	public void tearDown() {
+		instance.shutdown();
+		ThreadLocalContextHolder.cleanupThread();
+	}
+
+	/**
+	 * Test of isEnabled method, of class CommandExecutor.
+	 */
+	@Test
+	public void testIsEnabled() {
+		System.out.println("isEnabled");
+		configuration.setSize(0);
+		assertThat(instance.isEnabled()).isFalse();
+		assertThat(instance.isVirtual()).isFalse();
+		configuration.setSize(2);
+		assertThat(instance.isEnabled()).isTrue();
+		configuration.setSize(0);
+		configuration.setVirtual(true);
+		assertThat(instance.isEnabled()).isTrue();
+		assertThat(instance.isVirtual()).isTrue();
+	}
+
+	/**
+	 * Test of execute method, of class CommandExecutor, in virtual mode context of caller is available in command.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testExecuteVirtual() throws InterruptedException {
+		System.out.println("executeVirtual");
+		configuration.setVirtual(true);
+		ThreadLocalContextHolder.put(Constants.LOCALE, "fr");
+		final List<Object> contexts = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch latch = new CountDownLatch(10);
+		for (int i = 0; i < 10; i++) {
+			instance.execute(new Runnable() {
+				@Override
+				public void run() {
+					contexts.add(ThreadLocalContextHolder.get(Constants.LOCALE));
+					latch.countDown();
+				}
+			});
+		}
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(contexts).hasSize(10).containsOnly("fr");
+		assertThat(instance.getQueueDepth("null")).isEqualTo(0);
+	}
+
+	/**
+	 * Test of getExecutor method, of class CommandExecutor, fallback on platform threads.
+	 */
+	@Test
+	public void testGetExecutorFallback() {
+		System.out.println("getExecutorFallback");
+		configuration.setVirtual(true);
+		doReturn(null).when(instance).createVirtualExecutor();
+		assertThat(instance.getExecutor()).isNotNull();
+		assertThat(instance.getPlatformSize()).isEqualTo(Runtime.getRuntime().availableProcessors());
+		configuration.setSize(3);
+		assertThat(instance.getPlatformSize()).isEqualTo(3);
+	}
+
+	/**
+	 * Test of execute method, of class CommandExecutor, commands of a session are executed in order with context of caller.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testExecuteOrdered() throws InterruptedException {
+		System.out.println("executeOrdered");
+		configuration.setSize(4);
+		configuration.setOrdered(true);
+		ThreadLocalContextHolder.put(Constants.LOCALE, "fr");
+		final List<Integer> executed = Collections.synchronizedList(new ArrayList<Integer>());
+		final List<Object> contexts = Collections.synchronizedList(new ArrayList<>());
+		final CountDownLatch latch = new CountDownLatch(20);
+		for (int i = 0; i < 20; i++) {
+			final int idx = i;
+			instance.execute("SESSION", new Runnable() {
+				@Override
+				public void run() {
+					executed.add(idx);
+					contexts.add(ThreadLocalContextHolder.get(Constants.LOCALE));
+					latch.countDown();
+				}
+			});
+		}
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(executed).containsExactly(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10, 11, 12, 13, 14, 15, 16, 17, 18, 19);
+		assertThat(contexts).hasSize(20).containsOnly("fr");
+		assertThat(instance.getMaxQueueDepth()).isGreaterThan(0);
+	}
+
+	/**
+	 * Test of execute method, of class CommandExecutor, command is rejected when queue is full.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testExecuteRejected() throws InterruptedException {
+		System.out.println("executeRejected");
+		configuration.setSize(1);
+		configuration.setQueue(1);
+		configuration.setOrdered(false);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		Runnable blocking = new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try {
+					release.await();
+				} catch (InterruptedException ex) {
+				}
+			}
+		};
+		Runnable noop = new Runnable() {
+			@Override
+			public void run() {
+			}
+		};
+		instance.execute("S1", blocking);
+		assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+		instance.execute("S2", noop); // wait in queue
+		assertThat(instance.getActiveCount()).isEqualTo(1);
+		assertThat(instance.getQueueDepth()).isEqualTo(1);
+		try {
+			instance.execute("S3", noop);
+			fail("RejectedExecutionException expected");
+		} catch (RejectedExecutionException ex) {
+		}
+		assertThat(instance.getRejectedCount()).isEqualTo(1L);
+		release.countDown();
+	}
+
+	/**
+	 * Test of getQueueDepth method, of class CommandExecutor.
+	 */
+	@Test
+	public void testGetQueueDepthOfSession() {
+		System.out.println("getQueueDepth");
+		assertThat(instance.getQueueDepth("UNKNOWN")).isEqualTo(0);
+		configuration.setSize(1);
+		SerialExecutor serialExecutor = instance.getSerialExecutor("SESSION", instance.getExecutor());
+		assertThat(instance.getSerialExecutor("SESSION", instance.getExecutor())).isSameAs(serialExecutor);
+		assertThat(instance.getQueueDepth("SESSION")).isEqualTo(0);
+		instance.removeSession("SESSION");
+		assertThat(instance.getSerialExecutor("SESSION", instance.getExecutor())).isNotSameAs(serialExecutor);
+	}
+
+	/**
+	 * Test of updateMaxQueueDepth method, of class CommandExecutor.
+	 */
+	@Test
+	public void testUpdateMaxQueueDepth() {
+		System.out.println("updateMaxQueueDepth");
+		instance.updateMaxQueueDepth(5);
+		instance.updateMaxQueueDepth(3);
+		assertThat(instance.getMaxQueueDepth()).isEqualTo(5);
+	}
+
+	/**
+	 * Test of supplyAsync method, of class CommandExecutor, context of caller is available in supplier.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testSupplyAsync() throws Exception {
+		System.out.println("supplyAsync");
+		ThreadLocalContextHolder.put(Constants.LOCALE, "fr");
+		Supplier<Object> supplier = new Supplier<Object>() {
+			@Override
+			public Object get() {
+				return ThreadLocalContextHolder.get(Constants.LOCALE);
+			}
+		};
+		assertThat(instance.supplyAsync(supplier).get(5, TimeUnit.SECONDS)).isEqualTo("fr");
+		configuration.setSize(1);
+		assertThat(instance.supplyAsync(supplier).get(5, TimeUnit.SECONDS)).isEqualTo("fr");
+	}
+
+	/**
+	 * Test of allOf method, of class CommandExecutor.
+	 *
+	 * @throws Exception
+	 */
+	@Test
+	public void testAllOf() throws Exception {
+		System.out.println("allOf");
+		CompletableFuture<String> pending = new CompletableFuture<>();
+		List<CompletableFuture<String>> futures = Arrays.asList(CompletableFuture.completedFuture("a"), pending, CompletableFuture.<String>completedFuture(null));
+		CompletableFuture<List<String>> result = instance.allOf(futures);
+		assertThat(result.isDone()).isFalse();
+		pending.complete("b");
+		assertThat(result.get(5, TimeUnit.SECONDS)).containsExactly("a", "b");
+	}
+
+	/**
+	 * Test of isBatchParallel method, of class CommandExecutor.
+	 */
+	@Test
+	public void testIsBatchParallel() {
+		System.out.println("isBatchParallel");
+		assertThat(instance.isBatchParallel()).isFalse();
+		configuration.setBatchParallel(true);
+		assertThat(instance.isBatchParallel()).isTrue();
+	}
+
+	/**
+	 * Test of execute method, of class CommandExecutor, principal of caller is available on workers.
+	 *
+	 * @throws InterruptedException
+	 */
+	@Test
+	public void testExecutePrincipal() throws InterruptedException {
+		System.out.println("executePrincipal");
+		configuration.setSize(2);
+		final Principal principal = mock(Principal.class);
+		final AtomicReference<Object> result = new AtomicReference<>();
+		final CountDownLatch latch = new CountDownLatch(1);
+		ThreadLocalContextHolder.put(Constants.PRINCIPAL, principal);
+		instance.execute("SESSION", new Runnable() {
+			@Override
+			public void run() {
+				result.set(ThreadLocalContextHolder.get(Constants.PRINCIPAL));
+				latch.countDown();
+			}
+		});
+		assertThat(latch.await(5, TimeUnit.SECONDS)).isTrue();
+		assertThat(result.get()).isSameAs(principal);
+	}
+
+	/**
+	 * Test of lookupManagedThreadFactory method, of class CommandExecutor, outside container.
+	 */
+	@Test
+	public void testLookupManagedThreadFactory() {
+		System.out.println("lookupManagedThreadFactory");
+		assertThat(instance.lookupManagedThreadFactory()).isNull();
+		verify(logger).warn(anyString());
+	}
+
+	/**
+	 * Test of newThread method, of class WorkerThreadFactory.
+	 */
+	@Test
+	public void testWorkerThreadFactory() {
+		System.out.println("workerThreadFactory");
+		Runnable r = mock(Runnable.class);
+		Thread thread = new CommandExecutor.WorkerThreadFactory(null).newThread(r);
+		assertThat(thread.getName()).isEqualTo("ocelot-worker-1");
+		assertThat(thread.isDaemon()).isTrue();
+
+		ThreadFactory managed = mock(ThreadFactory.class);
+		Thread managedThread = new Thread(r);
+		when(managed.newThread(r)).thenReturn(managedThread);
+		CommandExecutor.WorkerThreadFactory factory = new CommandExecutor.WorkerThreadFactory(managed);
+		assertThat(factory.newThread(r)).isSameAs(managedThread);
+		assertThat(managedThread.getName()).isEqualTo("ocelot-worker-1");
+	}
+
+}
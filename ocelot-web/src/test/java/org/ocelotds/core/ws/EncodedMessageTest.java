@@ -0,0 +1,61 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.ws;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.Test;
+import org.ocelotds.encoders.CborCodec;
+import org.ocelotds.messaging.MessageToClient;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+public class EncodedMessageTest {
+
+	/**
+	 * Test of getCbor method, of class EncodedMessage, CBOR is transcoded once, each session reads its own buffer.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testGetCbor() throws IOException {
+		System.out.println("getCbor");
+		EncodedMessage instance = new EncodedMessage("{\"a\":[1,2]}");
+		assertThat(instance.getJson()).isEqualTo("{\"a\":[1,2]}");
+		ByteBuffer first = instance.getCbor();
+		ByteBuffer second = instance.getCbor();
+		assertThat(first).isNotSameAs(second);
+		assertThat(first.isReadOnly()).isTrue();
+		assertThat(CborCodec.decode(first)).isEqualTo("{\"a\":[1,2]}");
+		assertThat(first.hasRemaining()).isFalse();
+		assertThat(second.remaining()).isEqualTo(CborCodec.encode("{\"a\":[1,2]}").length);
+	}
+
+
+	/**
+	 * Test of getCbor method, of class EncodedMessage, CBOR is written from the message, not from json.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testGetCborFromMessage() throws IOException {
+		System.out.println("getCborFromMessage");
+		MessageToClient mtc = spy(new MessageToClient());
+		mtc.setId("TOPIC");
+		mtc.setResponse(Arrays.asList(1, 2));
+		EncodedMessage instance = new EncodedMessage(mtc, "TOPIC", true);
+		assertThat(instance.getJson()).isEqualTo(mtc.toJson());
+		assertThat(instance.getKey()).isEqualTo("TOPIC");
+		assertThat(instance.isLatest()).isTrue();
+
+		assertThat(CborCodec.decode(instance.getCbor())).isEqualTo(mtc.toJson());
+		verify(mtc).writeTo(any(JsonGenerator.class));
+	}
+}
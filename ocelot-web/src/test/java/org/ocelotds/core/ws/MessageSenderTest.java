@@ -0,0 +1,343 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.ws;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.Writer;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.Constants;
+import org.ocelotds.configuration.OutboundConfigurationManager;
+import org.ocelotds.encoders.CborCodec;
+import org.ocelotds.messaging.MessageToClient;
+import org.slf4j.Logger;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class MessageSenderTest {
+
+	@Mock
+	private Logger logger;
+
+	@Mock
+	private OutboundConfigurationManager configuration;
+
+	@Spy
+	@InjectMocks
+	private MessageSender instance;
+
+	private Session session;
+
+	private RemoteEndpoint.Async async;
+
+	private RemoteEndpoint.Basic basic;
+
+	private StringWriter sendWriter;
+
+	@Before
+	public void init() throws IOException {
+		session = mock(Session.class);
+		async = mock(RemoteEndpoint.Async.class);
+		basic = mock(RemoteEndpoint.Basic.class);
+		sendWriter = spy(new StringWriter());
+		when(session.getAsyncRemote()).thenReturn(async);
+		when(session.getBasicRemote()).thenReturn(basic);
+		when(basic.getSendWriter()).thenReturn(sendWriter);
+	}
+
+	MessageToClient createMessageToClient(String id, String result) {
+		MessageToClient mtc = new MessageToClient();
+		mtc.setId(id);
+		mtc.setResult(result);
+		return mtc;
+	}
+
+	/**
+	 * Test of send method, of class MessageSender, streaming is disabled.
+	 */
+	@Test
+	public void testSendWithoutStreaming() {
+		System.out.println("sendWithoutStreaming");
+		when(configuration.getStreamingThreshold()).thenReturn(0);
+		MessageToClient mtc = createMessageToClient("1", "r");
+		List<MessageToClient> mtcs = Arrays.asList(mtc, mtc);
+
+		instance.send(mtc, session);
+		instance.send(mtcs, session);
+
+		verify(async).sendText(eq(mtc.toJson()), any(SendHandler.class));
+		verify(async).sendText(eq(MessageToClient.toJson(mtcs)), any(SendHandler.class));
+		verify(session, never()).getBasicRemote();
+	}
+
+	/**
+	 * Test of send method, of class MessageSender, small message is buffered.
+	 */
+	@Test
+	public void testSendBuffered() {
+		System.out.println("sendBuffered");
+		when(configuration.getStreamingThreshold()).thenReturn(1024);
+		MessageToClient mtc = createMessageToClient("1", "r");
+		List<MessageToClient> mtcs = Arrays.asList(mtc, mtc);
+
+		instance.send(mtc, session);
+		instance.send(mtcs, session);
+
+		verify(async).sendText(eq(mtc.toJson()), any(SendHandler.class));
+		verify(async).sendText(eq(MessageToClient.toJson(mtcs)), any(SendHandler.class));
+		verify(session, never()).getBasicRemote();
+		assertThat(instance.getStreamedCount()).isEqualTo(0);
+	}
+
+	/**
+	 * Test of send method, of class MessageSender, large message is streamed.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testSendStreamed() throws IOException {
+		System.out.println("sendStreamed");
+		when(configuration.getStreamingThreshold()).thenReturn(16);
+		MessageToClient mtc = createMessageToClient("1", "large result");
+
+		instance.send(mtc, session);
+
+		assertThat(sendWriter.toString()).isEqualTo(mtc.toJson());
+		verify(sendWriter).close();
+		verify(async, never()).sendText(anyString(), any(SendHandler.class));
+		assertThat(instance.getStreamedCount()).isEqualTo(1);
+	}
+
+	/**
+	 * Test of send method, of class MessageSender, large batch is streamed.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testSendListStreamed() throws IOException {
+		System.out.println("sendListStreamed");
+		when(configuration.getStreamingThreshold()).thenReturn(16);
+		List<MessageToClient> mtcs = Arrays.asList(createMessageToClient("1", "r1"), createMessageToClient("2", "r2"));
+
+		instance.send(mtcs, session);
+
+		assertThat(sendWriter.toString()).isEqualTo(MessageToClient.toJson(mtcs));
+		verify(sendWriter).close();
+		verify(async, never()).sendText(anyString(), any(SendHandler.class));
+	}
+
+	/**
+	 * Test of send method, of class MessageSender, session is sending an other message and cannot stream.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testSendStreamingRefused() throws IOException {
+		System.out.println("sendStreamingRefused");
+		when(configuration.getStreamingThreshold()).thenReturn(16);
+		when(basic.getSendWriter()).thenThrow(IllegalStateException.class);
+		MessageToClient mtc = createMessageToClient("1", "large result");
+
+		instance.send(mtc, session);
+
+		verify(async).sendText(eq(mtc.toJson()), any(SendHandler.class));
+		assertThat(instance.getStreamedCount()).isEqualTo(0);
+	}
+
+	/**
+	 * Test of send method, of class MessageSender, serialization fails before streaming, message is sent by toJson.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testSendFailBuffered() throws IOException {
+		System.out.println("sendFailBuffered");
+		when(configuration.getStreamingThreshold()).thenReturn(1024);
+		MessageToClient mtc = spy(createMessageToClient("1", "r"));
+		doThrow(IOException.class).when(mtc).writeTo(any(Writer.class));
+		List<MessageToClient> mtcs = Arrays.asList(mtc);
+
+		instance.send(mtc, session);
+		instance.send(mtcs, session);
+
+		verify(async).sendText(eq(mtc.toJson()), any(SendHandler.class));
+		verify(async).sendText(eq(MessageToClient.toJson(mtcs)), any(SendHandler.class));
+	}
+
+	/**
+	 * Test of send method, of class MessageSender, streaming fails, writer is closed.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testSendFailStreamed() throws IOException {
+		System.out.println("sendFailStreamed");
+		when(configuration.getStreamingThreshold()).thenReturn(16);
+		doThrow(IOException.class).when(sendWriter).write(any(char[].class), anyInt(), anyInt());
+		doThrow(IOException.class).when(sendWriter).close();
+		MessageToClient mtc = createMessageToClient("1", "large result");
+
+		instance.send(mtc, session);
+		instance.send(Arrays.asList(mtc), session);
+
+		verify(instance, times(2)).abort(any(StreamingWriter.class), eq(session), any(IOException.class));
+		verify(logger, times(2)).error(anyString(), any(IOException.class));
+		verify(sendWriter, times(2)).close();
+		verify(async, never()).sendText(anyString(), any(SendHandler.class));
+		assertThat(instance.getStreamedCount()).isEqualTo(0);
+	}
+
+
+	/**
+	 * Test of send method, of class MessageSender, session uses the binary protocol.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testSendBinary() throws IOException {
+		System.out.println("sendBinary");
+		when(session.getNegotiatedSubprotocol()).thenReturn(Constants.SUBPROTOCOL_CBOR);
+		when(configuration.getStreamingThreshold()).thenReturn(16);
+		MessageToClient mtc = createMessageToClient("1", "large result");
+		List<MessageToClient> mtcs = Arrays.asList(mtc, mtc);
+
+		instance.send(mtc, session);
+		instance.send(mtcs, session);
+
+		ArgumentCaptor<ByteBuffer> captureCbor = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(async, times(2)).sendBinary(captureCbor.capture(), any(SendHandler.class));
+		assertThat(CborCodec.decode(captureCbor.getAllValues().get(0))).isEqualTo(mtc.toJson());
+		assertThat(CborCodec.decode(captureCbor.getAllValues().get(1))).isEqualTo(MessageToClient.toJson(mtcs));
+		verify(async, never()).sendText(anyString(), any(SendHandler.class));
+		verify(session, never()).getBasicRemote();
+	}
+
+	/**
+	 * Test of send method, of class MessageSender, message encoded is sent in the protocol of session.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testSendEncodedMessage() throws IOException {
+		System.out.println("sendEncodedMessage");
+		EncodedMessage message = spy(new EncodedMessage("{\"a\":1}"));
+		Session binarySession = mock(Session.class);
+		when(binarySession.getAsyncRemote()).thenReturn(async);
+		when(binarySession.getNegotiatedSubprotocol()).thenReturn(Constants.SUBPROTOCOL_CBOR);
+
+		instance.send(message, session);
+		instance.send(message, binarySession);
+
+		verify(async).sendText(eq("{\"a\":1}"), any(SendHandler.class));
+		ArgumentCaptor<ByteBuffer> captureCbor = ArgumentCaptor.forClass(ByteBuffer.class);
+		verify(async).sendBinary(captureCbor.capture(), any(SendHandler.class));
+		assertThat(CborCodec.decode(captureCbor.getValue())).isEqualTo("{\"a\":1}");
+
+		doThrow(IOException.class).when(message).getCbor();
+		instance.send(message, binarySession);
+		verify(logger).error(anyString(), any(IOException.class));
+		verify(async).sendBinary(any(ByteBuffer.class), any(SendHandler.class));
+	}
+
+	/**
+	 * Test of send method, of class MessageSender, messages to an open session are queued while one is in flight.
+	 */
+	@Test
+	public void testSendQueued() {
+		System.out.println("sendQueued");
+		when(session.isOpen()).thenReturn(true);
+		when(session.getId()).thenReturn("WSID");
+		when(configuration.getStreamingThreshold()).thenReturn(0);
+		when(configuration.getOutboundQueue()).thenReturn(10);
+		when(configuration.getOutboundPolicy()).thenReturn(Constants.Options.POLICY_DROP_OLDEST);
+		MessageToClient mtc1 = createMessageToClient("1", "r1");
+		MessageToClient mtc2 = createMessageToClient("2", "r2");
+
+		instance.send(mtc1, session);
+		instance.send(mtc2, session);
+		instance.send(new EncodedMessage("{}", "TOPIC"), session);
+
+		ArgumentCaptor<SendHandler> captureHandler = ArgumentCaptor.forClass(SendHandler.class);
+		verify(async).sendText(eq(mtc1.toJson()), captureHandler.capture());
+		verify(async, never()).sendText(eq(mtc2.toJson()), any(SendHandler.class));
+		OutboundQueue queue = instance.getOutboundQueue("WSID");
+		assertThat(queue).isSameAs(captureHandler.getValue());
+		assertThat(instance.getOutboundQueues()).containsOnlyKeys("WSID");
+		assertThat(queue.getDepth()).isEqualTo(2);
+
+		queue.onResult(new SendResult());
+		verify(async).sendText(eq(mtc2.toJson()), any(SendHandler.class));
+		assertThat(queue.getDepth()).isEqualTo(1);
+
+		instance.removeSession("WSID");
+		assertThat(instance.getOutboundQueue("WSID")).isNull();
+		assertThat(queue.isClosed()).isTrue();
+		assertThat(queue.getDroppedCount()).isEqualTo(1);
+		instance.removeSession("WSID");
+	}
+
+	/**
+	 * Test of send method, of class MessageSender, large message is not streamed while a message is in flight.
+	 */
+	@Test
+	public void testSendStreamingQueueBusy() {
+		System.out.println("sendStreamingQueueBusy");
+		when(session.isOpen()).thenReturn(true);
+		when(session.getId()).thenReturn("WSID");
+		when(configuration.getStreamingThreshold()).thenReturn(16);
+		when(configuration.getOutboundQueue()).thenReturn(10);
+		when(configuration.getOutboundPolicy()).thenReturn(Constants.Options.POLICY_DROP_OLDEST);
+		MessageToClient mtc = createMessageToClient("2", "large result");
+
+		instance.send(new EncodedMessage("{}"), session);
+		instance.send(mtc, session);
+		instance.send(Arrays.asList(mtc), session);
+
+		verify(session, never()).getBasicRemote();
+		assertThat(instance.getOutboundQueue("WSID").getDepth()).isEqualTo(2);
+		assertThat(instance.getStreamedCount()).isEqualTo(0);
+	}
+
+	/**
+	 * Test of send method, of class MessageSender, serialization fails, queue is released.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testSendFailRuntime() throws IOException {
+		System.out.println("sendFailRuntime");
+		when(session.isOpen()).thenReturn(true);
+		when(session.getId()).thenReturn("WSID");
+		when(configuration.getStreamingThreshold()).thenReturn(16);
+		when(configuration.getOutboundQueue()).thenReturn(10);
+		MessageToClient mtc = spy(createMessageToClient("1", "r"));
+		doThrow(IllegalArgumentException.class).when(mtc).writeTo(any(Writer.class));
+
+		try {
+			instance.send(mtc, session);
+			fail("IllegalArgumentException expected");
+		} catch (IllegalArgumentException ex) {
+		}
+		assertThat(instance.getOutboundQueue("WSID").tryAcquire()).isTrue();
+	}
+}
@@ -0,0 +1,314 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.ws;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import javax.websocket.CloseReason;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.SendHandler;
+import javax.websocket.SendResult;
+import javax.websocket.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.ocelotds.Constants;
+import org.slf4j.Logger;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class OutboundQueueTest {
+
+	@Mock
+	private Logger logger;
+
+	@Mock
+	private Session session;
+
+	@Mock
+	private RemoteEndpoint.Async async;
+
+	@Before
+	public void init() {
+		when(session.getAsyncRemote()).thenReturn(async);
+		when(session.getId()).thenReturn("WSID");
+	}
+
+	OutboundQueue.Frame frame(String text) {
+		return new OutboundQueue.Frame(text, null);
+	}
+
+	OutboundQueue.Frame frame(String text, String key) {
+		return new OutboundQueue.Frame(text, key);
+	}
+
+	/**
+	 * Test of offer method, of class OutboundQueue.
+	 */
+	@Test
+	public void testOffer() {
+		System.out.println("offer");
+		OutboundQueue instance = new OutboundQueue(session, 10, Constants.Options.POLICY_DROP_OLDEST, logger);
+		instance.offer(frame("1"));
+		instance.offer(frame("2"));
+		instance.offer(frame("3"));
+		verify(async).sendText(eq("1"), eq(instance));
+		verify(async, never()).sendText(eq("2"), any(SendHandler.class));
+		assertThat(instance.getDepth()).isEqualTo(2);
+		assertThat(instance.getMaxDepth()).isEqualTo(2);
+
+		instance.onResult(new SendResult());
+		verify(async).sendText(eq("2"), eq(instance));
+		instance.onResult(new SendResult(new IOException()));
+		verify(async).sendText(eq("3"), eq(instance));
+		instance.onResult(new SendResult());
+		assertThat(instance.getDepth()).isEqualTo(0);
+		assertThat(instance.getSentCount()).isEqualTo(2);
+		assertThat(instance.getFailedCount()).isEqualTo(1);
+
+		// nothing in flight, sent now
+		instance.offer(frame("4"));
+		verify(async).sendText(eq("4"), eq(instance));
+	}
+
+	/**
+	 * Test of offer method, of class OutboundQueue, binary frame.
+	 */
+	@Test
+	public void testOfferBinary() {
+		System.out.println("offerBinary");
+		OutboundQueue instance = new OutboundQueue(session, 10, Constants.Options.POLICY_DROP_OLDEST, logger);
+		ByteBuffer buffer = ByteBuffer.wrap(new byte[]{1});
+		instance.offer(new OutboundQueue.Frame(buffer, "TOPIC", false));
+		verify(async).sendBinary(eq(buffer), eq(instance));
+	}
+
+	/**
+	 * Test of offer method, of class OutboundQueue, container calls back in the sending thread.
+	 */
+	@Test
+	public void testOfferCompletedInWrite() {
+		System.out.println("offerCompletedInWrite");
+		final OutboundQueue instance = new OutboundQueue(session, 1000, Constants.Options.POLICY_DROP_OLDEST, logger);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				((SendHandler) invocation.getArguments()[1]).onResult(new SendResult());
+				return null;
+			}
+		}).when(async).sendText(anyString(), any(SendHandler.class));
+		assertThat(instance.tryAcquire()).isTrue();
+		for (int idx = 0; idx < 500; idx++) {
+			instance.offer(frame("" + idx));
+		}
+		verify(async, never()).sendText(anyString(), any(SendHandler.class));
+		instance.release();
+		verify(async, times(500)).sendText(anyString(), any(SendHandler.class));
+		assertThat(instance.getSentCount()).isEqualTo(500);
+		assertThat(instance.getDepth()).isEqualTo(0);
+		assertThat(instance.tryAcquire()).isTrue();
+	}
+
+	/**
+	 * Test of offer method, of class OutboundQueue, container refuses the message.
+	 */
+	@Test
+	public void testOfferWriteFailed() {
+		System.out.println("offerWriteFailed");
+		OutboundQueue instance = new OutboundQueue(session, 10, Constants.Options.POLICY_DROP_OLDEST, logger);
+		doThrow(IllegalStateException.class).when(async).sendText(eq("1"), any(SendHandler.class));
+		instance.offer(frame("1"));
+		assertThat(instance.getFailedCount()).isEqualTo(1);
+		instance.offer(frame("2"));
+		verify(async).sendText(eq("2"), eq(instance));
+	}
+
+	/**
+	 * Test of overflow method, of class OutboundQueue, oldest message is dropped.
+	 */
+	@Test
+	public void testOverflowDropOldest() {
+		System.out.println("overflowDropOldest");
+		OutboundQueue instance = new OutboundQueue(session, 2, Constants.Options.POLICY_DROP_OLDEST, logger);
+		instance.offer(frame("0"));
+		instance.offer(frame("1", "TOPIC"));
+		instance.offer(frame("2", "TOPIC"));
+		instance.offer(frame("3", "TOPIC"));
+		assertThat(instance.getDepth()).isEqualTo(2);
+		assertThat(instance.getDroppedCount()).isEqualTo(1);
+		instance.onResult(new SendResult());
+		instance.onResult(new SendResult());
+		verify(async, never()).sendText(eq("1"), any(SendHandler.class));
+		verify(async).sendText(eq("2"), eq(instance));
+		verify(async).sendText(eq("3"), eq(instance));
+	}
+
+	/**
+	 * Test of overflow method, of class OutboundQueue, message of the same topic is replaced.
+	 */
+	@Test
+	public void testOverflowConflate() {
+		System.out.println("overflowConflate");
+		OutboundQueue instance = new OutboundQueue(session, 2, Constants.Options.POLICY_CONFLATE, logger);
+		instance.offer(frame("0"));
+		instance.offer(frame("A1", "A"));
+		instance.offer(frame("B1", "B"));
+		instance.offer(frame("A2", "A"));
+		assertThat(instance.getConflatedCount()).isEqualTo(1);
+		assertThat(instance.getDroppedCount()).isEqualTo(0);
+		// without key, oldest topic message is dropped
+		instance.offer(frame("R"));
+		assertThat(instance.getDroppedCount()).isEqualTo(1);
+		instance.onResult(new SendResult());
+		instance.onResult(new SendResult());
+		verify(async, never()).sendText(eq("A1"), any(SendHandler.class));
+		verify(async, never()).sendText(eq("A2"), any(SendHandler.class));
+		verify(async).sendText(eq("B1"), eq(instance));
+		verify(async).sendText(eq("R"), eq(instance));
+	}
+
+	/**
+	 * Test of offer method, of class OutboundQueue, latest-value message replaces the waiting one before the queue is full.
+	 */
+	@Test
+	public void testOfferLatest() {
+		System.out.println("offerLatest");
+		OutboundQueue instance = new OutboundQueue(session, 10, Constants.Options.POLICY_DROP_OLDEST, logger);
+		instance.offer(frame("0"));
+		instance.offer(new OutboundQueue.Frame("A1", "A", true));
+		instance.offer(new OutboundQueue.Frame("B1", "B", true));
+		instance.offer(new OutboundQueue.Frame("A2", "A", true));
+		// without latest, message is queued
+		instance.offer(frame("B2", "B"));
+		assertThat(instance.getDepth()).isEqualTo(3);
+		assertThat(instance.getConflatedCount()).isEqualTo(1);
+		assertThat(instance.getDroppedCount()).isEqualTo(0);
+		instance.onResult(new SendResult());
+		instance.onResult(new SendResult());
+		instance.onResult(new SendResult());
+		verify(async, never()).sendText(eq("A1"), any(SendHandler.class));
+		verify(async).sendText(eq("A2"), eq(instance));
+		verify(async).sendText(eq("B1"), eq(instance));
+		verify(async).sendText(eq("B2"), eq(instance));
+	}
+
+	/**
+	 * Test of overflow method, of class OutboundQueue, session is closed.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testOverflowDisconnect() throws IOException {
+		System.out.println("overflowDisconnect");
+		OutboundQueue instance = new OutboundQueue(session, 1, Constants.Options.POLICY_DISCONNECT, logger);
+		instance.offer(frame("0"));
+		instance.offer(frame("1"));
+		instance.offer(frame("2"));
+		ArgumentCaptor<CloseReason> captureReason = ArgumentCaptor.forClass(CloseReason.class);
+		verify(session).close(captureReason.capture());
+		assertThat(captureReason.getValue().getCloseCode()).isEqualTo(CloseReason.CloseCodes.TRY_AGAIN_LATER);
+		assertThat(instance.isClosed()).isTrue();
+		assertThat(instance.getDroppedCount()).isEqualTo(2);
+		instance.offer(frame("3"));
+		assertThat(instance.getDroppedCount()).isEqualTo(3);
+		instance.onResult(new SendResult());
+		verify(async, times(1)).sendText(anyString(), any(SendHandler.class));
+		assertThat(instance.tryAcquire()).isFalse();
+
+		doThrow(IOException.class).when(session).close(any(CloseReason.class));
+		instance.disconnect();
+	}
+
+	/**
+	 * Test of tryAcquire method, of class OutboundQueue.
+	 */
+	@Test
+	public void testTryAcquire() {
+		System.out.println("tryAcquire");
+		OutboundQueue instance = new OutboundQueue(session, 0, Constants.Options.POLICY_DROP_OLDEST, logger);
+		assertThat(instance.tryAcquire()).isTrue();
+		assertThat(instance.tryAcquire()).isFalse();
+		instance.offer(frame("1"));
+		verify(async, never()).sendText(anyString(), any(SendHandler.class));
+		instance.release();
+		verify(async).sendText(eq("1"), eq(instance));
+		assertThat(instance.tryAcquire()).isFalse();
+		instance.onResult(new SendResult());
+		assertThat(instance.tryAcquire()).isTrue();
+		instance.send(frame("2"));
+		verify(async).sendText(eq("2"), eq(instance));
+	}
+
+	/**
+	 * Test of close method, of class OutboundQueue.
+	 */
+	@Test
+	public void testClose() {
+		System.out.println("close");
+		OutboundQueue instance = new OutboundQueue(session, 0, Constants.Options.POLICY_DROP_OLDEST, logger);
+		instance.offer(frame("1"));
+		instance.offer(frame("2"));
+		instance.close();
+		assertThat(instance.getDroppedCount()).isEqualTo(1);
+		instance.onResult(new SendResult());
+		verify(async, never()).sendText(eq("2"), any(SendHandler.class));
+		assertThat(instance.getDepth()).isEqualTo(0);
+	}
+
+
+	/**
+	 * Test of overflow method, of class OutboundQueue, responses are never dropped.
+	 */
+	@Test
+	public void testOverflowKeepResponses() {
+		System.out.println("overflowKeepResponses");
+		OutboundQueue instance = new OutboundQueue(session, 2, Constants.Options.POLICY_DROP_OLDEST, logger);
+		instance.offer(frame("0"));
+		instance.offer(frame("R1"));
+		instance.offer(frame("T1", "TOPIC"));
+		// oldest topic message makes room, not the oldest response
+		instance.offer(frame("R2"));
+		assertThat(instance.getDepth()).isEqualTo(2);
+		assertThat(instance.getDroppedCount()).isEqualTo(1);
+		// only responses waiting : topic message is dropped, response is queued over capacity
+		instance.offer(frame("T2", "TOPIC"));
+		instance.offer(frame("R3"));
+		assertThat(instance.getDepth()).isEqualTo(3);
+		assertThat(instance.getDroppedCount()).isEqualTo(2);
+		instance.onResult(new SendResult());
+		instance.onResult(new SendResult());
+		instance.onResult(new SendResult());
+		verify(async, never()).sendText(eq("T1"), any(SendHandler.class));
+		verify(async, never()).sendText(eq("T2"), any(SendHandler.class));
+		verify(async).sendText(eq("R1"), eq(instance));
+		verify(async).sendText(eq("R2"), eq(instance));
+		verify(async).sendText(eq("R3"), eq(instance));
+	}
+
+	/**
+	 * Test of overflow method, of class OutboundQueue, conflate policy keeps responses too.
+	 */
+	@Test
+	public void testOverflowConflateKeepResponses() {
+		System.out.println("overflowConflateKeepResponses");
+		OutboundQueue instance = new OutboundQueue(session, 1, Constants.Options.POLICY_CONFLATE, logger);
+		instance.offer(frame("0"));
+		instance.offer(frame("R1"));
+		instance.offer(frame("A1", "A"));
+		instance.offer(frame("R2"));
+		assertThat(instance.getDepth()).isEqualTo(2);
+		assertThat(instance.getDroppedCount()).isEqualTo(1);
+		assertThat(instance.getConflatedCount()).isEqualTo(0);
+	}
+}
@@ -0,0 +1,87 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.ws;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+public class SerialExecutorTest {
+
+	/**
+	 * Test of execute method, of class SerialExecutor.
+	 */
+	@Test
+	public void testExecute() {
+		System.out.println("execute");
+		final List<Runnable> submitted = new ArrayList<>();
+		Executor executor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				submitted.add(command);
+			}
+		};
+		final List<Integer> executed = new ArrayList<>();
+		SerialExecutor instance = new SerialExecutor(executor);
+		for (int i = 0; i < 3; i++) {
+			final int idx = i;
+			instance.execute(new Runnable() {
+				@Override
+				public void run() {
+					executed.add(idx);
+				}
+			});
+		}
+		// only first task is submitted, others wait
+		assertThat(submitted).hasSize(1);
+		assertThat(instance.size()).isEqualTo(2);
+		submitted.get(0).run();
+		assertThat(submitted).hasSize(2);
+		assertThat(instance.size()).isEqualTo(1);
+		submitted.get(1).run();
+		submitted.get(2).run();
+		assertThat(submitted).hasSize(3);
+		assertThat(instance.size()).isEqualTo(0);
+		assertThat(executed).containsExactly(0, 1, 2);
+	}
+
+	/**
+	 * Test of execute method, of class SerialExecutor, next task is submitted even if a task fails.
+	 */
+	@Test
+	public void testExecuteFail() {
+		System.out.println("executeFail");
+		final List<Runnable> submitted = new ArrayList<>();
+		Executor executor = new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				submitted.add(command);
+			}
+		};
+		SerialExecutor instance = new SerialExecutor(executor);
+		instance.execute(new Runnable() {
+			@Override
+			public void run() {
+				throw new IllegalStateException();
+			}
+		});
+		instance.execute(new Runnable() {
+			@Override
+			public void run() {
+			}
+		});
+		try {
+			submitted.get(0).run();
+			fail("IllegalStateException expected");
+		} catch (IllegalStateException ex) {
+		}
+		assertThat(submitted).hasSize(2);
+	}
+}
@@ -0,0 +1,61 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.core.ws;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import javax.websocket.RemoteEndpoint;
+import javax.websocket.Session;
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+public class StreamingWriterTest {
+
+	/**
+	 * Test of write method, of class StreamingWriter, buffer is streamed when threshold is exceeded.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testWrite() throws IOException {
+		System.out.println("write");
+		Session session = mock(Session.class);
+		RemoteEndpoint.Basic basic = mock(RemoteEndpoint.Basic.class);
+		StringWriter sendWriter = spy(new StringWriter());
+		when(session.getBasicRemote()).thenReturn(basic);
+		when(basic.getSendWriter()).thenReturn(sendWriter);
+		StreamingWriter instance = new StreamingWriter(session, 4);
+		instance.write("abcd");
+		assertThat(instance.isStreaming()).isFalse();
+		assertThat(instance.toString()).isEqualTo("abcd");
+		instance.write(new char[]{'e', 'f'}, 0, 2);
+		assertThat(instance.isStreaming()).isTrue();
+		instance.write('g');
+		instance.flush();
+		instance.close();
+		assertThat(sendWriter.toString()).isEqualTo("abcdefg");
+		assertThat(instance.toString()).isEmpty();
+		verify(sendWriter).flush();
+		verify(sendWriter).close();
+	}
+
+	/**
+	 * Test of getBuffer method, of class StreamingWriter, buffer of thread is reused, except if it grew too much.
+	 */
+	@Test
+	public void testGetBuffer() {
+		System.out.println("getBuffer");
+		StringBuilder buffer = StreamingWriter.getBuffer();
+		buffer.append("abc");
+		assertThat((Object) StreamingWriter.getBuffer()).isSameAs(buffer);
+		assertThat(buffer.toString()).isEmpty();
+		buffer.setLength(StreamingWriter.MAX_KEPT_CAPACITY + 1);
+		assertThat(StreamingWriter.getBuffer().capacity()).isEqualTo(StreamingWriter.INITIAL_CAPACITY);
+	}
+}
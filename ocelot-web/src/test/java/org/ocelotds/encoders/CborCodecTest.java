@@ -0,0 +1,168 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.encoders;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import org.junit.Test;
+import org.ocelotds.messaging.MessageToClient;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+public class CborCodecTest {
+
+	byte[] bytes(int... values) {
+		byte[] bytes = new byte[values.length];
+		for (int idx = 0; idx < values.length; idx++) {
+			bytes[idx] = (byte) values[idx];
+		}
+		return bytes;
+	}
+
+	String decode(int... values) throws IOException {
+		return CborCodec.decode(ByteBuffer.wrap(bytes(values)));
+	}
+
+	/**
+	 * Test of encode method, of class CborCodec, values are written in the shortest form.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testEncode() throws IOException {
+		System.out.println("encode");
+		assertThat(CborCodec.encode("0")).isEqualTo(bytes(0x00));
+		assertThat(CborCodec.encode("23")).isEqualTo(bytes(0x17));
+		assertThat(CborCodec.encode("24")).isEqualTo(bytes(0x18, 0x18));
+		assertThat(CborCodec.encode("1000")).isEqualTo(bytes(0x19, 0x03, 0xE8));
+		assertThat(CborCodec.encode("1000000")).isEqualTo(bytes(0x1A, 0x00, 0x0F, 0x42, 0x40));
+		assertThat(CborCodec.encode("1000000000000")).isEqualTo(bytes(0x1B, 0x00, 0x00, 0x00, 0xE8, 0xD4, 0xA5, 0x10, 0x00));
+		assertThat(CborCodec.encode("-1")).isEqualTo(bytes(0x20));
+		assertThat(CborCodec.encode("-1000")).isEqualTo(bytes(0x39, 0x03, 0xE7));
+		assertThat(CborCodec.encode("1.5")).isEqualTo(bytes(0xFB, 0x3F, 0xF8, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00));
+		// precision of double would be lost
+		assertThat(CborCodec.encode("0.1000000000000000000001")).isEqualTo(bytes(0xC4, 0x82, 0x35, 0xC2, 0x49, 0x36, 0x35, 0xC9, 0xAD, 0xC5, 0xDE, 0xA0, 0x00, 0x01));
+		assertThat(CborCodec.encode("18446744073709551616")).isEqualTo(bytes(0xC2, 0x49, 0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00));
+		assertThat(CborCodec.encode("-18446744073709551617")).isEqualTo(bytes(0xC3, 0x49, 0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00));
+		assertThat(CborCodec.encode("true")).isEqualTo(bytes(0xF5));
+		assertThat(CborCodec.encode("false")).isEqualTo(bytes(0xF4));
+		assertThat(CborCodec.encode("null")).isEqualTo(bytes(0xF6));
+		assertThat(CborCodec.encode("\"a\"")).isEqualTo(bytes(0x61, 0x61));
+		assertThat(CborCodec.encode("\"ü\"")).isEqualTo(bytes(0x62, 0xC3, 0xBC));
+		assertThat(CborCodec.encode("[1,[]]")).isEqualTo(bytes(0x9F, 0x01, 0x9F, 0xFF, 0xFF));
+		assertThat(CborCodec.encode("{\"a\":1}")).isEqualTo(bytes(0xBF, 0x61, 0x61, 0x01, 0xFF));
+	}
+
+	/**
+	 * Test of decode method, of class CborCodec, json encoded is decoded identical.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testEncodeDecode() throws IOException {
+		System.out.println("encodeDecode");
+		MessageToClient mtc = new MessageToClient();
+		mtc.setId("id");
+		mtc.setResult(new Object[]{"été", -5, 3000000000L, 1.25, null, true, new String[0]});
+		String json = mtc.toJson();
+		assertThat(CborCodec.decode(ByteBuffer.wrap(CborCodec.encode(json)))).isEqualTo(json);
+		assertThat(CborCodec.encode(json).length).isLessThan(json.length());
+	}
+
+	/**
+	 * Test of decode method, of class CborCodec, numbers beyond double precision are decoded identical.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testEncodeDecodeNumbers() throws IOException {
+		System.out.println("encodeDecodeNumbers");
+		String json = "[123456789012345678901234567890,-123456789012345678901234567890,9223372036854775808,3.14159265358979323846264338327950288,-1.0E-400,1.0E+400,0.1]";
+		assertThat(CborCodec.decode(ByteBuffer.wrap(CborCodec.encode(json)))).isEqualTo(json);
+	}
+
+	/**
+	 * Test of decode method, of class CborCodec, for items that encode does not write.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testDecode() throws IOException {
+		System.out.println("decode");
+		// definite array and map
+		assertThat(decode(0x82, 0x01, 0xA1, 0x61, 0x61, 0x02)).isEqualTo("[1,{\"a\":2}]");
+		// indefinite text
+		assertThat(decode(0x7F, 0x61, 0x61, 0x62, 0x62, 0x63, 0xFF)).isEqualTo("\"abc\"");
+		// bytes in base64
+		assertThat(decode(0x43, 0x01, 0x02, 0x03)).isEqualTo("\"AQID\"");
+		// tag ignored
+		assertThat(decode(0xC1, 0x1A, 0x51, 0x4B, 0x67, 0xB0)).isEqualTo("1363896240");
+		// bignums and decimal fraction 273.15
+		assertThat(decode(0xC2, 0x49, 0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00)).isEqualTo("18446744073709551616");
+		assertThat(decode(0xC3, 0x49, 0x01, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00, 0x00)).isEqualTo("-18446744073709551617");
+		assertThat(decode(0xC4, 0x82, 0x21, 0x19, 0x6A, 0xB3)).isEqualTo("273.15");
+		// half and single float
+		assertThat(decode(0xF9, 0x3E, 0x00)).isEqualTo("1.5");
+		assertThat(decode(0xF9, 0xC4, 0x00)).isEqualTo("-4.0");
+		assertThat(decode(0xF9, 0x00, 0x01)).isEqualTo(String.valueOf((float) Math.pow(2, -24)));
+		assertThat(decode(0xFA, 0x47, 0xC3, 0x50, 0x00)).isEqualTo("100000.0");
+		// undefined
+		assertThat(decode(0xF7)).isEqualTo("null");
+		// integers out of long
+		assertThat(decode(0x1B, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF)).isEqualTo("18446744073709551615");
+		assertThat(decode(0x3B, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF, 0xFF)).isEqualTo("-18446744073709551616");
+	}
+
+	/**
+	 * Test of decode method, of class CborCodec, invalid items.
+	 */
+	@Test
+	public void testDecodeInvalid() {
+		System.out.println("decodeInvalid");
+		int[][] invalids = new int[][]{
+			{0x62, 0x61}, // truncated text
+			{0x82, 0x01}, // truncated array
+			{0x01, 0x02}, // data after item
+			{0xA1, 0x01, 0x02}, // key not text
+			{0x9F, 0xA1, 0xFF}, // break in definite map
+			{0x1C}, // reserved argument
+			{0xF0}, // simple value
+			{0x7F, 0x41, 0x61, 0xFF}, // chunk of bytes in text
+			{0x7F, 0x7F, 0xFF, 0xFF}, // indefinite chunk
+			{0xC2, 0x01}, // bignum not bytes
+			{0xC4, 0x01}, // decimal fraction not array
+			{0xC4, 0x82, 0x21, 0x61, 0x61} // mantissa not integer
+		};
+		for (int[] invalid : invalids) {
+			try {
+				decode(invalid);
+				fail("IOException expected");
+			} catch (IOException ex) {
+			}
+		}
+	}
+
+	/**
+	 * Test of decode method, of class CborCodec, items too nested are refused without stack overflow.
+	 */
+	@Test
+	public void testDecodeTooDeep() {
+		System.out.println("decodeTooDeep");
+		int[][] frames = new int[][]{new int[100000], new int[100000]};
+		Arrays.fill(frames[0], 0x9F); // nested indefinite arrays
+		Arrays.fill(frames[1], 0xC6); // nested tags
+		for (int[] frame : frames) {
+			try {
+				decode(frame);
+				fail("IOException expected");
+			} catch (IOException ex) {
+				assertThat(ex.getMessage()).contains("nested");
+			}
+		}
+	}
+}
@@ -0,0 +1,116 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.encoders;
+
+import com.fasterxml.jackson.core.JsonGenerationException;
+import com.fasterxml.jackson.core.JsonGenerator;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import org.junit.Test;
+import org.ocelotds.marshalling.SharedObjectMapper;
+import org.ocelotds.messaging.Fault;
+import org.ocelotds.messaging.MessageToClient;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+public class CborGeneratorTest {
+
+	/**
+	 * Serialize object in CBOR with generator
+	 *
+	 * @param value
+	 * @return
+	 * @throws IOException
+	 */
+	byte[] write(Object value) throws IOException {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		try (JsonGenerator generator = new CborGenerator(out)) {
+			SharedObjectMapper.getObjectWriter().writeValue(generator, value);
+		}
+		return out.toByteArray();
+	}
+
+	/**
+	 * Test of CborGenerator, objects are written like their json transcoded.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testWriteLikeJson() throws IOException {
+		System.out.println("writeLikeJson");
+		Map<String, Object> map = new LinkedHashMap<>();
+		map.put("text", "été");
+		map.put("int", -5);
+		map.put("long", 3000000000L);
+		map.put("double", 1.25);
+		map.put("float", 0.1f);
+		map.put("big", new BigInteger("18446744073709551616"));
+		map.put("decimal", new BigDecimal("0.1000000000000000000001"));
+		map.put("null", null);
+		map.put("bool", true);
+		map.put("array", new String[0]);
+		map.put("bytes", new byte[]{1, 2, 3});
+		Object[] values = new Object[]{"a", 1, 2.0, Double.NaN, map, Arrays.asList(1, 2)};
+		for (Object value : values) {
+			String json = SharedObjectMapper.getObjectWriter().writeValueAsString(value);
+			assertThat(write(value)).isEqualTo(CborCodec.encode(json));
+		}
+	}
+
+	/**
+	 * Test of encode method, of class CborCodec, message is written without json, raw responses are transcoded.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testEncodeMessageToClient() throws IOException {
+		System.out.println("encodeMessageToClient");
+		MessageToClient result = new MessageToClient();
+		result.setId("1");
+		result.setResult(Arrays.asList("a", 1));
+		MessageToClient raw = new MessageToClient();
+		raw.setId("2");
+		raw.setJson("{\"a\":[1,2.5]}");
+		MessageToClient fault = new MessageToClient();
+		fault.setId("3");
+		fault.setFault(new Fault(new NullPointerException("NPE"), 0));
+		for (MessageToClient mtc : Arrays.asList(result, raw, fault)) {
+			assertThat(CborCodec.encode(mtc)).isEqualTo(CborCodec.encode(mtc.toJson()));
+		}
+		assertThat(CborCodec.decode(ByteBuffer.wrap(CborCodec.encode(Arrays.asList(result, raw))))).isEqualTo(MessageToClient.toJson(Arrays.asList(result, raw)));
+	}
+
+	/**
+	 * Test of writeRaw method, of class CborGenerator, there is no raw text in CBOR.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test(expected = UnsupportedOperationException.class)
+	public void testWriteRaw() throws IOException {
+		System.out.println("writeRaw");
+		new CborGenerator(new ByteArrayOutputStream()).writeRaw("1");
+	}
+
+	/**
+	 * Test of writeFieldName method, of class CborGenerator, field name is written only in object.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test(expected = JsonGenerationException.class)
+	public void testWriteFieldNameInArray() throws IOException {
+		System.out.println("writeFieldNameInArray");
+		JsonGenerator generator = new CborGenerator(new ByteArrayOutputStream());
+		generator.writeStartArray();
+		generator.writeFieldName("a");
+	}
+}
@@ -9,6 +9,7 @@ import java.util.Set;
 import javax.ejb.Stateful;
 import javax.ejb.Stateless;
 import javax.enterprise.context.Dependent;
+import javax.enterprise.context.SessionScoped;
 import javax.enterprise.context.spi.CreationalContext;
 import javax.enterprise.inject.spi.Bean;
 import javax.enterprise.inject.spi.BeanManager;
@@ -115,4 +116,50 @@ public class CdiResolverTest {
 
 	@DataService(resolver = "CDI")
 	public static class CDIBeanManaged {}
+
+	/**
+	 * Test of releaseDataService method, of class CdiResolver, dependent instance is destroyed.
+	 * @throws org.ocelotds.spi.DataServiceException
+	 */
+	@Test
+	public void testReleaseDataServiceDependent() throws DataServiceException  {
+		System.out.println("releaseDataServiceDependent");
+		CDIBeanSession instance = new CDIBeanSession();
+		Set<Bean<?>> set = new HashSet<>();
+		Bean b = mock(Bean.class);
+		CreationalContext ctx = mock(CreationalContext.class);
+		set.add(b);
+		when(b.getScope()).thenReturn(Dependent.class);
+		when(beanManager.getBeans(any(Type.class), any(DataService.class))).thenReturn(set);
+		when(beanManager.createCreationalContext(any(Bean.class))).thenReturn(ctx);
+		when(beanManager.getReference(any(Bean.class), any(Class.class), any(CreationalContext.class))).thenReturn(instance);
+		Object result = cdiResolver.resolveDataService(CDIBeanSession.class);
+		assertThat(cdiResolver.dependents).containsKey(result);
+		cdiResolver.releaseDataService(result);
+		verify(b).destroy(eq(instance), eq(ctx));
+		assertThat(cdiResolver.dependents).isEmpty();
+		// second release does nothing
+		cdiResolver.releaseDataService(result);
+		verify(b, times(1)).destroy(any(), any(CreationalContext.class));
+	}
+
+	/**
+	 * Test of releaseDataService method, of class CdiResolver, normal scoped instance is not tracked.
+	 * @throws org.ocelotds.spi.DataServiceException
+	 */
+	@Test
+	public void testReleaseDataServiceNormalScoped() throws DataServiceException  {
+		System.out.println("releaseDataServiceNormalScoped");
+		Set<Bean<?>> set = new HashSet<>();
+		Bean b = mock(Bean.class);
+		set.add(b);
+		when(b.getScope()).thenReturn(SessionScoped.class);
+		when(beanManager.getBeans(any(Type.class), any(DataService.class))).thenReturn(set);
+		when(beanManager.getReference(any(Bean.class), any(Class.class), any(CreationalContext.class))).thenReturn(new CDIBeanSession());
+		Object result = cdiResolver.resolveDataService(CDIBeanSession.class);
+		assertThat(cdiResolver.dependents).isEmpty();
+		cdiResolver.releaseDataService(result);
+		verify(b, never()).destroy(any(), any(CreationalContext.class));
+	}
+
 }
@@ -0,0 +1,311 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.topic;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+import org.junit.After;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.configuration.OutboundConfigurationManager;
+import org.slf4j.Logger;
+import static org.mockito.Mockito.*;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class FanoutExecutorTest {
+
+	@Mock
+	private Logger logger;
+
+	@Mock
+	private OutboundConfigurationManager configuration;
+
+	@Spy
+	@InjectMocks
+	private FanoutExecutor instance;
+
+	@After
+	public void tearDown() {
+		instance.shutdown();
+	}
+
+	List<Integer> items(int size) {
+		List<Integer> items = new ArrayList<>();
+		for (int idx = 0; idx < size; idx++) {
+			items.add(idx);
+		}
+		return items;
+	}
+
+	/**
+	 * Test of getShardCount method, of class FanoutExecutor.
+	 */
+	@Test
+	public void testGetShardCount() {
+		System.out.println("getShardCount");
+		when(configuration.getFanoutThreshold()).thenReturn(0, 100, 100, 100, 100);
+		when(configuration.getFanoutPool()).thenReturn(4);
+		assertThat(instance.getShardCount(1000)).isEqualTo(1);
+		assertThat(instance.getShardCount(10)).isEqualTo(1);
+		assertThat(instance.getShardCount(199)).isEqualTo(1);
+		assertThat(instance.getShardCount(250)).isEqualTo(2);
+		assertThat(instance.getShardCount(1000)).isEqualTo(4);
+	}
+
+	/**
+	 * Test of getPoolSize method, of class FanoutExecutor.
+	 */
+	@Test
+	public void testGetPoolSize() {
+		System.out.println("getPoolSize");
+		when(configuration.getFanoutPool()).thenReturn(0, 3);
+		assertThat(instance.getPoolSize()).isEqualTo(Runtime.getRuntime().availableProcessors());
+		assertThat(instance.getPoolSize()).isEqualTo(3);
+	}
+
+	/**
+	 * Test of split method, of class FanoutExecutor.
+	 */
+	@Test
+	public void testSplit() {
+		System.out.println("split");
+		List<List<Integer>> result = instance.split(items(10), 3);
+		assertThat(result).hasSize(3);
+		assertThat(result.get(0)).containsExactly(0, 3, 6, 9);
+		assertThat(result.get(1)).containsExactly(1, 4, 7);
+		assertThat(result.get(2)).containsExactly(2, 5, 8);
+	}
+
+	/**
+	 * Test of execute method, of class FanoutExecutor.
+	 */
+	@Test
+	public void testExecuteInline() {
+		System.out.println("executeInline");
+		when(configuration.getFanoutThreshold()).thenReturn(100);
+		final Thread publisher = Thread.currentThread();
+		CompletableFuture<Integer> result = instance.execute(items(50), new Function<Collection<Integer>, Integer>() {
+			@Override
+			public Integer apply(Collection<Integer> shard) {
+				assertThat(Thread.currentThread()).isSameAs(publisher);
+				return shard.size();
+			}
+		});
+		assertThat(result.isDone()).isTrue();
+		assertThat(result.join()).isEqualTo(50);
+		assertThat(instance.getInlineCount()).isEqualTo(1);
+		assertThat(instance.getParallelCount()).isEqualTo(0);
+	}
+
+	/**
+	 * Test of execute method, of class FanoutExecutor.
+	 */
+	@Test
+	public void testExecuteParallel() {
+		System.out.println("executeParallel");
+		when(configuration.getFanoutThreshold()).thenReturn(100);
+		when(configuration.getFanoutPool()).thenReturn(4);
+		final Set<Integer> sent = ConcurrentHashMap.newKeySet();
+		final Set<String> threads = ConcurrentHashMap.newKeySet();
+		CompletableFuture<Integer> result = instance.execute(items(1000), new Function<Collection<Integer>, Integer>() {
+			@Override
+			public Integer apply(Collection<Integer> shard) {
+				threads.add(Thread.currentThread().getName());
+				sent.addAll(shard);
+				return shard.size();
+			}
+		});
+		assertThat(result.join()).isEqualTo(1000);
+		assertThat(sent).hasSize(1000);
+		for (String thread : threads) {
+			assertThat(thread).startsWith("ocelot-fanout-");
+		}
+		assertThat(instance.getInlineCount()).isEqualTo(0);
+		assertThat(instance.getParallelCount()).isEqualTo(1);
+		assertThat(instance.getShardCount()).isEqualTo(4);
+	}
+
+	/**
+	 * Test of execute method, a shard fails
+	 */
+	@Test
+	public void testExecuteParallelShardFailed() {
+		System.out.println("executeParallelShardFailed");
+		when(configuration.getFanoutThreshold()).thenReturn(1);
+		when(configuration.getFanoutPool()).thenReturn(2);
+		CompletableFuture<Integer> result = instance.execute(Arrays.asList(1, 2), new Function<Collection<Integer>, Integer>() {
+			@Override
+			public Integer apply(Collection<Integer> shard) {
+				if (shard.contains(2)) {
+					throw new IllegalStateException("FAIL");
+				}
+				return shard.size();
+			}
+		});
+		assertThat(result.join()).isEqualTo(1);
+		verify(logger).error(anyString(), any(IllegalStateException.class));
+	}
+
+	/**
+	 * Test of execute method, without items
+	 */
+	@Test
+	public void testExecuteEmpty() {
+		System.out.println("executeEmpty");
+		when(configuration.getFanoutThreshold()).thenReturn(100);
+		CompletableFuture<Integer> result = instance.execute(Collections.<Integer>emptyList(), new Function<Collection<Integer>, Integer>() {
+			@Override
+			public Integer apply(Collection<Integer> shard) {
+				return shard.size();
+			}
+		});
+		assertThat(result.join()).isEqualTo(0);
+	}
+
+
+	/**
+	 * Test of execute method, messages reach each item in publication order, even if the second is small
+	 *
+	 * @throws java.lang.InterruptedException
+	 */
+	@Test
+	public void testExecuteKeepOrder() throws InterruptedException {
+		System.out.println("executeKeepOrder");
+		when(configuration.getFanoutThreshold()).thenReturn(1, 100);
+		when(configuration.getFanoutPool()).thenReturn(2);
+		final CountDownLatch latch = new CountDownLatch(1);
+		final List<String> received = Collections.synchronizedList(new ArrayList<String>());
+		CompletableFuture<Integer> first = instance.execute(items(4), new Function<Collection<Integer>, Integer>() {
+			@Override
+			public Integer apply(Collection<Integer> shard) {
+				try {
+					latch.await();
+				} catch (InterruptedException ex) {
+				}
+				for (Integer item : shard) {
+					received.add("first-" + item);
+				}
+				return shard.size();
+			}
+		});
+		CompletableFuture<Integer> second = instance.execute(Arrays.asList(1), new Function<Collection<Integer>, Integer>() {
+			@Override
+			public Integer apply(Collection<Integer> shard) {
+				received.add("second-" + shard.iterator().next());
+				return shard.size();
+			}
+		});
+		assertThat(second.isDone()).isFalse();
+		latch.countDown();
+		assertThat(first.join()).isEqualTo(4);
+		assertThat(second.join()).isEqualTo(1);
+		assertThat(received.indexOf("first-1")).isLessThan(received.indexOf("second-1"));
+		assertThat(instance.getInlineCount()).isEqualTo(0);
+		assertThat(instance.getParallelCount()).isEqualTo(2);
+	}
+
+	/**
+	 * Test of getLane method, of class FanoutExecutor.
+	 */
+	@Test
+	public void testGetLane() {
+		System.out.println("getLane");
+		assertThat(instance.getLane(5, 4)).isEqualTo(1);
+		assertThat(instance.getLane(-5, 4)).isEqualTo(3);
+		assertThat(instance.getLane("session", 4)).isEqualTo(instance.getLane("session", 4));
+	}
+
+	/**
+	 * Test of isIdle method, of class FanoutExecutor.
+	 */
+	@Test
+	public void testIsIdle() {
+		System.out.println("isIdle");
+		when(configuration.getFanoutPool()).thenReturn(2);
+		assertThat(instance.isIdle(null, items(2))).isTrue();
+		FanoutExecutor.Lane[] lanes = instance.getLanes();
+		assertThat(instance.isIdle(lanes, items(2))).isTrue();
+		lanes[1].pending.incrementAndGet();
+		assertThat(instance.isIdle(lanes, Arrays.asList(0, 2))).isTrue();
+		assertThat(instance.isIdle(lanes, Arrays.asList(0, 3))).isFalse();
+	}
+
+	/**
+	 * Test of getLanes method, lanes are bounded
+	 */
+	@Test
+	public void testGetLanes() {
+		System.out.println("getLanes");
+		when(configuration.getFanoutPool()).thenReturn(3);
+		FanoutExecutor.Lane[] lanes = instance.getLanes();
+		assertThat(lanes).hasSize(3);
+		assertThat(instance.getLanes()).isSameAs(lanes);
+		for (FanoutExecutor.Lane lane : lanes) {
+			assertThat(lane.executor.getMaximumPoolSize()).isEqualTo(1);
+			assertThat(lane.executor.getQueue().remainingCapacity()).isEqualTo(FanoutExecutor.LANE_CAPACITY);
+		}
+	}
+
+	/**
+	 * Test of submit method, lane shut down
+	 */
+	@Test
+	public void testSubmitRejected() {
+		System.out.println("submitRejected");
+		when(configuration.getFanoutPool()).thenReturn(1);
+		FanoutExecutor.Lane lane = instance.getLanes()[0];
+		lane.executor.shutdown();
+		CompletableFuture<Integer> result = instance.submit(lane, items(2), new Function<Collection<Integer>, Integer>() {
+			@Override
+			public Integer apply(Collection<Integer> shard) {
+				return shard.size();
+			}
+		});
+		assertThat(result.join()).isEqualTo(0);
+		assertThat(lane.pending.get()).isEqualTo(0);
+		verify(logger).error(anyString(), any(RejectedExecutionException.class));
+	}
+
+
+	/**
+	 * Test of WaitPolicy, publisher waits a place in a full lane for a bounded time, then the shard is rejected
+	 */
+	@Test
+	public void testWaitPolicyBounded() {
+		System.out.println("waitPolicyBounded");
+		ThreadPoolExecutor executor = new ThreadPoolExecutor(1, 1, 0L, TimeUnit.MILLISECONDS, new ArrayBlockingQueue<Runnable>(1));
+		Runnable task = mock(Runnable.class);
+		executor.getQueue().add(task);
+		long start = System.currentTimeMillis();
+		try {
+			new FanoutExecutor.WaitPolicy().rejectedExecution(task, executor);
+			fail("Shard should be rejected");
+		} catch (RejectedExecutionException ex) {
+			assertThat(System.currentTimeMillis() - start).isGreaterThanOrEqualTo(FanoutExecutor.LANE_WAIT - 50);
+		}
+		assertThat(executor.getQueue()).hasSize(1);
+		executor.shutdownNow();
+	}
+}
@@ -7,18 +7,20 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Map;
-import javax.websocket.RemoteEndpoint;
 import javax.websocket.Session;
 import org.junit.Test;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.runners.MockitoJUnitRunner;
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.*;
-import org.mockito.ArgumentCaptor;
 import org.mockito.Spy;
 import org.ocelotds.Constants;
+import org.ocelotds.security.UserContext;
+import org.ocelotds.core.ws.EncodedMessage;
+import org.ocelotds.core.ws.MessageSender;
 import org.ocelotds.messaging.MessageToClient;
 import org.ocelotds.messaging.MessageType;
 import org.ocelotds.topic.topicAccess.TopicAccessManager;
@@ -48,6 +50,9 @@ public class TopicManagerImplTest {
 	
 	@Mock
 	private UserContextFactory userContextFactory;
+
+	@Mock
+	private MessageSender messageSender;
 	
 	/**
 	 * Test of getSessionsByTopic method, of class.
@@ -85,16 +90,37 @@ public class TopicManagerImplTest {
 		assertThat(result).isEqualTo(2);
 		assertThat(instance.getNumberSubscribers(TOPIC1)).isEqualTo(2);
 
-		// same session increment number subscriber, not a set, a collection
+		// same session doesn't increment number subscriber, a set, but subscriptions are counted
 		result = instance.registerTopicSession(TOPIC1, session);
-		assertThat(result).isEqualTo(3);
-		assertThat(instance.getNumberSubscribers(TOPIC1)).isEqualTo(3);
+		assertThat(result).isEqualTo(2);
+		assertThat(instance.getNumberSubscribers(TOPIC1)).isEqualTo(2);
+		assertThat(instance.topicsBySession.get(session)).containsEntry(TOPIC1, 2);
 
 		session = mock(Session.class);
 		when(session.isOpen()).thenReturn(false);
 		result = instance.registerTopicSession(TOPIC1, session);
-		assertThat(result).isEqualTo(3);
-		assertThat(instance.getNumberSubscribers(TOPIC1)).isEqualTo(3);
+		assertThat(result).isEqualTo(2);
+		assertThat(instance.getNumberSubscribers(TOPIC1)).isEqualTo(2);
+		assertThat(instance.topicsBySession).doesNotContainKey(session);
+	}
+
+	/**
+	 * Test of registerTopicSession method, access denied
+	 *
+	 * @throws java.lang.IllegalAccessException
+	 */
+	@Test(expected = IllegalAccessException.class)
+	public void testRegisterTopicSessionDenied() throws IllegalAccessException {
+		System.out.println("registerTopicSessionDenied");
+		Session session = mock(Session.class);
+		when(session.isOpen()).thenReturn(true);
+		doThrow(IllegalAccessException.class).when(topicAccessManager).checkAccessTopic(any(UserContext.class), eq(TOPIC1));
+		try {
+			instance.registerTopicSession(TOPIC1, session);
+		} finally {
+			assertThat(instance.map).doesNotContainKey(TOPIC1);
+			assertThat(instance.topicsBySession).isEmpty();
+		}
 	}
 
 	/**
@@ -120,6 +146,37 @@ public class TopicManagerImplTest {
 		result = instance.unregisterTopicSession(TOPIC1, session);
 		assertThat(result).isEqualTo(0);
 		assertThat(instance.getNumberSubscribers(TOPIC1)).isEqualTo(0);
+		assertThat(instance.map).isEmpty();
+		assertThat(instance.topicsBySession).isEmpty();
+
+		// unregister unknown topic
+		result = instance.unregisterTopicSession(TOPIC2, session);
+		assertThat(result).isEqualTo(0);
+	}
+
+	/**
+	 * Test of unregisterTopicSession method, session subscribes twice
+	 *
+	 * @throws java.lang.IllegalAccessException
+	 */
+	@Test
+	public void testUnregisterTopicSessionSubscribedTwice() throws IllegalAccessException {
+		System.out.println("unregisterTopicSessionSubscribedTwice");
+		Session session = mock(Session.class);
+		when(session.isOpen()).thenReturn(true);
+		instance.registerTopicSession(TOPIC1, session);
+		instance.registerTopicSession(TOPIC1, session);
+		assertThat(instance.getNumberSubscribers(TOPIC1)).isEqualTo(1);
+
+		// session keeps a subscription
+		int result = instance.unregisterTopicSession(TOPIC1, session);
+		assertThat(result).isEqualTo(1);
+		assertThat(instance.getSessionsForTopic(TOPIC1)).containsExactly(session);
+
+		result = instance.unregisterTopicSession(TOPIC1, session);
+		assertThat(result).isEqualTo(0);
+		assertThat(instance.map).isEmpty();
+		assertThat(instance.topicsBySession).isEmpty();
 	}
 
 	/**
@@ -174,6 +231,8 @@ public class TopicManagerImplTest {
 		instance.unregisterTopicSession("ALL", session);
 		assertThat(instance.getNumberSubscribers(TOPIC1)).isEqualTo(1);
 		assertThat(instance.getNumberSubscribers(TOPIC2)).isEqualTo(0);
+		assertThat(instance.map).containsOnlyKeys(TOPIC1);
+		assertThat(instance.topicsBySession).containsOnlyKeys(session1);
 
 		result = instance.unregisterTopicSession(TOPIC1, session1);
 		assertThat(result).isEqualTo(0);
@@ -212,37 +271,92 @@ public class TopicManagerImplTest {
 	}
 
 	/**
-	 * Test of unregisterTopicSessions method, of class TopicManager.
+	 * Test of removeSessionToAllTopics method, of class TopicManager.
 	 *
 	 * @throws java.lang.IllegalAccessException
 	 */
 	@Test
-	public void testUnregisterTopicSessions() throws IllegalAccessException {
-		System.out.println("unregisterTopicSessions");
-		Collection<Session> sessions = new ArrayList<>();
-
+	public void testRemoveSessionToAllTopics() throws IllegalAccessException {
+		System.out.println("removeSessionToAllTopics");
 		Session session = mock(Session.class);
 		when(session.isOpen()).thenReturn(true);
-		int result = instance.registerTopicSession(TOPIC1, session);
-		assertThat(result).isEqualTo(1);
-		assertThat(instance.getNumberSubscribers(TOPIC1)).isEqualTo(1);
-		sessions.add(session);
+		instance.registerTopicSession(TOPIC1, session);
+		instance.registerTopicSession(TOPIC1, session);
+		instance.registerTopicSession(TOPIC2, session);
 
 		Session session1 = mock(Session.class);
 		when(session1.isOpen()).thenReturn(true);
-		result = instance.registerTopicSession(TOPIC1, session1);
-		assertThat(result).isEqualTo(2);
-		assertThat(instance.getNumberSubscribers(TOPIC1)).isEqualTo(2);
-		sessions.add(session1);
+		instance.registerTopicSession(TOPIC2, session1);
 
-		boolean res = instance.unregisterTopicSessions(TOPIC1, sessions);
-		assertThat(res).isTrue();
-		assertThat(instance.getNumberSubscribers(TOPIC1)).isEqualTo(0);
+		Collection<String> result = instance.removeSessionToAllTopics(session);
+		assertThat(result).containsOnly(TOPIC1, TOPIC2);
+		assertThat(instance.map).containsOnlyKeys(TOPIC2);
+		assertThat(instance.getSessionsForTopic(TOPIC2)).containsExactly(session1);
+		assertThat(instance.topicsBySession).containsOnlyKeys(session1);
+
+		// session without topic
+		result = instance.removeSessionToAllTopics(session);
+		assertThat(result).isEmpty();
+	}
+
+	/**
+	 * Test of getSessionsForTopic method, of class TopicManager, sessions subscribed to patterns.
+	 *
+	 * @throws java.lang.IllegalAccessException
+	 */
+	@Test
+	public void testGetSessionsForTopicWithPatterns() throws IllegalAccessException {
+		System.out.println("getSessionsForTopicWithPatterns");
+		Session session = mock(Session.class);
+		when(session.isOpen()).thenReturn(true);
+		Session session1 = mock(Session.class);
+		when(session1.isOpen()).thenReturn(true);
+		Session session2 = mock(Session.class);
+		when(session2.isOpen()).thenReturn(true);
+		instance.registerTopicSession("orders:1", session);
+		instance.registerTopicSession("orders:*", session);
+		instance.registerTopicSession("orders:*", session1);
+		instance.registerTopicSession("market:eu:>", session2);
+		verify(topicAccessManager, times(2)).checkAccessTopic(any(UserContext.class), eq("orders:*"));
+		assertThat(instance.patterns.size()).isEqualTo(2);
+
+		assertThat(instance.getSessionsForTopic("orders:1")).containsOnly(session, session1);
+		assertThat(instance.getNumberSubscribers("orders:1")).isEqualTo(2);
+		assertThat(instance.getSessionsForTopic("orders:2")).containsOnly(session, session1);
+		assertThat(instance.getSessionsForTopic("orders:1:lines")).isEmpty();
+		assertThat(instance.getSessionsForTopic("market:eu:fr:cac40")).containsOnly(session2);
+		assertThat(instance.getSessionsForTopic("market:us")).isEmpty();
+		// a pattern is not published
+		assertThat(instance.getSessionsForTopic("orders:*")).containsOnly(session, session1);
+		assertThat(instance.getNumberSubscribers("market:eu:>")).isEqualTo(1);
+
+		instance.unregisterTopicSession("orders:*", session1);
+		assertThat(instance.getSessionsForTopic("orders:2")).containsOnly(session);
+		instance.removeSessionToTopics(session);
+		assertThat(instance.getSessionsForTopic("orders:2")).isEmpty();
+		assertThat(instance.patterns.size()).isEqualTo(1);
+		instance.unregisterTopicSession("market:eu:>", session2);
+		assertThat(instance.patterns.size()).isEqualTo(0);
+		assertThat(instance.map).isEmpty();
+	}
 
-		res = instance.unregisterTopicSessions(TOPIC1, null);
-		assertThat(res).isFalse();
-		res = instance.unregisterTopicSessions(TOPIC1, Collections.EMPTY_LIST);
-		assertThat(res).isFalse();
+	/**
+	 * Test of updateSubscriptions method, of class TopicManager.
+	 */
+	@Test
+	public void testUpdateSubscriptions() {
+		System.out.println("updateSubscriptions");
+		Session session = mock(Session.class);
+		assertThat(instance.updateSubscriptions(session, TOPIC1, 1)).isEqualTo(1);
+		assertThat(instance.updateSubscriptions(session, TOPIC1, 1)).isEqualTo(2);
+		assertThat(instance.updateSubscriptions(session, TOPIC2, 1)).isEqualTo(1);
+		assertThat(instance.topicsBySession.get(session)).containsEntry(TOPIC1, 2).containsEntry(TOPIC2, 1);
+		assertThat(instance.updateSubscriptions(session, TOPIC1, -1)).isEqualTo(1);
+		assertThat(instance.updateSubscriptions(session, TOPIC1, -1)).isEqualTo(0);
+		assertThat(instance.topicsBySession.get(session)).containsOnlyKeys(TOPIC2);
+		assertThat(instance.updateSubscriptions(session, TOPIC1, -1)).isEqualTo(0);
+		assertThat(instance.updateSubscriptions(session, TOPIC2, -1)).isEqualTo(0);
+		assertThat(instance.topicsBySession).isEmpty();
 	}
 
 	/**
@@ -269,9 +383,12 @@ public class TopicManagerImplTest {
 		assertThat(result).isEqualTo(1);
 		assertThat(instance.getNumberSubscribers(TOPIC2)).isEqualTo(1);
 
-		instance.removeSessionsToTopic(sessions);
+		Collection<String> topics = instance.removeSessionsToTopic(sessions);
+		assertThat(topics).containsExactly(TOPIC1, TOPIC2);
 		assertThat(instance.getNumberSubscribers(TOPIC1)).isEqualTo(0);
 		assertThat(instance.getNumberSubscribers(TOPIC2)).isEqualTo(0);
+		assertThat(instance.map).isEmpty();
+		assertThat(instance.topicsBySession).isEmpty();
 
 		instance.removeSessionsToTopic(null);
 
@@ -305,20 +422,18 @@ public class TopicManagerImplTest {
 		assertThat(result).isEqualTo(1);
 		assertThat(instance.getNumberSubscribers(SUBTOPIC2)).isEqualTo(1);
 
-		RemoteEndpoint.Async async = mock(RemoteEndpoint.Async.class);
-		when(session1.getAsyncRemote()).thenReturn(async);
-
 		instance.removeSessionToTopics(session);
 		instance.removeSessionToTopics(null);
 		assertThat(instance.getNumberSubscribers(TOPIC1)).isEqualTo(0);
 		assertThat(instance.getNumberSubscribers(TOPIC2)).isEqualTo(1);
 
-		ArgumentCaptor<MessageToClient> captureMsg = ArgumentCaptor.forClass(MessageToClient.class);
-		verify(async).sendObject(captureMsg.capture());
-		MessageToClient msg = captureMsg.getValue();
-		assertThat(msg.getType()).isEqualTo(MessageType.MESSAGE);
-		assertThat(msg.getId()).isEqualTo(Constants.Topic.SUBSCRIBERS + Constants.Topic.COLON + TOPIC2);
-		assertThat(msg.getResponse()).isEqualTo(1);
+		MessageToClient msg = new MessageToClient();
+		msg.setType(MessageType.MESSAGE);
+		msg.setId(Constants.Topic.SUBSCRIBERS + Constants.Topic.COLON + TOPIC2);
+		msg.setResponse(1);
+		ArgumentCaptor<EncodedMessage> captureMessage = ArgumentCaptor.forClass(EncodedMessage.class);
+		verify(messageSender).send(captureMessage.capture(), eq(session1));
+		assertThat(captureMessage.getValue().getJson()).isEqualTo(msg.toJson());
 	}
 
 	/**
@@ -329,21 +444,65 @@ public class TopicManagerImplTest {
 		System.out.println("sendSubscriptionEvent");
 		Collection<Session> sessions = new ArrayList<>();
 		Session session = mock(Session.class);
-		RemoteEndpoint.Async async = mock(RemoteEndpoint.Async.class);
 		sessions.add(session);
 		when(session.isOpen()).thenReturn(Boolean.FALSE).thenReturn(Boolean.TRUE);
-		when(session.getAsyncRemote()).thenReturn(async);
 		doReturn(Collections.EMPTY_LIST).doReturn(sessions).when(instance).getSessionsForTopic(TOPIC1);
 
 		instance.sendSubscriptionEvent(TOPIC1, 1);
 		instance.sendSubscriptionEvent(TOPIC1, 2);
 		instance.sendSubscriptionEvent(TOPIC1, 3);
 
-		ArgumentCaptor<MessageToClient> captureMsg = ArgumentCaptor.forClass(MessageToClient.class);
-		verify(async).sendObject(captureMsg.capture());
-		MessageToClient msg = captureMsg.getValue();
-		assertThat(msg.getType()).isEqualTo(MessageType.MESSAGE);
-		assertThat(msg.getId()).isEqualTo(TOPIC1);
-		assertThat(msg.getResponse()).isEqualTo(3);
+		MessageToClient msg = new MessageToClient();
+		msg.setType(MessageType.MESSAGE);
+		msg.setId(TOPIC1);
+		msg.setResponse(3);
+		ArgumentCaptor<EncodedMessage> captureMessage = ArgumentCaptor.forClass(EncodedMessage.class);
+		verify(messageSender).send(captureMessage.capture(), eq(session));
+		assertThat(captureMessage.getValue().getJson()).isEqualTo(msg.toJson());
+		assertThat(captureMessage.getValue().getKey()).isEqualTo(TOPIC1);
+	}
+
+
+	/**
+	 * Test of getSessionsForTopic method, of class TopicManager, access of pattern subscribers is checked on concrete topic.
+	 *
+	 * @throws java.lang.IllegalAccessException
+	 */
+	@Test
+	public void testGetSessionsForTopicWithPatternsNotGranted() throws IllegalAccessException {
+		System.out.println("getSessionsForTopicWithPatternsNotGranted");
+		Session session = mock(Session.class);
+		when(session.isOpen()).thenReturn(true);
+		Session session1 = mock(Session.class);
+		when(session1.isOpen()).thenReturn(true);
+		instance.registerTopicSession("secret:*", session);
+		instance.registerTopicSession(">", session1);
+		doThrow(IllegalAccessException.class).when(topicAccessManager).checkAccessTopic(any(UserContext.class), eq("secret:1"));
+
+		assertThat(instance.getSessionsForTopic("secret:1")).isEmpty();
+		assertThat(instance.getSessionsForTopic("secret:2")).containsOnly(session, session1);
+		assertThat(instance.getNumberSubscribers("secret:2")).isEqualTo(2);
+		// checked once by session and topic
+		verify(topicAccessManager, times(2)).checkAccessTopic(any(UserContext.class), eq("secret:1"));
+		verify(topicAccessManager, times(2)).checkAccessTopic(any(UserContext.class), eq("secret:2"));
+		assertThat(instance.accessBySession).containsOnlyKeys(session, session1);
+
+		// access is forgotten when session leaves
+		instance.unregisterTopicSession("secret:*", session);
+		instance.removeSessionToTopics(session1);
+		assertThat(instance.accessBySession).isEmpty();
+	}
+
+	/**
+	 * Test of isGranted method, of class TopicManager, access by session is bounded.
+	 */
+	@Test
+	public void testIsGranted() {
+		System.out.println("isGranted");
+		Session session = mock(Session.class);
+		for (int idx = 0; idx <= TopicManagerImpl.MAX_ACCESS_BY_SESSION; idx++) {
+			assertThat(instance.isGranted(session, "orders:" + idx)).isTrue();
+		}
+		assertThat(instance.accessBySession.get(session)).hasSize(1);
 	}
 }
@@ -0,0 +1,151 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.topic;
+
+import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
+import javax.websocket.Session;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.runners.MockitoJUnitRunner;
+import org.mockito.stubbing.Answer;
+import org.ocelotds.core.ws.EncodedMessage;
+import org.ocelotds.core.ws.MessageSender;
+import org.ocelotds.messaging.MessageToClient;
+import org.ocelotds.security.UserContext;
+import org.ocelotds.topic.messageControl.MessageControllerManager;
+import org.ocelotds.topic.topicAccess.TopicAccessManager;
+import org.slf4j.Logger;
+import static org.assertj.core.api.Assertions.*;
+import static org.mockito.Mockito.*;
+
+/**
+ * From publication to a topic to the sessions subscribed to patterns matching it
+ *
+ * @author hhfrancois
+ */
+@RunWith(MockitoJUnitRunner.class)
+public class TopicPatternDeliveryTest {
+
+	@Mock
+	private Logger logger;
+
+	@Mock
+	private TopicAccessManager topicAccessManager;
+
+	@Mock
+	private UserContextFactory userContextFactory;
+
+	@Mock
+	private MessageControllerManager messageControllerManager;
+
+	@Mock
+	private MessageSender messageSender;
+
+	@Mock
+	private FanoutExecutor fanoutExecutor;
+
+	@Mock
+	private TopicManager topicManager;
+
+	@Spy
+	@InjectMocks
+	private TopicManagerImpl topicManagerImpl;
+
+	@InjectMocks
+	private TopicsMessagesBroadcaster broadcaster;
+
+	@Before
+	public void init() {
+		when(fanoutExecutor.execute(anyCollection(), any(Function.class))).thenAnswer(new Answer<CompletableFuture<Integer>>() {
+			@Override
+			public CompletableFuture<Integer> answer(InvocationOnMock invocation) throws Throwable {
+				Collection sessions = (Collection) invocation.getArguments()[0];
+				Function sender = (Function) invocation.getArguments()[1];
+				return CompletableFuture.completedFuture((Integer) sender.apply(sessions));
+			}
+		});
+		// broadcaster finds sessions in real topic manager
+		when(topicManager.getSessionsForTopic(anyString())).thenAnswer(new Answer<Collection<Session>>() {
+			@Override
+			public Collection<Session> answer(InvocationOnMock invocation) throws Throwable {
+				return topicManagerImpl.getSessionsForTopic((String) invocation.getArguments()[0]);
+			}
+		});
+	}
+
+	Session session(String id) {
+		Session session = mock(Session.class);
+		when(session.getId()).thenReturn(id);
+		when(session.isOpen()).thenReturn(true);
+		return session;
+	}
+
+	MessageToClient message(String topic) {
+		MessageToClient mtc = new MessageToClient();
+		mtc.setId(topic);
+		mtc.setResponse("PAYLOAD");
+		return mtc;
+	}
+
+	/**
+	 * Message to orders:42 reaches sessions subscribed to orders:42, orders:* and >, the message keeps the concrete topic
+	 *
+	 * @throws java.lang.IllegalAccessException
+	 */
+	@Test
+	public void testPublishToPatterns() throws IllegalAccessException {
+		System.out.println("publishToPatterns");
+		Session direct = session("DIRECT");
+		Session orders = session("ORDERS");
+		Session all = session("ALL");
+		Session other = session("OTHER");
+		topicManagerImpl.registerTopicSession("orders:42", direct);
+		topicManagerImpl.registerTopicSession("orders:*", orders);
+		topicManagerImpl.registerTopicSession(">", all);
+		topicManagerImpl.registerTopicSession("orders:*:lines", other);
+
+		assertThat(broadcaster.sendMessageToTopic(message("orders:42"), "PAYLOAD").join()).isEqualTo(3);
+
+		ArgumentCaptor<EncodedMessage> captureMessage = ArgumentCaptor.forClass(EncodedMessage.class);
+		verify(messageSender).send(captureMessage.capture(), eq(direct));
+		verify(messageSender).send(any(EncodedMessage.class), eq(orders));
+		verify(messageSender).send(any(EncodedMessage.class), eq(all));
+		verify(messageSender, never()).send(any(EncodedMessage.class), eq(other));
+		assertThat(captureMessage.getValue().getJson()).contains("\"id\":\"orders:42\"");
+	}
+
+	/**
+	 * Message to a controlled topic doesn't reach sessions subscribed to patterns without access to it
+	 *
+	 * @throws java.lang.IllegalAccessException
+	 */
+	@Test
+	public void testPublishToPatternsNotGranted() throws IllegalAccessException {
+		System.out.println("publishToPatternsNotGranted");
+		UserContext granted = mock(UserContext.class);
+		when(userContextFactory.getUserContext("GRANTED")).thenReturn(granted);
+		doThrow(IllegalAccessException.class).when(topicAccessManager).checkAccessTopic(any(UserContext.class), eq("secret:1"));
+		doNothing().when(topicAccessManager).checkAccessTopic(eq(granted), eq("secret:1"));
+		Session spy = session("SPY");
+		Session all = session("ALL");
+		Session grantedSession = session("GRANTED");
+		topicManagerImpl.registerTopicSession("secret:*", spy);
+		topicManagerImpl.registerTopicSession(">", all);
+		topicManagerImpl.registerTopicSession("secret:*", grantedSession);
+
+		assertThat(broadcaster.sendMessageToTopic(message("secret:1"), "PAYLOAD").join()).isEqualTo(1);
+
+		verify(messageSender, never()).send(any(EncodedMessage.class), eq(spy));
+		verify(messageSender, never()).send(any(EncodedMessage.class), eq(all));
+		verify(messageSender).send(any(EncodedMessage.class), eq(grantedSession));
+	}
+}
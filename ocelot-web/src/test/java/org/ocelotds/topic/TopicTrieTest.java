@@ -0,0 +1,82 @@
+/* This Source Code Form is subject to the terms of the Mozilla Public
+ * License, v. 2.0. If a copy of the MPL was not distributed with this
+ * file, You can obtain one at http://mozilla.org/MPL/2.0/. */
+package org.ocelotds.topic;
+
+import org.junit.Test;
+import static org.assertj.core.api.Assertions.*;
+
+/**
+ *
+ * @author hhfrancois
+ */
+public class TopicTrieTest {
+
+	private final TopicTrie instance = new TopicTrie();
+
+	/**
+	 * Test of isPattern method, of class TopicTrie.
+	 */
+	@Test
+	public void testIsPattern() {
+		System.out.println("isPattern");
+		assertThat(TopicTrie.isPattern(null)).isFalse();
+		assertThat(TopicTrie.isPattern("orders")).isFalse();
+		assertThat(TopicTrie.isPattern("orders:1")).isFalse();
+		assertThat(TopicTrie.isPattern("orders:1*")).isFalse();
+		assertThat(TopicTrie.isPattern("orders:*")).isTrue();
+		assertThat(TopicTrie.isPattern("*:eu")).isTrue();
+		assertThat(TopicTrie.isPattern("market:eu:>")).isTrue();
+	}
+
+	/**
+	 * Test of add method, of class TopicTrie.
+	 */
+	@Test
+	public void testAdd() {
+		System.out.println("add");
+		assertThat(instance.add("orders:*")).isTrue();
+		assertThat(instance.add("orders:*")).isFalse();
+		assertThat(instance.add("orders:>")).isTrue();
+		assertThat(instance.size()).isEqualTo(2);
+	}
+
+	/**
+	 * Test of remove method, of class TopicTrie.
+	 */
+	@Test
+	public void testRemove() {
+		System.out.println("remove");
+		instance.add("market:eu:>");
+		instance.add("market:*");
+		assertThat(instance.remove("market:us:>")).isFalse();
+		assertThat(instance.remove("market")).isFalse();
+		assertThat(instance.remove("market:eu:>")).isTrue();
+		assertThat(instance.remove("market:eu:>")).isFalse();
+		assertThat(instance.match("market:eu:fr")).isEmpty();
+		assertThat(instance.match("market:eu")).containsExactly("market:*");
+		assertThat(instance.remove("market:*")).isTrue();
+		assertThat(instance.size()).isEqualTo(0);
+	}
+
+	/**
+	 * Test of match method, of class TopicTrie.
+	 */
+	@Test
+	public void testMatch() {
+		System.out.println("match");
+		assertThat(instance.match("orders:1")).isEmpty();
+		instance.add("orders:*");
+		instance.add("orders:*:lines");
+		instance.add("market:eu:>");
+		instance.add("*:eu:fr");
+		instance.add(">");
+		assertThat(instance.match(null)).isEmpty();
+		assertThat(instance.match("orders:1")).containsOnly("orders:*", ">");
+		assertThat(instance.match("orders")).containsOnly(">");
+		assertThat(instance.match("orders:1:lines")).containsOnly("orders:*:lines", ">");
+		assertThat(instance.match("market:eu")).containsOnly(">");
+		assertThat(instance.match("market:eu:fr")).containsOnly("market:eu:>", "*:eu:fr", ">");
+		assertThat(instance.match("market:eu:fr:cac40")).containsOnly("market:eu:>", ">");
+	}
+}
@@ -6,7 +6,8 @@ package org.ocelotds.topic;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collection;
-import javax.websocket.RemoteEndpoint;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Function;
 import javax.websocket.Session;
 import javax.websocket.SessionException;
 import org.junit.Test;
@@ -15,7 +16,12 @@ import org.junit.runner.RunWith;
 import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.ocelotds.core.ws.EncodedMessage;
+import org.ocelotds.core.ws.MessageSender;
 import org.ocelotds.messaging.MessageToClient;
+import org.ocelotds.messaging.MessageType;
 import static org.mockito.Mockito.*;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
@@ -47,10 +53,30 @@ public class TopicsMessagesBroadcasterTest {
 	@Mock
 	MessageControllerManager messageControllerManager;
 
+	@Mock
+	MessageSender messageSender;
+
+	@Mock
+	FanoutExecutor fanoutExecutor;
+
 	@InjectMocks
 	@Spy
 	private TopicsMessagesBroadcaster instance;
 
+	/**
+	 * Fan-out inline, sessions are sent by test thread
+	 */
+	void executeInline() {
+		when(fanoutExecutor.execute(anyCollection(), any(Function.class))).thenAnswer(new Answer<CompletableFuture<Integer>>() {
+			@Override
+			public CompletableFuture<Integer> answer(InvocationOnMock invocation) throws Throwable {
+				Collection sessions = (Collection) invocation.getArguments()[0];
+				Function sender = (Function) invocation.getArguments()[1];
+				return CompletableFuture.completedFuture((Integer) sender.apply(sessions));
+			}
+		});
+	}
+
 	/**
 	 * Test of sendMessageToTopic method, of class TopicsMessagesBroadcaster.
 	 *
@@ -59,9 +85,9 @@ public class TopicsMessagesBroadcasterTest {
 	@Test
 	public void testSendMessageToTopic() throws SessionException {
 		System.out.println("testSendMessageToTopic");
-		doReturn(5).when(instance).sendMessageToTopic(anyList(), any(MessageToClient.class), eq(PAYLOAD));
-		int result = instance.sendMessageToTopic(new MessageToClient(), PAYLOAD);
-		assertThat(result).isEqualTo(5);
+		doReturn(CompletableFuture.completedFuture(5)).when(instance).sendMessageToTopic(anyList(), any(MessageToClient.class), eq(PAYLOAD));
+		CompletableFuture<Integer> result = instance.sendMessageToTopic(new MessageToClient(), PAYLOAD);
+		assertThat(result.join()).isEqualTo(5);
 	}
 
 	/**
@@ -76,11 +102,12 @@ public class TopicsMessagesBroadcasterTest {
 
 		when(topicManager.getSessionsForTopic(anyString())).thenReturn(null).thenReturn(sessions); // session is closed
 
-		int result = instance.sendMessageToTopic(null, new MessageToClient(), PAYLOAD);
-		assertThat(result).isEqualTo(0);
+		CompletableFuture<Integer> result = instance.sendMessageToTopic(null, new MessageToClient(), PAYLOAD);
+		assertThat(result.join()).isEqualTo(0);
 
 		result = instance.sendMessageToTopic(null, new MessageToClient(), PAYLOAD);
-		assertThat(result).isEqualTo(0);
+		assertThat(result.join()).isEqualTo(0);
+		verify(fanoutExecutor, never()).execute(anyCollection(), any(Function.class));
 	}
 
 	/**
@@ -97,10 +124,10 @@ public class TopicsMessagesBroadcasterTest {
 		Collection<Session> sessionTargets = Arrays.asList(session);
 
 		when(topicManager.getSessionsForTopic(anyString())).thenReturn(sessions);
-		doReturn(2).when(instance).sendMessageToTopicForSessions(anyList(), any(MessageToClient.class), anyString());
+		doReturn(CompletableFuture.completedFuture(2)).when(instance).sendMessageToTopicForSessions(anyCollection(), any(MessageToClient.class), anyString());
 
-		int result = instance.sendMessageToTopic(sessionTargets, new MessageToClient(), PAYLOAD);
-		assertThat(result).isEqualTo(2);
+		CompletableFuture<Integer> result = instance.sendMessageToTopic(sessionTargets, new MessageToClient(), PAYLOAD);
+		assertThat(result.join()).isEqualTo(2);
 
 		ArgumentCaptor<Collection> captureClosed = ArgumentCaptor.forClass(Collection.class);
 		verify(instance).sendMessageToTopicForSessions(captureClosed.capture(), any(MessageToClient.class), eq(PAYLOAD));
@@ -120,75 +147,126 @@ public class TopicsMessagesBroadcasterTest {
 		JsTopicMessageController jtmc = mock(JsTopicMessageController.class);
 
 		when(messageControllerManager.getJsTopicMessageController(anyString())).thenReturn(jtmc);
-		doReturn(1).doThrow(SessionException.class).doReturn(1).when(instance).checkAndSendMtcToSession(any(Session.class), eq(jtmc), any(MessageToClient.class), anyObject());
+		doReturn(sessions).when(instance).getRecipients(eq(sessions), eq(jtmc), anyString(), eq(PAYLOAD));
+		doReturn(1).doThrow(SessionException.class).doReturn(1).when(instance).sendMtcToSession(any(Session.class), any(MessageToClient.class), any(EncodedMessage.class));
 		when(topicManager.getSessionsForTopic(anyString())).thenReturn(sessions);
+		MessageToClient mtc = spy(new MessageToClient());
+		executeInline();
 
-		int result = instance.sendMessageToTopicForSessions(sessions, new MessageToClient(), PAYLOAD);
-		assertThat(result).isEqualTo(2);
+		CompletableFuture<Integer> result = instance.sendMessageToTopicForSessions(sessions, mtc, PAYLOAD);
+		assertThat(result.join()).isEqualTo(2);
+		verify(mtc).toJson();
+		ArgumentCaptor<EncodedMessage> captureMessage = ArgumentCaptor.forClass(EncodedMessage.class);
+		verify(instance, times(3)).sendMtcToSession(any(Session.class), eq(mtc), captureMessage.capture());
+		assertThat(captureMessage.getAllValues()).containsOnly(captureMessage.getValue());
+		assertThat(captureMessage.getValue().getJson()).isEqualTo(mtc.toJson());
+		assertThat(mtc.getType()).isEqualTo(MessageType.MESSAGE);
 
 		ArgumentCaptor<Collection> captureClosed = ArgumentCaptor.forClass(Collection.class);
 		verify(topicManager).removeSessionsToTopic(captureClosed.capture());
 		assertThat(captureClosed.getValue()).hasSize(1);
 	}
+
+	/**
+	 * Test of createEncodedMessage method, of class TopicsMessagesBroadcaster.
+	 */
+	@Test
+	public void testCreateEncodedMessage() {
+		System.out.println("createEncodedMessage");
+		MessageToClient mtc = new MessageToClient();
+		mtc.setId("TOPIC");
+		EncodedMessage result = instance.createEncodedMessage(mtc);
+		assertThat(result.getKey()).isEqualTo("TOPIC");
+		assertThat(result.isLatest()).isFalse();
+		mtc.setConflationKey("TOPIC:EUR");
+		result = instance.createEncodedMessage(mtc);
+		assertThat(result.getKey()).isEqualTo("TOPIC:EUR");
+		assertThat(result.isLatest()).isTrue();
+		assertThat(result.getJson()).isEqualTo(mtc.toJson());
+	}
 	
 	/**
-	 * Test of checkAndSendMtcToSession method, of class.
+	 * Test of sendMtcToSession method, of class.
 	 *
 	 * @throws javax.websocket.SessionException
 	 */
 	@Test
-	public void checkAndSendMtcToSessionNullTest() throws SessionException {
-		System.out.println("checkAndSendMtcToSession");
-		JsTopicMessageController jtmcmsgControl = mock(JsTopicMessageController.class);
+	public void sendMtcToSessionNullTest() throws SessionException {
+		System.out.println("sendMtcToSession");
 		MessageToClient mtc = mock(MessageToClient.class);
 
-		int result = instance.checkAndSendMtcToSession(null, jtmcmsgControl, mtc, null);
+		int result = instance.sendMtcToSession(null, mtc, new EncodedMessage("json"));
 		assertThat(result).isEqualTo(0);
 	}
 
 	/**
-	 * Test of checkAndSendMtcToSession method, of class.
+	 * Test of sendMtcToSession method, of class.
 	 *
 	 * @throws javax.websocket.SessionException
 	 */
 	@Test(expected = SessionException.class)
-	public void checkAndSendMtcToSessionCloseTest() throws SessionException {
-		System.out.println("checkAndSendMtcToSession");
+	public void sendMtcToSessionCloseTest() throws SessionException {
+		System.out.println("sendMtcToSession");
 		Session session = mock(Session.class);
-		JsTopicMessageController jtmcmsgControl = mock(JsTopicMessageController.class);
 		MessageToClient mtc = mock(MessageToClient.class);
 
 		when(session.isOpen()).thenReturn(Boolean.FALSE);
 
-		instance.checkAndSendMtcToSession(session, jtmcmsgControl, mtc, null);
+		instance.sendMtcToSession(session, mtc, new EncodedMessage("json"));
 	}
 
 	/**
-	 * Test of checkAndSendMtcToSession method, of class.
+	 * Test of sendMtcToSession method, of class.
 	 *
 	 * @throws javax.websocket.SessionException
-	 * @throws org.ocelotds.security.NotRecipientException
 	 */
 	@Test
-	public void checkAndSendMtcToSessionTest() throws SessionException, NotRecipientException {
-		System.out.println("checkAndSendMtcToSession");
+	public void sendMtcToSessionTest() throws SessionException {
+		System.out.println("sendMtcToSession");
 		Session session = mock(Session.class);
-		RemoteEndpoint.Async async = mock(RemoteEndpoint.Async.class);
 		when(session.isOpen()).thenReturn(true);
-		when(session.getId()).thenReturn("ID1");
-		when(session.getAsyncRemote()).thenReturn(async);
-		JsTopicMessageController jtmcmsgControl = mock(JsTopicMessageController.class);
 		MessageToClient mtc = mock(MessageToClient.class);
 
-		when(session.isOpen()).thenReturn(Boolean.TRUE);
-		when(userContextFactory.getUserContext(eq("ID1"))).thenReturn(mock(UserContext.class));
-		doNothing().doThrow(NotRecipientException.class).when(instance).checkMessageTopic(any(UserContext.class), anyString(), eq(PAYLOAD), eq(jtmcmsgControl));
-
-		int result = instance.checkAndSendMtcToSession(session, jtmcmsgControl, mtc, PAYLOAD);
+		EncodedMessage message = new EncodedMessage("json");
+		int result = instance.sendMtcToSession(session, mtc, message);
 		assertThat(result).isEqualTo(1);
+		verify(messageSender).send(eq(message), eq(session));
+	}
 
-		result = instance.checkAndSendMtcToSession(session, jtmcmsgControl, mtc, PAYLOAD);
-		assertThat(result).isEqualTo(0);
+	/**
+	 * Test of getRecipients method, of class, msgControl is applied by the publisher thread.
+	 *
+	 * @throws org.ocelotds.security.NotRecipientException
+	 */
+	@Test
+	public void getRecipientsTest() throws NotRecipientException {
+		System.out.println("getRecipients");
+		final Thread publisher = Thread.currentThread();
+		Session granted = mock(Session.class);
+		when(granted.isOpen()).thenReturn(true);
+		when(granted.getId()).thenReturn("GRANTED");
+		Session excluded = mock(Session.class);
+		when(excluded.isOpen()).thenReturn(true);
+		when(excluded.getId()).thenReturn("EXCLUDED");
+		Session closed = mock(Session.class);
+		when(closed.isOpen()).thenReturn(false);
+		UserContext excludedContext = mock(UserContext.class);
+		when(userContextFactory.getUserContext(eq("GRANTED"))).thenReturn(mock(UserContext.class));
+		when(userContextFactory.getUserContext(eq("EXCLUDED"))).thenReturn(excludedContext);
+		JsTopicMessageController jtmc = mock(JsTopicMessageController.class);
+		doAnswer(new Answer<Void>() {
+			@Override
+			public Void answer(InvocationOnMock invocation) throws Throwable {
+				assertThat(Thread.currentThread()).isSameAs(publisher);
+				return null;
+			}
+		}).when(jtmc).checkRight(any(UserContext.class), eq(TOPIC), eq(PAYLOAD));
+		doThrow(NotRecipientException.class).when(jtmc).checkRight(eq(excludedContext), eq(TOPIC), eq(PAYLOAD));
+		Collection<Session> sessions = Arrays.asList(granted, excluded, closed, null);
+
+		assertThat(instance.getRecipients(sessions, null, TOPIC, PAYLOAD)).isSameAs(sessions);
+		assertThat(instance.getRecipients(sessions, jtmc, TOPIC, PAYLOAD)).containsExactly(granted, closed);
+		verify(jtmc, times(2)).checkRight(any(UserContext.class), eq(TOPIC), eq(PAYLOAD));
 	}
 
 	/**
@@ -4,6 +4,7 @@
 package org.ocelotds.topic;
 
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import javax.enterprise.inject.spi.Annotated;
 import javax.enterprise.inject.spi.EventMetadata;
 import javax.enterprise.inject.spi.InjectionPoint;
@@ -18,6 +19,7 @@ import org.ocelotds.messaging.MessageToClient;
 import static org.mockito.Mockito.*;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
+import org.ocelotds.annotations.JsTopicConflate;
 import org.ocelotds.annotations.JsTopicEvent;
 import org.ocelotds.context.OcelotContext;
 import org.ocelotds.marshalling.ArgumentServices;
@@ -137,6 +139,36 @@ public class TopicsMessagesObserversTest {
 
 		assertThat(captureMtC.getValue().getJson()).isEqualTo(PAYLOAD);
 		assertThat(captureObject.getValue()).isEqualTo(PAYLOAD);
+		assertThat(captureMtC.getValue().getConflationKey()).isNull();
+	}
+
+	/**
+	 * Test of sendObjectToTopic method, of class TopicsMessagesBroadcaster, topic is conflated.
+	 *
+	 * @throws org.ocelotds.marshalling.exceptions.JsonMarshallingException
+	 */
+	@Test
+	public void testSendObjectToTopicConflated() throws JsonMarshallingException {
+		System.out.println("sendObjectToTopicConflated");
+		EventMetadata metadata = mock(EventMetadata.class);
+		InjectionPoint injectionPoint = mock(InjectionPoint.class);
+		Annotated annotated = mock(Annotated.class);
+		JsTopicEvent jte = mock(JsTopicEvent.class);
+		JsTopicConflate jtc = mock(JsTopicConflate.class);
+
+		when(metadata.getInjectionPoint()).thenReturn(injectionPoint);
+		when(injectionPoint.getAnnotated()).thenReturn(annotated);
+		when(annotated.getAnnotation(JsTopicEvent.class)).thenReturn(jte);
+		when(annotated.getAnnotation(JsTopicConflate.class)).thenReturn(jtc);
+		when(jte.value()).thenReturn(TOPIC);
+		when(jte.jsonPayload()).thenReturn(true);
+		when(jtc.key()).thenReturn("symbol");
+
+		instance.sendObjectToTopic("{\"symbol\":\"EUR\"}", metadata);
+
+		ArgumentCaptor<MessageToClient> captureMtC = ArgumentCaptor.forClass(MessageToClient.class);
+		verify(topicsMessagesBroadcaster).sendMessageToTopic(captureMtC.capture(), any());
+		assertThat(captureMtC.getValue().getConflationKey()).isEqualTo("TOPIC\u0000EUR");
 	}
 
 	/**
@@ -235,9 +267,9 @@ public class TopicsMessagesObserversTest {
 		System.out.println("sendMessageToTopic");
 		MessageToClient mtc = mock(MessageToClient.class);
 		doReturn(PAYLOAD).when(instance).getPayload(eq(mtc));
-		when(topicsMessagesBroadcaster.sendMessageToTopic(eq(mtc), eq(PAYLOAD))).thenReturn(1);
-		int result = instance.sendMessageToTopic(mtc);
-		assertThat(result).isEqualTo(1);
+		when(topicsMessagesBroadcaster.sendMessageToTopic(eq(mtc), eq(PAYLOAD))).thenReturn(CompletableFuture.completedFuture(1));
+		CompletableFuture<Integer> result = instance.sendMessageToTopic(mtc);
+		assertThat(result.join()).isEqualTo(1);
 		verify(topicsMessagesBroadcaster).sendMessageToTopic(eq(mtc), eq(PAYLOAD));
 	}
 	
@@ -254,11 +286,11 @@ public class TopicsMessagesObserversTest {
 		when(ocelotContext.getHttpSession()).thenReturn(null, httpSession);
 		when(sessionManager.getUserSessions(eq("HTTPID"))).thenReturn(userSessions);
 		doReturn("PAYLOAD").when(instance).getPayload(eq(mtc));
-		when(topicsMessagesBroadcaster.sendMessageToTopic(eq(userSessions), eq(mtc), eq("PAYLOAD"))).thenReturn(5);
-		int result = instance.sendMessageToUserTopic(mtc);
-		assertThat(result).isEqualTo(0);
+		when(topicsMessagesBroadcaster.sendMessageToTopic(eq(userSessions), eq(mtc), eq("PAYLOAD"))).thenReturn(CompletableFuture.completedFuture(5));
+		CompletableFuture<Integer> result = instance.sendMessageToUserTopic(mtc);
+		assertThat(result.join()).isEqualTo(0);
 		result = instance.sendMessageToUserTopic(mtc);
-		assertThat(result).isEqualTo(5);
+		assertThat(result.join()).isEqualTo(5);
 	}
 
 	/**
@@ -4,13 +4,20 @@
 package org.ocelotds.web.rest;
 
 import org.ocelotds.topic.UserContextFactory;
+import java.security.Principal;
+import java.util.Arrays;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpSession;
+import javax.ws.rs.container.AsyncResponse;
 import org.junit.Test;
 import static org.mockito.Mockito.*;
 import static org.assertj.core.api.Assertions.*;
 import org.junit.runner.RunWith;
+import org.mockito.ArgumentCaptor;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -18,6 +25,9 @@ import org.mockito.runners.MockitoJUnitRunner;
 import org.ocelotds.Constants;
 import org.ocelotds.context.ThreadLocalContextHolder;
 import org.ocelotds.core.mtc.RSMessageToClientManager;
+import org.ocelotds.core.services.FaultServices;
+import org.ocelotds.core.ws.CommandExecutor;
+import org.ocelotds.messaging.Fault;
 import org.ocelotds.messaging.MessageFromClient;
 import org.ocelotds.messaging.MessageToClient;
 import org.slf4j.Logger;
@@ -46,6 +56,12 @@ public class RSEndpointTest {
 	@Mock
 	private Logger logger;
 
+	@Mock
+	private CommandExecutor commandExecutor;
+
+	@Mock
+	private FaultServices faultServices;
+
 	/**
 	 * Test of getMessageToClient method, of class RSEndpoint.
 	 */
@@ -64,9 +80,119 @@ public class RSEndpointTest {
 		
 		when(messageToClientService.createMessageToClient(any(MessageFromClient.class), any(HttpSession.class))).thenReturn(mtc);
 		when(mtc.toJson()).thenReturn("RESULT");
-		String result = instance.getMessageToClient(json);
-		assertThat(result).isEqualTo("RESULT");
+		AsyncResponse asyncResponse = mock(AsyncResponse.class);
+		instance.getMessageToClient(json, asyncResponse);
+		verify(asyncResponse).resume(eq("RESULT"));
 		verify(messageToClientService).createMessageToClient(any(MessageFromClient.class), any(HttpSession.class));
+		verify(commandExecutor, never()).execute(any(Runnable.class));
+	}
+
+	/**
+	 * Test of getMessageToClient method, of class RSEndpoint, in virtual mode.
+	 */
+	@Test
+	public void testGetMessageToClientVirtual() {
+		System.out.println("getMessageToClientVirtual");
+		MessageToClient mtc = mock(MessageToClient.class);
+		HttpSession session = mock(HttpSession.class);
+		when(request.getSession()).thenReturn(session);
+		when(commandExecutor.isVirtual()).thenReturn(true);
+		doNothing().when(instance).setContext(any(HttpSession.class));
+		String json = String.format("{\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":%s}",
+				  Constants.Message.ID, UUID.randomUUID().toString(),
+				  Constants.Message.DATASERVICE, "DataServiceClassName",
+				  Constants.Message.OPERATION, "methodName",
+				  Constants.Message.ARGUMENTS, "[\"arg\"]");
+		when(messageToClientService.createMessageToClient(any(MessageFromClient.class), any(HttpSession.class))).thenReturn(mtc);
+		when(mtc.toJson()).thenReturn("RESULT");
+		AsyncResponse asyncResponse = mock(AsyncResponse.class);
+
+		instance.getMessageToClient(json, asyncResponse);
+
+		ArgumentCaptor<Runnable> captureCommand = ArgumentCaptor.forClass(Runnable.class);
+		verify(commandExecutor).execute(captureCommand.capture());
+		verify(asyncResponse, never()).resume(any(Object.class));
+		captureCommand.getValue().run();
+		verify(asyncResponse).resume(eq("RESULT"));
+	}
+
+	/**
+	 * Test of getMessageToClient method, of class RSEndpoint, in virtual mode when workers are busy.
+	 */
+	@Test
+	public void testGetMessageToClientRejected() {
+		System.out.println("getMessageToClientRejected");
+		HttpSession session = mock(HttpSession.class);
+		when(request.getSession()).thenReturn(session);
+		when(commandExecutor.isVirtual()).thenReturn(true);
+		doThrow(RejectedExecutionException.class).when(commandExecutor).execute(any(Runnable.class));
+		doNothing().when(instance).setContext(any(HttpSession.class));
+		Fault fault = new Fault(new RejectedExecutionException(), 0);
+		when(faultServices.buildFault(any(Throwable.class))).thenReturn(fault);
+		String json = String.format("{\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":%s}",
+				  Constants.Message.ID, "ID",
+				  Constants.Message.DATASERVICE, "DataServiceClassName",
+				  Constants.Message.OPERATION, "methodName",
+				  Constants.Message.ARGUMENTS, "[\"arg\"]");
+		AsyncResponse asyncResponse = mock(AsyncResponse.class);
+
+		instance.getMessageToClient(json, asyncResponse);
+
+		ArgumentCaptor<String> captureJson = ArgumentCaptor.forClass(String.class);
+		verify(asyncResponse).resume(captureJson.capture());
+		assertThat(captureJson.getValue()).contains("\"ID\"").contains("RejectedExecutionException");
+		verify(messageToClientService, never()).createMessageToClient(any(MessageFromClient.class), any(HttpSession.class));
+	}
+
+	/**
+	 * Test of getMessageToClient method, of class RSEndpoint, with a batch of messages.
+	 */
+	@Test
+	public void testGetMessageToClientBatch() {
+		System.out.println("getMessageToClientBatch");
+		HttpSession session = mock(HttpSession.class);
+		when(request.getSession()).thenReturn(session);
+		doNothing().when(instance).setContext(any(HttpSession.class));
+		when(commandExecutor.allOf(anyList())).thenCallRealMethod();
+		MessageToClient mtc1 = new MessageToClient();
+		mtc1.setId("1");
+		MessageToClient mtc2 = new MessageToClient();
+		mtc2.setId("2");
+		when(messageToClientService.createMessageToClient(any(MessageFromClient.class), any(HttpSession.class))).thenReturn(mtc1).thenReturn(mtc2);
+		String format = "{\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":[]}";
+		String json = "[" + String.format(format, Constants.Message.ID, "1", Constants.Message.DATASERVICE, "DataServiceClassName", Constants.Message.OPERATION, "methodName", Constants.Message.ARGUMENTS)
+				  + "," + String.format(format, Constants.Message.ID, "2", Constants.Message.DATASERVICE, "DataServiceClassName", Constants.Message.OPERATION, "methodName", Constants.Message.ARGUMENTS) + "]";
+		AsyncResponse asyncResponse = mock(AsyncResponse.class);
+
+		instance.getMessageToClient(json, asyncResponse);
+
+		verify(messageToClientService, times(2)).createMessageToClient(any(MessageFromClient.class), any(HttpSession.class));
+		verify(asyncResponse).resume(eq(MessageToClient.toJson(Arrays.asList(mtc1, mtc2))));
+	}
+
+	/**
+	 * Test of getMessageToClient method, of class RSEndpoint, with a batch of messages in virtual mode when workers are busy.
+	 */
+	@Test
+	public void testGetMessageToClientBatchRejected() {
+		System.out.println("getMessageToClientBatchRejected");
+		HttpSession session = mock(HttpSession.class);
+		when(request.getSession()).thenReturn(session);
+		when(commandExecutor.isVirtual()).thenReturn(true);
+		doThrow(RejectedExecutionException.class).when(commandExecutor).execute(any(Runnable.class));
+		doNothing().when(instance).setContext(any(HttpSession.class));
+		when(faultServices.buildFault(any(Throwable.class))).thenReturn(new Fault(new RejectedExecutionException(), 0));
+		String format = "{\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":[]}";
+		String json = "[" + String.format(format, Constants.Message.ID, "ID1", Constants.Message.DATASERVICE, "DataServiceClassName", Constants.Message.OPERATION, "methodName", Constants.Message.ARGUMENTS)
+				  + "," + String.format(format, Constants.Message.ID, "ID2", Constants.Message.DATASERVICE, "DataServiceClassName", Constants.Message.OPERATION, "methodName", Constants.Message.ARGUMENTS) + "]";
+		AsyncResponse asyncResponse = mock(AsyncResponse.class);
+
+		instance.getMessageToClient(json, asyncResponse);
+
+		ArgumentCaptor<String> captureJson = ArgumentCaptor.forClass(String.class);
+		verify(asyncResponse).resume(captureJson.capture());
+		assertThat(captureJson.getValue()).startsWith("[").endsWith("]").contains("\"ID1\"").contains("\"ID2\"");
+		verify(messageToClientService, never()).createMessageToClient(any(MessageFromClient.class), any(HttpSession.class));
 	}
 
 	/**
@@ -76,9 +202,62 @@ public class RSEndpointTest {
 	public void testSetContext() {
 		System.out.println("setContext");
 		HttpSession session = mock(HttpSession.class);
+		Principal principal = mock(Principal.class);
+		when(request.getUserPrincipal()).thenReturn(principal);
 		instance.setContext(session);
 		instance.setContext(session);
 		assertThat(ThreadLocalContextHolder.get(Constants.HTTPSESSION)).isEqualTo(session);
 		assertThat(ThreadLocalContextHolder.get(Constants.HTTPREQUEST)).isEqualTo(request);
+		assertThat(ThreadLocalContextHolder.get(Constants.PRINCIPAL)).isEqualTo(principal);
+		ThreadLocalContextHolder.cleanupThread();
+	}
+
+	/**
+	 * Test of getMessageToClient method, of class RSEndpoint, when call fails.
+	 */
+	@Test
+	public void testGetMessageToClientFailed() {
+		System.out.println("getMessageToClientFailed");
+		HttpSession session = mock(HttpSession.class);
+		when(request.getSession()).thenReturn(session);
+		doNothing().when(instance).setContext(any(HttpSession.class));
+		when(messageToClientService.createMessageToClient(any(MessageFromClient.class), any(HttpSession.class))).thenThrow(IllegalStateException.class);
+		when(faultServices.buildFault(any(Throwable.class))).thenReturn(new Fault(new IllegalStateException(), 0));
+		String json = String.format("{\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":[]}", Constants.Message.ID, "ID", Constants.Message.DATASERVICE, "DataServiceClassName", Constants.Message.OPERATION, "methodName", Constants.Message.ARGUMENTS);
+		AsyncResponse asyncResponse = mock(AsyncResponse.class);
+
+		instance.getMessageToClient(json, asyncResponse);
+
+		ArgumentCaptor<String> captureJson = ArgumentCaptor.forClass(String.class);
+		verify(asyncResponse).resume(captureJson.capture());
+		assertThat(captureJson.getValue()).contains("\"ID\"").contains("IllegalStateException");
+	}
+
+	/**
+	 * Test of getMessageToClient method, of class RSEndpoint, with a batch of messages in parallel when calls fail or are rejected.
+	 */
+	@Test
+	public void testGetMessageToClientBatchFailed() {
+		System.out.println("getMessageToClientBatchFailed");
+		HttpSession session = mock(HttpSession.class);
+		when(request.getSession()).thenReturn(session);
+		doNothing().when(instance).setContext(any(HttpSession.class));
+		when(commandExecutor.isBatchParallel()).thenReturn(true);
+		CompletableFuture<MessageToClient> failed = new CompletableFuture<>();
+		failed.completeExceptionally(new IllegalStateException());
+		when(commandExecutor.supplyAsync(any(Supplier.class))).thenThrow(RejectedExecutionException.class).thenReturn(failed);
+		when(commandExecutor.allOf(anyList())).thenCallRealMethod();
+		when(faultServices.buildFault(any(Throwable.class))).thenReturn(new Fault(new RejectedExecutionException(), 0));
+		String format = "{\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":[]}";
+		String json = "[" + String.format(format, Constants.Message.ID, "ID1", Constants.Message.DATASERVICE, "DataServiceClassName", Constants.Message.OPERATION, "methodName", Constants.Message.ARGUMENTS)
+				  + "," + String.format(format, Constants.Message.ID, "ID2", Constants.Message.DATASERVICE, "DataServiceClassName", Constants.Message.OPERATION, "methodName", Constants.Message.ARGUMENTS) + "]";
+		AsyncResponse asyncResponse = mock(AsyncResponse.class);
+
+		instance.getMessageToClient(json, asyncResponse);
+
+		ArgumentCaptor<String> captureJson = ArgumentCaptor.forClass(String.class);
+		verify(asyncResponse).resume(captureJson.capture());
+		assertThat(captureJson.getValue()).startsWith("[").endsWith("]").contains("\"ID1\"").contains("\"ID2\"");
+		verify(faultServices, times(2)).buildFault(any(Throwable.class));
 	}
 }
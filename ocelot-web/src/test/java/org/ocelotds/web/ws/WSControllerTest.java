@@ -4,12 +4,14 @@
 package org.ocelotds.web.ws;
 
 import java.io.IOException;
+import java.security.Principal;
 import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.RejectedExecutionException;
 import javax.servlet.http.HttpSession;
 import javax.websocket.CloseReason;
 import javax.websocket.EndpointConfig;
@@ -27,8 +29,13 @@ import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ocelotds.Constants;
 import org.ocelotds.configuration.LocaleExtractor;
+import org.ocelotds.context.CancellationToken;
 import org.ocelotds.context.ThreadLocalContextHolder;
+import org.ocelotds.core.mtc.SessionBeansStore;
 import org.ocelotds.core.ws.CallServiceManager;
+import org.ocelotds.core.ws.CancellationManager;
+import org.ocelotds.core.ws.MessageSender;
+import org.ocelotds.core.ws.CommandExecutor;
 import org.ocelotds.exceptions.LocaleNotFoundException;
 import org.ocelotds.topic.UserContextFactory;
 import org.ocelotds.topic.TopicManager;
@@ -61,6 +68,18 @@ public class WSControllerTest {
 	@Mock
 	private LocaleExtractor localeExtractor;
 
+	@Mock
+	private SessionBeansStore sessionBeansStore;
+
+	@Mock
+	private CommandExecutor commandExecutor;
+
+	@Mock
+	private CancellationManager cancellationManager;
+
+	@Mock
+	private MessageSender messageSender;
+
 	/**
 	 * Test of handleOpenConnexion method, of class WSEndpoint.
 	 *
@@ -94,6 +113,8 @@ public class WSControllerTest {
 		when(session.getId()).thenReturn(UUID.randomUUID().toString());
 		Throwable t = new Exception();
 		instance.onError(session, t);
+		verify(sessionBeansStore).removeSessionBeans(eq(session.getId()));
+		verify(messageSender).removeSession(eq(session.getId()));
 	}
 
 	/**
@@ -116,6 +137,10 @@ public class WSControllerTest {
 		instance.handleClosedConnexion(session, closeReason);
 		when(session.isOpen()).thenReturn(false);
 		instance.handleClosedConnexion(session, closeReason);
+		verify(sessionBeansStore, times(4)).removeSessionBeans(eq(session.getId()));
+		verify(commandExecutor, times(4)).removeSession(eq(session.getId()));
+		verify(cancellationManager, times(4)).removeSession(eq(session.getId()));
+		verify(messageSender, times(4)).removeSession(eq(session.getId()));
 	}
 
 	/**
@@ -135,13 +160,110 @@ public class WSControllerTest {
 
 		ArgumentCaptor<MessageFromClient> captureMsg = ArgumentCaptor.forClass(MessageFromClient.class);
 		ArgumentCaptor<Session> captureSession = ArgumentCaptor.forClass(Session.class);
-		verify(callServiceManager).sendMessageToClient(captureMsg.capture(), captureSession.capture());
+		verify(callServiceManager).sendMessageToClient(captureMsg.capture(), any(CancellationToken.class), captureSession.capture());
 
 		MessageFromClient result = captureMsg.getValue();
 		assertThat(result.getId()).isEqualTo("111");
 		assertThat(result.getDataService()).isEqualTo("ClassName");
 		assertThat(result.getOperation()).isEqualTo("methodName");
 		assertThat(result.getParameters()).containsExactly("\"toto\"", "5", "true");
+		verify(commandExecutor, never()).execute(anyString(), any(Runnable.class));
+	}
+
+	/**
+	 * Test of receiveCommandMessage method, of class WSEndpoint, with workers.
+	 */
+	@Test
+	public void testReceiveCommandMessageWithWorkers() {
+		System.out.println("receiveCommandMessageWithWorkers");
+		Session client = mock(Session.class);
+		Principal principal = mock(Principal.class);
+		when(client.getId()).thenReturn("WSSESSIONID");
+		when(client.getUserPrincipal()).thenReturn(principal);
+		when(commandExecutor.isEnabled()).thenReturn(true);
+		String json = String.format("{\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":[]}",
+				  Constants.Message.ID, "111",
+				  Constants.Message.DATASERVICE, "ClassName",
+				  Constants.Message.OPERATION, "methodName",
+				  Constants.Message.ARGUMENTS);
+		instance.receiveCommandMessage(client, json);
+
+		ArgumentCaptor<Runnable> captureCommand = ArgumentCaptor.forClass(Runnable.class);
+		verify(commandExecutor).execute(eq("WSSESSIONID"), captureCommand.capture());
+		verify(callServiceManager, never()).sendMessageToClient(any(MessageFromClient.class), any(CancellationToken.class), any(Session.class));
+		// principal of websocket session is in context given to worker
+		assertThat(ThreadLocalContextHolder.get(Constants.PRINCIPAL)).isSameAs(principal);
+		ThreadLocalContextHolder.cleanupThread();
+
+		captureCommand.getValue().run();
+		ArgumentCaptor<MessageFromClient> captureMsg = ArgumentCaptor.forClass(MessageFromClient.class);
+		verify(callServiceManager).sendMessageToClient(captureMsg.capture(), any(CancellationToken.class), eq(client));
+		assertThat(captureMsg.getValue().getId()).isEqualTo("111");
+	}
+
+	/**
+	 * Test of receiveCommandMessage method, of class WSEndpoint, when workers are busy.
+	 */
+	@Test
+	public void testReceiveCommandMessageRejected() {
+		System.out.println("receiveCommandMessageRejected");
+		Session client = mock(Session.class);
+		when(client.getId()).thenReturn("WSSESSIONID");
+		when(commandExecutor.isEnabled()).thenReturn(true);
+		RejectedExecutionException ree = new RejectedExecutionException();
+		doThrow(ree).when(commandExecutor).execute(anyString(), any(Runnable.class));
+		String json = String.format("{\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":[]}",
+				  Constants.Message.ID, "111",
+				  Constants.Message.DATASERVICE, "ClassName",
+				  Constants.Message.OPERATION, "methodName",
+				  Constants.Message.ARGUMENTS);
+		instance.receiveCommandMessage(client, json);
+
+		verify(callServiceManager).sendFaultToClient(any(MessageFromClient.class), eq(client), eq(ree));
+		verify(callServiceManager, never()).sendMessageToClient(any(MessageFromClient.class), any(CancellationToken.class), any(Session.class));
+		verify(cancellationManager).register(eq("WSSESSIONID"), eq("111"));
+		verify(cancellationManager).unregister(eq("WSSESSIONID"), eq("111"), any(CancellationToken.class));
+	}
+
+	/**
+	 * Test of receiveCommandMessage method, of class WSEndpoint, with a batch of messages.
+	 */
+	@Test
+	public void testReceiveCommandMessageBatch() {
+		System.out.println("receiveCommandMessageBatch");
+		Session client = mock(Session.class);
+		String format = "{\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":[]}";
+		String json = "[" + String.format(format, Constants.Message.ID, "111", Constants.Message.DATASERVICE, "ClassName", Constants.Message.OPERATION, "methodName", Constants.Message.ARGUMENTS)
+				  + "," + String.format(format, Constants.Message.ID, "222", Constants.Message.DATASERVICE, "ClassName", Constants.Message.OPERATION, "methodName", Constants.Message.ARGUMENTS) + "]";
+		instance.receiveCommandMessage(client, json);
+
+		ArgumentCaptor<List> captureMsgs = ArgumentCaptor.forClass(List.class);
+		verify(callServiceManager).sendMessagesToClient(captureMsgs.capture(), anyList(), eq(client));
+		verify(callServiceManager, never()).sendMessageToClient(any(MessageFromClient.class), any(CancellationToken.class), any(Session.class));
+		List<MessageFromClient> result = captureMsgs.getValue();
+		assertThat(result).hasSize(2);
+		assertThat(result.get(0).getId()).isEqualTo("111");
+		assertThat(result.get(1).getId()).isEqualTo("222");
+	}
+
+	/**
+	 * Test of receiveCommandMessage method, of class WSEndpoint, with a batch of messages when workers are busy.
+	 */
+	@Test
+	public void testReceiveCommandMessageBatchRejected() {
+		System.out.println("receiveCommandMessageBatchRejected");
+		Session client = mock(Session.class);
+		when(client.getId()).thenReturn("WSSESSIONID");
+		when(commandExecutor.isEnabled()).thenReturn(true);
+		RejectedExecutionException ree = new RejectedExecutionException();
+		doThrow(ree).when(commandExecutor).execute(anyString(), any(Runnable.class));
+		String format = "{\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":\"%s\",\"%s\":[]}";
+		String json = "[" + String.format(format, Constants.Message.ID, "111", Constants.Message.DATASERVICE, "ClassName", Constants.Message.OPERATION, "methodName", Constants.Message.ARGUMENTS)
+				  + "," + String.format(format, Constants.Message.ID, "222", Constants.Message.DATASERVICE, "ClassName", Constants.Message.OPERATION, "methodName", Constants.Message.ARGUMENTS) + "]";
+		instance.receiveCommandMessage(client, json);
+
+		verify(callServiceManager, times(2)).sendFaultToClient(any(MessageFromClient.class), eq(client), eq(ree));
+		verify(callServiceManager, never()).sendMessagesToClient(anyList(), anyList(), any(Session.class));
 	}
 	
 //	public <T> void testGetCDI(Class<T> res, T inst, Method m) throws InstantiationException, IllegalAccessException, IllegalArgumentException, InvocationTargetException {
@@ -235,4 +357,22 @@ public class WSControllerTest {
 		Locale result = instance.getLocale(request);
 		assertThat(result).isEqualTo(Locale.FRANCE);
 	}
+
+
+	/**
+	 * Test of receiveCommandMessage method, of class WSEndpoint, with cancel of a call.
+	 */
+	@Test
+	public void testReceiveCommandMessageCancel() {
+		System.out.println("receiveCommandMessageCancel");
+		Session client = mock(Session.class);
+		when(client.getId()).thenReturn("WSSESSIONID");
+		String json = String.format("{\"%s\":\"%s\"}", Constants.Message.CANCEL, "111");
+		instance.receiveCommandMessage(client, json);
+
+		verify(cancellationManager).cancel(eq("WSSESSIONID"), eq("111"));
+		verify(cancellationManager, never()).register(anyString(), anyString());
+		verify(callServiceManager, never()).sendMessageToClient(any(MessageFromClient.class), any(CancellationToken.class), any(Session.class));
+		verify(commandExecutor, never()).execute(anyString(), any(Runnable.class));
+	}
 }
@@ -4,6 +4,8 @@
 
 package org.ocelotds.web.ws;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
 import javax.websocket.CloseReason;
 import javax.websocket.EndpointConfig;
 import javax.websocket.Session;
@@ -15,6 +17,7 @@ import org.mockito.InjectMocks;
 import org.mockito.Spy;
 import org.mockito.runners.MockitoJUnitRunner;
 import org.ocelotds.core.CdiBeanResolver;
+import org.ocelotds.encoders.CborCodec;
 
 /**
  *
@@ -112,4 +115,20 @@ public class WSEndpointTest {
 //		assertThat(result).isInstanceOf(CdiBeanResolver.class);
 //	}
 
-}
\ No newline at end of file
+
+	/**
+	 * Test of receiveBinaryCommandMessage method, of class WSEndpoint.
+	 *
+	 * @throws java.io.IOException
+	 */
+	@Test
+	public void testReceiveBinaryCommandMessage() throws IOException {
+		System.out.println("receiveBinaryCommandMessage");
+		Session session = mock(Session.class);
+		WSController wSController = mock(WSController.class);
+		doReturn(wSController).when(instance).getWSController();
+
+		instance.receiveBinaryCommandMessage(session, ByteBuffer.wrap(CborCodec.encode("{\"id\":\"1\"}")));
+		verify(wSController).receiveCommandMessage(eq(session), eq("{\"id\":\"1\"}"));
+	}
+}